@@ -3,8 +3,10 @@ package com.pizza.pizzashop;
 import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class PizzaShopApplication {
 
     public static void main(String[] args) {
@@ -4,16 +4,26 @@ import com.pizza.pizzashop.dtos.LoginDTO;
 import com.pizza.pizzashop.dtos.basic.SuccessDTO;
 import com.pizza.pizzashop.dtos.UserDTO;
 import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.exceptions.UserNotFoundException;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsService;
+import com.pizza.pizzashop.security.LoginThrottleService.LoginThrottleService;
+import com.pizza.pizzashop.security.RefreshToken;
+import com.pizza.pizzashop.security.RefreshTokenService.RefreshTokenService;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochService;
+import com.pizza.pizzashop.security.TokenRevocationService.TokenRevocationService;
+import com.pizza.pizzashop.security.VerifiedToken;
 import com.pizza.pizzashop.services.AuthService.AuthService;
 import com.pizza.pizzashop.utils.GlobalExceptionHandler;
 import com.pizza.pizzashop.utils.JWTHelper;
-import com.pizza.pizzashop.utils.RedisHelper;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,12 +33,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.util.WebUtils;
 
 /**
  * This class handles authentication-related API endpoints for user sign-in, sign-up, and sign-out operations.
  * It provides methods to perform user authentication, generate and manage JWT (JSON Web Token) for users,
- * and interact with Redis for token management.
+ * and revoke tokens on sign-out, either one at a time or all tokens of a user at once.
+ * Access tokens are short-lived; clients exchange the rotating refresh token, which is only ever sent
+ * to the authentication endpoints, for new ones.
  */
 @Validated
 @RestController
@@ -37,53 +48,76 @@ public class AuthController {
     // Dependencies required for authentication and user-related services
     private final AuthenticationManager authenticationManager;
     private final JWTHelper jwtHelper;
-    private final RedisHelper redisHelper;
     private final AuthService authService;
+    private final TokenRevocationService tokenRevocationService;
+    private final TokenEpochService tokenEpochService;
+    private final LoginThrottleService loginThrottleService;
+    private final RefreshTokenService refreshTokenService;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final long refreshTokenLifetime;
 
     private static final String COOKIE_TOKEN_NAME = "access_token";
+    private static final String COOKIE_REFRESH_TOKEN_NAME = "refresh_token";
+    private static final String COOKIE_REFRESH_TOKEN_PATH = "/api/auth";
 
     @Autowired
     public AuthController(
             AuthenticationManager authenticationManager,
             JWTHelper jwtHelper,
-            RedisHelper redisHelper,
-            AuthService authService
+            AuthService authService,
+            TokenRevocationService tokenRevocationService,
+            TokenEpochService tokenEpochService,
+            LoginThrottleService loginThrottleService,
+            RefreshTokenService refreshTokenService,
+            CustomUserDetailsService customUserDetailsService,
+            @Value("${jwt.refresh_token.lifetime:604800000}") Long refreshTokenLifetime
     ) {
         this.authenticationManager = authenticationManager;
         this.jwtHelper = jwtHelper;
-        this.redisHelper = redisHelper;
         this.authService = authService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.tokenEpochService = tokenEpochService;
+        this.loginThrottleService = loginThrottleService;
+        this.refreshTokenService = refreshTokenService;
+        this.customUserDetailsService = customUserDetailsService;
+        this.refreshTokenLifetime = refreshTokenLifetime;
     }
 
     /**
      * Handle HTTP POST requests to "/api/auth/sign-in" for user sign-in.
+     * Attempts are throttled per IP address and per login before any password is verified.
      *
      * @param loginDTO         The login DTO containing user login credentials.
      * @param validationResult The BindingResult object that holds validation errors, if any.
-     * @param response         The HttpServletResponse object used to add an HTTP-only cookie for the access token.
+     * @param request          The HttpServletRequest object the client's IP address is taken from.
+     * @param response         The HttpServletResponse object used to add HTTP-only cookies for the access and refresh tokens.
      * @return A ResponseEntity containing a SuccessDTO with the UserDTO representing the signed-in user.
      * @throws RequestDataValidationFailedException     If there are validation errors in the loginDTO.
      * @throws AuthenticationFailedException If user authentication fails during the sign-in process.
+     * @throws LoginThrottledException       If too many sign-in attempts were made from the IP address or for the login.
      */
     @PostMapping("/sign-in")
     public ResponseEntity<SuccessDTO<UserDTO>> singIn(
             @Valid @RequestBody LoginDTO loginDTO,
             BindingResult validationResult,
+            HttpServletRequest request,
             HttpServletResponse response
-    ) throws RequestDataValidationFailedException, AuthenticationFailedException {
+    ) throws RequestDataValidationFailedException, AuthenticationFailedException, LoginThrottledException {
         if (validationResult.hasErrors()) {
             throw new RequestDataValidationFailedException(GlobalExceptionHandler.handleValidationResults(validationResult));
         }
+        loginThrottleService.acquire(request.getRemoteAddr(), loginDTO.getLogin());
         Authentication authentication = authenticationManager
                 .authenticate(new UsernamePasswordAuthenticationToken(loginDTO.getLogin(), loginDTO.getPassword()));
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        UserDTO userDTO = authService.signIn(loginDTO);
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        UserDTO userDTO = authService.signIn(userDetails);
 
-        Cookie accessTokenCookie = new Cookie(COOKIE_TOKEN_NAME, jwtHelper.generateToken(authentication));
-        accessTokenCookie.setHttpOnly(true);
-        accessTokenCookie.setPath("/");
-        response.addCookie(accessTokenCookie);
+        // Issued first, so that no cookie is set if the session cannot be started
+        RefreshToken refreshToken = refreshTokenService.issue(userDetails.getId());
+        addAccessTokenCookie(response, authentication, refreshToken.getEpoch());
+        addRefreshTokenCookie(response, refreshToken);
 
         return new ResponseEntity<>(
                 new SuccessDTO<>(
@@ -119,21 +153,65 @@ public class AuthController {
                 ), HttpStatus.CREATED);
     }
 
+    /**
+     * Handle HTTP POST requests to "/api/auth/refresh" for exchanging a refresh token for a new access token.
+     * The refresh token is rotated: the presented one is consumed and a new one is set.
+     *
+     * @param refreshToken The refresh token from the "refresh_token" cookie, or null if there is none.
+     * @param response     The HttpServletResponse object used to add HTTP-only cookies for the access and refresh tokens.
+     * @return A ResponseEntity containing a SuccessDTO with a message indicating a successful refresh.
+     * @throws AuthenticationFailedException If the refresh token is missing, invalid, already used, expired or revoked.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<SuccessDTO<String>> refresh(
+            @CookieValue(name = COOKIE_REFRESH_TOKEN_NAME, required = false) String refreshToken,
+            HttpServletResponse response
+    ) throws AuthenticationFailedException {
+        RefreshToken rotatedToken = refreshTokenService.rotate(refreshToken);
+        CustomUserDetails userDetails;
+        try {
+            userDetails = customUserDetailsService.loadById(rotatedToken.getUserId());
+        } catch (UserNotFoundException e) {
+            refreshTokenService.revoke(rotatedToken.getToken());
+            throw new AuthenticationFailedException("User was not found");
+        }
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities());
+        addAccessTokenCookie(response, authentication, rotatedToken.getEpoch());
+        addRefreshTokenCookie(response, rotatedToken);
+        return new ResponseEntity<>(
+                new SuccessDTO<>(
+                        HttpStatus.OK.value(),
+                        "Refresh",
+                        "Successfully refreshed the access token"
+                ), HttpStatus.OK);
+    }
+
     /**
      * Handle HTTP POST requests to "/api/auth/sign-out" for user sign-out.
+     * Revokes the access token and the session of the refresh token, if there is one.
      *
-     * @param request The HttpServletRequest object used to extract the access token from the cookie.
+     * @param verifiedToken The VerifiedToken put on the request by JWTAuthenticationFilter, or null if there is none.
+     * @param refreshToken  The refresh token from the "refresh_token" cookie, or null if there is none.
+     * @param response      The HttpServletResponse object used to clear the refresh token cookie.
      * @return A ResponseEntity containing a SuccessDTO with a message indicating successful sign-out.
      * @throws AuthenticationFailedException If user authentication fails while retrieving user information.
      */
     @PostMapping("/sign-out")
-    public ResponseEntity<SuccessDTO<String>> signOut(HttpServletRequest request) throws AuthenticationFailedException {
-        Cookie tokenCookie = WebUtils.getCookie(request, COOKIE_TOKEN_NAME);
-        if (tokenCookie == null) {
+    public ResponseEntity<SuccessDTO<String>> signOut(
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken verifiedToken,
+            @CookieValue(name = COOKIE_REFRESH_TOKEN_NAME, required = false) String refreshToken,
+            HttpServletResponse response
+    ) throws AuthenticationFailedException {
+        if (verifiedToken == null) {
             throw new AuthenticationFailedException("No access token was found");
         }
-        String accessToken = tokenCookie.getValue();
-        redisHelper.add("blacklist", accessToken);
+        tokenRevocationService.revoke(verifiedToken);
+        refreshTokenService.revoke(refreshToken);
+        response.addCookie(createRefreshTokenCookie("", 0));
         return new ResponseEntity<>(
                 new SuccessDTO<>(
                         HttpStatus.OK.value(),
@@ -142,23 +220,45 @@ public class AuthController {
                 ), HttpStatus.OK);
     }
 
+    /**
+     * Handle HTTP POST requests to "/api/auth/sign-out-everywhere" for signing the user out on every device.
+     * Bumps the user's token epoch, which revokes all access and refresh tokens issued to the user so far.
+     *
+     * @param verifiedToken The VerifiedToken put on the request by JWTAuthenticationFilter, or null if there is none.
+     * @return A ResponseEntity containing a SuccessDTO with a message indicating successful sign-out.
+     * @throws AuthenticationFailedException If user authentication fails while retrieving user information.
+     */
+    @PostMapping("/sign-out-everywhere")
+    public ResponseEntity<SuccessDTO<String>> signOutEverywhere(
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken verifiedToken
+    ) throws AuthenticationFailedException {
+        if (verifiedToken == null) {
+            throw new AuthenticationFailedException("No access token was found");
+        }
+        tokenEpochService.bump(verifiedToken.getUserId());
+        return new ResponseEntity<>(
+                new SuccessDTO<>(
+                        HttpStatus.OK.value(),
+                        "Sign Out Everywhere",
+                        "Successfully signed out on every device"
+                ), HttpStatus.OK);
+    }
+
     /**
      * Handle HTTP GET requests to "/api/auth/current-user" for fetching the current logged-in user's information.
      *
-     * @param request The HttpServletRequest object used to extract the access token from the cookie.
+     * @param verifiedToken The VerifiedToken put on the request by JWTAuthenticationFilter, or null if there is none.
      * @return A ResponseEntity containing a SuccessDTO with the UserDTO representing the current user.
      * @throws AuthenticationFailedException If user authentication fails while retrieving user information.
      */
     @GetMapping("/current-user")
     public ResponseEntity<SuccessDTO<UserDTO>> getCurrentUser(
-            HttpServletRequest request
+            @RequestAttribute(name = VerifiedToken.REQUEST_ATTRIBUTE, required = false) VerifiedToken verifiedToken
     ) throws AuthenticationFailedException {
-        Cookie tokenCookie = WebUtils.getCookie(request, COOKIE_TOKEN_NAME);
-        if (tokenCookie == null) {
+        if (verifiedToken == null) {
             throw new AuthenticationFailedException("No access token was found");
         }
-        String accessToken = tokenCookie.getValue();
-        UserDTO userDTO = authService.userInfo(jwtHelper.extractUserId(accessToken));
+        UserDTO userDTO = authService.userInfo(verifiedToken.getUserId());
         return new ResponseEntity<>(
                 new SuccessDTO<>(
                         HttpStatus.OK.value(),
@@ -166,4 +266,46 @@ public class AuthController {
                         userDTO
                 ), HttpStatus.OK);
     }
+
+    /**
+     * Helper method to add an HTTP-only cookie with a new access token to the response.
+     * The token carries the epoch of the refresh token issued with it, which was read strictly, so that it never
+     * carries the epoch of the fail-closed policy and stays revocable.
+     *
+     * @param response       The HttpServletResponse object to add the cookie to.
+     * @param authentication The authentication of the user.
+     * @param epoch          The epoch of the user the token is issued in.
+     */
+    private void addAccessTokenCookie(HttpServletResponse response, Authentication authentication, long epoch) {
+        Cookie accessTokenCookie = new Cookie(COOKIE_TOKEN_NAME, jwtHelper.generateToken(authentication, epoch));
+        accessTokenCookie.setHttpOnly(true);
+        accessTokenCookie.setPath("/");
+        response.addCookie(accessTokenCookie);
+    }
+
+    /**
+     * Helper method to add an HTTP-only cookie with a refresh token to the response.
+     *
+     * @param response     The HttpServletResponse object to add the cookie to.
+     * @param refreshToken The refresh token.
+     */
+    private void addRefreshTokenCookie(HttpServletResponse response, RefreshToken refreshToken) {
+        response.addCookie(createRefreshTokenCookie(refreshToken.getToken(), (int) (refreshTokenLifetime / 1000)));
+    }
+
+    /**
+     * Helper method to create the refresh token cookie, which is only sent to the authentication endpoints.
+     *
+     * @param value  The refresh token, or an empty string to clear the cookie.
+     * @param maxAge The lifetime of the cookie in seconds; 0 to clear it.
+     * @return The cookie.
+     */
+    private Cookie createRefreshTokenCookie(String value, int maxAge) {
+        Cookie refreshTokenCookie = new Cookie(COOKIE_REFRESH_TOKEN_NAME, value);
+        refreshTokenCookie.setHttpOnly(true);
+        refreshTokenCookie.setPath(COOKIE_REFRESH_TOKEN_PATH);
+        refreshTokenCookie.setMaxAge(maxAge);
+        refreshTokenCookie.setAttribute("SameSite", "Strict");
+        return refreshTokenCookie;
+    }
 }
@@ -0,0 +1,135 @@
+package com.pizza.pizzashop.controllers;
+
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Locale;
+
+/**
+ * This class holds the conditional request handling shared by the catalog endpoints.
+ * Every catalog response carries the catalog version as its ETag, and clients must revalidate before reusing it,
+ * so an unchanged catalog costs them a bodyless 304 answered from the snapshot in memory.
+ * The full listings are served as they were serialized and compressed with the snapshot, picking the gzip variant
+ * whenever the client accepts it, so no response is compressed per request.
+ */
+final class CatalogResponses {
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private CatalogResponses() {
+    }
+
+    /**
+     * Checks whether the client already has the current version of a catalog response.
+     *
+     * @param request  The HTTP request.
+     * @param snapshot The current catalog snapshot.
+     * @return True if the request can be answered with 304; otherwise, false.
+     */
+    static boolean isNotModified(HttpServletRequest request, CatalogSnapshot snapshot) {
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            ifModifiedSince = -1;
+        }
+        return snapshot.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), ifModifiedSince);
+    }
+
+    /**
+     * Starts a catalog response carrying the validators of the snapshot.
+     *
+     * @param status   The status of the response.
+     * @param snapshot The current catalog snapshot.
+     * @return The response builder.
+     */
+    static ResponseEntity.BodyBuilder withValidators(HttpStatus status, CatalogSnapshot snapshot) {
+        return withValidators(status, snapshot, snapshot.getETag());
+    }
+
+    /**
+     * Builds the response of a full catalog listing, gzip-compressed if the client accepts it.
+     * The response varies by Accept-Encoding, so shared caches keep both variants apart.
+     *
+     * @param request  The HTTP request.
+     * @param snapshot The current catalog snapshot.
+     * @param json     The serialized listing.
+     * @param gzipJson The gzip-compressed listing.
+     * @return The response, or a bodyless 304 if the client already has the current listing.
+     */
+    static ResponseEntity<byte[]> listing(
+            HttpServletRequest request,
+            CatalogSnapshot snapshot,
+            byte[] json,
+            byte[] gzipJson
+    ) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String eTag = gzip ? snapshot.getGzipETag() : snapshot.getETag();
+        if (isNotModified(request, snapshot)) {
+            return withValidators(HttpStatus.NOT_MODIFIED, snapshot, eTag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = withValidators(HttpStatus.OK, snapshot, eTag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipJson);
+        }
+        return response.body(json);
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows gzip, i.e. lists "gzip", "x-gzip", or "*" without q=0.
+     *
+     * @param acceptEncoding The value of the Accept-Encoding header, or null if there is none.
+     * @return True if the response may be gzip-compressed; otherwise, false.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Helper method to start a catalog response with the given ETag.
+     *
+     * @param status   The status of the response.
+     * @param snapshot The current catalog snapshot.
+     * @param eTag     The ETag of the selected representation.
+     * @return The response builder.
+     */
+    private static ResponseEntity.BodyBuilder withValidators(HttpStatus status, CatalogSnapshot snapshot, String eTag) {
+        return ResponseEntity.status(status)
+                .eTag(eTag)
+                .lastModified(snapshot.getLastModified())
+                .cacheControl(CACHE_CONTROL);
+    }
+}
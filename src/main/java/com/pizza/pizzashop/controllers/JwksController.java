@@ -0,0 +1,46 @@
+package com.pizza.pizzashop.controllers;
+
+import com.pizza.pizzashop.security.SigningKeyService.SigningKeyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * This class publishes the public keys that access tokens are signed with, so that other services
+ * can verify tokens without calling back. It only exists when tokens are signed with RS256.
+ */
+@RestController
+@ConditionalOnProperty(name = "jwt.signing.algorithm", havingValue = "RS256")
+public class JwksController {
+    private final SigningKeyService signingKeyService;
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public JwksController(
+            SigningKeyService signingKeyService,
+            @Value("${jwt.signing.jwks_cache_ttl:60000}") Long jwksCacheTtl
+    ) {
+        this.signingKeyService = signingKeyService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofMillis(jwksCacheTtl)).cachePublic();
+    }
+
+    /**
+     * Returns the JSON Web Key Set of all public keys that currently valid tokens may be signed with.
+     * The set is returned as is, without the usual SuccessDTO wrapper, as clients expect the standard format.
+     *
+     * @return ResponseEntity containing the key set, cacheable by clients for the configured time.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .body(signingKeyService.jwks());
+    }
+}
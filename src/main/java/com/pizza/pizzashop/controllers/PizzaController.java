@@ -1,71 +1,233 @@
 package com.pizza.pizzashop.controllers;
 
+import com.pizza.pizzashop.dtos.ImportReportDTO;
 import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.dtos.basic.SuccessDTO;
 import com.pizza.pizzashop.exceptions.NotFoundException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportService;
+import com.pizza.pizzashop.services.CatalogImportService.ImportFormat;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
 import com.pizza.pizzashop.services.PizzaService.PizzaService;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
 import com.pizza.pizzashop.utils.GlobalExceptionHandler;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This class handles pizza-related API endpoints for CRUD (Create, Read, Update, Delete) operations.
  * It provides methods to retrieve all pizzas, fetch a pizza by its ID, create a new pizza, update an existing pizza,
  * and delete a pizza from the system.
+ * The list of all pizzas is served from the catalog snapshot, as it was serialized when the catalog last changed.
+ * It is gzip-compressed along with the snapshot and sent compressed to every client accepting gzip.
+ * Requests with paging, sorting, or filtering parameters get one keyset-paginated page instead.
+ * Requests with a "fields" parameter get only the listed properties, read from the database column by column.
+ * All read endpoints carry the catalog version as their ETag and answer conditional requests with 304
+ * before touching the database.
+ * Menus are loaded with the import endpoint, which takes many pizzas as NDJSON or CSV in a single request.
  */
 @RestController
 @RequestMapping("/api/pizza")
 public class PizzaController {
+    private static final Set<String> SORT_KEYS = Set.of(
+            CatalogPageRequest.SORT_ID,
+            CatalogPageRequest.SORT_NAME,
+            CatalogPageRequest.SORT_PRICE,
+            CatalogPageRequest.SORT_WEIGHT
+    );
+
+    private static final List<String> FIELDS = List.of(
+            "id", "name", "weight", "price", "description", "imageUrl", "ingredients"
+    );
+
     private final PizzaService pizzaService;
+    private final CatalogService catalogService;
+    private final CatalogImportService catalogImportService;
 
     @Autowired
-    public PizzaController(PizzaService pizzaService) {
+    public PizzaController(
+            PizzaService pizzaService,
+            CatalogService catalogService,
+            CatalogImportService catalogImportService
+    ) {
         this.pizzaService = pizzaService;
+        this.catalogService = catalogService;
+        this.catalogImportService = catalogImportService;
     }
 
     /**
      * Handle HTTP GET requests to "/api/pizza" for retrieving all pizzas.
      *
-     * @return A ResponseEntity containing a SuccessDTO with a list of PizzaDTO representing all pizzas in the system.
+     * @param request The HTTP request, checked for conditional headers and Accept-Encoding.
+     * @return A ResponseEntity containing the serialized SuccessDTO with a list of PizzaDTO representing all pizzas in the system.
+     */
+    @GetMapping(params = {"!sort", "!cursor", "!limit", "!minPrice", "!maxPrice", "!minWeight", "!maxWeight", "!name", "!fields"})
+    public ResponseEntity<byte[]> getAllPizzas(HttpServletRequest request) {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        return CatalogResponses.listing(request, snapshot, snapshot.getPizzasJson(), snapshot.getPizzasJsonGzip());
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/pizza" with paging, sorting, or filtering parameters for retrieving one page of pizzas.
+     *
+     * @param sort      The sort order: "id", "name", "price", or "weight", prefixed with "-" for descending order.
+     * @param cursor    The cursor returned with the previous page, or null for the first page.
+     * @param limit     The maximum number of pizzas on the page.
+     * @param minPrice  The lowest price to include.
+     * @param maxPrice  The highest price to include.
+     * @param minWeight The lowest weight to include.
+     * @param maxWeight The highest weight to include.
+     * @param name      The case-insensitive prefix of the names to include.
+     * @param request   The HTTP request, checked for conditional headers.
+     * @return A ResponseEntity containing a SuccessDTO with a CursorPageDTO of PizzaDTO.
+     * @throws RequestDataValidationFailedException If a parameter is invalid.
      */
     @GetMapping
-    public ResponseEntity<SuccessDTO<List<PizzaDTO>>> getAllPizzas() {
-        List<PizzaDTO> pizzas = pizzaService.getAllPizzas();
-        return new ResponseEntity<>(
-                new SuccessDTO<>(
+    public ResponseEntity<SuccessDTO<CursorPageDTO<PizzaDTO>>> getPizzaPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer minWeight,
+            @RequestParam(required = false) Integer maxWeight,
+            @RequestParam(required = false) String name,
+            HttpServletRequest request
+    ) throws RequestDataValidationFailedException {
+        CatalogPageRequest pageRequest = CatalogPageRequest.parse(
+                sort, cursor, limit, minPrice, maxPrice, minWeight, maxWeight, name, SORT_KEYS);
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+        return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                .body(new SuccessDTO<>(
                         HttpStatus.OK.value(),
-                        "Pizza Get All",
-                        pizzas
-                ), HttpStatus.OK);
+                        "Pizza Get Page",
+                        pizzaService.getPizzaPage(pageRequest)
+                ));
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/pizza" with a "fields" parameter for retrieving the listed properties
+     * of one page of pizzas.
+     *
+     * @param sort      The sort order: "id", "name", "price", or "weight", prefixed with "-" for descending order.
+     * @param cursor    The cursor returned with the previous page, or null for the first page.
+     * @param limit     The maximum number of pizzas on the page.
+     * @param minPrice  The lowest price to include.
+     * @param maxPrice  The highest price to include.
+     * @param minWeight The lowest weight to include.
+     * @param maxWeight The highest weight to include.
+     * @param name      The case-insensitive prefix of the names to include.
+     * @param fields    The comma-separated PizzaDTO properties to include, e.g. "name,price"; the ID is always included.
+     * @param request   The HTTP request, checked for conditional headers.
+     * @return A ResponseEntity containing a SuccessDTO with a CursorPageDTO of the properties of every pizza.
+     * @throws RequestDataValidationFailedException If a parameter is invalid.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<SuccessDTO<CursorPageDTO<Map<String, Object>>>> getPizzaFieldsPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) Integer minWeight,
+            @RequestParam(required = false) Integer maxWeight,
+            @RequestParam(required = false) String name,
+            @RequestParam String fields,
+            HttpServletRequest request
+    ) throws RequestDataValidationFailedException {
+        CatalogPageRequest pageRequest = CatalogPageRequest.parse(
+                sort, cursor, limit, minPrice, maxPrice, minWeight, maxWeight, name, SORT_KEYS);
+        FieldSelection fieldSelection = FieldSelection.parse(fields, FIELDS);
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+        return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                .body(new SuccessDTO<>(
+                        HttpStatus.OK.value(),
+                        "Pizza Get Page",
+                        pizzaService.getPizzaFieldsPage(pageRequest, fieldSelection)
+                ));
     }
 
     /**
      * Handle HTTP GET requests to "/api/pizza/{id}" for fetching a pizza by its ID.
      *
-     * @param id The ID of the pizza to fetch.
+     * @param id      The ID of the pizza to fetch.
+     * @param request The HTTP request, checked for conditional headers.
      * @return A ResponseEntity containing a SuccessDTO with the PizzaDTO representing the requested pizza.
      * @throws NotFoundException If the pizza with the given ID is not found in the system.
      */
     @GetMapping("/{id}")
     public ResponseEntity<SuccessDTO<PizzaDTO>> getPizzaById(
-            @Positive(message = " Pizza ID must be positive") @PathVariable Long id
+            @Positive(message = " Pizza ID must be positive") @PathVariable Long id,
+            HttpServletRequest request
     ) throws NotFoundException {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
         PizzaDTO pizza = pizzaService.getPizzaById(id);
         if (pizza != null) {
-            return new ResponseEntity<>(
-                    new SuccessDTO<>(
+            return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                    .body(new SuccessDTO<>(
                             HttpStatus.OK.value(),
                             "Pizza Get By Id",
                             pizza
-                    ), HttpStatus.OK);
+                    ));
+        }
+        throw new NotFoundException("Unable to find pizza with id " + id);
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/pizza/{id}" with a "fields" parameter for fetching the listed properties
+     * of a pizza by its ID.
+     *
+     * @param id      The ID of the pizza to fetch.
+     * @param fields  The comma-separated PizzaDTO properties to include, e.g. "name,price"; the ID is always included.
+     * @param request The HTTP request, checked for conditional headers.
+     * @return A ResponseEntity containing a SuccessDTO with the properties of the requested pizza.
+     * @throws NotFoundException                    If the pizza with the given ID is not found in the system.
+     * @throws RequestDataValidationFailedException If the fields are invalid.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<SuccessDTO<Map<String, Object>>> getPizzaFieldsById(
+            @Positive(message = " Pizza ID must be positive") @PathVariable Long id,
+            @RequestParam String fields,
+            HttpServletRequest request
+    ) throws NotFoundException, RequestDataValidationFailedException {
+        FieldSelection fieldSelection = FieldSelection.parse(fields, FIELDS);
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+        Map<String, Object> pizza = pizzaService.getPizzaFieldsById(id, fieldSelection);
+        if (pizza != null) {
+            return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                    .body(new SuccessDTO<>(
+                            HttpStatus.OK.value(),
+                            "Pizza Get By Id",
+                            pizza
+                    ));
         }
         throw new NotFoundException("Unable to find pizza with id " + id);
     }
@@ -94,6 +256,30 @@ public class PizzaController {
                 ), HttpStatus.CREATED);
     }
 
+    /**
+     * Handle HTTP POST requests to "/api/pizza/import" for importing pizzas in bulk.
+     * The body is read row by row while it is received, and valid rows are written in batches.
+     *
+     * @param contentType The content type of the body: "application/x-ndjson" or "text/csv".
+     * @param body        The body, holding one pizza per row.
+     * @return A ResponseEntity containing a SuccessDTO with the ImportReportDTO listing the rows that were not imported.
+     * @throws RequestDataValidationFailedException If the body is malformed as a whole.
+     * @throws IOException                          If the body cannot be read.
+     */
+    @PostMapping(value = "/import", consumes = {ImportFormat.NDJSON_VALUE, ImportFormat.CSV_VALUE})
+    public ResponseEntity<SuccessDTO<ImportReportDTO>> importPizzas(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws RequestDataValidationFailedException, IOException {
+        ImportReportDTO report = catalogImportService.importPizzas(body, ImportFormat.fromContentType(contentType));
+        return new ResponseEntity<>(
+                new SuccessDTO<>(
+                        HttpStatus.OK.value(),
+                        "Pizza Import",
+                        report
+                ), HttpStatus.OK);
+    }
+
     /**
      * Handle HTTP PUT requests to "/api/pizza/{id}" for updating an existing pizza.
      *
@@ -0,0 +1,163 @@
+package com.pizza.pizzashop.controllers;
+
+import com.pizza.pizzashop.exceptions.NotFoundException;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.utils.ByteRange;
+import com.pizza.pizzashop.utils.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class serves pizza images from the ImageStore.
+ * Images are addressed by the hash of their content, so their hash is a strong ETag and they can be cached forever.
+ * Files are handed to Tomcat's sendfile support when available, so their content is copied by the kernel
+ * straight from the page cache to the socket; otherwise they are transferred with FileChannel.transferTo.
+ * Single byte ranges are supported for resuming downloads.
+ * A resized variant can be requested with the "size" parameter. Until it has been generated, the original image
+ * is served instead, cacheable for a short time only.
+ */
+@RestController
+@RequestMapping("/api/pizza/image")
+public class PizzaImageController {
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String FALLBACK_CACHE_CONTROL = "public, max-age=60";
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
+
+    @Autowired
+    public PizzaImageController(ImageStore imageStore, ImageVariantService imageVariantService) {
+        this.imageStore = imageStore;
+        this.imageVariantService = imageVariantService;
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/pizza/image/{hash}" for fetching an image.
+     * Answers 304 if the client already has the image, 206 with the requested part for a satisfiable Range header,
+     * and 416 for an unsatisfiable one.
+     *
+     * @param hash     The hash of the image.
+     * @param size     The requested size of the image, or null for the original.
+     * @param request  The HTTP request.
+     * @param response The HTTP response the image is written to.
+     * @throws NotFoundException                    If no image with the given hash is stored.
+     * @throws RequestDataValidationFailedException If the requested size is not supported.
+     * @throws IOException                          If the image cannot be read or sent.
+     */
+    @GetMapping("/{hash}")
+    public void getImage(
+            @PathVariable String hash,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws NotFoundException, RequestDataValidationFailedException, IOException {
+        Path path = imageStore.resolve(hash);
+        if (path == null) {
+            throw new NotFoundException("Unable to find image " + hash);
+        }
+        String etag = "\"" + hash + "\"";
+        String cacheControl = CACHE_CONTROL;
+        if (size != null) {
+            Path variant = imageVariantService.resolve(hash, size);
+            if (variant != null) {
+                path = variant;
+                etag = "\"" + hash + "-" + size + "\"";
+            } else {
+                cacheControl = FALLBACK_CACHE_CONTROL;
+            }
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = Files.size(path);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        ByteRange range = ifRange == null || ifRange.equals(etag)
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), length)
+                : null;
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+        long start = 0;
+        long count = length;
+        if (range != null) {
+            start = range.getStart();
+            count = range.length();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + range.getEnd() + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        response.setContentType(imageStore.contentType(path));
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, path.toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    throw new IOException("Image " + hash + " was truncated");
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * Helper method to check an If-None-Match header against the ETag of an image.
+     *
+     * @param ifNoneMatch The value of the header, or null if there is none.
+     * @param etag        The ETag of the image.
+     * @return True if the client already has the image; otherwise, false.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
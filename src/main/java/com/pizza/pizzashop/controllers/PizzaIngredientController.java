@@ -1,73 +1,224 @@
 package com.pizza.pizzashop.controllers;
 
+import com.pizza.pizzashop.dtos.ImportReportDTO;
 import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.dtos.basic.SuccessDTO;
 import com.pizza.pizzashop.exceptions.NotFoundException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportService;
+import com.pizza.pizzashop.services.CatalogImportService.ImportFormat;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
 import com.pizza.pizzashop.services.PizzaIngredientService.PizzaIngredientService;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
 import com.pizza.pizzashop.utils.GlobalExceptionHandler;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This class handles pizza ingredient-related API endpoints for CRUD (Create, Read, Update, Delete) operations.
  * It provides methods to retrieve all pizza ingredients, fetch a pizza ingredient by its ID,
  * create a new pizza ingredient, update an existing pizza ingredient, and delete a pizza ingredient from the system.
+ * The list of all pizza ingredients is served from the catalog snapshot, as it was serialized when the catalog last changed.
+ * It is gzip-compressed along with the snapshot and sent compressed to every client accepting gzip.
+ * Requests with paging, sorting, or filtering parameters get one keyset-paginated page instead.
+ * Requests with a "fields" parameter get only the listed properties, read from the database column by column.
+ * All read endpoints carry the catalog version as their ETag and answer conditional requests with 304
+ * before touching the database.
+ * Menus are loaded with the import endpoint, which takes many pizza ingredients as NDJSON or CSV in a single request.
  */
 @Validated
 @RestController
 @RequestMapping("/api/ingredient")
 public class PizzaIngredientController {
+    private static final Set<String> SORT_KEYS = Set.of(
+            CatalogPageRequest.SORT_ID,
+            CatalogPageRequest.SORT_NAME,
+            CatalogPageRequest.SORT_PRICE
+    );
+
+    private static final List<String> FIELDS = List.of("id", "name", "addPrice");
+
     private final PizzaIngredientService ingredientService;
+    private final CatalogService catalogService;
+    private final CatalogImportService catalogImportService;
 
     @Autowired
-    public PizzaIngredientController(PizzaIngredientService ingredientService) {
+    public PizzaIngredientController(
+            PizzaIngredientService ingredientService,
+            CatalogService catalogService,
+            CatalogImportService catalogImportService
+    ) {
         this.ingredientService = ingredientService;
+        this.catalogService = catalogService;
+        this.catalogImportService = catalogImportService;
     }
 
     /**
      * Handle HTTP GET requests to "/api/ingredient" for retrieving all pizza ingredients.
      *
-     * @return A ResponseEntity containing a SuccessDTO with a list of PizzaIngredientDTO representing all pizza ingredients in the system.
+     * @param request The HTTP request, checked for conditional headers and Accept-Encoding.
+     * @return A ResponseEntity containing the serialized SuccessDTO with a list of PizzaIngredientDTO representing all pizza ingredients in the system.
+     */
+    @GetMapping(params = {"!sort", "!cursor", "!limit", "!minPrice", "!maxPrice", "!name", "!fields"})
+    public ResponseEntity<byte[]> getAllIngredients(HttpServletRequest request) {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        return CatalogResponses.listing(request, snapshot, snapshot.getIngredientsJson(), snapshot.getIngredientsJsonGzip());
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/ingredient" with paging, sorting, or filtering parameters for retrieving one page of pizza ingredients.
+     *
+     * @param sort     The sort order: "id", "name", or "price", prefixed with "-" for descending order.
+     * @param cursor   The cursor returned with the previous page, or null for the first page.
+     * @param limit    The maximum number of pizza ingredients on the page.
+     * @param minPrice The lowest additional price to include.
+     * @param maxPrice The highest additional price to include.
+     * @param name     The case-insensitive prefix of the names to include.
+     * @param request  The HTTP request, checked for conditional headers.
+     * @return A ResponseEntity containing a SuccessDTO with a CursorPageDTO of PizzaIngredientDTO.
+     * @throws RequestDataValidationFailedException If a parameter is invalid.
      */
     @GetMapping
-    public ResponseEntity<SuccessDTO<List<PizzaIngredientDTO>>> getAllIngredients() {
-        List<PizzaIngredientDTO> ingredients = ingredientService.getAllIngredients();
-        return new ResponseEntity<>(
-                new SuccessDTO<>(
+    public ResponseEntity<SuccessDTO<CursorPageDTO<PizzaIngredientDTO>>> getIngredientPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String name,
+            HttpServletRequest request
+    ) throws RequestDataValidationFailedException {
+        CatalogPageRequest pageRequest = CatalogPageRequest.parse(
+                sort, cursor, limit, minPrice, maxPrice, null, null, name, SORT_KEYS);
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+        return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                .body(new SuccessDTO<>(
                         HttpStatus.OK.value(),
-                        "Pizza Ingredient Get All",
-                        ingredients
-                ), HttpStatus.OK);
+                        "Pizza Ingredient Get Page",
+                        ingredientService.getIngredientPage(pageRequest)
+                ));
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/ingredient" with a "fields" parameter for retrieving the listed properties
+     * of one page of pizza ingredients.
+     *
+     * @param sort     The sort order: "id", "name", or "price", prefixed with "-" for descending order.
+     * @param cursor   The cursor returned with the previous page, or null for the first page.
+     * @param limit    The maximum number of pizza ingredients on the page.
+     * @param minPrice The lowest additional price to include.
+     * @param maxPrice The highest additional price to include.
+     * @param name     The case-insensitive prefix of the names to include.
+     * @param fields   The comma-separated PizzaIngredientDTO properties to include, e.g. "name"; the ID is always included.
+     * @param request  The HTTP request, checked for conditional headers.
+     * @return A ResponseEntity containing a SuccessDTO with a CursorPageDTO of the properties of every pizza ingredient.
+     * @throws RequestDataValidationFailedException If a parameter is invalid.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<SuccessDTO<CursorPageDTO<Map<String, Object>>>> getIngredientFieldsPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice,
+            @RequestParam(required = false) String name,
+            @RequestParam String fields,
+            HttpServletRequest request
+    ) throws RequestDataValidationFailedException {
+        CatalogPageRequest pageRequest = CatalogPageRequest.parse(
+                sort, cursor, limit, minPrice, maxPrice, null, null, name, SORT_KEYS);
+        FieldSelection fieldSelection = FieldSelection.parse(fields, FIELDS);
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+        return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                .body(new SuccessDTO<>(
+                        HttpStatus.OK.value(),
+                        "Pizza Ingredient Get Page",
+                        ingredientService.getIngredientFieldsPage(pageRequest, fieldSelection)
+                ));
     }
 
     /**
      * Handle HTTP GET requests to "/api/ingredient/{id}" for fetching a pizza ingredient by its ID.
      *
-     * @param id The ID of the pizza ingredient to fetch.
+     * @param id      The ID of the pizza ingredient to fetch.
+     * @param request The HTTP request, checked for conditional headers.
      * @return A ResponseEntity containing a SuccessDTO with the PizzaIngredientDTO representing the requested pizza ingredient.
      * @throws NotFoundException If the pizza ingredient with the given ID is not found in the system.
      */
     @GetMapping("/{id}")
     public ResponseEntity<SuccessDTO<PizzaIngredientDTO>> getIngredientById(
-            @Positive(message = " Ingredient ID must be positive") @PathVariable Long id
+            @Positive(message = " Ingredient ID must be positive") @PathVariable Long id,
+            HttpServletRequest request
     ) throws NotFoundException {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
         PizzaIngredientDTO ingredient = ingredientService.getIngredientById(id);
         if (ingredient != null) {
-            return new ResponseEntity<>(
-                    new SuccessDTO<>(
+            return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                    .body(new SuccessDTO<>(
                             HttpStatus.OK.value(),
                             "Pizza Ingredient Get By Id",
                             ingredient
-                    ), HttpStatus.OK);
+                    ));
+        }
+        throw new NotFoundException("Unable to find ingredient with ID " + id);
+    }
+
+    /**
+     * Handle HTTP GET requests to "/api/ingredient/{id}" with a "fields" parameter for fetching the listed properties
+     * of a pizza ingredient by its ID.
+     *
+     * @param id      The ID of the pizza ingredient to fetch.
+     * @param fields  The comma-separated PizzaIngredientDTO properties to include, e.g. "name"; the ID is always included.
+     * @param request The HTTP request, checked for conditional headers.
+     * @return A ResponseEntity containing a SuccessDTO with the properties of the requested pizza ingredient.
+     * @throws NotFoundException                    If the pizza ingredient with the given ID is not found in the system.
+     * @throws RequestDataValidationFailedException If the fields are invalid.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<SuccessDTO<Map<String, Object>>> getIngredientFieldsById(
+            @Positive(message = " Ingredient ID must be positive") @PathVariable Long id,
+            @RequestParam String fields,
+            HttpServletRequest request
+    ) throws NotFoundException, RequestDataValidationFailedException {
+        FieldSelection fieldSelection = FieldSelection.parse(fields, FIELDS);
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        if (CatalogResponses.isNotModified(request, snapshot)) {
+            return CatalogResponses.withValidators(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+        Map<String, Object> ingredient = ingredientService.getIngredientFieldsById(id, fieldSelection);
+        if (ingredient != null) {
+            return CatalogResponses.withValidators(HttpStatus.OK, snapshot)
+                    .body(new SuccessDTO<>(
+                            HttpStatus.OK.value(),
+                            "Pizza Ingredient Get By Id",
+                            ingredient
+                    ));
         }
         throw new NotFoundException("Unable to find ingredient with ID " + id);
     }
@@ -97,6 +248,30 @@ public class PizzaIngredientController {
                 ), HttpStatus.CREATED);
     }
 
+    /**
+     * Handle HTTP POST requests to "/api/ingredient/import" for importing pizza ingredients in bulk.
+     * The body is read row by row while it is received, and valid rows are written in batches.
+     *
+     * @param contentType The content type of the body: "application/x-ndjson" or "text/csv".
+     * @param body        The body, holding one pizza ingredient per row.
+     * @return A ResponseEntity containing a SuccessDTO with the ImportReportDTO listing the rows that were not imported.
+     * @throws RequestDataValidationFailedException If the body is malformed as a whole.
+     * @throws IOException                          If the body cannot be read.
+     */
+    @PostMapping(value = "/import", consumes = {ImportFormat.NDJSON_VALUE, ImportFormat.CSV_VALUE})
+    public ResponseEntity<SuccessDTO<ImportReportDTO>> importIngredients(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws RequestDataValidationFailedException, IOException {
+        ImportReportDTO report = catalogImportService.importIngredients(body, ImportFormat.fromContentType(contentType));
+        return new ResponseEntity<>(
+                new SuccessDTO<>(
+                        HttpStatus.OK.value(),
+                        "Pizza Ingredient Import",
+                        report
+                ), HttpStatus.OK);
+    }
+
     /**
      * Handle HTTP PUT requests to "/api/ingredient/{id}" for updating an existing pizza ingredient.
      *
@@ -0,0 +1,37 @@
+package com.pizza.pizzashop.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This class represents a data transfer object (DTO) that summarizes a bulk import: how many rows were imported,
+ * how many were not, and why. Only the first errors are listed, so the report stays small however many rows fail.
+ */
+public class ImportReportDTO implements Serializable {
+    private final Integer imported;
+    private final Integer failed;
+    private final List<ImportRowErrorDTO> errors;
+
+    public ImportReportDTO(Integer imported, Integer failed, List<ImportRowErrorDTO> errors) {
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    public Integer getImported() {
+        return imported;
+    }
+
+    public Integer getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the errors of the rows that were not imported, ordered by line.
+     *
+     * @return The errors; fewer than failed if the list was truncated.
+     */
+    public List<ImportRowErrorDTO> getErrors() {
+        return errors;
+    }
+}
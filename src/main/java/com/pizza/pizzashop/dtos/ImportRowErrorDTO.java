@@ -0,0 +1,29 @@
+package com.pizza.pizzashop.dtos;
+
+import java.io.Serializable;
+
+/**
+ * This class represents a data transfer object (DTO) that describes why a row of a bulk import was not imported.
+ */
+public class ImportRowErrorDTO implements Serializable {
+    private final Integer line;
+    private final String message;
+
+    public ImportRowErrorDTO(Integer line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * Returns the line the row starts on, counting the header line of CSV files.
+     *
+     * @return The 1-based line number.
+     */
+    public Integer getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
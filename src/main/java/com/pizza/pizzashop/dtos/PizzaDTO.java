@@ -1,6 +1,7 @@
 package com.pizza.pizzashop.dtos;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 
 import java.io.Serializable;
@@ -10,6 +11,7 @@ import java.util.Objects;
 /**
  * This class represents a data transfer object (DTO) that encapsulates pizza information in a standardized format.
  * It is used to provide a consistent structure for passing pizza details, including its ID, name, weight, price,
+ * The image is uploaded in base64 but never sent back; responses carry the URL of the stored image instead.
  */
 public class PizzaDTO implements Serializable {
     private Long id;
@@ -27,7 +29,10 @@ public class PizzaDTO implements Serializable {
     private String description;
     @NotNull
     @NotBlank(message = "Image is required in base64 format")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String image;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String imageUrl;
     @NotNull
     @Size(min = 1, message = "Must be at least 1 ingredient added")
     private List<PizzaIngredientDTO> ingredients;
@@ -98,6 +103,14 @@ public class PizzaDTO implements Serializable {
         this.image = image;
     }
 
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
     public @NotNull List<PizzaIngredientDTO> getIngredients() {
         return ingredients;
     }
@@ -117,12 +130,13 @@ public class PizzaDTO implements Serializable {
                 Objects.equals(this.weight, dto.weight) &&
                 Objects.equals(this.description, dto.description) &&
                 Objects.equals(this.image, dto.image) &&
+                Objects.equals(this.imageUrl, dto.imageUrl) &&
                 Objects.equals(this.ingredients, dto.ingredients);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, weight, price, description, image, ingredients);
+        return Objects.hash(id, name, weight, price, description, image, imageUrl, ingredients);
     }
 
     @Override
@@ -133,7 +147,7 @@ public class PizzaDTO implements Serializable {
                 "price = " + price + ", " +
                 "weight = " + weight + ", " +
                 "description = " + description + ", " +
-                "image = " + image + ", " +
+                "imageUrl = " + imageUrl + ", " +
                 "ingredients = " + ingredients + ")";
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.pizza.pizzashop.dtos.basic;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This class represents a data transfer object (DTO) that encapsulates one page of a keyset-paginated listing.
+ * The next page is requested with the returned cursor, which is null on the last page.
+ *
+ * @param <T> The type of the listed items.
+ */
+public class CursorPageDTO<T> implements Serializable {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPageDTO(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
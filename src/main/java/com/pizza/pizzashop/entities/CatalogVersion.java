@@ -0,0 +1,63 @@
+package com.pizza.pizzashop.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * This class represents the version of the catalog, i.e. of all pizzas and ingredients, in the system.
+ * It is annotated with JPA annotations to map the class to the corresponding database table, which holds a single row.
+ * The version is incremented in the transaction of every change of the catalog, so it never goes backwards.
+ */
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+    public static final Short ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Short id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "modified_at", nullable = false)
+    private Instant modifiedAt;
+
+    public CatalogVersion(Short id, Long version, Instant modifiedAt) {
+        this.id = id;
+        this.version = version;
+        this.modifiedAt = modifiedAt;
+    }
+
+    public CatalogVersion() {
+
+    }
+
+    public Short getId() {
+        return id;
+    }
+
+    public void setId(Short id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getModifiedAt() {
+        return modifiedAt;
+    }
+
+    public void setModifiedAt(Instant modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+}
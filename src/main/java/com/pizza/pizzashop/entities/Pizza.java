@@ -16,6 +16,8 @@ import java.util.List;
 /**
  * This class represents a pizza entity in the system.
  * It is annotated with JPA annotations to map the class to the corresponding database table.
+ * The image itself is kept in the ImageStore; the entity only holds the hash it is stored under.
+ * Ingredients are loaded lazily; queries that need them fetch them in the same statement, see PizzaRepository.
  */
 @Entity
 @Table(name = "pizza")
@@ -37,10 +39,10 @@ public class Pizza {
     @Column(name = "description")
     private String description;
 
-    @Column(name = "image", nullable = false)
-    private String image;
+    @Column(name = "image_hash")
+    private String imageHash;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "ingredient_on_pizza",
             joinColumns = @JoinColumn(name = "pizzaid"),
             inverseJoinColumns = @JoinColumn(name = "ingredientid"))
@@ -52,7 +54,7 @@ public class Pizza {
             Integer weight,
             Integer price,
             String description,
-            String image,
+            String imageHash,
             List<PizzaIngredient> ingredients
     ) {
         this.id = id;
@@ -60,7 +62,7 @@ public class Pizza {
         this.weight = weight;
         this.price = price;
         this.description = description;
-        this.image = image;
+        this.imageHash = imageHash;
         this.ingredients = ingredients;
     }
 
@@ -108,12 +110,12 @@ public class Pizza {
         this.description = description;
     }
 
-    public String getImage() {
-        return image;
+    public String getImageHash() {
+        return imageHash;
     }
 
-    public void setImage(String image) {
-        this.image = image;
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
     }
 
     public List<PizzaIngredient> getIngredients() {
@@ -0,0 +1,19 @@
+package com.pizza.pizzashop.exceptions;
+
+/**
+ * This is a custom exception class that is thrown when too many sign-in attempts were made
+ * from one IP address or for one account.
+ * The client is expected to retry after the given number of seconds.
+ */
+public class LoginThrottledException extends Exception {
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,20 @@
+package com.pizza.pizzashop.exceptions;
+
+/**
+ * This is a custom exception class that is thrown when a password cannot be hashed or verified
+ * because the password hashing queue is full.
+ * It is unchecked, because it is raised from within the PasswordEncoder contract.
+ * The client is expected to retry after the given number of seconds.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PasswordHashingOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
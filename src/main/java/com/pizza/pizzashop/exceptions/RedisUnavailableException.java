@@ -0,0 +1,16 @@
+package com.pizza.pizzashop.exceptions;
+
+/**
+ * This is a custom exception class that is thrown when a Redis command fails because Redis cannot be reached
+ * in time or the circuit breaker in front of it is open.
+ * It is unchecked, so that callers able to degrade gracefully catch it, while all others simply fail.
+ */
+public class RedisUnavailableException extends RuntimeException {
+    public RedisUnavailableException(String message) {
+        super(message);
+    }
+
+    public RedisUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
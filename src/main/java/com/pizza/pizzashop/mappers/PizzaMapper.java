@@ -2,16 +2,31 @@ package com.pizza.pizzashop.mappers;
 
 import com.pizza.pizzashop.entities.Pizza;
 import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.entities.PizzaIngredient;
 
 import org.mapstruct.*;
 
 @Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE, componentModel = MappingConstants.ComponentModel.SPRING)
 public interface PizzaMapper {
+    String IMAGE_PATH = "/api/pizza/image/";
 
+    @Mapping(target = "image", ignore = true)
+    @Mapping(target = "imageUrl", source = "imageHash", qualifiedByName = "imageUrl")
     PizzaDTO toDTO(Pizza pizza);
 
+    PizzaIngredientDTO toDTO(PizzaIngredient ingredient);
+
+    @Mapping(target = "imageHash", ignore = true)
     Pizza toEntity(PizzaDTO pizzaDTO);
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "imageHash", ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     Pizza partialUpdate(PizzaDTO pizzaIngredientDTO, @MappingTarget Pizza pizza);
+
+    @Named("imageUrl")
+    default String imageUrl(String imageHash) {
+        return imageHash == null ? null : IMAGE_PATH + imageHash;
+    }
 }
@@ -2,6 +2,7 @@ package com.pizza.pizzashop.mappers;
 
 import com.pizza.pizzashop.dtos.UserDTO;
 import com.pizza.pizzashop.entities.User;
+import com.pizza.pizzashop.security.CustomUserDetails;
 import org.mapstruct.*;
 
 @Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE, componentModel = MappingConstants.ComponentModel.SPRING, uses = {RoleMapper.class})
@@ -10,6 +11,11 @@ public interface UserMapper {
 
     UserDTO toDto(User user);
 
+    @Mapping(target = "login", source = "username")
+    @Mapping(target = "phoneNumber", source = "phonenumber")
+    @Mapping(target = "password", ignore = true)
+    UserDTO toDto(CustomUserDetails userDetails);
+
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     User partialUpdate(UserDTO userDTO, @MappingTarget User user);
 }
\ No newline at end of file
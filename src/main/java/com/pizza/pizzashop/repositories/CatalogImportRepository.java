@@ -0,0 +1,125 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.entities.Pizza;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class writes bulk imports of the catalog with JDBC batches, since JPA cannot batch inserts into tables
+ * with database-generated IDs. Pizza IDs are therefore drawn from the sequence in one statement beforehand.
+ * Rows whose names exist already are skipped rather than failing the whole batch; their update count is 0.
+ * The inserts must be called within a transaction.
+ */
+@Repository
+public class CatalogImportRepository {
+    private static final String FIND_PIZZA_NAMES = "SELECT name FROM pizza WHERE name IN (:names)";
+    private static final String FIND_INGREDIENT_IDS = "SELECT lower(name) AS key, min(id) AS id FROM pizza_ingredient "
+            + "WHERE lower(name) IN (:names) GROUP BY lower(name)";
+    private static final String NEXT_PIZZA_IDS = "SELECT nextval(pg_get_serial_sequence('pizza', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_PIZZA = "INSERT INTO pizza (id, name, weight, price, description, image_hash) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (name) DO NOTHING";
+    private static final String INSERT_PIZZA_INGREDIENT = "INSERT INTO ingredient_on_pizza (pizzaid, ingredientid) VALUES (?, ?)";
+    private static final String INSERT_INGREDIENT = "INSERT INTO pizza_ingredient (name, addprice) "
+            + "VALUES (?, ?) ON CONFLICT (name) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    public CatalogImportRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * Finds which of the given pizza names are taken already.
+     *
+     * @param names The names to look up.
+     * @return The names that exist.
+     */
+    public Set<String> findExistingPizzaNames(Collection<String> names) {
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(FIND_PIZZA_NAMES, Map.of("names", names), String.class));
+    }
+
+    /**
+     * Finds the IDs of pizza ingredients by their names, ignoring case, with a single statement.
+     *
+     * @param lowerNames The lowercase names to look up.
+     * @return The ID of every name that exists by its lowercase name.
+     */
+    public Map<String, Long> findIngredientIdsByLowerName(Collection<String> lowerNames) {
+        Map<String, Long> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query(FIND_INGREDIENT_IDS, Map.of("names", lowerNames),
+                resultSet -> {
+                    ids.put(resultSet.getString("key"), resultSet.getLong("id"));
+                });
+        return ids;
+    }
+
+    /**
+     * Draws IDs for new pizzas from the sequence of the pizza table.
+     *
+     * @param count The number of IDs.
+     * @return The IDs.
+     */
+    public List<Long> nextPizzaIds(int count) {
+        return jdbcTemplate.queryForList(NEXT_PIZZA_IDS, Long.class, count);
+    }
+
+    /**
+     * Inserts pizzas with their IDs already set, skipping those whose names are taken.
+     * The ingredients are not inserted, see insertPizzaIngredients().
+     *
+     * @param pizzas The pizzas.
+     * @return The update count of every pizza: 1 if it was inserted, 0 if it was skipped.
+     */
+    public int[] insertPizzas(List<Pizza> pizzas) {
+        List<Object[]> rows = new ArrayList<>(pizzas.size());
+        for (Pizza pizza : pizzas) {
+            rows.add(new Object[]{
+                    pizza.getId(), pizza.getName(), pizza.getWeight(), pizza.getPrice(), pizza.getDescription(), pizza.getImageHash()
+            });
+        }
+        return jdbcTemplate.batchUpdate(INSERT_PIZZA, rows);
+    }
+
+    /**
+     * Links inserted pizzas to their ingredients.
+     *
+     * @param pizzas The pizzas, holding ingredients with their IDs set.
+     */
+    public void insertPizzaIngredients(List<Pizza> pizzas) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Pizza pizza : pizzas) {
+            for (PizzaIngredient ingredient : pizza.getIngredients()) {
+                rows.add(new Object[]{pizza.getId(), ingredient.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_PIZZA_INGREDIENT, rows);
+    }
+
+    /**
+     * Inserts pizza ingredients, skipping those whose names are taken.
+     *
+     * @param ingredients The pizza ingredients.
+     * @return The update count of every pizza ingredient: 1 if it was inserted, 0 if it was skipped.
+     */
+    public int[] insertIngredients(List<PizzaIngredient> ingredients) {
+        List<Object[]> rows = new ArrayList<>(ingredients.size());
+        for (PizzaIngredient ingredient : ingredients) {
+            rows.add(new Object[]{ingredient.getName(), ingredient.getAddPrice()});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_INGREDIENT, rows);
+    }
+}
@@ -0,0 +1,14 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.entities.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Short> {
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE catalog_version SET version = version + 1, modified_at = now() WHERE id = 1", nativeQuery = true)
+    int increment();
+}
@@ -0,0 +1,174 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This class builds the keyset-paginated queries of the catalog listings.
+ * Instead of skipping the rows of previous pages with an offset, a page starts right after the last item of the
+ * previous one, i.e. (attribute, id) > (last value, last id), so every page is a range scan of the matching index
+ * and takes the same time however deep it is. The redundant bound on the attribute alone lets Postgres use the
+ * index for the range even though the condition is spelled out with OR.
+ */
+final class KeysetQueries {
+    private static final String ID = "id";
+
+    private KeysetQueries() {
+    }
+
+    /**
+     * Runs the query for one page, fetching one item more than the limit to tell whether another page follows.
+     *
+     * @param entityManager The entity manager.
+     * @param entityType    The class of the listed entity.
+     * @param resultType    The class of the selected results.
+     * @param selection     The function selecting the results from the root of the query.
+     * @param attributes    The entity attribute for every supported sort key and filter, e.g. "price" to "addPrice".
+     * @param request       The page request.
+     * @param <T>           The type of the listed entity.
+     * @param <R>           The type of the selected results.
+     * @return Up to limit + 1 results in the requested order.
+     */
+    static <T, R> List<R> findPage(
+            EntityManager entityManager,
+            Class<T> entityType,
+            Class<R> resultType,
+            Function<Root<T>, Selection<? extends R>> selection,
+            Map<String, String> attributes,
+            CatalogPageRequest request
+    ) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = criteriaBuilder.createQuery(resultType);
+        Root<T> root = query.from(entityType);
+
+        List<Predicate> predicates = new ArrayList<>();
+        addRange(criteriaBuilder, root, attributes.get(CatalogPageRequest.SORT_PRICE),
+                request.getMinPrice(), request.getMaxPrice(), predicates);
+        addRange(criteriaBuilder, root, attributes.get(CatalogPageRequest.SORT_WEIGHT),
+                request.getMinWeight(), request.getMaxWeight(), predicates);
+        if (request.getNamePrefix() != null) {
+            Path<String> name = root.get(attributes.get(CatalogPageRequest.SORT_NAME));
+            predicates.add(criteriaBuilder.like(criteriaBuilder.lower(name), escapeLike(request.getNamePrefix()) + "%", '\\'));
+        }
+        if (request.getAfterId() != null) {
+            predicates.add(after(criteriaBuilder, root, attributes.get(request.getSortKey()), request));
+        }
+
+        Path<Long> id = root.get(ID);
+        List<Order> orders = new ArrayList<>();
+        if (!CatalogPageRequest.SORT_ID.equals(request.getSortKey())) {
+            Path<?> sorted = root.get(attributes.get(request.getSortKey()));
+            orders.add(request.isDescending() ? criteriaBuilder.desc(sorted) : criteriaBuilder.asc(sorted));
+        }
+        orders.add(request.isDescending() ? criteriaBuilder.desc(id) : criteriaBuilder.asc(id));
+
+        query.select(selection.apply(root))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(orders);
+        return entityManager.createQuery(query)
+                .setMaxResults(request.getLimit() + 1)
+                .getResultList();
+    }
+
+    /**
+     * Helper method to add the bounds of a numeric filter.
+     *
+     * @param criteriaBuilder The criteria builder.
+     * @param root            The root of the query.
+     * @param attribute       The filtered attribute, or null if the entity does not have it.
+     * @param min             The lowest value to include, or null.
+     * @param max             The highest value to include, or null.
+     * @param predicates      The predicates to add to.
+     */
+    private static void addRange(
+            CriteriaBuilder criteriaBuilder,
+            Root<?> root,
+            String attribute,
+            Integer min,
+            Integer max,
+            List<Predicate> predicates
+    ) {
+        if (attribute == null) {
+            return;
+        }
+        Path<Integer> path = root.get(attribute);
+        if (min != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(path, min));
+        }
+        if (max != null) {
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(path, max));
+        }
+    }
+
+    /**
+     * Helper method to build the condition selecting the items after the cursor.
+     *
+     * @param criteriaBuilder The criteria builder.
+     * @param root            The root of the query.
+     * @param attribute       The sorted attribute.
+     * @param request         The page request holding the cursor.
+     * @return The keyset condition.
+     */
+    private static Predicate after(CriteriaBuilder criteriaBuilder, Root<?> root, String attribute, CatalogPageRequest request) {
+        Path<Long> id = root.get(ID);
+        if (CatalogPageRequest.SORT_ID.equals(request.getSortKey())) {
+            return request.isDescending()
+                    ? criteriaBuilder.lessThan(id, request.getAfterId())
+                    : criteriaBuilder.greaterThan(id, request.getAfterId());
+        }
+        if (request.getAfterValue() instanceof String) {
+            return after(criteriaBuilder, root.<String>get(attribute), (String) request.getAfterValue(), id, request);
+        }
+        return after(criteriaBuilder, root.<Integer>get(attribute), (Integer) request.getAfterValue(), id, request);
+    }
+
+    /**
+     * Helper method to build the keyset condition on the sorted attribute and the ID.
+     *
+     * @param criteriaBuilder The criteria builder.
+     * @param sorted          The sorted attribute.
+     * @param value           The value of the sorted attribute of the last item of the previous page.
+     * @param id              The ID attribute.
+     * @param request         The page request holding the cursor.
+     * @param <Y>             The type of the sorted attribute.
+     * @return The keyset condition.
+     */
+    private static <Y extends Comparable<? super Y>> Predicate after(
+            CriteriaBuilder criteriaBuilder,
+            Path<Y> sorted,
+            Y value,
+            Path<Long> id,
+            CatalogPageRequest request
+    ) {
+        if (request.isDescending()) {
+            return criteriaBuilder.and(
+                    criteriaBuilder.lessThanOrEqualTo(sorted, value),
+                    criteriaBuilder.or(criteriaBuilder.lessThan(sorted, value), criteriaBuilder.lessThan(id, request.getAfterId())));
+        }
+        return criteriaBuilder.and(
+                criteriaBuilder.greaterThanOrEqualTo(sorted, value),
+                criteriaBuilder.or(criteriaBuilder.greaterThan(sorted, value), criteriaBuilder.greaterThan(id, request.getAfterId())));
+    }
+
+    /**
+     * Helper method to escape the wildcards of LIKE in a literal prefix.
+     *
+     * @param prefix The prefix.
+     * @return The escaped prefix.
+     */
+    private static String escapeLike(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
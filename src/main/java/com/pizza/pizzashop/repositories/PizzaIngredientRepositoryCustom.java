@@ -0,0 +1,37 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import jakarta.persistence.Tuple;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PizzaIngredientRepositoryCustom {
+    /**
+     * Finds the pizza ingredients on one page of the listing.
+     *
+     * @param request The page request.
+     * @return Up to limit + 1 pizza ingredients in the requested order.
+     */
+    List<PizzaIngredient> findPage(CatalogPageRequest request);
+
+    /**
+     * Finds the given properties of the pizza ingredients on one page of the listing, reading only their columns.
+     *
+     * @param request The page request.
+     * @param fields  The names of the PizzaIngredientDTO properties to select.
+     * @return Up to limit + 1 tuples in the requested order, holding the properties under their names.
+     */
+    List<Tuple> findPageFields(CatalogPageRequest request, Collection<String> fields);
+
+    /**
+     * Finds the given properties of a pizza ingredient, reading only their columns.
+     *
+     * @param id     The ID of the pizza ingredient.
+     * @param fields The names of the PizzaIngredientDTO properties to select.
+     * @return The tuple holding the properties under their names, or empty if there is no such pizza ingredient.
+     */
+    Optional<Tuple> findFieldsById(Long id, Collection<String> fields);
+}
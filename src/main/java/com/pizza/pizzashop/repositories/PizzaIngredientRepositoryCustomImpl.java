@@ -0,0 +1,53 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class PizzaIngredientRepositoryCustomImpl implements PizzaIngredientRepositoryCustom {
+    private static final Map<String, String> ATTRIBUTES = Map.of(
+            CatalogPageRequest.SORT_NAME, "name",
+            CatalogPageRequest.SORT_PRICE, "addPrice"
+    );
+    private static final Map<String, String> FIELD_ATTRIBUTES = Map.of(
+            "id", "id",
+            "name", "name",
+            "addPrice", "addPrice"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PizzaIngredient> findPage(CatalogPageRequest request) {
+        return KeysetQueries.findPage(entityManager, PizzaIngredient.class, PizzaIngredient.class,
+                root -> root, ATTRIBUTES, request);
+    }
+
+    @Override
+    public List<Tuple> findPageFields(CatalogPageRequest request, Collection<String> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        return KeysetQueries.findPage(entityManager, PizzaIngredient.class, Tuple.class,
+                root -> TupleProjections.select(criteriaBuilder, root, FIELD_ATTRIBUTES, fields), ATTRIBUTES, request);
+    }
+
+    @Override
+    public Optional<Tuple> findFieldsById(Long id, Collection<String> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<PizzaIngredient> root = query.from(PizzaIngredient.class);
+        query.select(TupleProjections.select(criteriaBuilder, root, FIELD_ATTRIBUTES, fields))
+                .where(criteriaBuilder.equal(root.get("id"), id));
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+}
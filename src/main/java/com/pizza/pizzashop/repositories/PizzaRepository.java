@@ -1,7 +1,22 @@
 package com.pizza.pizzashop.repositories;
 
 import com.pizza.pizzashop.entities.Pizza;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface PizzaRepository extends JpaRepository<Pizza, Long> {
-}
\ No newline at end of file
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PizzaRepository extends JpaRepository<Pizza, Long>, PizzaRepositoryCustom {
+    @EntityGraph(attributePaths = "ingredients")
+    @Query("SELECT p FROM Pizza p ORDER BY p.id")
+    List<Pizza> findAllWithIngredients();
+
+    @EntityGraph(attributePaths = "ingredients")
+    Optional<Pizza> findWithIngredientsById(Long id);
+
+    @EntityGraph(attributePaths = "ingredients")
+    List<Pizza> findWithIngredientsByIdIn(Collection<Long> ids);
+}
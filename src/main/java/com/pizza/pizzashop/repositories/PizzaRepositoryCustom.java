@@ -0,0 +1,52 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import jakarta.persistence.Tuple;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PizzaRepositoryCustom {
+    String PIZZA_ID = "pizzaId";
+    String INGREDIENT = "ingredient";
+    String SORT_VALUE = "sortValue";
+
+    /**
+     * Finds the IDs of the pizzas on one page of the listing, along with their values of the sorted attribute,
+     * so that the cursor of the next page can be built even if the pizzas are deleted before they are loaded.
+     * The pizzas themselves are loaded afterwards together with their ingredients, since paginating a query
+     * that fetches a collection is done in memory.
+     *
+     * @param request The page request.
+     * @return Up to limit + 1 tuples in the requested order, holding the pizza ID under PIZZA_ID and the value
+     * of the sorted attribute under SORT_VALUE, which is null when sorting by ID.
+     */
+    List<Tuple> findPageIds(CatalogPageRequest request);
+
+    /**
+     * Finds the given properties of the pizzas on one page of the listing, reading only their columns.
+     *
+     * @param request The page request.
+     * @param fields  The names of the PizzaDTO properties to select; "ingredients" is not selected.
+     * @return Up to limit + 1 tuples in the requested order, holding the properties under their names.
+     */
+    List<Tuple> findPageFields(CatalogPageRequest request, Collection<String> fields);
+
+    /**
+     * Finds the given properties of a pizza, reading only their columns.
+     *
+     * @param id     The ID of the pizza.
+     * @param fields The names of the PizzaDTO properties to select; "ingredients" is not selected.
+     * @return The tuple holding the properties under their names, or empty if there is no such pizza.
+     */
+    Optional<Tuple> findFieldsById(Long id, Collection<String> fields);
+
+    /**
+     * Finds the ingredients of the given pizzas in a single statement, without reading the pizzas themselves.
+     *
+     * @param pizzaIds The IDs of the pizzas.
+     * @return The tuples holding the pizza ID under PIZZA_ID and the PizzaIngredient under INGREDIENT.
+     */
+    List<Tuple> findIngredientsByPizzaIdIn(Collection<Long> pizzaIds);
+}
@@ -0,0 +1,76 @@
+package com.pizza.pizzashop.repositories;
+
+import com.pizza.pizzashop.entities.Pizza;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class PizzaRepositoryCustomImpl implements PizzaRepositoryCustom {
+    private static final Map<String, String> ATTRIBUTES = Map.of(
+            CatalogPageRequest.SORT_NAME, "name",
+            CatalogPageRequest.SORT_PRICE, "price",
+            CatalogPageRequest.SORT_WEIGHT, "weight"
+    );
+    private static final Map<String, String> FIELD_ATTRIBUTES = Map.of(
+            "id", "id",
+            "name", "name",
+            "weight", "weight",
+            "price", "price",
+            "description", "description",
+            "imageUrl", "imageHash"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findPageIds(CatalogPageRequest request) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        String sorted = ATTRIBUTES.get(request.getSortKey());
+        return KeysetQueries.findPage(entityManager, Pizza.class, Tuple.class,
+                root -> sorted == null
+                        ? criteriaBuilder.tuple(root.get("id").alias(PIZZA_ID))
+                        : criteriaBuilder.tuple(root.get("id").alias(PIZZA_ID), root.get(sorted).alias(SORT_VALUE)),
+                ATTRIBUTES, request);
+    }
+
+    @Override
+    public List<Tuple> findPageFields(CatalogPageRequest request, Collection<String> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        return KeysetQueries.findPage(entityManager, Pizza.class, Tuple.class,
+                root -> TupleProjections.select(criteriaBuilder, root, FIELD_ATTRIBUTES, fields), ATTRIBUTES, request);
+    }
+
+    @Override
+    public Optional<Tuple> findFieldsById(Long id, Collection<String> fields) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Pizza> root = query.from(Pizza.class);
+        query.select(TupleProjections.select(criteriaBuilder, root, FIELD_ATTRIBUTES, fields))
+                .where(criteriaBuilder.equal(root.get("id"), id));
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    @Override
+    public List<Tuple> findIngredientsByPizzaIdIn(Collection<Long> pizzaIds) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Pizza> root = query.from(Pizza.class);
+        Join<Pizza, PizzaIngredient> ingredient = root.join("ingredients");
+        query.multiselect(root.get("id").alias(PIZZA_ID), ingredient.alias(INGREDIENT))
+                .where(root.get("id").in(pizzaIds))
+                .orderBy(criteriaBuilder.asc(ingredient.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+}
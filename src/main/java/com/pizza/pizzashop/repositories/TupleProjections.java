@@ -0,0 +1,39 @@
+package com.pizza.pizzashop.repositories;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * This class builds the projections of sparse fieldsets, so that queries select only the requested columns
+ * instead of whole entities. Every selected attribute is aliased by the name of its response property.
+ */
+final class TupleProjections {
+    private TupleProjections() {
+    }
+
+    /**
+     * Builds the tuple selecting the given properties.
+     *
+     * @param criteriaBuilder The criteria builder.
+     * @param root            The root of the query.
+     * @param attributes      The entity attribute of every property that is read from a column, e.g. "imageUrl" to "imageHash".
+     * @param fields          The names of the properties to select; properties without a column are skipped.
+     * @return The tuple selection.
+     */
+    static Selection<Tuple> select(
+            CriteriaBuilder criteriaBuilder,
+            Root<?> root,
+            Map<String, String> attributes,
+            Collection<String> fields
+    ) {
+        return criteriaBuilder.tuple(fields.stream()
+                .filter(attributes::containsKey)
+                .map(field -> root.get(attributes.get(field)).alias(field))
+                .toArray(Selection[]::new));
+    }
+}
@@ -2,7 +2,15 @@ package com.pizza.pizzashop.repositories;
 
 import com.pizza.pizzashop.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByLoginOrEmailOrPhoneNumber(String login, String email, String phoneNumber);
-}
\ No newline at end of file
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(Long id, String password);
+}
@@ -0,0 +1,159 @@
+package com.pizza.pizzashop.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a bounded in-process cache of already verified access tokens, keyed by token digest.
+ * A hit lets JWTAuthenticationFilter skip signature verification, the Redis blacklist lookup and the user lookup.
+ * Entries never outlive the token they were built from and are evicted immediately on sign-out.
+ * Only the principal is cached; every request gets an authentication of its own.
+ * Every eviction advances a generation, so that a token checked before a sign-out is not cached after it.
+ */
+@Component
+public class AuthenticationCache {
+    private final Cache<String, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public AuthenticationCache(
+            @Value("${jwt.authentication_cache.max_size:10000}") Long maxSize,
+            @Value("${jwt.authentication_cache.ttl:60000}") Long ttl,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenBoundExpiry(Duration.ofMillis(ttl)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt_authentication");
+    }
+
+    /**
+     * Returns the cached entry for a token digest.
+     *
+     * @param digest The digest of the access token.
+     * @return The cached Entry, or null if the token is not cached or its entry has expired.
+     */
+    public Entry get(String digest) {
+        return cache.getIfPresent(digest);
+    }
+
+    /**
+     * Returns the current eviction generation. Must be read before a token is checked for revocation,
+     * and passed to put() afterwards.
+     *
+     * @return The number of evictions so far.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the principal of a verified token, unless anything was evicted since the token was checked.
+     * Evictions advance the generation before they remove entries, so an entry put concurrently with an eviction
+     * is either removed by the eviction or dropped here.
+     *
+     * @param digest        The digest of the access token.
+     * @param verifiedToken The verified claims of the access token.
+     * @param userDetails   The details of the token's user.
+     * @param generation    The generation read before the token was checked.
+     * @return The Entry, which is only usable for the current request if it was dropped.
+     */
+    public Entry put(String digest, VerifiedToken verifiedToken, CustomUserDetails userDetails, long generation) {
+        Entry entry = new Entry(verifiedToken, userDetails);
+        cache.put(digest, entry);
+        if (this.generation.get() != generation) {
+            cache.asMap().remove(digest, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Evicts the cached entry for a token digest, if there is one.
+     *
+     * @param digest The digest of the access token.
+     */
+    public void evict(String digest) {
+        generation.incrementAndGet();
+        cache.invalidate(digest);
+    }
+
+    /**
+     * Evicts the cached entries of every token issued to a user.
+     * This walks the whole cache, so it is meant for rare events such as signing a user out everywhere.
+     *
+     * @param userId The ID of the user.
+     */
+    public void evictUser(Long userId) {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(entry -> userId.equals(entry.getVerifiedToken().getUserId()));
+    }
+
+    /**
+     * Evicts every cached entry, e.g. after a change that may affect the authorities of any user.
+     */
+    public void evictAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * This class holds an immutable pair of the verified token and the details of its user.
+     */
+    public static final class Entry {
+        private final VerifiedToken verifiedToken;
+        private final CustomUserDetails userDetails;
+
+        private Entry(VerifiedToken verifiedToken, CustomUserDetails userDetails) {
+            this.verifiedToken = verifiedToken;
+            this.userDetails = userDetails;
+        }
+
+        public VerifiedToken getVerifiedToken() {
+            return verifiedToken;
+        }
+
+        public CustomUserDetails getUserDetails() {
+            return userDetails;
+        }
+    }
+
+    /**
+     * Expiry policy that keeps an entry for the configured TTL, but never past the expiration of its token.
+     */
+    private static final class TokenBoundExpiry implements Expiry<String, Entry> {
+        private final long maxTtlNanos;
+
+        private TokenBoundExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String digest, Entry entry, long currentTime) {
+            Instant expiresAt = entry.getVerifiedToken().getExpiresAt();
+            long untilTokenExpiry = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(0, Math.min(maxTtlNanos, untilTokenExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pizza.pizzashop.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/**
+ * This class picks the BCrypt strength for the hardware the application runs on.
+ * It measures how long a hash takes at the lowest allowed strength and, since every step of the strength
+ * doubles the work, derives the highest strength whose hash still takes no longer than the latency target.
+ */
+public final class BCryptStrengthCalibrator {
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+    private static final int SAMPLES = 5;
+
+    private final IntToLongFunction hashTimer;
+
+    public BCryptStrengthCalibrator() {
+        this(BCryptStrengthCalibrator::timeHash);
+    }
+
+    /**
+     * Creates a calibrator with a custom way of timing hashes.
+     *
+     * @param hashTimer The function returning the time in nanoseconds a hash takes at the given strength.
+     */
+    public BCryptStrengthCalibrator(IntToLongFunction hashTimer) {
+        this.hashTimer = hashTimer;
+    }
+
+    /**
+     * Finds the highest strength whose hash takes no longer than the latency target.
+     *
+     * @param targetMillis The latency target of a single hash in milliseconds.
+     * @param minStrength  The lowest strength to use, even if it misses the target.
+     * @param maxStrength  The highest strength to use, even if the target allows more.
+     * @return The calibrated strength.
+     */
+    public int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        if (minStrength < 4 || maxStrength > 31 || minStrength > maxStrength) {
+            throw new IllegalArgumentException("Strengths must satisfy 4 <= min <= max <= 31");
+        }
+        // The first hash also warms up the JIT, so it is not measured
+        hashTimer.applyAsLong(minStrength);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = hashTimer.applyAsLong(minStrength);
+        }
+        Arrays.sort(samples);
+        long median = Math.max(1, samples[SAMPLES / 2]);
+
+        long target = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int strength = minStrength;
+        while (strength < maxStrength && median * (1L << (strength + 1 - minStrength)) <= target) {
+            strength++;
+        }
+        return strength;
+    }
+
+    /**
+     * Helper method to time a single hash at the given strength.
+     *
+     * @param strength The BCrypt strength.
+     * @return The time the hash took in nanoseconds.
+     */
+    private static long timeHash(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return System.nanoTime() - start;
+    }
+}
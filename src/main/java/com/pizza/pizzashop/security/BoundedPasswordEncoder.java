@@ -0,0 +1,129 @@
+package com.pizza.pizzashop.security;
+
+import com.pizza.pizzashop.exceptions.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a PasswordEncoder decorator that runs every hash and verification on a dedicated, bounded pool
+ * of worker threads instead of the calling request thread, so that a burst of sign-ins or sign-ups can only
+ * use a fixed share of the CPU. Work waiting for a worker is kept in a queue of limited capacity;
+ * once it is full, calls fail immediately with a PasswordHashingOverloadedException instead of piling up.
+ * The pool is exported as the "password_encoder" executor metrics, and the hashing itself
+ * as the "password_encoder.duration" timer with its median and 99th percentile.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitoredExecutor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final long retryAfterSeconds;
+
+    public BoundedPasswordEncoder(
+            PasswordEncoder delegate,
+            int threads,
+            int queueCapacity,
+            long retryAfterSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-encoder-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "password_encoder");
+        this.encodeTimer = Timer.builder("password_encoder.duration")
+                .tag("operation", "encode")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password_encoder.duration")
+                .tag("operation", "matches")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Hashes a raw password on the worker pool.
+     *
+     * @param rawPassword The password to hash.
+     * @return The hashed password.
+     * @throws PasswordHashingOverloadedException If the hashing queue is full.
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    /**
+     * Verifies a raw password against a hash on the worker pool.
+     *
+     * @param rawPassword     The password to verify.
+     * @param encodedPassword The stored hash of the password.
+     * @return True if the password matches the hash; otherwise, false.
+     * @throws PasswordHashingOverloadedException If the hashing queue is full.
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stops the worker pool when the application shuts down.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Helper method to run a task on the worker pool and wait for its result.
+     *
+     * @param task The hashing task.
+     * @param <T>  The type of the result.
+     * @return The result of the task.
+     * @throws PasswordHashingOverloadedException If the hashing queue is full.
+     */
+    private <T> T execute(Callable<T> task) {
+        try {
+            return monitoredExecutor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingOverloadedException(
+                    "Too many sign-in attempts are being processed. Try again later", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
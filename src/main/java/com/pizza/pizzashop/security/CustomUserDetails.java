@@ -1,21 +1,27 @@
 package com.pizza.pizzashop.security;
 
+import com.pizza.pizzashop.dtos.RoleDTO;
 import com.pizza.pizzashop.entities.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class implements the UserDetails interface and represents custom user details used for authentication and authorization.
- * It holds information about a user's ID, login, email, phone number, password, name, surname, and authorities (roles).
+ * It holds information about a user's ID, login, email, phone number, password, name, surname, birthday,
+ * roles, and the authorities derived from them, so the signed-in user can be described without loading it again.
+ * Instances are immutable, so a single instance can be cached and shared between requests.
  */
 public class CustomUserDetails implements UserDetails {
+    // There are only a handful of roles, so every role name maps to a single shared authority instance
+    private static final ConcurrentMap<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
     private final Long id;
 
     private final String login;
@@ -30,7 +36,11 @@ public class CustomUserDetails implements UserDetails {
 
     private final String surname;
 
-    private final Collection<? extends GrantedAuthority> authorities;
+    private final String birthday;
+
+    private final List<RoleDTO> roles;
+
+    private final List<GrantedAuthority> authorities;
 
     public CustomUserDetails(
             Long id,
@@ -41,6 +51,23 @@ public class CustomUserDetails implements UserDetails {
             String name,
             String surname,
             Collection<? extends GrantedAuthority> authorities
+    ) {
+        this(id, login, email, phonenumber, password, name, surname, null,
+                authorities == null ? null : authorities.stream()
+                        .map(authority -> new RoleDTO(null, authority.getAuthority()))
+                        .toList());
+    }
+
+    public CustomUserDetails(
+            Long id,
+            String login,
+            String email,
+            String phonenumber,
+            String password,
+            String name,
+            String surname,
+            String birthday,
+            List<RoleDTO> roles
     ) {
         this.id = id;
         this.login = login;
@@ -49,13 +76,38 @@ public class CustomUserDetails implements UserDetails {
         this.password = password;
         this.name = name;
         this.surname = surname;
-        if (authorities == null) {
+        this.birthday = birthday;
+        if (roles == null) {
+            this.roles = null;
             this.authorities = null;
         } else {
-            this.authorities = new ArrayList<>(authorities);
+            this.roles = List.copyOf(roles);
+            this.authorities = roles.stream()
+                    .map(role -> authority(role.getName()))
+                    .toList();
         }
     }
 
+    /**
+     * Static factory method to get the shared authority for a role name.
+     *
+     * @param roleName The name of the role.
+     * @return The GrantedAuthority of the role.
+     */
+    public static GrantedAuthority authority(String roleName) {
+        return AUTHORITIES.computeIfAbsent(roleName, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Creates a copy of these details with another password hash, e.g. after the password was rehashed.
+     *
+     * @param password The new password hash.
+     * @return A new CustomUserDetails object that differs from this one in the password only.
+     */
+    public CustomUserDetails withPassword(String password) {
+        return new CustomUserDetails(id, login, email, phonenumber, password, name, surname, birthday, roles);
+    }
+
     /**
      * Static factory method to create a CustomUserDetails object from a User entity.
      *
@@ -63,8 +115,9 @@ public class CustomUserDetails implements UserDetails {
      * @return A new CustomUserDetails object representing the user's custom details.
      */
     public static CustomUserDetails create(User user) {
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName())).collect(Collectors.toList());
+        List<RoleDTO> roles = user.getRoles().stream()
+                .map(role -> new RoleDTO(role.getId(), role.getName()))
+                .toList();
 
         return new CustomUserDetails(
                 user.getId(),
@@ -74,12 +127,13 @@ public class CustomUserDetails implements UserDetails {
                 user.getPassword(),
                 user.getName(),
                 user.getSurname(),
-                authorities);
+                user.getBirthday(),
+                roles);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return authorities == null ? null : new ArrayList<>(authorities);
+        return authorities;
     }
 
     public Long getId() {
@@ -112,6 +166,24 @@ public class CustomUserDetails implements UserDetails {
         return surname;
     }
 
+    public String getBirthday() {
+        return birthday;
+    }
+
+    public List<RoleDTO> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Checks whether a username identifies this user.
+     *
+     * @param username The username (login, email, or phone number) to check.
+     * @return True if the username is the login, email, or phone number of this user; otherwise, false.
+     */
+    public boolean hasUsername(String username) {
+        return username.equals(login) || username.equals(email) || username.equals(phonenumber);
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
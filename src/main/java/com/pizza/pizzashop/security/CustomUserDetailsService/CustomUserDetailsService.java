@@ -16,4 +16,18 @@ public interface CustomUserDetailsService {
      * @throws UserNotFoundException If the user with the specified ID is not found.
      */
     CustomUserDetails loadById(Long id) throws  UserNotFoundException;
+
+    /**
+     * Evicts the cached details of a user on every node, e.g. after the user was updated or deleted.
+     * Always evicts on this node; other nodes that cannot be notified drop the details when they expire.
+     *
+     * @param id The ID of the user.
+     */
+    void evict(Long id);
+
+    /**
+     * Evicts the cached details of all users on every node, e.g. after a role was renamed or deleted.
+     * Always evicts on this node; other nodes that cannot be notified drop the details when they expire.
+     */
+    void evictAll();
 }
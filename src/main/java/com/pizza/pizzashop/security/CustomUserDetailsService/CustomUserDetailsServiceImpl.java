@@ -1,46 +1,116 @@
 package com.pizza.pizzashop.security.CustomUserDetailsService;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.pizza.pizzashop.entities.User;
 import com.pizza.pizzashop.exceptions.UserNotFoundException;
 import com.pizza.pizzashop.repositories.UserRepository;
+import com.pizza.pizzashop.security.AuthenticationCache;
 import com.pizza.pizzashop.security.CustomUserDetails;
-import jakarta.transaction.Transactional;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
 /**
  * This is a service class that implements both the CustomUserDetailsService and UserDetailsService interfaces.
  * It is responsible for loading custom user details and user authentication details based on user IDs or usernames.
+ * Loaded details are kept in a bounded cache keyed by user ID, with an index from every username (login, email,
+ * and phone number) to the user ID. Evictions are published on the "principals" channel, so that every node drops
+ * the details of a changed user. While the subscription is down, every lookup goes to the database.
+ * Every eviction advances a generation, so that details read from the database before a change was committed
+ * are not cached after its eviction.
+ * It also stores password hashes that were upgraded on sign-in.
  */
 @Service
-public class CustomUserDetailsServiceImpl implements CustomUserDetailsService, UserDetailsService {
+public class CustomUserDetailsServiceImpl
+        implements CustomUserDetailsService, UserDetailsService, UserDetailsPasswordService, RedisHelper.ChannelListener {
+    private static final String PRINCIPALS_CHANNEL = "principals";
+    private static final String ALL_PRINCIPALS = "*";
 
     private final UserRepository userRepository;
+    private final RedisHelper redisHelper;
+    private final AuthenticationCache authenticationCache;
+    private final Cache<Long, CustomUserDetails> principals;
+    private final Cache<String, Long> usernames;
+    private final Counter rehashed;
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean synchronised;
 
     @Autowired
-    public CustomUserDetailsServiceImpl(UserRepository userRepository) {
+    public CustomUserDetailsServiceImpl(
+            UserRepository userRepository,
+            RedisHelper redisHelper,
+            AuthenticationCache authenticationCache,
+            @Value("${jwt.principal_cache.max_size:10000}") Long maxSize,
+            @Value("${jwt.principal_cache.ttl:300000}") Long ttl,
+            MeterRegistry meterRegistry
+    ) {
         this.userRepository = userRepository;
+        this.redisHelper = redisHelper;
+        this.authenticationCache = authenticationCache;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build();
+        this.usernames = Caffeine.newBuilder()
+                .maximumSize(maxSize * 3)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+        this.rehashed = Counter.builder("password_encoder.rehashed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the "principals" channel once the service is constructed.
+     */
+    @PostConstruct
+    public void start() {
+        redisHelper.subscribe(PRINCIPALS_CHANNEL, this);
     }
 
     /**
      * Loads custom user details from custom implementation of spring.security.UserDetails based on the provided user ID.
+     * Cached details are returned without touching the database.
      *
      * @param id The ID of the user for whom the details are to be loaded.
      * @return A CustomUserDetails object representing the user's custom details.
      * @throws UserNotFoundException If the user with the specified ID is not found.
      */
     @Override
-    @Transactional
     public CustomUserDetails loadById(Long id) throws UserNotFoundException {
+        if (synchronised) {
+            CustomUserDetails cached = principals.getIfPresent(id);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long loadedAt = generation.get();
         User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException("Cannot find user"));
-        return CustomUserDetails.create(user);
+        return cache(CustomUserDetails.create(user), loadedAt);
     }
 
     /**
      * Loads user authentication details based on the provided username (login, email, or phone number).
+     * Cached details are returned without touching the database.
      *
      * @param username The username (login, email, or phone number) of the user for whom the details are to be loaded.
      * @return A UserDetails object representing the user's authentication details.
@@ -48,10 +118,150 @@ public class CustomUserDetailsServiceImpl implements CustomUserDetailsService, U
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (synchronised) {
+            Long id = usernames.getIfPresent(username);
+            CustomUserDetails cached = id != null ? principals.getIfPresent(id) : null;
+            // The index may outlive a principal whose username has changed since
+            if (cached != null && cached.hasUsername(username)) {
+                return cached;
+            }
+        }
+        long loadedAt = generation.get();
         User user = userRepository.findByLoginOrEmailOrPhoneNumber(username, username, username);
         if (user == null) {
             throw new UsernameNotFoundException("Cannot find user with prompted login details: " + username);
         }
-        return CustomUserDetails.create(user);
+        return cache(CustomUserDetails.create(user), loadedAt);
+    }
+
+    /**
+     * Stores the upgraded password hash of a user who has just signed in, and evicts the details
+     * holding the previous hash on every node.
+     *
+     * @param user        The details of the user, holding the previous hash.
+     * @param newPassword The upgraded password hash.
+     * @return The details of the user holding the upgraded hash.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        CustomUserDetails userDetails = (CustomUserDetails) user;
+        userRepository.updatePassword(userDetails.getId(), newPassword);
+        rehashed.increment();
+        // Nodes that miss the eviction still hold the previous hash and merely upgrade it once more
+        evict(userDetails.getId());
+        return userDetails.withPassword(newPassword);
+    }
+
+    /**
+     * Evicts the cached details of a user on this node and notifies the other nodes.
+     * This runs after the change has been committed, so a failure to notify is logged rather than thrown.
+     *
+     * @param id The ID of the user.
+     */
+    @Override
+    public void evict(Long id) {
+        onMessage(id.toString());
+        publish(id.toString());
+    }
+
+    /**
+     * Evicts the cached details of all users on this node and notifies the other nodes.
+     * This runs after the change has been committed, so a failure to notify is logged rather than thrown.
+     */
+    @Override
+    public void evictAll() {
+        onMessage(ALL_PRINCIPALS);
+        publish(ALL_PRINCIPALS);
+    }
+
+    /**
+     * Helper method to notify the other nodes of an eviction.
+     *
+     * @param message The ID of the user, or "*" for all users.
+     */
+    private void publish(String message) {
+        try {
+            redisHelper.publish(PRINCIPALS_CHANNEL, message);
+        } catch (Exception e) {
+            // Other nodes drop the outdated details once principal_cache.ttl has passed
+            GlobalLogger.log("WARN", "Failed to publish principal eviction: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles an eviction published by any node, including this one.
+     * Cached authentications built from the evicted details are dropped as well.
+     *
+     * @param message The ID of the user, or "*" for all users.
+     */
+    @Override
+    public void onMessage(String message) {
+        generation.incrementAndGet();
+        if (ALL_PRINCIPALS.equals(message)) {
+            principals.invalidateAll();
+            usernames.invalidateAll();
+            authenticationCache.evictAll();
+            return;
+        }
+        try {
+            Long id = Long.valueOf(message);
+            CustomUserDetails evicted = principals.asMap().remove(id);
+            if (evicted != null) {
+                usernamesOf(evicted).forEach(username -> usernames.asMap().remove(username, id));
+            }
+            authenticationCache.evictUser(id);
+        } catch (NumberFormatException e) {
+            GlobalLogger.log("WARN", "Ignoring malformed principal eviction: " + message);
+        }
+    }
+
+    /**
+     * Drops the cached details, which may have missed evictions, once the subscription is (re)established.
+     */
+    @Override
+    public void onSubscribed() {
+        generation.incrementAndGet();
+        principals.invalidateAll();
+        usernames.invalidateAll();
+        synchronised = true;
+    }
+
+    /**
+     * Falls back to the database for every lookup until the subscription is re-established.
+     */
+    @Override
+    public void onDisconnected() {
+        synchronised = false;
+    }
+
+    /**
+     * Helper method to cache loaded details under the user ID and index every username of the user,
+     * unless anything was evicted since they were read. Evictions advance the generation before they remove
+     * entries, so details put concurrently with an eviction are either removed by the eviction or dropped here.
+     * A dropped entry may leave its usernames indexed, which is harmless, as lookups check the username.
+     *
+     * @param userDetails The loaded user details.
+     * @param generation  The generation read before the details were read from the database.
+     * @return The given user details.
+     */
+    private CustomUserDetails cache(CustomUserDetails userDetails, long generation) {
+        principals.put(userDetails.getId(), userDetails);
+        usernamesOf(userDetails).forEach(username -> usernames.put(username, userDetails.getId()));
+        if (this.generation.get() != generation) {
+            principals.asMap().remove(userDetails.getId(), userDetails);
+        }
+        return userDetails;
+    }
+
+    /**
+     * Helper method to list every username a user can sign in with.
+     *
+     * @param userDetails The user details.
+     * @return The login, email, and phone number of the user, skipping the ones that are not set.
+     */
+    private static List<String> usernamesOf(CustomUserDetails userDetails) {
+        return Stream.of(userDetails.getUsername(), userDetails.getEmail(), userDetails.getPhonenumber())
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
@@ -1,9 +1,13 @@
 package com.pizza.pizzashop.security;
 
+import com.pizza.pizzashop.exceptions.TokenValidationException;
+import com.pizza.pizzashop.exceptions.UserNotFoundException;
 import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsService;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochService;
+import com.pizza.pizzashop.security.TokenRevocationService.TokenRevocationService;
 import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
 import com.pizza.pizzashop.utils.JWTHelper;
-import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -29,22 +33,31 @@ import java.io.IOException;
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
     private final JWTHelper jwtHelper;
     private final CustomUserDetailsService customUserDetailsService;
-    private final RedisHelper redisHelper;
+    private final TokenRevocationService tokenRevocationService;
+    private final TokenEpochService tokenEpochService;
+    private final AuthenticationCache authenticationCache;
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
 
     @Autowired
     public JWTAuthenticationFilter(
             JWTHelper jwtHelper,
             CustomUserDetailsService customUserDetailsService,
-            RedisHelper redisHelper
+            TokenRevocationService tokenRevocationService,
+            TokenEpochService tokenEpochService,
+            AuthenticationCache authenticationCache
     ) {
         this.jwtHelper = jwtHelper;
         this.customUserDetailsService = customUserDetailsService;
-        this.redisHelper = redisHelper;
+        this.tokenRevocationService = tokenRevocationService;
+        this.tokenEpochService = tokenEpochService;
+        this.authenticationCache = authenticationCache;
     }
 
     /**
      * This method is called for each incoming HTTP request and is responsible for handling JWT-based authentication.
-     * It validates the JWT token, checks if it is not blacklisted in Redis, and sets the authentication in the security context.
+     * Tokens already seen are served from the AuthenticationCache. Otherwise, it verifies the JWT token once,
+     * checks if it was neither revoked by itself nor by an epoch bump of its user and caches the result. The VerifiedToken is exposed
+     * as a request attribute and a new authentication of the cached principal is set in the security context.
      * If the token is not valid or blacklisted, the request continues without authentication.
      *
      * @param request     The HTTP request.
@@ -61,17 +74,22 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
-            if (StringUtils.hasText(jwt) && jwtHelper.validateToken(jwt) && !redisHelper.check("blacklist", jwt)) {
-                Long userId = jwtHelper.extractUserId(jwt);
-
-                CustomUserDetails userDetails = customUserDetailsService.loadById(userId);
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            if (StringUtils.hasText(jwt)) {
+                String digest = TokenDigest.of(jwt);
+                AuthenticationCache.Entry entry = authenticationCache.get(digest);
+                if (entry == null) {
+                    entry = authenticate(jwt, digest);
+                }
+                if (entry != null) {
+                    request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, entry.getVerifiedToken());
+                    CustomUserDetails userDetails = entry.getUserDetails();
+                    UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities());
+                    authentication.setDetails(authenticationDetailsSource.buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             GlobalLogger.log("ERROR", String.valueOf(ex));
@@ -80,6 +98,32 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Helper method to fully authenticate a token that is not cached yet: verifies it, checks that it was not revoked
+     * and that it carries the current epoch of its user, loads the user unless the token carries trusted user details
+     * and caches the principal. Nothing is cached if the token may have been revoked while it was checked.
+     *
+     * @param jwt    The JWT token from the request.
+     * @param digest The digest of the JWT token.
+     * @return The entry, or null if the token was revoked.
+     * @throws TokenValidationException If the token is not valid or has expired.
+     * @throws UserNotFoundException    If the user the token was issued for does not exist.
+     */
+    private AuthenticationCache.Entry authenticate(String jwt, String digest)
+            throws TokenValidationException, UserNotFoundException {
+        VerifiedToken verifiedToken = jwtHelper.verifyToken(jwt);
+        long generation = authenticationCache.generation();
+        if (verifiedToken.getEpoch() < tokenEpochService.currentEpoch(verifiedToken.getUserId())
+                || tokenRevocationService.isRevoked(verifiedToken)) {
+            return null;
+        }
+        CustomUserDetails userDetails = verifiedToken.getUserDetails();
+        if (userDetails == null) {
+            userDetails = customUserDetailsService.loadById(verifiedToken.getUserId());
+        }
+        return authenticationCache.put(digest, verifiedToken, userDetails, generation);
+    }
+
     /**
      * Helper method to extract the JWT token from the "access_token" cookie in the HTTP request.
      *
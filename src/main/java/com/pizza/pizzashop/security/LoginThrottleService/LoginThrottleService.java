@@ -0,0 +1,18 @@
+package com.pizza.pizzashop.security.LoginThrottleService;
+
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
+
+/**
+ * This interface defines a contract for limiting the rate of sign-in attempts.
+ */
+public interface LoginThrottleService {
+    /**
+     * Admits a sign-in attempt, or rejects it if too many attempts were made from the IP address or for the identifier.
+     * It must be called before the credentials are verified.
+     *
+     * @param ip         The IP address the attempt comes from.
+     * @param identifier The login, email, or phone number the attempt is made for.
+     * @throws LoginThrottledException If the attempt exceeds one of the limits.
+     */
+    void acquire(String ip, String identifier) throws LoginThrottledException;
+}
@@ -0,0 +1,156 @@
+package com.pizza.pizzashop.security.LoginThrottleService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenBucket;
+import com.pizza.pizzashop.utils.TokenDigest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is an implementation of the LoginThrottleService interface.
+ * Attempts are checked against node-local lock-free token buckets per IP address and per identifier,
+ * so rejections never wait for Redis and never reach the password encoder.
+ * The attempts admitted locally are periodically added to per-window counters in Redis; whenever the cluster-wide
+ * count of a window exceeds the limit, the local bucket is emptied until the window ends. Limits therefore hold
+ * across the cluster, give or take the attempts made within one sync interval.
+ */
+@Service
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+    private static final String KEY_PREFIX = "login_throttle:";
+    private static final long MAX_TRACKED_KEYS = 100_000;
+    // Marks a pending attempts counter that was pruned after it stayed at 0 for a whole synchronisation
+    private static final long RETIRED = -1;
+
+    private final RedisHelper redisHelper;
+    private final Limit ipLimit;
+    private final Limit identifierLimit;
+
+    @Autowired
+    public LoginThrottleServiceImpl(
+            RedisHelper redisHelper,
+            @Value("${login_throttle.ip.capacity:20}") Long ipCapacity,
+            @Value("${login_throttle.ip.period:60000}") Long ipPeriod,
+            @Value("${login_throttle.identifier.capacity:5}") Long identifierCapacity,
+            @Value("${login_throttle.identifier.period:60000}") Long identifierPeriod,
+            MeterRegistry meterRegistry
+    ) {
+        this.redisHelper = redisHelper;
+        this.ipLimit = new Limit("ip", ipCapacity, ipPeriod, meterRegistry);
+        this.identifierLimit = new Limit("identifier", identifierCapacity, identifierPeriod, meterRegistry);
+    }
+
+    /**
+     * Admits a sign-in attempt, or rejects it if too many attempts were made from the IP address or for the identifier.
+     * Identifiers are compared case-insensitively.
+     *
+     * @param ip         The IP address the attempt comes from.
+     * @param identifier The login, email, or phone number the attempt is made for.
+     * @throws LoginThrottledException If the attempt exceeds one of the limits.
+     */
+    @Override
+    public void acquire(String ip, String identifier) throws LoginThrottledException {
+        ipLimit.acquire(ip);
+        if (identifier != null) {
+            identifierLimit.acquire(identifier.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Periodically reconciles the local buckets with the cluster-wide counters in Redis.
+     */
+    @Scheduled(fixedDelayString = "${login_throttle.sync_interval:1000}")
+    public void synchronise() {
+        try {
+            ipLimit.synchronise();
+            identifierLimit.synchronise();
+        } catch (Exception e) {
+            GlobalLogger.log("ERROR", "Failed to synchronise login throttle with Redis: " + e.getMessage());
+        }
+    }
+
+    /**
+     * This class holds the buckets and the not yet synchronised attempts of one limit.
+     */
+    private final class Limit {
+        private final String scope;
+        private final long capacity;
+        private final long periodMillis;
+        private final Cache<String, TokenBucket> buckets;
+        private final ConcurrentMap<String, AtomicLong> pendingAttempts = new ConcurrentHashMap<>();
+        private final Counter rejected;
+
+        private Limit(String scope, long capacity, long periodMillis, MeterRegistry meterRegistry) {
+            this.scope = scope;
+            this.capacity = capacity;
+            this.periodMillis = periodMillis;
+            // Idle buckets are full again after one period, so they can be dropped
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(MAX_TRACKED_KEYS)
+                    .expireAfterAccess(Duration.ofMillis(periodMillis))
+                    .build();
+            this.rejected = Counter.builder("login_throttle.rejected")
+                    .tag("scope", scope)
+                    .register(meterRegistry);
+        }
+
+        private void acquire(String key) throws LoginThrottledException {
+            long now = System.nanoTime();
+            TokenBucket bucket = buckets.get(key, k -> new TokenBucket(capacity, TimeUnit.MILLISECONDS.toNanos(periodMillis), now));
+            if (!bucket.tryAcquire(now)) {
+                rejected.increment();
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(bucket.nanosUntilAvailable(now) + 999_999_999));
+                throw new LoginThrottledException("Too many sign-in attempts. Try again later", retryAfter);
+            }
+            while (true) {
+                AtomicLong attempts = pendingAttempts.computeIfAbsent(key, k -> new AtomicLong());
+                if (attempts.getAndUpdate(value -> value == RETIRED ? RETIRED : value + 1) != RETIRED) {
+                    return;
+                }
+                // The counter was pruned meanwhile, so count in a new one
+                pendingAttempts.remove(key, attempts);
+            }
+        }
+
+        private void synchronise() {
+            long nowMillis = System.currentTimeMillis();
+            long window = nowMillis / periodMillis;
+            long windowEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((window + 1) * periodMillis - nowMillis);
+            for (Map.Entry<String, AtomicLong> entry : pendingAttempts.entrySet()) {
+                long attempts = entry.getValue().getAndUpdate(value -> value == RETIRED ? RETIRED : 0);
+                if (attempts == RETIRED) {
+                    continue;
+                }
+                if (attempts == 0) {
+                    // Counters are retired before they are removed, so no attempt can be counted in a removed one
+                    if (entry.getValue().compareAndSet(0, RETIRED)) {
+                        pendingAttempts.remove(entry.getKey(), entry.getValue());
+                    }
+                    continue;
+                }
+                String redisKey = KEY_PREFIX + scope + ":" + TokenDigest.of(entry.getKey()) + ":" + window;
+                if (redisHelper.increment(redisKey, attempts, periodMillis) > capacity) {
+                    TokenBucket bucket = buckets.getIfPresent(entry.getKey());
+                    if (bucket != null) {
+                        bucket.exhaustUntil(windowEnd);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.pizza.pizzashop.security;
+
+import com.pizza.pizzashop.entities.Role;
+import com.pizza.pizzashop.entities.User;
+import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This class evicts cached user details whenever the data they are built from changes.
+ * It listens to Hibernate events rather than JPA callbacks, because replacing the roles of a user
+ * only changes the "role_on_user" collection, which JPA callbacks do not report.
+ * Updated or deleted users evict their own details; updated or deleted roles evict the details of all users.
+ * Evictions are only performed after the transaction commits, so no node can reload the old data afterwards.
+ */
+@Component
+public class PrincipalCacheInvalidator implements
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener,
+        PostCollectionUpdateEventListener,
+        PostCollectionRecreateEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    public PrincipalCacheInvalidator(
+            EntityManagerFactory entityManagerFactory,
+            CustomUserDetailsService customUserDetailsService
+    ) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.customUserDetailsService = customUserDetailsService;
+    }
+
+    /**
+     * Registers the listener with Hibernate once the component is constructed.
+     */
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was committed, so the cached details are still up to date
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was committed, so the cached details are still up to date
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        invalidateOwnerAfterCommit(event);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        invalidateOwnerAfterCommit(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return User.class.equals(entityClass) || Role.class.equals(entityClass);
+    }
+
+    /**
+     * Helper method to evict the cached details affected by a committed change of an entity.
+     *
+     * @param entity The updated or deleted entity.
+     */
+    private void invalidate(Object entity) {
+        if (entity instanceof User user) {
+            customUserDetailsService.evict(user.getId());
+        } else if (entity instanceof Role) {
+            customUserDetailsService.evictAll();
+        }
+    }
+
+    /**
+     * Helper method to evict the cached details of a user whose roles changed, once the transaction commits.
+     * Collection events are raised while flushing, before the change is committed.
+     *
+     * @param event The collection event.
+     */
+    private void invalidateOwnerAfterCommit(AbstractCollectionEvent event) {
+        if (!(event.getAffectedOwnerOrNull() instanceof User user)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            customUserDetailsService.evict(user.getId());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                customUserDetailsService.evict(user.getId());
+            }
+        });
+    }
+}
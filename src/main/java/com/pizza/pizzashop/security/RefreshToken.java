@@ -0,0 +1,29 @@
+package com.pizza.pizzashop.security;
+
+/**
+ * This class represents a newly issued refresh token together with the user it was issued for
+ * and the epoch of the user its session was started in, which the access tokens issued alongside carry as well.
+ */
+public final class RefreshToken {
+    private final String token;
+    private final Long userId;
+    private final long epoch;
+
+    public RefreshToken(String token, Long userId, long epoch) {
+        this.token = token;
+        this.userId = userId;
+        this.epoch = epoch;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+}
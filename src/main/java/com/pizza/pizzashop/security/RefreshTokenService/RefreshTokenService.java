@@ -0,0 +1,35 @@
+package com.pizza.pizzashop.security.RefreshTokenService;
+
+import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
+import com.pizza.pizzashop.security.RefreshToken;
+
+/**
+ * This interface defines a contract for issuing, rotating and revoking refresh tokens,
+ * which are exchanged for new short-lived access tokens.
+ */
+public interface RefreshTokenService {
+    /**
+     * Issues a refresh token starting a new session of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The issued refresh token.
+     * @throws com.pizza.pizzashop.exceptions.RedisUnavailableException If Redis is unavailable.
+     */
+    RefreshToken issue(Long userId);
+
+    /**
+     * Exchanges a refresh token for a new one of the same session. Every refresh token can be used only once.
+     *
+     * @param token The refresh token presented by the client.
+     * @return The new refresh token.
+     * @throws AuthenticationFailedException If the token is unknown, was already used, has expired or was revoked.
+     */
+    RefreshToken rotate(String token) throws AuthenticationFailedException;
+
+    /**
+     * Revokes a refresh token together with every other token of its session.
+     *
+     * @param token The refresh token presented by the client.
+     */
+    void revoke(String token);
+}
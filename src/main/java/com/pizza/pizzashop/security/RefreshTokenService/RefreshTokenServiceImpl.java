@@ -0,0 +1,140 @@
+package com.pizza.pizzashop.security.RefreshTokenService;
+
+import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
+import com.pizza.pizzashop.security.RefreshToken;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochService;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * This class is an implementation of the RefreshTokenService interface.
+ * Refresh tokens are opaque random strings. Only their digests are stored in Redis, as "refresh:{digest}" keys
+ * holding "{userId}:{sessionId}:{epoch}" that expire after the refresh token lifetime.
+ * Every rotation atomically consumes the presented token with GETDEL and remembers it as used. Presenting a used
+ * token again means that it was stolen, so the whole session, tracked as a "refresh_session:{sessionId}" key,
+ * is revoked. Tokens issued before the user's epoch was bumped are rejected as well.
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final String TOKEN_PREFIX = "refresh:";
+    private static final String USED_PREFIX = "refresh_used:";
+    private static final String SESSION_PREFIX = "refresh_session:";
+    private static final int TOKEN_BYTES = 32;
+    private static final int SESSION_ID_BYTES = 16;
+
+    private final RedisHelper redisHelper;
+    private final TokenEpochService tokenEpochService;
+    private final long lifetime;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenServiceImpl(
+            RedisHelper redisHelper,
+            TokenEpochService tokenEpochService,
+            @Value("${jwt.refresh_token.lifetime:604800000}") Long lifetime
+    ) {
+        this.redisHelper = redisHelper;
+        this.tokenEpochService = tokenEpochService;
+        this.lifetime = lifetime;
+    }
+
+    /**
+     * Issues a refresh token starting a new session of a user. The epoch is read strictly, so that no session
+     * starts with the fail-closed epoch and becomes impossible to revoke.
+     *
+     * @param userId The ID of the user.
+     * @return The issued refresh token.
+     * @throws com.pizza.pizzashop.exceptions.RedisUnavailableException If Redis is unavailable.
+     */
+    @Override
+    public RefreshToken issue(Long userId) {
+        long epoch = tokenEpochService.issuingEpoch(userId);
+        String sessionId = randomString(SESSION_ID_BYTES);
+        redisHelper.set(SESSION_PREFIX + sessionId, userId.toString(), lifetime);
+        return store(userId, sessionId, epoch);
+    }
+
+    /**
+     * Exchanges a refresh token for a new one of the same session and extends the session by one lifetime.
+     *
+     * @param token The refresh token presented by the client.
+     * @return The new refresh token.
+     * @throws AuthenticationFailedException If the token is unknown, was already used, has expired or was revoked.
+     */
+    @Override
+    public RefreshToken rotate(String token) throws AuthenticationFailedException {
+        if (token == null) {
+            throw new AuthenticationFailedException("No refresh token was found");
+        }
+        String digest = TokenDigest.of(token);
+        String value = redisHelper.getAndDelete(TOKEN_PREFIX + digest);
+        if (value == null) {
+            String reusedSessionId = redisHelper.get(USED_PREFIX + digest);
+            if (reusedSessionId != null) {
+                redisHelper.delete(SESSION_PREFIX + reusedSessionId);
+                GlobalLogger.log("WARN", "Refresh token was used twice, its session has been revoked");
+            }
+            throw new AuthenticationFailedException("Refresh token is invalid or has expired");
+        }
+
+        String[] parts = value.split(":");
+        Long userId = Long.valueOf(parts[0]);
+        String sessionId = parts[1];
+        long epoch = Long.parseLong(parts[2]);
+        redisHelper.set(USED_PREFIX + digest, sessionId, lifetime);
+        if (!redisHelper.exists(SESSION_PREFIX + sessionId) || epoch < tokenEpochService.currentEpoch(userId)) {
+            throw new AuthenticationFailedException("Refresh token has been revoked");
+        }
+        redisHelper.set(SESSION_PREFIX + sessionId, userId.toString(), lifetime);
+        return store(userId, sessionId, epoch);
+    }
+
+    /**
+     * Revokes a refresh token together with every other token of its session. Unknown tokens are ignored.
+     *
+     * @param token The refresh token presented by the client.
+     */
+    @Override
+    public void revoke(String token) {
+        if (token == null) {
+            return;
+        }
+        String value = redisHelper.getAndDelete(TOKEN_PREFIX + TokenDigest.of(token));
+        if (value != null) {
+            redisHelper.delete(SESSION_PREFIX + value.split(":")[1]);
+        }
+    }
+
+    /**
+     * Helper method to generate a refresh token and store its digest.
+     *
+     * @param userId    The ID of the user.
+     * @param sessionId The ID of the session the token belongs to.
+     * @param epoch     The epoch of the user the token is issued in.
+     * @return The generated refresh token.
+     */
+    private RefreshToken store(Long userId, String sessionId, long epoch) {
+        String token = randomString(TOKEN_BYTES);
+        redisHelper.set(TOKEN_PREFIX + TokenDigest.of(token), userId + ":" + sessionId + ":" + epoch, lifetime);
+        return new RefreshToken(token, userId, epoch);
+    }
+
+    /**
+     * Helper method to generate a random unpadded base64url string.
+     *
+     * @param bytes The number of random bytes.
+     * @return The encoded random bytes.
+     */
+    private String randomString(int bytes) {
+        byte[] random = new byte[bytes];
+        secureRandom.nextBytes(random);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+    }
+}
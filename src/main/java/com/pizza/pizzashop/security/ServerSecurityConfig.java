@@ -1,7 +1,11 @@
 package com.pizza.pizzashop.security;
 
 import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsServiceImpl;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -16,10 +20,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 /**
  * This class is a configuration class responsible for configuring Spring Security for the server application.
  * It enables Web Security and Method Security and defines security-related configurations.
@@ -30,7 +37,10 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class ServerSecurityConfig {
     protected static final String[] ENDPOINTS_WHITELIST = {
             "/api/auth/sign-in",
-            "/api/auth/sign-up"
+            "/api/auth/sign-up",
+            "/api/auth/refresh",
+            "/.well-known/jwks.json",
+            "/api/pizza/image/*"
     };
     private final CustomUserDetailsServiceImpl customUserDetailsService;
     private final JWTAuthenticationFilter jwtAuthenticationFilter;
@@ -77,14 +87,17 @@ public class ServerSecurityConfig {
 
     /**
      * Configures the AuthenticationManager bean.
+     * Password hashes that are weaker than the current encoding are replaced on successful sign-in.
      *
+     * @param passwordEncoder The PasswordEncoder used to verify passwords.
      * @return The configured AuthenticationManager.
      */
     @Bean
-    public AuthenticationManager authManager() {
+    public AuthenticationManager authManager(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(customUserDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserDetailsPasswordService(customUserDetailsService);
         return new ProviderManager(authProvider);
     }
 
@@ -103,11 +116,44 @@ public class ServerSecurityConfig {
 
     /**
      * Creates a PasswordEncoder bean for encoding passwords.
+     * The BCrypt strength is calibrated at startup to the configured latency target.
+     * New hashes are prefixed with "{bcrypt}"; hashes without prefix, which were created before, are verified
+     * as BCrypt hashes of any strength and are upgraded on the next successful sign-in, as are hashes
+     * of a lower strength than the calibrated one.
+     * BCrypt runs on a dedicated bounded pool, so that password hashing cannot starve request threads.
      *
+     * @param threads           The number of threads hashing passwords.
+     * @param queueCapacity     The number of hashing requests allowed to wait for a thread.
+     * @param retryAfterSeconds The delay suggested to clients once the queue is full.
+     * @param targetLatency     The time in milliseconds a single hash should take.
+     * @param minStrength       The lowest BCrypt strength to use, even if it misses the target.
+     * @param maxStrength       The highest BCrypt strength to use, even if the target allows more.
+     * @param meterRegistry     The MeterRegistry the pool metrics are registered in.
      * @return The PasswordEncoder bean.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${password_encoder.threads:2}") Integer threads,
+            @Value("${password_encoder.queue_capacity:64}") Integer queueCapacity,
+            @Value("${password_encoder.retry_after:1}") Long retryAfterSeconds,
+            @Value("${password_encoder.bcrypt.target_latency:250}") Long targetLatency,
+            @Value("${password_encoder.bcrypt.min_strength:10}") Integer minStrength,
+            @Value("${password_encoder.bcrypt.max_strength:16}") Integer maxStrength,
+            MeterRegistry meterRegistry
+    ) {
+        int strength = new BCryptStrengthCalibrator().calibrate(targetLatency, minStrength, maxStrength);
+        GlobalLogger.log("INFO", "Calibrated BCrypt strength to " + strength + " for a target of " + targetLatency + " ms");
+        Gauge.builder("password_encoder.bcrypt.strength", () -> strength)
+                .register(meterRegistry);
+        Gauge.builder("password_encoder.bcrypt.target_latency", () -> targetLatency)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(
+                "bcrypt", Map.of("bcrypt", bCryptPasswordEncoder));
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bCryptPasswordEncoder);
+        return new BoundedPasswordEncoder(
+                delegatingPasswordEncoder, threads, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 }
@@ -0,0 +1,31 @@
+package com.pizza.pizzashop.security;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * This class represents an asymmetric key pair used to sign access tokens, identified by its key ID ("kid").
+ */
+public final class SigningKey {
+    private final String keyId;
+    private final PrivateKey privateKey;
+    private final PublicKey publicKey;
+
+    public SigningKey(String keyId, PrivateKey privateKey, PublicKey publicKey) {
+        this.keyId = keyId;
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+}
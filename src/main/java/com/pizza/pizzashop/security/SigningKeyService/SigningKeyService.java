@@ -0,0 +1,36 @@
+package com.pizza.pizzashop.security.SigningKeyService;
+
+import com.pizza.pizzashop.security.SigningKey;
+
+import java.security.PublicKey;
+import java.util.Map;
+
+/**
+ * This interface defines a contract for managing the asymmetric keys access tokens are signed with
+ * and for publishing their public halves.
+ */
+public interface SigningKeyService {
+    /**
+     * Returns the key new access tokens are signed with.
+     *
+     * @return The current signing key.
+     * @throws com.pizza.pizzashop.exceptions.RedisUnavailableException If no key could be published, so that
+     *                                                                   tokens signed now could not be verified.
+     */
+    SigningKey currentKey();
+
+    /**
+     * Returns the public key with the given key ID, as used by any node of the cluster.
+     *
+     * @param keyId The key ID from the header of a token.
+     * @return The public key, or null if the key is unknown or has been retired.
+     */
+    PublicKey publicKey(String keyId);
+
+    /**
+     * Returns the JSON Web Key Set of all public keys that tokens still valid may have been signed with.
+     *
+     * @return The key set, ready to be serialised as JSON.
+     */
+    Map<String, Object> jwks();
+}
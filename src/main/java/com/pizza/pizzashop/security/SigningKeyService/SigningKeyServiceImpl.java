@@ -0,0 +1,314 @@
+package com.pizza.pizzashop.security.SigningKeyService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.security.SigningKey;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is an implementation of the SigningKeyService interface, active when tokens are signed with RS256.
+ * Every node signs with its own RSA key pair, which it rotates periodically. The private key never leaves the node;
+ * the public key is published to Redis as a "jwks:{kid}" key that lives as long as tokens signed with it can be
+ * valid, so every node and service can verify any token locally. Key IDs are RFC 7638 thumbprints.
+ * A key only signs while its published public key outlives the tokens it signs: a node whose key could not be
+ * published retries with a backoff, and refuses to sign once the published key of its current one would expire.
+ * Public keys are cached locally once seen, and unknown key IDs are remembered for a short time, so that tokens
+ * carrying made-up key IDs cannot make every request query Redis.
+ */
+@Service
+@ConditionalOnProperty(name = "jwt.signing.algorithm", havingValue = "RS256")
+public class SigningKeyServiceImpl implements SigningKeyService {
+    private static final String KEY_PREFIX = "jwks:";
+    private static final long MAX_CACHED_KEYS = 1000;
+    private static final long MAX_UNKNOWN_KEY_IDS = 10000;
+    private static final Duration UNKNOWN_KEY_ID_TTL = Duration.ofSeconds(10);
+    // Lets a key sign a little past its rotation interval, so that a late rotation does not leave a node without one
+    private static final long ROTATION_GRACE = 300000;
+    private static final long MAX_PUBLISH_RETRY_DELAY = 60000;
+
+    private final RedisHelper redisHelper;
+    private final long signingPeriod;
+    private final long keyLifetime;
+    private final long publishRetryInterval;
+    private final long jwksCacheTtl;
+    private final Cache<String, PublicKey> publicKeys;
+    private final Cache<String, Boolean> unknownKeyIds;
+
+    private volatile SigningKey currentKey;
+    private volatile long signUntil;
+    private SigningKey pendingKey;
+    private long publishRetryDelay;
+    private long nextPublishAttempt;
+    private volatile Map<String, Object> jwks;
+    private volatile long jwksBuiltAt;
+
+    @Autowired
+    public SigningKeyServiceImpl(
+            RedisHelper redisHelper,
+            @Value("${jwt.signing.rotation_interval:86400000}") Long rotationInterval,
+            @Value("${jwt.signing.publish_retry_interval:1000}") Long publishRetryInterval,
+            @Value("${jwt.signing.jwks_cache_ttl:60000}") Long jwksCacheTtl,
+            @Value("${jwt.access_token.lifetime}") Integer tokenLifetime
+    ) {
+        this.redisHelper = redisHelper;
+        // A key signs tokens for one rotation interval and the grace, and the last of them stays valid for one token lifetime
+        this.signingPeriod = rotationInterval + ROTATION_GRACE;
+        this.keyLifetime = signingPeriod + tokenLifetime;
+        this.publishRetryInterval = publishRetryInterval;
+        this.jwksCacheTtl = jwksCacheTtl;
+        this.publicKeys = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_KEYS)
+                .expireAfterWrite(Duration.ofMillis(keyLifetime))
+                .build();
+        this.unknownKeyIds = Caffeine.newBuilder()
+                .maximumSize(MAX_UNKNOWN_KEY_IDS)
+                .expireAfterWrite(UNKNOWN_KEY_ID_TTL)
+                .build();
+    }
+
+    /**
+     * Generates the first key once the service is constructed. Until it is published, no tokens can be signed.
+     */
+    @PostConstruct
+    public void start() {
+        rotate();
+    }
+
+    /**
+     * Periodically replaces the signing key. Tokens signed with previous keys stay verifiable until they expire.
+     * If the new public key cannot be published, the current key is kept, its time to live is re-set if possible,
+     * and publishing is retried with a backoff, see retryPublish().
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.signing.rotation_interval:86400000}",
+            fixedDelayString = "${jwt.signing.rotation_interval:86400000}")
+    public synchronized void rotate() {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        pendingKey = new SigningKey(thumbprint(keyPair.getPublic()), keyPair.getPrivate(), keyPair.getPublic());
+        publishRetryDelay = publishRetryInterval;
+        publishPendingKey();
+    }
+
+    /**
+     * Retries publishing a new key that could not be published, waiting twice as long after every failure.
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.signing.publish_retry_interval:1000}",
+            fixedDelayString = "${jwt.signing.publish_retry_interval:1000}")
+    public synchronized void retryPublish() {
+        if (pendingKey != null && System.currentTimeMillis() >= nextPublishAttempt) {
+            publishPendingKey();
+        }
+    }
+
+    /**
+     * Returns the key new access tokens are signed with. A key is only used while its published public key
+     * outlives every token signed with it, so a node that cannot publish stops issuing tokens nobody could verify.
+     *
+     * @return The current signing key.
+     * @throws RedisUnavailableException If no key could be published in time.
+     */
+    @Override
+    public SigningKey currentKey() {
+        SigningKey key = currentKey;
+        if (key == null || System.currentTimeMillis() > signUntil) {
+            throw new RedisUnavailableException("No published signing key");
+        }
+        return key;
+    }
+
+    /**
+     * Helper method to publish the pending key and make it the current key. On failure, the time to live
+     * of the current key is re-set, so that it can keep signing, and the next attempt is scheduled.
+     */
+    private void publishPendingKey() {
+        long now = System.currentTimeMillis();
+        try {
+            publish(pendingKey);
+        } catch (Exception e) {
+            GlobalLogger.log("ERROR", "Failed to publish signing key, retrying in " + publishRetryDelay + " ms: "
+                    + e.getMessage());
+            nextPublishAttempt = now + publishRetryDelay;
+            publishRetryDelay = Math.min(publishRetryDelay * 2, MAX_PUBLISH_RETRY_DELAY);
+            if (currentKey != null) {
+                try {
+                    publish(currentKey);
+                    signUntil = now + signingPeriod;
+                } catch (Exception ignored) {
+                    // The current key signs until its published public key would expire
+                }
+            }
+            return;
+        }
+        currentKey = pendingKey;
+        signUntil = now + signingPeriod;
+        pendingKey = null;
+        jwks = null;
+    }
+
+    /**
+     * Helper method to publish a public key to Redis and cache it locally, both for the whole key lifetime.
+     *
+     * @param key The key to publish.
+     */
+    private void publish(SigningKey key) {
+        redisHelper.set(
+                KEY_PREFIX + key.getKeyId(),
+                Base64.getEncoder().encodeToString(key.getPublicKey().getEncoded()),
+                keyLifetime);
+        publicKeys.put(key.getKeyId(), key.getPublicKey());
+    }
+
+    /**
+     * Returns the public key with the given key ID from the local cache, loading it from Redis on a miss.
+     *
+     * @param keyId The key ID from the header of a token.
+     * @return The public key, or null if the key is unknown or has been retired.
+     */
+    @Override
+    public PublicKey publicKey(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        PublicKey publicKey = publicKeys.getIfPresent(keyId);
+        if (publicKey != null || unknownKeyIds.getIfPresent(keyId) != null) {
+            return publicKey;
+        }
+        String encoded = redisHelper.get(KEY_PREFIX + keyId);
+        if (encoded == null) {
+            unknownKeyIds.put(keyId, Boolean.TRUE);
+            return null;
+        }
+        publicKey = decode(encoded);
+        publicKeys.put(keyId, publicKey);
+        return publicKey;
+    }
+
+    /**
+     * Returns the JSON Web Key Set of all published public keys. The set is rebuilt from Redis at most once
+     * per cache lifetime, and right after this node rotated its key.
+     *
+     * @return The key set, ready to be serialised as JSON.
+     */
+    @Override
+    public Map<String, Object> jwks() {
+        Map<String, Object> keySet = jwks;
+        if (keySet == null || System.currentTimeMillis() - jwksBuiltAt > jwksCacheTtl) {
+            keySet = buildJwks();
+            jwks = keySet;
+            jwksBuiltAt = System.currentTimeMillis();
+        }
+        return keySet;
+    }
+
+    /**
+     * Helper method to build the JSON Web Key Set from the public keys in Redis and the current key of this node.
+     *
+     * @return The key set.
+     */
+    private Map<String, Object> buildJwks() {
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        SigningKey key = currentKey;
+        if (key != null) {
+            keys.put(key.getKeyId(), key.getPublicKey());
+        }
+        try {
+            List<String> redisKeys = redisHelper.scan(KEY_PREFIX + "*");
+            List<String> encodedKeys = redisHelper.getAll(redisKeys);
+            for (int i = 0; i < redisKeys.size(); i++) {
+                if (encodedKeys.get(i) != null) {
+                    keys.putIfAbsent(redisKeys.get(i).substring(KEY_PREFIX.length()), decode(encodedKeys.get(i)));
+                }
+            }
+        } catch (Exception e) {
+            GlobalLogger.log("ERROR", "Failed to load published signing keys: " + e.getMessage());
+        }
+
+        List<Map<String, Object>> jsonWebKeys = new ArrayList<>(keys.size());
+        keys.forEach((keyId, publicKey) -> {
+            RSAPublicKey rsaPublicKey = (RSAPublicKey) publicKey;
+            Map<String, Object> jsonWebKey = new LinkedHashMap<>();
+            jsonWebKey.put("kty", "RSA");
+            jsonWebKey.put("use", "sig");
+            jsonWebKey.put("alg", SignatureAlgorithm.RS256.getValue());
+            jsonWebKey.put("kid", keyId);
+            jsonWebKey.put("n", base64Url(rsaPublicKey.getModulus()));
+            jsonWebKey.put("e", base64Url(rsaPublicKey.getPublicExponent()));
+            jsonWebKeys.add(jsonWebKey);
+        });
+        return Map.of("keys", List.copyOf(jsonWebKeys));
+    }
+
+    /**
+     * Helper method to compute the RFC 7638 thumbprint of an RSA public key, used as its key ID.
+     *
+     * @param publicKey The public key.
+     * @return The unpadded base64url-encoded SHA-256 thumbprint.
+     */
+    private static String thumbprint(PublicKey publicKey) {
+        RSAPublicKey rsaPublicKey = (RSAPublicKey) publicKey;
+        String canonical = "{\"e\":\"" + base64Url(rsaPublicKey.getPublicExponent())
+                + "\",\"kty\":\"RSA\",\"n\":\"" + base64Url(rsaPublicKey.getModulus()) + "\"}";
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * Helper method to encode a big integer as an unsigned, unpadded base64url string, as JSON Web Keys require.
+     *
+     * @param value The value to encode.
+     * @return The encoded value.
+     */
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Helper method to decode a public key published to Redis.
+     *
+     * @param encoded The base64-encoded X.509 form of the key.
+     * @return The public key.
+     */
+    private static PublicKey decode(String encoded) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Malformed public key in Redis", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pizza.pizzashop.security.TokenEpochService;
+
+/**
+ * This interface defines a contract for per-user revocation epochs.
+ * Every access token carries the epoch of its user at issue time, and a token is revoked
+ * as soon as the user's current epoch is greater than the one it carries.
+ */
+public interface TokenEpochService {
+    /**
+     * Returns the current revocation epoch of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The current epoch of the user; 0 if the epoch was never bumped.
+     */
+    long currentEpoch(Long userId);
+
+    /**
+     * Returns the current revocation epoch of a user for a token about to be issued. Unlike currentEpoch(),
+     * it never falls back to the degraded mode policy, whose epoch would make the token impossible to revoke.
+     *
+     * @param userId The ID of the user.
+     * @return The current epoch of the user; 0 if the epoch was never bumped.
+     * @throws com.pizza.pizzashop.exceptions.RedisUnavailableException If the epoch cannot be read.
+     */
+    long issuingEpoch(Long userId);
+
+    /**
+     * Bumps the revocation epoch of a user, revoking every access token issued to the user so far on every node.
+     *
+     * @param userId The ID of the user.
+     * @return The new epoch of the user.
+     */
+    long bump(Long userId);
+}
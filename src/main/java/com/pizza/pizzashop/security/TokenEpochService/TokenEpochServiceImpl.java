@@ -0,0 +1,166 @@
+package com.pizza.pizzashop.security.TokenEpochService;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * This class is an implementation of the TokenEpochService interface.
+ * The epoch of every user is a single "epoch:{userId}" counter in Redis, so revoking all tokens of a user
+ * takes constant storage no matter how many devices the user signed in from.
+ * Epochs are cached locally and kept fresh through the "epochs" channel, on which every bump is published
+ * as "{userId}:{epoch}". While the subscription is down, every lookup falls through to Redis.
+ * If Redis itself is unavailable, the last known epoch of the user is used; users without one are treated according
+ * to the configured fail-open or fail-closed policy.
+ */
+@Service
+public class TokenEpochServiceImpl implements TokenEpochService, RedisHelper.ChannelListener {
+    private static final String EPOCH_PREFIX = "epoch:";
+    private static final String EPOCHS_CHANNEL = "epochs";
+
+    private final RedisHelper redisHelper;
+    private final AuthenticationCache authenticationCache;
+    private final LoadingCache<Long, Long> epochs;
+    private final boolean failOpen;
+
+    private volatile boolean synchronised;
+
+    @Autowired
+    public TokenEpochServiceImpl(
+            RedisHelper redisHelper,
+            AuthenticationCache authenticationCache,
+            @Value("${jwt.epoch_cache.max_size:100000}") Long maxSize,
+            @Value("${jwt.epoch_cache.ttl:600000}") Long ttl,
+            @Value("${jwt.degraded_mode.fail_open:false}") Boolean failOpen,
+            MeterRegistry meterRegistry
+    ) {
+        this.redisHelper = redisHelper;
+        this.authenticationCache = authenticationCache;
+        this.epochs = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .recordStats()
+                .build(this::loadEpoch);
+        CaffeineCacheMetrics.monitor(meterRegistry, epochs, "jwt_epoch");
+        this.failOpen = failOpen;
+    }
+
+    /**
+     * Subscribes to the "epochs" channel once the service is constructed.
+     */
+    @PostConstruct
+    public void start() {
+        redisHelper.subscribe(EPOCHS_CHANNEL, this);
+    }
+
+    /**
+     * Returns the current revocation epoch of a user from the local cache, loading it from Redis on a miss.
+     * Epochs read while the subscription is down are kept as the last known ones.
+     * If Redis is unavailable, the last known epoch is returned; without one, the epoch is 0 if failing open,
+     * so that every token is accepted, or Long.MAX_VALUE if failing closed, so that every token is rejected.
+     * These values are meant for checking tokens only; tokens are issued with issuingEpoch().
+     *
+     * @param userId The ID of the user.
+     * @return The current epoch of the user; 0 if the epoch was never bumped.
+     */
+    @Override
+    public long currentEpoch(Long userId) {
+        try {
+            return issuingEpoch(userId);
+        } catch (RedisUnavailableException e) {
+            Long lastKnown = epochs.getIfPresent(userId);
+            if (lastKnown != null) {
+                return lastKnown;
+            }
+            return failOpen ? 0 : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Returns the current revocation epoch of a user like currentEpoch(), but fails if Redis is unavailable.
+     *
+     * @param userId The ID of the user.
+     * @return The current epoch of the user; 0 if the epoch was never bumped.
+     * @throws RedisUnavailableException If the epoch is not cached and Redis is unavailable.
+     */
+    @Override
+    public long issuingEpoch(Long userId) {
+        if (!synchronised) {
+            return epochs.asMap().merge(userId, loadEpoch(userId), Math::max);
+        }
+        return epochs.get(userId);
+    }
+
+    /**
+     * Bumps the revocation epoch of a user in Redis, then updates the local cache and notifies the other nodes.
+     *
+     * @param userId The ID of the user.
+     * @return The new epoch of the user.
+     */
+    @Override
+    public long bump(Long userId) {
+        long epoch = redisHelper.increment(EPOCH_PREFIX + userId);
+        String message = userId + ":" + epoch;
+        onMessage(message);
+        redisHelper.publish(EPOCHS_CHANNEL, message);
+        return epoch;
+    }
+
+    /**
+     * Handles an epoch bump published by any node, including this one.
+     * Epochs only ever grow, so a late message never lowers a cached epoch.
+     *
+     * @param message The bump, formatted as "{userId}:{epoch}".
+     */
+    @Override
+    public void onMessage(String message) {
+        int separator = message.indexOf(':');
+        try {
+            Long userId = Long.valueOf(message.substring(0, separator));
+            Long epoch = Long.valueOf(message.substring(separator + 1));
+            epochs.asMap().merge(userId, epoch, Math::max);
+            authenticationCache.evictUser(userId);
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            GlobalLogger.log("WARN", "Ignoring malformed epoch message: " + message);
+        }
+    }
+
+    /**
+     * Drops the cached epochs, which may have missed bumps, once the subscription is (re)established.
+     */
+    @Override
+    public void onSubscribed() {
+        epochs.invalidateAll();
+        synchronised = true;
+    }
+
+    /**
+     * Falls back to Redis for every lookup until the subscription is re-established.
+     */
+    @Override
+    public void onDisconnected() {
+        synchronised = false;
+    }
+
+    /**
+     * Helper method to read the epoch of a user from Redis.
+     *
+     * @param userId The ID of the user.
+     * @return The stored epoch of the user; 0 if there is none.
+     */
+    private long loadEpoch(Long userId) {
+        String epoch = redisHelper.get(EPOCH_PREFIX + userId);
+        return epoch != null ? Long.parseLong(epoch) : 0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.pizza.pizzashop.security.TokenRevocationService;
+
+import com.pizza.pizzashop.security.VerifiedToken;
+
+/**
+ * This interface defines a contract for revoking access tokens and checking whether a token was revoked.
+ */
+public interface TokenRevocationService {
+    /**
+     * Revokes an access token on every node until it expires.
+     *
+     * @param token The verified access token to revoke.
+     */
+    void revoke(VerifiedToken token);
+
+    /**
+     * Checks whether an access token was revoked.
+     *
+     * @param token The verified access token to check.
+     * @return True if the token was revoked; otherwise, false.
+     */
+    boolean isRevoked(VerifiedToken token);
+}
@@ -0,0 +1,258 @@
+package com.pizza.pizzashop.security.TokenRevocationService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.exceptions.TokenValidationException;
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.VerifiedToken;
+import com.pizza.pizzashop.utils.BloomFilter;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.JWTHelper;
+import com.pizza.pizzashop.utils.RedisHelper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is an implementation of the TokenRevocationService interface.
+ * Every revoked token is stored in Redis as a "revoked:{digest}" key that expires together with the token,
+ * so the store only ever holds tokens that could still be used.
+ * A node-local Bloom filter of revoked digests sits in front of Redis. It is rebuilt from Redis whenever
+ * the "revocations" channel subscription is (re)established and periodically, to drop expired digests,
+ * and is updated through that channel, so Redis is only queried for tokens the filter reports as possibly revoked.
+ * While the subscription is down, every check falls through to Redis, so no revocation is ever missed.
+ * If Redis itself is unavailable, checks run in degraded mode against node-local state only: a replica of the
+ * revocations received recently and the last known filter. Tokens neither can vouch for are accepted or rejected
+ * according to the configured fail-open or fail-closed policy.
+ */
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService, RedisHelper.ChannelListener {
+    private static final String LEGACY_BLACKLIST = "blacklist";
+    private static final String REVOKED_PREFIX = "revoked:";
+    private static final String REVOCATIONS_CHANNEL = "revocations";
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    private final RedisHelper redisHelper;
+    private final JWTHelper jwtHelper;
+    private final AuthenticationCache authenticationCache;
+    private final long expectedRevocations;
+    private final double falsePositiveProbability;
+    private final Cache<String, Boolean> recentRevocations;
+    private final boolean failOpen;
+
+    private volatile BloomFilter revokedDigests;
+    private volatile BloomFilter pendingDigests;
+    private volatile boolean synchronised;
+    private volatile boolean seeded;
+
+    @Autowired
+    public TokenRevocationServiceImpl(
+            RedisHelper redisHelper,
+            JWTHelper jwtHelper,
+            AuthenticationCache authenticationCache,
+            @Value("${jwt.revocation.bloom.expected_insertions:100000}") Long expectedRevocations,
+            @Value("${jwt.revocation.bloom.false_positive_probability:0.001}") Double falsePositiveProbability,
+            @Value("${jwt.revocation.replica.max_size:100000}") Long replicaMaxSize,
+            @Value("${jwt.revocation.replica.ttl:86400000}") Long replicaTtl,
+            @Value("${jwt.degraded_mode.fail_open:false}") Boolean failOpen
+    ) {
+        this.redisHelper = redisHelper;
+        this.jwtHelper = jwtHelper;
+        this.authenticationCache = authenticationCache;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.revokedDigests = new BloomFilter(expectedRevocations, falsePositiveProbability);
+        // Revoked tokens expire at the latest one token lifetime after their revocation
+        this.recentRevocations = Caffeine.newBuilder()
+                .maximumSize(replicaMaxSize)
+                .expireAfterWrite(Duration.ofMillis(replicaTtl))
+                .build();
+        this.failOpen = failOpen;
+    }
+
+    /**
+     * Migrates the legacy blacklist and subscribes to the "revocations" channel once the service is constructed.
+     * The migration runs before the web server accepts requests.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            migrateLegacyBlacklist();
+        } catch (Exception e) {
+            GlobalLogger.log("ERROR", "Failed to migrate legacy token blacklist: " + e.getMessage());
+        }
+        redisHelper.subscribe(REVOCATIONS_CHANNEL, this);
+    }
+
+    /**
+     * Revokes an access token: stores its digest in Redis until the token expires, then updates the local filter
+     * and cache and notifies the other nodes. Tokens that have already expired need no revocation.
+     *
+     * @param token The verified access token to revoke.
+     */
+    @Override
+    public void revoke(VerifiedToken token) {
+        long ttl = Duration.between(Instant.now(), token.getExpiresAt()).toMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        redisHelper.set(REVOKED_PREFIX + token.getDigest(), "1", ttl);
+        onMessage(token.getDigest());
+        redisHelper.publish(REVOCATIONS_CHANNEL, token.getDigest());
+    }
+
+    /**
+     * Checks whether an access token was revoked. Redis is only queried if the local filter is not synchronised
+     * or reports the token as possibly revoked. If Redis is unavailable, the check is answered from local state.
+     *
+     * @param token The verified access token to check.
+     * @return True if the token was revoked; otherwise, false.
+     */
+    @Override
+    public boolean isRevoked(VerifiedToken token) {
+        if (synchronised && !revokedDigests.mightContain(token.getDigest())) {
+            return false;
+        }
+        try {
+            return redisHelper.exists(REVOKED_PREFIX + token.getDigest());
+        } catch (RedisUnavailableException e) {
+            return isRevokedLocally(token.getDigest());
+        }
+    }
+
+    /**
+     * Handles a revocation published by any node, including this one.
+     *
+     * @param digest The digest of the revoked token.
+     */
+    @Override
+    public void onMessage(String digest) {
+        BloomFilter pending = pendingDigests;
+        revokedDigests.put(digest);
+        recentRevocations.put(digest, Boolean.TRUE);
+        if (pending != null) {
+            pending.put(digest);
+        }
+        authenticationCache.evict(digest);
+    }
+
+    /**
+     * Rebuilds the filter from Redis once the subscription is established.
+     * Revocations published meanwhile are delivered to the new filter or are already stored in Redis.
+     */
+    @Override
+    public void onSubscribed() {
+        try {
+            rebuild();
+            synchronised = true;
+        } catch (Exception e) {
+            GlobalLogger.log("ERROR", "Failed to seed revocation filter: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Falls back to Redis for every check until the subscription is re-established.
+     */
+    @Override
+    public void onDisconnected() {
+        synchronised = false;
+    }
+
+    /**
+     * Periodically rebuilds the filter, so that digests of expired tokens stop occupying it.
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.revocation.bloom.rebuild_interval:3600000}",
+            fixedDelayString = "${jwt.revocation.bloom.rebuild_interval:3600000}")
+    public void scheduledRebuild() {
+        if (!synchronised) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            GlobalLogger.log("ERROR", "Failed to rebuild revocation filter: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to check a token while Redis is unavailable. Since no revocation can be stored without Redis,
+     * the last known filter still covers every revocation made before the outage, except for messages missed while
+     * the subscription was down. Digests the filter reports as possibly revoked are looked up in the replica of
+     * recent revocations; anything still undecided falls to the fail-open or fail-closed policy.
+     *
+     * @param digest The digest of the token.
+     * @return True if the token was revoked or must be treated as such; otherwise, false.
+     */
+    private boolean isRevokedLocally(String digest) {
+        if (recentRevocations.getIfPresent(digest) != null) {
+            return true;
+        }
+        if (seeded && !revokedDigests.mightContain(digest)) {
+            return false;
+        }
+        return !failOpen;
+    }
+
+    /**
+     * Helper method to build a new filter from the revocation keys in Redis and swap it in.
+     * Revocations received while it is being built are added to both the current and the new filter.
+     */
+    private synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(expectedRevocations, falsePositiveProbability);
+        pendingDigests = rebuilt;
+        try {
+            for (String key : redisHelper.scan(REVOKED_PREFIX + "*")) {
+                rebuilt.put(key.substring(REVOKED_PREFIX.length()));
+            }
+            revokedDigests = rebuilt;
+            seeded = true;
+        } finally {
+            pendingDigests = null;
+        }
+    }
+
+    /**
+     * Helper method to drain the legacy "blacklist" set, which stored full tokens forever, into expiring
+     * revocation keys. Tokens that are expired or no longer verifiable are simply dropped.
+     * Values are popped atomically, so several nodes can run the migration at the same time.
+     * Every popped batch is written back with a single pipelined round trip.
+     */
+    private void migrateLegacyBlacklist() {
+        int migrated = 0;
+        int dropped = 0;
+        Set<String> tokens = redisHelper.pop(LEGACY_BLACKLIST, MIGRATION_BATCH_SIZE);
+        while (!tokens.isEmpty()) {
+            Map<String, Long> revocations = new HashMap<>();
+            for (String token : tokens) {
+                try {
+                    VerifiedToken verifiedToken = jwtHelper.verifyToken(token);
+                    long ttl = Duration.between(Instant.now(), verifiedToken.getExpiresAt()).toMillis();
+                    if (ttl > 0) {
+                        revocations.put(REVOKED_PREFIX + verifiedToken.getDigest(), ttl);
+                        continue;
+                    }
+                } catch (TokenValidationException ignored) {
+                    // Expired or foreign tokens can no longer authenticate anyone
+                }
+                dropped++;
+            }
+            redisHelper.setAll("1", revocations);
+            migrated += revocations.size();
+            tokens = redisHelper.pop(LEGACY_BLACKLIST, MIGRATION_BATCH_SIZE);
+        }
+        if (migrated + dropped > 0) {
+            GlobalLogger.log("INFO", String.format(
+                    "Migrated legacy token blacklist: %d tokens migrated, %d expired tokens dropped", migrated, dropped));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.pizza.pizzashop.security;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * This class represents the immutable result of verifying a JWT once per request.
+ * It holds the claims the application relies on, so the token never has to be parsed again after verification.
+ * JWTAuthenticationFilter stores it as a request attribute under {@link #REQUEST_ATTRIBUTE}.
+ */
+public final class VerifiedToken {
+    public static final String REQUEST_ATTRIBUTE = "com.pizza.pizzashop.security.VerifiedToken";
+
+    private final String digest;
+
+    private final Long userId;
+
+    private final Instant issuedAt;
+
+    private final Instant expiresAt;
+
+    private final long epoch;
+
+    private final CustomUserDetails userDetails;
+
+    public VerifiedToken(String digest, Long userId, Instant issuedAt, Instant expiresAt, long epoch) {
+        this(digest, userId, issuedAt, expiresAt, epoch, null);
+    }
+
+    public VerifiedToken(
+            String digest,
+            Long userId,
+            Instant issuedAt,
+            Instant expiresAt,
+            long epoch,
+            CustomUserDetails userDetails
+    ) {
+        this.digest = digest;
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.epoch = epoch;
+        this.userDetails = userDetails;
+    }
+
+    /**
+     * Get the digest of the token, used as its identifier in caches and in the revocation store.
+     *
+     * @return The TokenDigest of the raw token.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Get the revocation epoch of the user at the time the token was issued.
+     * The token is revoked once the user's current epoch is greater.
+     *
+     * @return The epoch embedded in the token; 0 for tokens issued without one.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Get the user details signed into the token in stateless mode.
+     *
+     * @return The CustomUserDetails built from the token claims, or null if the user has to be loaded from the database.
+     */
+    public CustomUserDetails getUserDetails() {
+        return userDetails;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifiedToken that = (VerifiedToken) o;
+        return Objects.equals(this.digest, that.digest) &&
+                Objects.equals(this.userId, that.userId) &&
+                Objects.equals(this.issuedAt, that.issuedAt) &&
+                Objects.equals(this.expiresAt, that.expiresAt) &&
+                this.epoch == that.epoch;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(digest, userId, issuedAt, expiresAt, epoch);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" +
+                "digest = " + digest + ", " +
+                "userId = " + userId + ", " +
+                "issuedAt = " + issuedAt + ", " +
+                "expiresAt = " + expiresAt + ", " +
+                "epoch = " + epoch + ")";
+    }
+}
@@ -1,8 +1,8 @@
 package com.pizza.pizzashop.services.AuthService;
 
-import com.pizza.pizzashop.dtos.LoginDTO;
 import com.pizza.pizzashop.dtos.UserDTO;
 import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
+import com.pizza.pizzashop.security.CustomUserDetails;
 
 /**
  * This interface defines methods for authentication and user information retrieval.
@@ -10,13 +10,13 @@ import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
  */
 public interface AuthService {
     /**
-     * Attempts to sign in a user with the provided credentials.
+     * Describes a user who has just been authenticated by the AuthenticationManager.
      *
-     * @param credentials The LoginDTO containing login credentials (username and password).
+     * @param principal The CustomUserDetails of the authenticated user.
      * @return The UserDTO representing the signed-in user's information.
-     * @throws AuthenticationFailedException If authentication with the provided credentials fails.
+     * @throws AuthenticationFailedException If there is no authenticated user.
      */
-    UserDTO signIn(LoginDTO credentials) throws AuthenticationFailedException;
+    UserDTO signIn(CustomUserDetails principal) throws AuthenticationFailedException;
 
     /**
      * Registers a new user using the provided registration form data.
@@ -1,11 +1,11 @@
 package com.pizza.pizzashop.services.AuthService;
 
-import com.pizza.pizzashop.dtos.LoginDTO;
 import com.pizza.pizzashop.dtos.UserDTO;
 import com.pizza.pizzashop.entities.User;
 import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
 import com.pizza.pizzashop.mappers.UserMapper;
 import com.pizza.pizzashop.repositories.UserRepository;
+import com.pizza.pizzashop.security.CustomUserDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -34,22 +34,20 @@ public class AuthServiceImpl implements AuthService {
     }
 
     /**
-     * Attempts to sign in a user with the provided credentials.
+     * Describes a user who has just been authenticated by the AuthenticationManager.
+     * The credentials were already verified and the user already loaded during authentication,
+     * so neither the database nor the password encoder is touched again.
      *
-     * @param credentials The LoginDTO containing login credentials (username and password).
+     * @param principal The CustomUserDetails of the authenticated user.
      * @return The UserDTO representing the signed-in user's information.
-     * @throws AuthenticationFailedException If authentication with the provided credentials fails.
+     * @throws AuthenticationFailedException If there is no authenticated user.
      */
     @Override
-    public UserDTO signIn(LoginDTO credentials) throws AuthenticationFailedException {
-        User user = userRepository.findByLoginOrEmailOrPhoneNumber(
-                credentials.getLogin(),
-                credentials.getEmail(),
-                credentials.getPhoneNumber());
-        if (user == null || !passwordEncoder.matches(credentials.getPassword(), user.getPassword())) {
+    public UserDTO signIn(CustomUserDetails principal) throws AuthenticationFailedException {
+        if (principal == null) {
             throw new AuthenticationFailedException("Wrong credentials. Try again");
         }
-        return userMapper.toDto(user);
+        return userMapper.toDto(principal);
     }
 
     /**
@@ -0,0 +1,37 @@
+package com.pizza.pizzashop.services.CatalogImportService;
+
+import com.pizza.pizzashop.dtos.ImportReportDTO;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This interface provides methods for importing pizzas and pizza ingredients in bulk.
+ */
+public interface CatalogImportService {
+    /**
+     * Imports pizzas, reading them one by one. Every row is validated like a PizzaDTO, but names its ingredients
+     * instead of describing them: either as a list of names or as a string of names separated by ";".
+     * Rows that are invalid, name unknown ingredients, or name an existing pizza are skipped and reported.
+     *
+     * @param input  The rows.
+     * @param format The format of the rows.
+     * @return An ImportReportDTO with the number of imported rows and the errors of the others.
+     * @throws IOException                          If the input cannot be read. Rows written before are kept.
+     * @throws RequestDataValidationFailedException If the input is malformed as a whole, e.g. a CSV file without header.
+     */
+    ImportReportDTO importPizzas(InputStream input, ImportFormat format) throws IOException, RequestDataValidationFailedException;
+
+    /**
+     * Imports pizza ingredients, reading them one by one. Every row is validated like a PizzaIngredientDTO.
+     * Rows that are invalid or name an existing pizza ingredient are skipped and reported.
+     *
+     * @param input  The rows.
+     * @param format The format of the rows.
+     * @return An ImportReportDTO with the number of imported rows and the errors of the others.
+     * @throws IOException                          If the input cannot be read. Rows written before are kept.
+     * @throws RequestDataValidationFailedException If the input is malformed as a whole, e.g. a CSV file without header.
+     */
+    ImportReportDTO importIngredients(InputStream input, ImportFormat format) throws IOException, RequestDataValidationFailedException;
+}
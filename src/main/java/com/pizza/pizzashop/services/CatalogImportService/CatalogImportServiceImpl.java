@@ -0,0 +1,576 @@
+package com.pizza.pizzashop.services.CatalogImportService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pizza.pizzashop.dtos.ImportReportDTO;
+import com.pizza.pizzashop.dtos.ImportRowErrorDTO;
+import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.entities.Pizza;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.repositories.CatalogImportRepository;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.utils.CsvReader;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.ImageStore;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * This class is an implementation of the CatalogImportService interface that imports the catalog in batches.
+ * Rows are read one at a time and collected into batches of a configurable number of rows and characters,
+ * so that neither the input nor a batch of large base64 images is ever held in memory as a whole. Every batch is validated first, with one statement finding the existing names and one
+ * resolving the ingredient names not seen before, and its valid rows are then written with JDBC batches
+ * in a transaction of their own. The catalog is refreshed once at the end rather than after every row,
+ * and also if reading the input fails after some batches were written.
+ * Resized image variants are scheduled after every batch; those that do not fit into the queue are generated
+ * when they are first requested.
+ */
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INGREDIENTS = "ingredients";
+    private static final String NAME = "name";
+    private static final String INGREDIENT_SEPARATOR = ";";
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+    private final CatalogImportRepository catalogImportRepository;
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
+    private final CatalogService catalogService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final Integer batchSize;
+    private final Long batchChars;
+
+    @Autowired
+    public CatalogImportServiceImpl(
+            CatalogImportRepository catalogImportRepository,
+            ImageStore imageStore,
+            ImageVariantService imageVariantService,
+            CatalogService catalogService,
+            ObjectMapper objectMapper,
+            Validator validator,
+            PlatformTransactionManager transactionManager,
+            @Value("${catalog.import_batch_size:500}") Integer batchSize,
+            @Value("${catalog.import_batch_chars:8388608}") Long batchChars
+    ) {
+        this.catalogImportRepository = catalogImportRepository;
+        this.imageStore = imageStore;
+        this.imageVariantService = imageVariantService;
+        this.catalogService = catalogService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.batchChars = batchChars;
+    }
+
+    /**
+     * Imports pizzas in batches. Ingredient names are matched ignoring case and resolved once per import.
+     * Images are stored before the batch is written, so that no transaction waits for the filesystem.
+     *
+     * @param input  The rows.
+     * @param format The format of the rows.
+     * @return An ImportReportDTO with the number of imported rows and the errors of the others.
+     */
+    @Override
+    public ImportReportDTO importPizzas(InputStream input, ImportFormat format) throws IOException, RequestDataValidationFailedException {
+        Report report = new Report();
+        Map<String, Long> ingredientIds = new HashMap<>();
+        try {
+            readBatches(input, format, batch -> importPizzaBatch(batch, ingredientIds, report));
+        } finally {
+            refresh(report);
+        }
+        return finish(report, "pizzas");
+    }
+
+    /**
+     * Imports pizza ingredients in batches.
+     *
+     * @param input  The rows.
+     * @param format The format of the rows.
+     * @return An ImportReportDTO with the number of imported rows and the errors of the others.
+     */
+    @Override
+    public ImportReportDTO importIngredients(InputStream input, ImportFormat format) throws IOException, RequestDataValidationFailedException {
+        Report report = new Report();
+        try {
+            readBatches(input, format, batch -> importIngredientBatch(batch, report));
+        } finally {
+            refresh(report);
+        }
+        return finish(report, "pizza ingredients");
+    }
+
+    /**
+     * Helper method to validate and write one batch of pizzas.
+     *
+     * @param rows          The rows of the batch.
+     * @param ingredientIds The IDs of the ingredients resolved so far by their lowercase names; null for unknown names.
+     * @param report        The report of the import.
+     */
+    private void importPizzaBatch(List<Row> rows, Map<String, Long> ingredientIds, Report report) {
+        List<Row> valid = new ArrayList<>(rows.size());
+        List<PizzaDTO> dtos = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.node != null) {
+                normalizeIngredients(row.node);
+            }
+            PizzaDTO dto = parse(row, PizzaDTO.class, report);
+            if (dto != null) {
+                valid.add(row);
+                dtos.add(dto);
+            }
+        }
+        if (dtos.isEmpty()) {
+            return;
+        }
+        Set<String> existingNames = catalogImportRepository.findExistingPizzaNames(
+                dtos.stream().map(PizzaDTO::getName).collect(Collectors.toSet()));
+        resolveIngredients(dtos, ingredientIds);
+
+        List<Row> pending = new ArrayList<>(dtos.size());
+        List<Pizza> pizzas = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            PizzaDTO dto = dtos.get(i);
+            int line = valid.get(i).line;
+            if (existingNames.contains(dto.getName())) {
+                report.fail(line, "Pizza with name " + dto.getName() + " already exists");
+                continue;
+            }
+            if (dto.getIngredients().stream().anyMatch(ingredient -> ingredient == null || ingredient.getName() == null)) {
+                report.fail(line, "Ingredient name is required");
+                continue;
+            }
+            Set<Long> ids = new LinkedHashSet<>();
+            List<String> unknown = new ArrayList<>();
+            for (PizzaIngredientDTO ingredient : dto.getIngredients()) {
+                Long id = ingredientIds.get(ingredientKey(ingredient.getName()));
+                if (id == null) {
+                    unknown.add(ingredient.getName());
+                } else {
+                    ids.add(id);
+                }
+            }
+            if (!unknown.isEmpty()) {
+                report.fail(line, "Unknown ingredients: " + unknown);
+                continue;
+            }
+            String imageHash;
+            try {
+                imageHash = imageStore.storeBase64(dto.getImage());
+            } catch (IllegalArgumentException e) {
+                report.fail(line, "Invalid image: " + e.getMessage());
+                continue;
+            }
+            List<PizzaIngredient> ingredients = ids.stream()
+                    .map(id -> new PizzaIngredient(id, null, null))
+                    .toList();
+            pending.add(valid.get(i));
+            pizzas.add(new Pizza(null, dto.getName(), dto.getWeight(), dto.getPrice(), dto.getDescription(), imageHash, ingredients));
+        }
+        if (pizzas.isEmpty()) {
+            return;
+        }
+
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> insertPizzas(pizzas));
+        } catch (DataAccessException e) {
+            GlobalLogger.log("ERROR", "Failed to import a batch of " + pizzas.size() + " pizzas: " + e.getMessage());
+            pending.forEach(row -> report.fail(row.line, "Failed to write the batch of this row"));
+            return;
+        }
+        for (int i = 0; i < pizzas.size(); i++) {
+            if (counts[i] == 0) {
+                report.fail(pending.get(i).line, "Pizza with name " + pizzas.get(i).getName() + " already exists");
+            } else {
+                report.imported++;
+                imageVariantService.generate(pizzas.get(i).getImageHash());
+            }
+        }
+    }
+
+    /**
+     * Helper method to write pizzas and link them to their ingredients. Must be called within a transaction.
+     *
+     * @param pizzas The pizzas, holding their ingredients with only the IDs set.
+     * @return The update count of every pizza: 0 if its name was taken in the meantime.
+     */
+    private int[] insertPizzas(List<Pizza> pizzas) {
+        List<Long> ids = catalogImportRepository.nextPizzaIds(pizzas.size());
+        for (int i = 0; i < pizzas.size(); i++) {
+            pizzas.get(i).setId(ids.get(i));
+        }
+        int[] counts = catalogImportRepository.insertPizzas(pizzas);
+        List<Pizza> inserted = new ArrayList<>(pizzas.size());
+        for (int i = 0; i < pizzas.size(); i++) {
+            if (counts[i] != 0) {
+                inserted.add(pizzas.get(i));
+            }
+        }
+        catalogImportRepository.insertPizzaIngredients(inserted);
+        return counts;
+    }
+
+    /**
+     * Helper method to resolve the ingredient names of a batch that were not resolved before, with a single statement.
+     *
+     * @param pizzas        The pizzas of the batch.
+     * @param ingredientIds The IDs of the ingredients resolved so far by their lowercase names, extended by this batch.
+     */
+    private void resolveIngredients(List<PizzaDTO> pizzas, Map<String, Long> ingredientIds) {
+        Set<String> names = new LinkedHashSet<>();
+        for (PizzaDTO pizza : pizzas) {
+            for (PizzaIngredientDTO ingredient : pizza.getIngredients()) {
+                if (ingredient != null && ingredient.getName() != null) {
+                    String key = ingredientKey(ingredient.getName());
+                    if (!ingredientIds.containsKey(key)) {
+                        names.add(key);
+                    }
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+        Map<String, Long> found = catalogImportRepository.findIngredientIdsByLowerName(names);
+        // Unknown names are remembered as well, so that they are not looked up again
+        names.forEach(name -> ingredientIds.put(name, found.get(name)));
+    }
+
+    /**
+     * Helper method to validate and write one batch of pizza ingredients.
+     *
+     * @param rows   The rows of the batch.
+     * @param report The report of the import.
+     */
+    private void importIngredientBatch(List<Row> rows, Report report) {
+        List<Row> pending = new ArrayList<>(rows.size());
+        List<PizzaIngredient> ingredients = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            PizzaIngredientDTO dto = parse(row, PizzaIngredientDTO.class, report);
+            if (dto != null) {
+                pending.add(row);
+                ingredients.add(new PizzaIngredient(null, dto.getName(), dto.getAddPrice()));
+            }
+        }
+        if (ingredients.isEmpty()) {
+            return;
+        }
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> catalogImportRepository.insertIngredients(ingredients));
+        } catch (DataAccessException e) {
+            GlobalLogger.log("ERROR", "Failed to import a batch of " + ingredients.size() + " pizza ingredients: " + e.getMessage());
+            pending.forEach(row -> report.fail(row.line, "Failed to write the batch of this row"));
+            return;
+        }
+        for (int i = 0; i < ingredients.size(); i++) {
+            if (counts[i] == 0) {
+                report.fail(pending.get(i).line, "Pizza ingredient with name " + ingredients.get(i).getName() + " already exists");
+            } else {
+                report.imported++;
+            }
+        }
+    }
+
+    /**
+     * Helper method to refresh the catalog if anything was imported, whether or not the whole input was read.
+     *
+     * @param report The report of the import.
+     */
+    private void refresh(Report report) {
+        if (report.imported > 0) {
+            try {
+                catalogService.refresh();
+            } catch (RuntimeException e) {
+                // The rows are committed already; the snapshot catches up with the next change
+                GlobalLogger.log("ERROR", "Failed to refresh the catalog after an import: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Helper method to complete the report. Errors are ordered by line, since rows of a batch fail in different stages.
+     *
+     * @param report  The report of the import.
+     * @param subject What was imported, for the log.
+     * @return The ImportReportDTO.
+     */
+    private ImportReportDTO finish(Report report, String subject) {
+        report.errors.sort(Comparator.comparing(ImportRowErrorDTO::getLine));
+        GlobalLogger.log("INFO", "Imported " + report.imported + " " + subject + ", " + report.failed + " rows failed");
+        return new ImportReportDTO(report.imported, report.failed, report.errors);
+    }
+
+    /**
+     * Helper method to read the input in batches of rows. A batch ends at the configured number of rows,
+     * or earlier once its rows hold the configured number of characters, e.g. because of large images.
+     *
+     * @param input    The input.
+     * @param format   The format of the input.
+     * @param consumer The consumer of every batch.
+     */
+    private void readBatches(InputStream input, ImportFormat format, BatchConsumer consumer)
+            throws IOException, RequestDataValidationFailedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowReader rows = format == ImportFormat.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+        List<Row> batch = new ArrayList<>(batchSize);
+        long chars = 0;
+        Row row;
+        while ((row = rows.next()) != null) {
+            batch.add(row);
+            chars += row.length;
+            if (batch.size() == batchSize || chars >= batchChars) {
+                consumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+                chars = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Helper method to convert a row into a DTO and validate it, reporting the row if either fails.
+     *
+     * @param row    The row.
+     * @param type   The type of the DTO.
+     * @param report The report of the import.
+     * @return The DTO, or null if the row is invalid.
+     */
+    private <T> T parse(Row row, Class<T> type, Report report) {
+        if (row.node == null) {
+            report.fail(row.line, row.error);
+            return null;
+        }
+        T dto;
+        try {
+            dto = objectMapper.treeToValue(row.node, type);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            report.fail(row.line, "Malformed row: " + (e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage()));
+            return null;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            report.fail(row.line, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ", "Validation errors: ", "")));
+            return null;
+        }
+        return dto;
+    }
+
+    /**
+     * Helper method to turn the ingredient names of a row into the ingredients of a PizzaDTO.
+     * Names are given either as a string separated by ";", as CSV files do, or as a list of names.
+     *
+     * @param node The row.
+     */
+    private void normalizeIngredients(ObjectNode node) {
+        JsonNode ingredients = node.get(INGREDIENTS);
+        if (ingredients == null || !(ingredients.isTextual() || ingredients.isArray())) {
+            return;
+        }
+        ArrayNode normalized = objectMapper.createArrayNode();
+        if (ingredients.isTextual()) {
+            for (String name : ingredients.asText().split(INGREDIENT_SEPARATOR)) {
+                if (!name.isBlank()) {
+                    normalized.addObject().put(NAME, name);
+                }
+            }
+        } else {
+            for (JsonNode ingredient : ingredients) {
+                if (ingredient.isTextual()) {
+                    normalized.addObject().put(NAME, ingredient.asText());
+                } else {
+                    normalized.add(ingredient);
+                }
+            }
+        }
+        node.set(INGREDIENTS, normalized);
+    }
+
+    /**
+     * Helper method to build the key an ingredient name is resolved by.
+     *
+     * @param name The name.
+     * @return The name without surrounding whitespace, in lowercase.
+     */
+    private static String ingredientKey(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * This interface consumes the batches of an import.
+     */
+    @FunctionalInterface
+    private interface BatchConsumer {
+        void accept(List<Row> batch);
+    }
+
+    /**
+     * This interface reads the rows of an import one at a time.
+     */
+    private interface RowReader {
+        /**
+         * Reads the next row.
+         *
+         * @return The row, or null at the end of the input.
+         */
+        Row next() throws IOException, RequestDataValidationFailedException;
+    }
+
+    /**
+     * This class reads NDJSON rows, skipping blank lines.
+     */
+    private final class NdjsonRows implements RowReader {
+        private final BufferedReader reader;
+        private int line;
+
+        NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (line == 1 && text.startsWith(BYTE_ORDER_MARK)) {
+                    text = text.substring(BYTE_ORDER_MARK.length());
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    if (objectMapper.readTree(text) instanceof ObjectNode node) {
+                        return new Row(line, node, null, text.length());
+                    }
+                    return new Row(line, null, "Row must be a JSON object", 0);
+                } catch (JsonProcessingException e) {
+                    return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage(), 0);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * This class reads CSV rows, whose properties are named by the header, skipping blank lines.
+     * Empty fields are treated as missing properties. A malformed record can only be the last one,
+     * so it is reported as a failed row rather than failing the import.
+     */
+    private final class CsvRows implements RowReader {
+        private final CsvReader reader;
+        private final List<String> header;
+
+        CsvRows(BufferedReader reader) throws IOException, RequestDataValidationFailedException {
+            this.reader = new CsvReader(reader);
+            List<String> header = this.reader.readRecord();
+            if (header == null || isBlank(header)) {
+                throw new RequestDataValidationFailedException("CSV header is missing");
+            }
+            header.set(0, header.get(0).replace(BYTE_ORDER_MARK, ""));
+            this.header = header.stream().map(String::strip).toList();
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> fields;
+            do {
+                try {
+                    fields = reader.readRecord();
+                } catch (RequestDataValidationFailedException e) {
+                    return new Row(reader.getLine(), null, "Malformed CSV: " + e.getMessage(), 0);
+                }
+                if (fields == null) {
+                    return null;
+                }
+            } while (isBlank(fields));
+            if (fields.size() != header.size()) {
+                return new Row(reader.getLine(), null,
+                        "Expected " + header.size() + " fields, found " + fields.size(), 0);
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            int length = 0;
+            for (int i = 0; i < fields.size(); i++) {
+                if (!fields.get(i).isEmpty()) {
+                    node.put(header.get(i), fields.get(i));
+                    length += fields.get(i).length();
+                }
+            }
+            return new Row(reader.getLine(), node, null, length);
+        }
+
+        private static boolean isBlank(List<String> fields) {
+            return fields.size() == 1 && fields.get(0).isBlank();
+        }
+    }
+
+    /**
+     * This class represents a row of an import: either its properties or the reason it cannot be read,
+     * along with the number of characters it was read from.
+     */
+    private static final class Row {
+        private final int line;
+        private final ObjectNode node;
+        private final String error;
+        private final int length;
+
+        Row(int line, ObjectNode node, String error, int length) {
+            this.line = line;
+            this.node = node;
+            this.error = error;
+            this.length = length;
+        }
+    }
+
+    /**
+     * This class collects the outcome of an import. Only the first errors are kept.
+     */
+    private static final class Report {
+        private int imported;
+        private int failed;
+        private final List<ImportRowErrorDTO> errors = new ArrayList<>();
+
+        void fail(int line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowErrorDTO(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.pizza.pizzashop.services.CatalogImportService;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * This enum represents the formats of bulk imports of the catalog.
+ * NDJSON files hold one JSON object per line. CSV files start with a header naming the properties of the columns.
+ * Both are read as UTF-8.
+ */
+public enum ImportFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(new MediaType("text", "csv"));
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    ImportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Finds the format of a request body by its content type.
+     *
+     * @param contentType The value of the Content-Type header, possibly with parameters such as the charset.
+     * @return The format.
+     * @throws RequestDataValidationFailedException If the content type is not one of the formats.
+     */
+    public static ImportFormat fromContentType(String contentType) throws RequestDataValidationFailedException {
+        if (contentType != null) {
+            try {
+                MediaType mediaType = MediaType.parseMediaType(contentType);
+                for (ImportFormat format : values()) {
+                    if (format.mediaType.equalsTypeAndSubtype(mediaType)) {
+                        return format;
+                    }
+                }
+            } catch (InvalidMediaTypeException ignored) {
+                // Reported below like any other unsupported content type
+            }
+        }
+        throw new RequestDataValidationFailedException(
+                "Unsupported content type " + contentType + ", supported are " + NDJSON_VALUE + " and " + CSV_VALUE);
+    }
+}
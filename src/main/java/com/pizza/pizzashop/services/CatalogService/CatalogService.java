@@ -0,0 +1,20 @@
+package com.pizza.pizzashop.services.CatalogService;
+
+/**
+ * This interface provides the in-memory snapshot of the catalog served by the read endpoints.
+ */
+public interface CatalogService {
+    /**
+     * Returns the current snapshot of the catalog, without touching the database while it is up to date.
+     *
+     * @return The current CatalogSnapshot.
+     */
+    CatalogSnapshot getSnapshot();
+
+    /**
+     * Records a change of pizzas or ingredients: increments the catalog version, in the surrounding transaction
+     * if there is one, then replaces the snapshot with one read from the database and notifies the other nodes.
+     * Must be called with every change of the catalog.
+     */
+    void refresh();
+}
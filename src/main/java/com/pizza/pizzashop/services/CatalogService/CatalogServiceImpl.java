@@ -0,0 +1,302 @@
+package com.pizza.pizzashop.services.CatalogService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.SuccessDTO;
+import com.pizza.pizzashop.entities.CatalogVersion;
+import com.pizza.pizzashop.mappers.PizzaIngredientMapper;
+import com.pizza.pizzashop.mappers.PizzaMapper;
+import com.pizza.pizzashop.repositories.CatalogVersionRepository;
+import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
+import com.pizza.pizzashop.repositories.PizzaRepository;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class is an implementation of the CatalogService interface that keeps the catalog snapshot in memory.
+ * Every refresh reads the whole catalog, serializes and compresses the responses of the listing endpoints once,
+ * and swaps the snapshot atomically, so readers always see a complete snapshot and never wait for a refresh.
+ * Refreshes are numbered before they read the database, and a snapshot never replaces one from a later refresh,
+ * so concurrent writes cannot leave an outdated snapshot behind.
+ * Refreshes are published on the "catalog" channel, so that every node reloads the catalog after a change.
+ * While the subscription is down, or after a reload has failed, snapshots are only served for a limited time.
+ * Every change increments the catalog version in the database, which tags the snapshots read afterwards.
+ */
+@Service
+public class CatalogServiceImpl implements CatalogService, RedisHelper.ChannelListener {
+    private static final String CATALOG_CHANNEL = "catalog";
+
+    private final PizzaRepository pizzaRepository;
+    private final PizzaIngredientRepository ingredientRepository;
+    private final PizzaMapper pizzaMapper;
+    private final PizzaIngredientMapper ingredientMapper;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ObjectMapper objectMapper;
+    private final RedisHelper redisHelper;
+    private final Long unsynchronisedMaxAge;
+    private final Timer refreshTimer;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    private volatile boolean synchronised;
+    private volatile boolean missedRefresh;
+
+    @Autowired
+    public CatalogServiceImpl(
+            PizzaRepository pizzaRepository,
+            PizzaIngredientRepository ingredientRepository,
+            PizzaMapper pizzaMapper,
+            PizzaIngredientMapper ingredientMapper,
+            CatalogVersionRepository catalogVersionRepository,
+            ObjectMapper objectMapper,
+            RedisHelper redisHelper,
+            @Value("${catalog.unsynchronised_max_age:5000}") Long unsynchronisedMaxAge,
+            MeterRegistry meterRegistry
+    ) {
+        this.pizzaRepository = pizzaRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.pizzaMapper = pizzaMapper;
+        this.ingredientMapper = ingredientMapper;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.objectMapper = objectMapper;
+        this.redisHelper = redisHelper;
+        this.unsynchronisedMaxAge = unsynchronisedMaxAge;
+        this.refreshTimer = Timer.builder("catalog.refresh")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the "catalog" channel once the service is constructed.
+     */
+    @PostConstruct
+    public void start() {
+        redisHelper.subscribe(CATALOG_CHANNEL, this);
+    }
+
+    /**
+     * Returns the current snapshot of the catalog. The first call, and any call while changes may have been missed
+     * and the snapshot is older than the allowed age, reads the catalog from the database.
+     *
+     * @return The current CatalogSnapshot.
+     */
+    @Override
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null && !isOutdated(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot.get();
+            if (current == null || isOutdated(current)) {
+                current = reload();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Increments the catalog version, then replaces the snapshot with one read from the database and notifies
+     * the other nodes. Inside a transaction the version is incremented along with the change, and the snapshot
+     * is replaced once the transaction commits, so the new snapshot holds the change.
+     */
+    @Override
+    public void refresh() {
+        if (catalogVersionRepository.increment() == 0) {
+            GlobalLogger.log("WARN", "Catalog version is missing, conditional requests will not see changes");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshNow();
+                }
+            });
+            return;
+        }
+        refreshNow();
+    }
+
+    /**
+     * Helper method to refresh the snapshot and notify the other nodes right away.
+     * Failures are logged rather than thrown, since the change itself has already been committed.
+     */
+    private void refreshNow() {
+        try {
+            reload();
+        } catch (Exception e) {
+            missedRefresh = true;
+            GlobalLogger.log("ERROR", "Failed to refresh the catalog: " + e.getMessage());
+        }
+        try {
+            redisHelper.publish(CATALOG_CHANNEL, nodeId);
+        } catch (Exception e) {
+            // Other nodes pick up the change once their snapshots grow too old
+            GlobalLogger.log("WARN", "Failed to publish catalog refresh: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads the catalog after another node has changed it.
+     *
+     * @param message The ID of the node that changed the catalog.
+     */
+    @Override
+    public void onMessage(String message) {
+        if (!nodeId.equals(message)) {
+            reloadQuietly();
+        }
+    }
+
+    /**
+     * Reloads the catalog, which may have missed changes, once the subscription is (re)established.
+     */
+    @Override
+    public void onSubscribed() {
+        synchronised = true;
+        reloadQuietly();
+    }
+
+    /**
+     * Limits the age of served snapshots until the subscription is re-established.
+     */
+    @Override
+    public void onDisconnected() {
+        synchronised = false;
+    }
+
+    /**
+     * Helper method to check whether a snapshot may have missed changes and is too old to be served.
+     *
+     * @param current The current snapshot.
+     * @return True if the snapshot must be reloaded; otherwise, false.
+     */
+    private boolean isOutdated(CatalogSnapshot current) {
+        return (!synchronised || missedRefresh)
+                && System.currentTimeMillis() - current.getCreatedAt() > unsynchronisedMaxAge;
+    }
+
+    /**
+     * Helper method to reload the catalog on the subscriber thread, remembering a failure instead of throwing it.
+     */
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (Exception e) {
+            missedRefresh = true;
+            GlobalLogger.log("ERROR", "Failed to reload the catalog: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to read the catalog and swap it in, unless a later refresh has swapped in its snapshot already.
+     *
+     * @return The snapshot that is current afterwards.
+     */
+    private CatalogSnapshot reload() {
+        missedRefresh = false;
+        long generation = generations.incrementAndGet();
+        CatalogSnapshot loaded = refreshTimer.record(() -> load(generation));
+        while (true) {
+            CatalogSnapshot current = snapshot.get();
+            if (current != null && current.getGeneration() > generation) {
+                return current;
+            }
+            if (snapshot.compareAndSet(current, loaded)) {
+                return loaded;
+            }
+        }
+    }
+
+    /**
+     * Helper method to read the catalog from the database and serialize the responses of the listing endpoints,
+     * both plain and compressed.
+     *
+     * @param generation The number of the refresh.
+     * @return The new snapshot.
+     */
+    private CatalogSnapshot load(long generation) {
+        long createdAt = System.currentTimeMillis();
+        // Read before the catalog, so a change committed meanwhile can only make the data newer than its version
+        CatalogVersion version = catalogVersionRepository.findById(CatalogVersion.ID)
+                .orElse(new CatalogVersion(CatalogVersion.ID, 0L, Instant.ofEpochMilli(createdAt)));
+        List<PizzaDTO> pizzas = pizzaRepository.findAllWithIngredients().stream()
+                .map(pizzaMapper::toDTO)
+                .toList();
+        List<PizzaIngredientDTO> ingredients = ingredientRepository.findAll().stream()
+                .map(ingredientMapper::toDto)
+                .toList();
+        byte[] pizzasJson = serialize("Pizza Get All", pizzas);
+        byte[] ingredientsJson = serialize("Pizza Ingredient Get All", ingredients);
+        return new CatalogSnapshot(
+                generation,
+                createdAt,
+                version.getVersion(),
+                version.getModifiedAt().toEpochMilli(),
+                pizzas,
+                ingredients,
+                pizzasJson,
+                ingredientsJson,
+                gzip(pizzasJson),
+                gzip(ingredientsJson)
+        );
+    }
+
+    /**
+     * Helper method to serialize a successful response.
+     *
+     * @param subject The subject of the response.
+     * @param data    The data of the response.
+     * @return The JSON of the SuccessDTO.
+     */
+    private byte[] serialize(String subject, Object data) {
+        try {
+            return objectMapper.writeValueAsBytes(new SuccessDTO<>(HttpStatus.OK.value(), subject, data));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize the catalog", e);
+        }
+    }
+
+    /**
+     * Helper method to gzip a response. The best compression is used, since it is paid once per catalog change
+     * rather than once per request.
+     *
+     * @param json The serialized response.
+     * @return The compressed response.
+     */
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress the catalog", e);
+        }
+        return compressed.toByteArray();
+    }
+}
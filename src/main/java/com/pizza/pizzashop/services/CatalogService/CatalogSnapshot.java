@@ -0,0 +1,181 @@
+package com.pizza.pizzashop.services.CatalogService;
+
+import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+
+import java.util.List;
+
+/**
+ * This class is an immutable copy of the catalog, i.e. all pizzas and ingredients, taken at one point in time.
+ * Next to the DTOs it holds the serialized responses of the endpoints listing them, so these endpoints can write
+ * the bytes as they are, together with their gzip-compressed variants, so compressed responses cost no CPU either.
+ * Neither the DTOs nor the bytes may be modified, since they are shared by all readers.
+ * The version of the catalog the snapshot was read at serves as the strong ETag of every catalog response,
+ * so conditional requests can be answered without touching the database. Compressed variants carry an ETag of
+ * their own, since a strong ETag identifies the exact bytes of a response.
+ */
+public final class CatalogSnapshot {
+    private final long generation;
+    private final long createdAt;
+    private final long version;
+    private final long lastModified;
+    private final String eTag;
+    private final String gzipETag;
+    private final List<PizzaDTO> pizzas;
+    private final List<PizzaIngredientDTO> ingredients;
+    private final byte[] pizzasJson;
+    private final byte[] ingredientsJson;
+    private final byte[] pizzasJsonGzip;
+    private final byte[] ingredientsJsonGzip;
+
+    public CatalogSnapshot(
+            long generation,
+            long createdAt,
+            long version,
+            long lastModified,
+            List<PizzaDTO> pizzas,
+            List<PizzaIngredientDTO> ingredients,
+            byte[] pizzasJson,
+            byte[] ingredientsJson,
+            byte[] pizzasJsonGzip,
+            byte[] ingredientsJsonGzip
+    ) {
+        this.generation = generation;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.lastModified = lastModified;
+        this.eTag = "\"" + version + "\"";
+        this.gzipETag = "\"" + version + "-gzip\"";
+        this.pizzas = List.copyOf(pizzas);
+        this.ingredients = List.copyOf(ingredients);
+        this.pizzasJson = pizzasJson;
+        this.ingredientsJson = ingredientsJson;
+        this.pizzasJsonGzip = pizzasJsonGzip;
+        this.ingredientsJsonGzip = ingredientsJsonGzip;
+    }
+
+    /**
+     * Returns the number of the refresh that produced this snapshot. Later refreshes produce higher numbers.
+     *
+     * @return The generation of the snapshot.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the time this snapshot was read from the database.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the version of the catalog this snapshot was read at.
+     * The version is read before the catalog itself, so the snapshot may hold changes of later versions, but never
+     * misses changes of its own version.
+     *
+     * @return The catalog version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the time the catalog was last changed before this snapshot was read.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the strong ETag of catalog responses served at this version.
+     *
+     * @return The quoted version.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the strong ETag of gzip-compressed catalog responses served at this version.
+     *
+     * @return The quoted version with a "-gzip" suffix.
+     */
+    public String getGzipETag() {
+        return gzipETag;
+    }
+
+    /**
+     * Checks the validators of a conditional request against this snapshot. If-None-Match takes precedence and
+     * matches the ETags of both the plain and the compressed responses, since both hold the same content;
+     * If-Modified-Since is only considered without it, at the one-second precision of HTTP dates.
+     *
+     * @param ifNoneMatch     The value of the If-None-Match header, or null if there is none.
+     * @param ifModifiedSince The value of the If-Modified-Since header in milliseconds since the epoch, or -1 if there is none.
+     * @return True if the client already has the current responses; otherwise, false.
+     */
+    public boolean isNotModified(String ifNoneMatch, long ifModifiedSince) {
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag) || tag.equals(gzipETag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    public List<PizzaDTO> getPizzas() {
+        return pizzas;
+    }
+
+    public List<PizzaIngredientDTO> getIngredients() {
+        return ingredients;
+    }
+
+    /**
+     * Returns the serialized response of "GET /api/pizza".
+     *
+     * @return The JSON of a SuccessDTO holding all pizzas.
+     */
+    public byte[] getPizzasJson() {
+        return pizzasJson;
+    }
+
+    /**
+     * Returns the serialized response of "GET /api/ingredient".
+     *
+     * @return The JSON of a SuccessDTO holding all ingredients.
+     */
+    public byte[] getIngredientsJson() {
+        return ingredientsJson;
+    }
+
+    /**
+     * Returns the gzip-compressed response of "GET /api/pizza".
+     *
+     * @return The compressed JSON of a SuccessDTO holding all pizzas.
+     */
+    public byte[] getPizzasJsonGzip() {
+        return pizzasJsonGzip;
+    }
+
+    /**
+     * Returns the gzip-compressed response of "GET /api/ingredient".
+     *
+     * @return The compressed JSON of a SuccessDTO holding all ingredients.
+     */
+    public byte[] getIngredientsJsonGzip() {
+        return ingredientsJsonGzip;
+    }
+}
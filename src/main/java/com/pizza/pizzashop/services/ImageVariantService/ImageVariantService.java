@@ -0,0 +1,27 @@
+package com.pizza.pizzashop.services.ImageVariantService;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+
+import java.nio.file.Path;
+
+/**
+ * This interface provides methods for generating and finding the resized variants of pizza images.
+ */
+public interface ImageVariantService {
+    /**
+     * Schedules the generation of all variants of an image in the background. Returns immediately.
+     *
+     * @param hash The hash of the source image.
+     */
+    void generate(String hash);
+
+    /**
+     * Finds a variant of an image. If the variant has not been generated yet, its generation is scheduled.
+     *
+     * @param hash The hash of the source image.
+     * @param size The requested size: one of the configured widths in pixels, or "placeholder".
+     * @return The path of the variant, or null if it is not available yet.
+     * @throws RequestDataValidationFailedException If the size is not supported.
+     */
+    Path resolve(String hash, String size) throws RequestDataValidationFailedException;
+}
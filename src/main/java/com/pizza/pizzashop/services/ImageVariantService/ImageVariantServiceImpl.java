@@ -0,0 +1,290 @@
+package com.pizza.pizzashop.services.ImageVariantService;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.ImageStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is an implementation of the ImageVariantService interface.
+ * Variants are generated with ImageIO and Java2D on a dedicated, bounded pool of worker threads, so that
+ * uploads never wait for them and a burst of uploads cannot take more than a fixed share of the CPU.
+ * Every configured width gets a variant named "w{width}", and every image gets a tiny "placeholder" to show
+ * while the real image loads. Variants are stored under the hash of their source image, so they are generated once
+ * and shared by all pizzas with the same image. If the queue is full, the work is dropped and done on the first
+ * request for a missing variant instead.
+ * The pool is exported as the "image_variants" executor metrics, and the generation as the
+ * "image_variants.duration" timer.
+ */
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+    private static final String PLACEHOLDER = "placeholder";
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final float PLACEHOLDER_JPEG_QUALITY = 0.5f;
+    // Decoding takes 4 bytes per pixel, so this bounds the memory a single image can take
+    private static final long MAX_PIXELS = 40_000_000;
+
+    private final ImageStore imageStore;
+    private final Map<String, Integer> widthsBySize;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService monitoredExecutor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Timer generationTimer;
+    private final Counter dropped;
+
+    @Autowired
+    public ImageVariantServiceImpl(
+            ImageStore imageStore,
+            @Value("${image_variants.widths:160,480}") List<Integer> widths,
+            @Value("${image_variants.placeholder_width:16}") Integer placeholderWidth,
+            @Value("${image_variants.threads:1}") Integer threads,
+            @Value("${image_variants.queue_capacity:100}") Integer queueCapacity,
+            MeterRegistry meterRegistry
+    ) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.imageStore = imageStore;
+        this.widthsBySize = new LinkedHashMap<>();
+        widths.forEach(width -> widthsBySize.put(String.valueOf(width), width));
+        widthsBySize.put(PLACEHOLDER, placeholderWidth);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, executor, "image_variants");
+        this.generationTimer = Timer.builder("image_variants.duration")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("image_variants.dropped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedules the generation of all variants of an image. Images whose variants are already being generated
+     * are skipped.
+     *
+     * @param hash The hash of the source image.
+     */
+    @Override
+    public void generate(String hash) {
+        if (hash == null || !pending.add(hash)) {
+            return;
+        }
+        try {
+            monitoredExecutor.execute(() -> {
+                try {
+                    generationTimer.record(() -> generateNow(hash));
+                } finally {
+                    pending.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash);
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Finds a variant of an image, scheduling its generation if it does not exist yet.
+     *
+     * @param hash The hash of the source image.
+     * @param size The requested size: one of the configured widths in pixels, or "placeholder".
+     * @return The path of the variant, or null if it is not available yet.
+     * @throws RequestDataValidationFailedException If the size is not supported.
+     */
+    @Override
+    public Path resolve(String hash, String size) throws RequestDataValidationFailedException {
+        if (!widthsBySize.containsKey(size)) {
+            throw new RequestDataValidationFailedException(
+                    "Image size must be one of " + String.join(", ", widthsBySize.keySet()));
+        }
+        Path path = imageStore.resolveVariant(hash, variantName(size));
+        if (path == null) {
+            generate(hash);
+        }
+        return path;
+    }
+
+    /**
+     * Stops the worker pool when the application shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Generates the missing variants of an image on the calling thread.
+     *
+     * @param hash The hash of the source image.
+     */
+    public void generateNow(String hash) {
+        Path source = imageStore.resolve(hash);
+        if (source == null) {
+            return;
+        }
+        try {
+            BufferedImage image = null;
+            for (Map.Entry<String, Integer> entry : widthsBySize.entrySet()) {
+                String variant = variantName(entry.getKey());
+                if (imageStore.resolveVariant(hash, variant) != null) {
+                    continue;
+                }
+                if (image == null) {
+                    image = read(source);
+                    if (image == null) {
+                        GlobalLogger.log("WARN", "Cannot generate variants of image " + hash + " in an unsupported format");
+                        return;
+                    }
+                }
+                boolean placeholder = PLACEHOLDER.equals(entry.getKey());
+                if (!placeholder && image.getWidth() <= entry.getValue()) {
+                    // Images are never scaled up; the original is already small enough
+                    imageStore.storeVariant(hash, variant, Files.readAllBytes(source));
+                    continue;
+                }
+                BufferedImage resized = resize(image, entry.getValue());
+                imageStore.storeVariant(hash, variant,
+                        encode(resized, placeholder ? PLACEHOLDER_JPEG_QUALITY : JPEG_QUALITY));
+            }
+        } catch (IOException e) {
+            GlobalLogger.log("ERROR", "Failed to generate variants of image " + hash + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method to decode an image, refusing images too large to decode safely.
+     *
+     * @param path The path of the image.
+     * @return The decoded image, or null if the format is not supported.
+     * @throws IOException If the image cannot be read or is too large.
+     */
+    private static BufferedImage read(Path path) throws IOException {
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IOException("Image is larger than " + MAX_PIXELS + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Helper method to get the name a variant of the given size is stored under.
+     *
+     * @param size The requested size.
+     * @return The name of the variant.
+     */
+    private static String variantName(String size) {
+        return PLACEHOLDER.equals(size) ? PLACEHOLDER : "w" + size;
+    }
+
+    /**
+     * Helper method to scale an image down to the given width, keeping its aspect ratio.
+     * The image is halved repeatedly before the last bilinear step, which avoids the aliasing
+     * of a single large downscaling step.
+     *
+     * @param image The source image.
+     * @param width The target width in pixels.
+     * @return The resized image.
+     */
+    private static BufferedImage resize(BufferedImage image, int width) {
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth > width || currentHeight > height);
+        return current;
+    }
+
+    /**
+     * Helper method to encode a variant: as PNG if it is transparent, otherwise as JPEG of the given quality.
+     *
+     * @param image   The variant.
+     * @param quality The JPEG quality between 0 and 1.
+     * @return The encoded variant.
+     * @throws IOException If the image cannot be encoded.
+     */
+    private static byte[] encode(BufferedImage image, float quality) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", outputStream);
+            return outputStream.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -1,8 +1,12 @@
 package com.pizza.pizzashop.services.PizzaIngredientService;
 
 import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This interface provides methods for managing pizza ingredients.
@@ -15,6 +19,14 @@ public interface PizzaIngredientService {
      */
     List<PizzaIngredientDTO> getAllIngredients();
 
+    /**
+     * Retrieves one page of the filtered and sorted list of pizza ingredients.
+     *
+     * @param request The page request.
+     * @return A CursorPageDTO holding the PizzaIngredientDTO on the page and the cursor of the next page.
+     */
+    CursorPageDTO<PizzaIngredientDTO> getIngredientPage(CatalogPageRequest request);
+
     /**
      * Retrieves a pizza ingredient by its unique identifier.
      *
@@ -23,6 +35,24 @@ public interface PizzaIngredientService {
      */
     PizzaIngredientDTO getIngredientById(Long id);
 
+    /**
+     * Retrieves the requested properties of the pizza ingredients on one page of the filtered and sorted list.
+     *
+     * @param request The page request.
+     * @param fields  The PizzaIngredientDTO properties to retrieve.
+     * @return A CursorPageDTO holding the properties of every pizza ingredient on the page and the cursor of the next page.
+     */
+    CursorPageDTO<Map<String, Object>> getIngredientFieldsPage(CatalogPageRequest request, FieldSelection fields);
+
+    /**
+     * Retrieves the requested properties of a pizza ingredient.
+     *
+     * @param id     The unique identifier of the pizza ingredient to retrieve.
+     * @param fields The PizzaIngredientDTO properties to retrieve.
+     * @return The properties of the pizza ingredient with the specified ID by name, or null if there is no such pizza ingredient.
+     */
+    Map<String, Object> getIngredientFieldsById(Long id, FieldSelection fields);
+
     /**
      * Creates a new pizza ingredient.
      *
@@ -1,31 +1,46 @@
 package com.pizza.pizzashop.services.PizzaIngredientService;
 
 import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.entities.PizzaIngredient;
 import com.pizza.pizzashop.mappers.PizzaIngredientMapper;
 import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
-
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
+import jakarta.persistence.Tuple;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * This class is an implementation of the PizzaIngredientService interface that provides methods for managing pizza ingredients.
+ * Pizza ingredients are listed from the catalog snapshot, which is refreshed after every change.
+ * Every change increments the catalog version in the same transaction, so the new version commits with the change.
+ * Sparse fieldsets select only the requested columns.
  */
 @Service
 public class PizzaIngredientServiceImpl implements PizzaIngredientService {
     private final PizzaIngredientRepository ingredientRepository;
     private final PizzaIngredientMapper ingredientMapper;
+    private final CatalogService catalogService;
 
     @Autowired
     public PizzaIngredientServiceImpl(
             PizzaIngredientRepository ingredientRepository,
-            PizzaIngredientMapper ingredientMapper
+            PizzaIngredientMapper ingredientMapper,
+            CatalogService catalogService
     ) {
         this.ingredientRepository = ingredientRepository;
         this.ingredientMapper = ingredientMapper;
+        this.catalogService = catalogService;
     }
 
     /**
@@ -35,10 +50,29 @@ public class PizzaIngredientServiceImpl implements PizzaIngredientService {
      */
     @Override
     public List<PizzaIngredientDTO> getAllIngredients() {
-        List<PizzaIngredient> ingredients = ingredientRepository.findAll();
-        return ingredients.stream()
+        return catalogService.getSnapshot().getIngredients();
+    }
+
+    /**
+     * Retrieves one page of the filtered and sorted list of pizza ingredients with a single keyset query.
+     *
+     * @param request The page request.
+     * @return A CursorPageDTO holding the PizzaIngredientDTO on the page and the cursor of the next page.
+     */
+    @Override
+    public CursorPageDTO<PizzaIngredientDTO> getIngredientPage(CatalogPageRequest request) {
+        List<PizzaIngredient> ingredients = ingredientRepository.findPage(request);
+        boolean hasNext = ingredients.size() > request.getLimit();
+        List<PizzaIngredientDTO> items = (hasNext ? ingredients.subList(0, request.getLimit()) : ingredients).stream()
                 .map(ingredientMapper::toDto)
                 .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            PizzaIngredientDTO last = items.get(items.size() - 1);
+            Object sortValue = CatalogPageRequest.SORT_NAME.equals(request.getSortKey()) ? last.getName() : last.getAddPrice();
+            nextCursor = request.cursorAfter(last.getId(), sortValue);
+        }
+        return new CursorPageDTO<>(items, nextCursor);
     }
 
     /**
@@ -53,6 +87,51 @@ public class PizzaIngredientServiceImpl implements PizzaIngredientService {
         return ingredient.map(ingredientMapper::toDto).orElse(null);
     }
 
+    /**
+     * Retrieves the requested properties of the pizza ingredients on one page of the filtered and sorted list
+     * with a single keyset query selecting only the requested columns, plus the sorted one for the cursor.
+     *
+     * @param request The page request.
+     * @param fields  The PizzaIngredientDTO properties to retrieve.
+     * @return A CursorPageDTO holding the properties of every pizza ingredient on the page and the cursor of the next page.
+     */
+    @Override
+    public CursorPageDTO<Map<String, Object>> getIngredientFieldsPage(CatalogPageRequest request, FieldSelection fields) {
+        String sortField = switch (request.getSortKey()) {
+            case CatalogPageRequest.SORT_NAME -> "name";
+            case CatalogPageRequest.SORT_PRICE -> "addPrice";
+            default -> FieldSelection.ID;
+        };
+        Set<String> columns = new LinkedHashSet<>(fields.getFields());
+        columns.add(sortField);
+        List<Tuple> rows = ingredientRepository.findPageFields(request, columns);
+        boolean hasNext = rows.size() > request.getLimit();
+        List<Tuple> pageRows = hasNext ? rows.subList(0, request.getLimit()) : rows;
+        List<Map<String, Object>> items = pageRows.stream()
+                .map(row -> toFields(row, fields))
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = request.cursorAfter((Long) last.get(FieldSelection.ID), last.get(sortField));
+        }
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    /**
+     * Retrieves the requested properties of a pizza ingredient, selecting only their columns.
+     *
+     * @param id     The unique identifier of the pizza ingredient to retrieve.
+     * @param fields The PizzaIngredientDTO properties to retrieve.
+     * @return The properties of the pizza ingredient with the specified ID by name, or null if there is no such pizza ingredient.
+     */
+    @Override
+    public Map<String, Object> getIngredientFieldsById(Long id, FieldSelection fields) {
+        return ingredientRepository.findFieldsById(id, fields.getFields())
+                .map(row -> toFields(row, fields))
+                .orElse(null);
+    }
+
     /**
      * Creates a new pizza ingredient.
      *
@@ -60,9 +139,11 @@ public class PizzaIngredientServiceImpl implements PizzaIngredientService {
      * @return The PizzaIngredientDTO representing the newly created pizza ingredient.
      */
     @Override
+    @Transactional
     public PizzaIngredientDTO createIngredient(PizzaIngredientDTO ingredientDto) {
         PizzaIngredient ingredient = ingredientMapper.toEntity(ingredientDto);
         PizzaIngredient savedIngredient = ingredientRepository.save(ingredient);
+        catalogService.refresh();
         return ingredientMapper.toDto(savedIngredient);
     }
 
@@ -74,11 +155,13 @@ public class PizzaIngredientServiceImpl implements PizzaIngredientService {
      * @return The PizzaIngredientDTO representing the updated pizza ingredient.
      */
     @Override
+    @Transactional
     public PizzaIngredientDTO updateIngredient(Long id, PizzaIngredientDTO ingredientDto) {
         Optional<PizzaIngredient> existingIngredient = ingredientRepository.findById(id);
         if (existingIngredient.isPresent()) {
             PizzaIngredient ingredient = ingredientMapper.partialUpdate(ingredientDto, existingIngredient.get());
             PizzaIngredient updatedIngredient = ingredientRepository.save(ingredient);
+            catalogService.refresh();
             return ingredientMapper.toDto(updatedIngredient);
         }
         return null;
@@ -90,7 +173,24 @@ public class PizzaIngredientServiceImpl implements PizzaIngredientService {
      * @param id The unique identifier of the pizza ingredient to delete.
      */
     @Override
+    @Transactional
     public void deleteIngredient(Long id) {
         ingredientRepository.deleteById(id);
+        catalogService.refresh();
+    }
+
+    /**
+     * Helper method to turn a projected row into the requested properties of a pizza ingredient.
+     *
+     * @param row    The row holding the selected columns.
+     * @param fields The requested properties.
+     * @return The properties by name, in the order of the PizzaIngredientDTO.
+     */
+    private static Map<String, Object> toFields(Tuple row, FieldSelection fields) {
+        Map<String, Object> ingredient = new LinkedHashMap<>();
+        for (String field : fields.getFields()) {
+            ingredient.put(field, row.get(field));
+        }
+        return ingredient;
     }
 }
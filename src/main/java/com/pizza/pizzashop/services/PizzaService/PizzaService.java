@@ -1,8 +1,12 @@
 package com.pizza.pizzashop.services.PizzaService;
 
 import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This interface provides methods for managing pizzas.
@@ -15,6 +19,14 @@ public interface PizzaService {
      */
     List<PizzaDTO> getAllPizzas();
 
+    /**
+     * Retrieves one page of the filtered and sorted list of pizzas.
+     *
+     * @param request The page request.
+     * @return A CursorPageDTO holding the PizzaDTO on the page and the cursor of the next page.
+     */
+    CursorPageDTO<PizzaDTO> getPizzaPage(CatalogPageRequest request);
+
     /**
      * Retrieves a pizza by its unique identifier.
      *
@@ -23,6 +35,24 @@ public interface PizzaService {
      */
     PizzaDTO getPizzaById(Long id);
 
+    /**
+     * Retrieves the requested properties of the pizzas on one page of the filtered and sorted list.
+     *
+     * @param request The page request.
+     * @param fields  The PizzaDTO properties to retrieve.
+     * @return A CursorPageDTO holding the properties of every pizza on the page and the cursor of the next page.
+     */
+    CursorPageDTO<Map<String, Object>> getPizzaFieldsPage(CatalogPageRequest request, FieldSelection fields);
+
+    /**
+     * Retrieves the requested properties of a pizza.
+     *
+     * @param id     The unique identifier of the pizza to retrieve.
+     * @param fields The PizzaDTO properties to retrieve.
+     * @return The properties of the pizza with the specified ID by name, or null if there is no such pizza.
+     */
+    Map<String, Object> getPizzaFieldsById(Long id, FieldSelection fields);
+
     /**
      * Creates a new pizza.
      *
@@ -1,28 +1,68 @@
 package com.pizza.pizzashop.services.PizzaService;
 
 import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.entities.Pizza;
+import com.pizza.pizzashop.entities.PizzaIngredient;
 import com.pizza.pizzashop.mappers.PizzaMapper;
 import com.pizza.pizzashop.repositories.PizzaRepository;
-
+import com.pizza.pizzashop.repositories.PizzaRepositoryCustom;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
+import com.pizza.pizzashop.utils.ImageStore;
+import jakarta.persistence.Tuple;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * This class is an implementation of the PizzaService interface that provides methods for managing pizzas.
+ * Uploaded images are put into the ImageStore, and pizzas refer to them by hash.
+ * The generation of their resized variants is scheduled in the background.
+ * Pizzas are listed from the catalog snapshot, which is refreshed after every change.
+ * Pizzas are always loaded together with their ingredients in a single statement.
+ * Every change increments the catalog version in the same transaction, so the new version commits with the change.
+ * Sparse fieldsets select only the requested columns; the ingredients are read with a statement of their own,
+ * and only if they were requested.
  */
 @Service
 public class PizzaServiceImpl implements PizzaService {
+    private static final String INGREDIENTS = "ingredients";
+    private static final String IMAGE_URL = "imageUrl";
+
     private final PizzaRepository pizzaRepository;
     private final PizzaMapper pizzaMapper;
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
+    private final CatalogService catalogService;
 
     @Autowired
-    public PizzaServiceImpl(PizzaRepository pizzaRepository, PizzaMapper pizzaMapper) {
+    public PizzaServiceImpl(
+            PizzaRepository pizzaRepository,
+            PizzaMapper pizzaMapper,
+            ImageStore imageStore,
+            ImageVariantService imageVariantService,
+            CatalogService catalogService
+    ) {
         this.pizzaRepository = pizzaRepository;
         this.pizzaMapper = pizzaMapper;
+        this.imageStore = imageStore;
+        this.imageVariantService = imageVariantService;
+        this.catalogService = catalogService;
     }
 
     /**
@@ -32,10 +72,38 @@ public class PizzaServiceImpl implements PizzaService {
      */
     @Override
     public List<PizzaDTO> getAllPizzas() {
-        List<Pizza> pizzas = pizzaRepository.findAll();
-        return pizzas.stream()
+        return catalogService.getSnapshot().getPizzas();
+    }
+
+    /**
+     * Retrieves one page of the filtered and sorted list of pizzas.
+     * The IDs on the page are found with a keyset query first, and the pizzas are then loaded with their ingredients
+     * in a second statement, so a page always takes two statements.
+     *
+     * @param request The page request.
+     * @return A CursorPageDTO holding the PizzaDTO on the page and the cursor of the next page.
+     */
+    @Override
+    public CursorPageDTO<PizzaDTO> getPizzaPage(CatalogPageRequest request) {
+        List<Tuple> rows = pizzaRepository.findPageIds(request);
+        boolean hasNext = rows.size() > request.getLimit();
+        List<Tuple> pageRows = hasNext ? rows.subList(0, request.getLimit()) : rows;
+        List<Long> pageIds = pageRows.stream().map(row -> (Long) row.get(PizzaRepositoryCustom.PIZZA_ID)).toList();
+        Map<Long, Pizza> pizzas = pizzaRepository.findWithIngredientsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(Pizza::getId, Function.identity()));
+        // Pizzas deleted in between are skipped, the cursor is built from the page IDs regardless
+        List<PizzaDTO> items = pageIds.stream()
+                .map(pizzas::get)
+                .filter(Objects::nonNull)
                 .map(pizzaMapper::toDTO)
                 .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = request.cursorAfter((Long) last.get(PizzaRepositoryCustom.PIZZA_ID),
+                    last.get(PizzaRepositoryCustom.SORT_VALUE));
+        }
+        return new CursorPageDTO<>(items, nextCursor);
     }
 
     /**
@@ -46,10 +114,60 @@ public class PizzaServiceImpl implements PizzaService {
      */
     @Override
     public PizzaDTO getPizzaById(Long id) {
-        Optional<Pizza> pizza = pizzaRepository.findById(id);
+        Optional<Pizza> pizza = pizzaRepository.findWithIngredientsById(id);
         return pizza.map(pizzaMapper::toDTO).orElse(null);
     }
 
+    /**
+     * Retrieves the requested properties of the pizzas on one page of the filtered and sorted list.
+     * The page is read with a single keyset query selecting only the requested columns, plus the sorted one
+     * for the cursor, and the ingredients of the page are read with a second statement if they were requested.
+     *
+     * @param request The page request.
+     * @param fields  The PizzaDTO properties to retrieve.
+     * @return A CursorPageDTO holding the properties of every pizza on the page and the cursor of the next page.
+     */
+    @Override
+    public CursorPageDTO<Map<String, Object>> getPizzaFieldsPage(CatalogPageRequest request, FieldSelection fields) {
+        String sortField = CatalogPageRequest.SORT_ID.equals(request.getSortKey()) ? FieldSelection.ID : request.getSortKey();
+        Set<String> columns = new LinkedHashSet<>(fields.getFields());
+        columns.add(sortField);
+        List<Tuple> rows = pizzaRepository.findPageFields(request, columns);
+        boolean hasNext = rows.size() > request.getLimit();
+        List<Tuple> pageRows = hasNext ? rows.subList(0, request.getLimit()) : rows;
+        Map<Long, List<PizzaIngredientDTO>> ingredients = fields.contains(INGREDIENTS)
+                ? findIngredients(pageRows.stream().map(row -> (Long) row.get(FieldSelection.ID)).toList())
+                : Map.of();
+        List<Map<String, Object>> items = pageRows.stream()
+                .map(row -> toFields(row, fields, ingredients))
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = request.cursorAfter((Long) last.get(FieldSelection.ID), last.get(sortField));
+        }
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    /**
+     * Retrieves the requested properties of a pizza, selecting only their columns.
+     *
+     * @param id     The unique identifier of the pizza to retrieve.
+     * @param fields The PizzaDTO properties to retrieve.
+     * @return The properties of the pizza with the specified ID by name, or null if there is no such pizza.
+     */
+    @Override
+    public Map<String, Object> getPizzaFieldsById(Long id, FieldSelection fields) {
+        Optional<Tuple> row = pizzaRepository.findFieldsById(id, fields.getFields());
+        if (row.isEmpty()) {
+            return null;
+        }
+        Map<Long, List<PizzaIngredientDTO>> ingredients = fields.contains(INGREDIENTS)
+                ? findIngredients(List.of(id))
+                : Map.of();
+        return toFields(row.get(), fields, ingredients);
+    }
+
     /**
      * Creates a new pizza.
      *
@@ -57,25 +175,39 @@ public class PizzaServiceImpl implements PizzaService {
      * @return The PizzaDTO representing the newly created pizza.
      */
     @Override
+    @Transactional
     public PizzaDTO createPizza(PizzaDTO pizzaDTO) {
         Pizza pizza = pizzaMapper.toEntity(pizzaDTO);
+        pizza.setImageHash(imageStore.storeBase64(pizzaDTO.getImage()));
         Pizza savedPizza = pizzaRepository.save(pizza);
+        imageVariantService.generate(savedPizza.getImageHash());
+        catalogService.refresh();
         return pizzaMapper.toDTO(savedPizza);
     }
 
     /**
      * Updates an existing pizza with new information.
+     * The pizza stays managed for the whole transaction, so saving it does not load it again,
+     * and the changes are flushed when the transaction commits.
      *
      * @param id       The unique identifier of the pizza to update.
      * @param pizzaDTO The PizzaDTO containing updated information for the pizza.
      * @return The PizzaDTO representing the updated pizza.
      */
     @Override
+    @Transactional
     public PizzaDTO updatePizza(Long id, PizzaDTO pizzaDTO) {
-        Optional<Pizza> existingPizza = pizzaRepository.findById(id);
+        Optional<Pizza> existingPizza = pizzaRepository.findWithIngredientsById(id);
         if (existingPizza.isPresent()) {
             Pizza pizza = pizzaMapper.partialUpdate(pizzaDTO, existingPizza.get());
+            if (pizzaDTO.getImage() != null) {
+                pizza.setImageHash(imageStore.storeBase64(pizzaDTO.getImage()));
+            }
             Pizza updatedPizza = pizzaRepository.save(pizza);
+            if (pizzaDTO.getImage() != null) {
+                imageVariantService.generate(updatedPizza.getImageHash());
+            }
+            catalogService.refresh();
             return pizzaMapper.toDTO(updatedPizza);
         }
         return null;
@@ -87,7 +219,47 @@ public class PizzaServiceImpl implements PizzaService {
      * @param id The unique identifier of the pizza to delete.
      */
     @Override
+    @Transactional
     public void deletePizza(Long id) {
         pizzaRepository.deleteById(id);
+        catalogService.refresh();
+    }
+
+    /**
+     * Helper method to read the ingredients of the given pizzas with a single statement.
+     *
+     * @param pizzaIds The IDs of the pizzas.
+     * @return The ingredients of every pizza by its ID; pizzas without ingredients are missing.
+     */
+    private Map<Long, List<PizzaIngredientDTO>> findIngredients(List<Long> pizzaIds) {
+        if (pizzaIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<PizzaIngredientDTO>> ingredients = new LinkedHashMap<>();
+        for (Tuple row : pizzaRepository.findIngredientsByPizzaIdIn(pizzaIds)) {
+            ingredients.computeIfAbsent((Long) row.get(PizzaRepositoryCustom.PIZZA_ID), pizzaId -> new ArrayList<>())
+                    .add(pizzaMapper.toDTO((PizzaIngredient) row.get(PizzaRepositoryCustom.INGREDIENT)));
+        }
+        return ingredients;
+    }
+
+    /**
+     * Helper method to turn a projected row into the requested properties of a pizza.
+     *
+     * @param row         The row holding the selected columns.
+     * @param fields      The requested properties.
+     * @param ingredients The ingredients of the pizzas by their IDs.
+     * @return The properties by name, in the order of the PizzaDTO.
+     */
+    private Map<String, Object> toFields(Tuple row, FieldSelection fields, Map<Long, List<PizzaIngredientDTO>> ingredients) {
+        Map<String, Object> pizza = new LinkedHashMap<>();
+        for (String field : fields.getFields()) {
+            switch (field) {
+                case INGREDIENTS -> pizza.put(field, ingredients.getOrDefault((Long) row.get(FieldSelection.ID), List.of()));
+                case IMAGE_URL -> pizza.put(field, pizzaMapper.imageUrl((String) row.get(field)));
+                default -> pizza.put(field, row.get(field));
+            }
+        }
+        return pizza;
     }
 }
@@ -0,0 +1,109 @@
+package com.pizza.pizzashop.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a lock-free Bloom filter of strings.
+ * It answers "definitely absent" or "possibly present" in constant time and never reports a false negative,
+ * so it can be used to skip remote lookups for values that were never added.
+ * It is safe for concurrent use: additions are atomic bit sets and lookups never block.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a Bloom filter sized for the expected number of values and the desired false positive probability.
+     *
+     * @param expectedInsertions        The number of values the filter is expected to hold.
+     * @param falsePositiveProbability The acceptable probability of reporting an absent value as present.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be in range (0, 1)");
+        }
+        long optimalBits = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value The value to add.
+     */
+    public void put(String value) {
+        long hash1 = hash1(value);
+        long hash2 = hash2(value);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a value might have been added to the filter.
+     *
+     * @param value The value to check.
+     * @return False if the value was definitely never added; true if it possibly was.
+     */
+    public boolean mightContain(String value) {
+        long hash1 = hash1(value);
+        long hash2 = hash2(value);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method computing the 64-bit FNV-1a hash of a value, finalized with the MurmurHash3 mixer.
+     */
+    private static long hash1(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Helper method computing a second, independent 64-bit polynomial hash of a value. The result is always odd,
+     * so the probe sequence of double hashing never collapses to a single bit.
+     */
+    private static long hash2(String value) {
+        long hash = 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = hash * 0xbf58476d1ce4e5b9L + value.charAt(i);
+        }
+        return mix(hash) | 1L;
+    }
+
+    /**
+     * Helper method applying the MurmurHash3 64-bit finalizer, so that every input bit affects every output bit.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,85 @@
+package com.pizza.pizzashop.utils;
+
+/**
+ * This class represents a single byte range requested with the HTTP Range header.
+ * Only single ranges are supported; requests for several ranges are answered with the full content,
+ * which RFC 9110 allows.
+ */
+public final class ByteRange {
+    /**
+     * The range of a Range header that cannot be satisfied, e.g. because it starts after the end of the content.
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a Range header against content of the given length.
+     *
+     * @param header The value of the Range header, or null if there is none.
+     * @param length The length of the content in bytes.
+     * @return The requested range with its end clamped to the content; UNSATISFIABLE if no byte of the range exists;
+     * or null if the header is absent, malformed, or requests several ranges, in which case the full content is sent.
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith(BYTES_UNIT) || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // A suffix range: the last N bytes
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffixLength), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+            if (start < 0 || end < 0) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            if (end < start) {
+                return null;
+            }
+            return new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of bytes in the range.
+     *
+     * @return The length of the range.
+     */
+    public long length() {
+        return end - start + 1;
+    }
+}
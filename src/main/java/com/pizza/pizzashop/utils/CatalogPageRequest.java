@@ -0,0 +1,212 @@
+package com.pizza.pizzashop.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class represents a request for one page of a catalog listing: its filters, its sort order, its size,
+ * and the cursor of the previous page. Listings are always sorted by the requested attribute and then by ID,
+ * so the order is stable even if several items share a value.
+ * The sort order is given as the name of the attribute, prefixed with "-" for descending order.
+ */
+public final class CatalogPageRequest {
+    public static final String SORT_ID = "id";
+    public static final String SORT_NAME = "name";
+    public static final String SORT_PRICE = "price";
+    public static final String SORT_WEIGHT = "weight";
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final String sortKey;
+    private final boolean descending;
+    private final int limit;
+    private final Long afterId;
+    private final Object afterValue;
+    private final Integer minPrice;
+    private final Integer maxPrice;
+    private final Integer minWeight;
+    private final Integer maxWeight;
+    private final String namePrefix;
+
+    private CatalogPageRequest(
+            String sortKey,
+            boolean descending,
+            int limit,
+            Long afterId,
+            Object afterValue,
+            Integer minPrice,
+            Integer maxPrice,
+            Integer minWeight,
+            Integer maxWeight,
+            String namePrefix
+    ) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.limit = limit;
+        this.afterId = afterId;
+        this.afterValue = afterValue;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * Parses and validates the query parameters of a paginated listing.
+     *
+     * @param sort       The sort order, e.g. "price" or "-price", or null to sort by ID.
+     * @param cursor     The cursor token of the previous page, or null for the first page.
+     * @param limit      The maximum number of items on the page, or null for the default.
+     * @param minPrice   The lowest price to include, or null.
+     * @param maxPrice   The highest price to include, or null.
+     * @param minWeight  The lowest weight to include, or null.
+     * @param maxWeight  The highest weight to include, or null.
+     * @param namePrefix The case-insensitive prefix of the names to include, or null.
+     * @param sortKeys   The attributes the listing can be sorted by.
+     * @return The page request.
+     * @throws RequestDataValidationFailedException If a parameter is invalid, or the cursor belongs to another sort order.
+     */
+    public static CatalogPageRequest parse(
+            String sort,
+            String cursor,
+            Integer limit,
+            Integer minPrice,
+            Integer maxPrice,
+            Integer minWeight,
+            Integer maxWeight,
+            String namePrefix,
+            Set<String> sortKeys
+    ) throws RequestDataValidationFailedException {
+        String order = sort == null || sort.isBlank() ? SORT_ID : sort.strip();
+        boolean descending = order.startsWith("-");
+        String sortKey = descending ? order.substring(1) : order;
+        if (!sortKeys.contains(sortKey)) {
+            throw new RequestDataValidationFailedException("Unable to sort by '" + sortKey + "', supported are " + sortKeys);
+        }
+        int pageLimit = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageLimit < 1 || pageLimit > MAX_LIMIT) {
+            throw new RequestDataValidationFailedException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice
+                || minWeight != null && maxWeight != null && minWeight > maxWeight) {
+            throw new RequestDataValidationFailedException("Lower bounds must not exceed upper bounds");
+        }
+
+        Long afterId = null;
+        Object afterValue = null;
+        if (cursor != null) {
+            KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+            if (!keysetCursor.getSort().equals(order)) {
+                throw new RequestDataValidationFailedException("Cursor does not belong to sort order '" + order + "'");
+            }
+            afterId = keysetCursor.getId();
+            afterValue = parseValue(sortKey, keysetCursor.getValue());
+        }
+        String prefix = namePrefix == null || namePrefix.isBlank() ? null : namePrefix.strip().toLowerCase(Locale.ROOT);
+        return new CatalogPageRequest(sortKey, descending, pageLimit, afterId, afterValue,
+                minPrice, maxPrice, minWeight, maxWeight, prefix);
+    }
+
+    /**
+     * Creates the cursor pointing after the given item of this listing.
+     *
+     * @param id    The ID of the item.
+     * @param value The value of the sorted attribute of the item; ignored if the listing is sorted by ID.
+     * @return The cursor token.
+     */
+    public String cursorAfter(long id, Object value) {
+        return new KeysetCursor(getSort(), id, SORT_ID.equals(sortKey) ? null : String.valueOf(value)).encode();
+    }
+
+    /**
+     * Returns the sort order in the form it was requested.
+     *
+     * @return The sort order, e.g. "-price".
+     */
+    public String getSort() {
+        return descending ? "-" + sortKey : sortKey;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the ID of the last item of the previous page.
+     *
+     * @return The ID, or null for the first page.
+     */
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Returns the value of the sorted attribute of the last item of the previous page.
+     *
+     * @return A String for names, an Integer for prices and weights, or null for the first page or when sorted by ID.
+     */
+    public Object getAfterValue() {
+        return afterValue;
+    }
+
+    public Integer getMinPrice() {
+        return minPrice;
+    }
+
+    public Integer getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Integer getMinWeight() {
+        return minWeight;
+    }
+
+    public Integer getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the lowercase name prefix to filter by.
+     *
+     * @return The prefix, or null if names are not filtered.
+     */
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    /**
+     * Helper method to convert the value of a cursor to the type of the sorted attribute.
+     *
+     * @param sortKey The sorted attribute.
+     * @param value   The value stored in the cursor.
+     * @return The typed value, or null when sorted by ID.
+     * @throws RequestDataValidationFailedException If the value does not fit the attribute.
+     */
+    private static Object parseValue(String sortKey, String value) throws RequestDataValidationFailedException {
+        if (SORT_ID.equals(sortKey)) {
+            return null;
+        }
+        if (value == null) {
+            throw new RequestDataValidationFailedException("Malformed cursor");
+        }
+        if (SORT_NAME.equals(sortKey)) {
+            return value;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RequestDataValidationFailedException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.pizza.pizzashop.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class is a lock-free circuit breaker guarding calls to a remote dependency.
+ * Calls that fail or take longer than the latency budget count as failures. After the given number of consecutive
+ * failures the circuit opens and calls are rejected without being attempted. Once the open duration has passed,
+ * a single probe call is let through: if it succeeds, the circuit closes again; otherwise, it stays open for
+ * another open duration.
+ * All times are System.nanoTime() values passed in by the caller.
+ */
+public final class CircuitBreaker {
+    /**
+     * The states of the circuit.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long latencyBudgetNanos;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param failureThreshold   The number of consecutive failures that opens the circuit.
+     * @param openNanos          How long the circuit stays open before a probe call is let through.
+     * @param latencyBudgetNanos The duration after which a successful call still counts as a failure.
+     */
+    public CircuitBreaker(int failureThreshold, long openNanos, long latencyBudgetNanos) {
+        if (failureThreshold <= 0 || openNanos <= 0 || latencyBudgetNanos <= 0) {
+            throw new IllegalArgumentException("Failure threshold, open duration and latency budget must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.latencyBudgetNanos = latencyBudgetNanos;
+    }
+
+    /**
+     * Decides whether a call may be attempted.
+     * Every permitted call must be followed by exactly one call to onSuccess or onFailure.
+     *
+     * @param nowNanos The current time.
+     * @return True if the call may be attempted; otherwise, false.
+     */
+    public boolean tryAcquirePermission(long nowNanos) {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        return current == State.OPEN
+                && nowNanos - openedAt.get() >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    /**
+     * Records a completed call.
+     *
+     * @param elapsedNanos How long the call took.
+     * @param nowNanos     The current time.
+     */
+    public void onSuccess(long elapsedNanos, long nowNanos) {
+        if (elapsedNanos > latencyBudgetNanos) {
+            onFailure(nowNanos);
+            return;
+        }
+        consecutiveFailures.set(0);
+        state.compareAndSet(State.HALF_OPEN, State.CLOSED);
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param nowNanos The current time.
+     */
+    public void onFailure(long nowNanos) {
+        if (state.get() == State.HALF_OPEN) {
+            open(State.HALF_OPEN, nowNanos);
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED, nowNanos);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Helper method to open the circuit, unless another thread changed its state in the meantime.
+     *
+     * @param expected The state the circuit is expected to be in.
+     * @param nowNanos The current time.
+     */
+    private void open(State expected, long nowNanos) {
+        openedAt.set(nowNanos);
+        if (state.compareAndSet(expected, State.OPEN)) {
+            consecutiveFailures.set(0);
+        }
+    }
+}
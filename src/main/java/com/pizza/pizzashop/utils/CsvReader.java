@@ -0,0 +1,94 @@
+package com.pizza.pizzashop.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads CSV records (RFC 4180) one at a time, so that large files are never held in memory as a whole.
+ * Fields are separated by commas and may be quoted with double quotes; quoted fields may contain commas,
+ * line breaks, and doubled quotes. Records end with LF or CRLF.
+ */
+public final class CsvReader {
+    private static final int END = -1;
+
+    private final Reader reader;
+    private int line = 1;
+    private int recordLine;
+
+    /**
+     * Creates a reader of the records of the given input, which should be buffered.
+     *
+     * @param reader The input.
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The fields of the record, or null at the end of the input.
+     * @throws IOException                          If the input cannot be read.
+     * @throws RequestDataValidationFailedException If a quoted field is not terminated.
+     */
+    public List<String> readRecord() throws IOException, RequestDataValidationFailedException {
+        int c = reader.read();
+        if (c == END) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == END) {
+                    throw new RequestDataValidationFailedException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == END) {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '\r') {
+                int next = reader.read();
+                if (next != '\n') {
+                    field.append('\r');
+                }
+                c = next;
+                continue;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * Returns the line the last record started on.
+     *
+     * @return The 1-based line number.
+     */
+    public int getLine() {
+        return recordLine;
+    }
+}
@@ -0,0 +1,72 @@
+package com.pizza.pizzashop.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class represents the sparse fieldset of a response, i.e. the properties a client asked for with the
+ * "fields" query parameter, e.g. "fields=name,price". Only these properties are read from the database and
+ * written to the response. The ID is always included, since clients need it to refer to the items.
+ */
+public final class FieldSelection {
+    public static final String ID = "id";
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Parses and validates a comma-separated list of fields.
+     *
+     * @param fields    The value of the "fields" parameter.
+     * @param supported The properties of the response in the order they are serialized, starting with the ID.
+     * @return The field selection, ordered like the supported properties.
+     * @throws RequestDataValidationFailedException If the list is empty or names an unsupported property.
+     */
+    public static FieldSelection parse(String fields, List<String> supported) throws RequestDataValidationFailedException {
+        if (fields == null || fields.isBlank()) {
+            throw new RequestDataValidationFailedException("Fields must not be empty, supported are " + supported);
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.strip();
+            if (!supported.contains(name)) {
+                throw new RequestDataValidationFailedException("Unknown field '" + name + "', supported are " + supported);
+            }
+            requested.add(name);
+        }
+        requested.add(ID);
+        Set<String> ordered = new LinkedHashSet<>();
+        for (String field : supported) {
+            if (requested.contains(field)) {
+                ordered.add(field);
+            }
+        }
+        return new FieldSelection(ordered);
+    }
+
+    /**
+     * Checks whether a property was requested.
+     *
+     * @param field The name of the property.
+     * @return True if the property is part of the response; otherwise, false.
+     */
+    public boolean contains(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Returns the requested properties.
+     *
+     * @return The names of the properties in the order they are serialized.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+}
@@ -1,8 +1,12 @@
 package com.pizza.pizzashop.utils;
 
 import com.pizza.pizzashop.dtos.basic.ErrorDTO;
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
+import com.pizza.pizzashop.exceptions.PasswordHashingOverloadedException;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -43,6 +47,51 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errorDTO);
     }
 
+    /**
+     * Separately handles overload of the password hashing pool, so that clients back off instead of waiting.
+     *
+     * @param e The PasswordHashingOverloadedException to be handled.
+     * @return A ResponseEntity containing the ErrorDTO with the error details, HTTP status code 503 (Service Unavailable)
+     * and a Retry-After header.
+     */
+    @ExceptionHandler(PasswordHashingOverloadedException.class)
+    public ResponseEntity<ErrorDTO> handlePasswordHashingOverloadedException(PasswordHashingOverloadedException e) {
+        ErrorDTO errorDTO = new ErrorDTO(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getClass().getSimpleName(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorDTO);
+    }
+
+    /**
+     * Separately handles an unavailable Redis for operations that cannot degrade, such as revoking a token.
+     *
+     * @param e The RedisUnavailableException to be handled.
+     * @return A ResponseEntity containing the ErrorDTO with the error details and HTTP status code 503 (Service Unavailable).
+     */
+    @ExceptionHandler(RedisUnavailableException.class)
+    public ResponseEntity<ErrorDTO> handleRedisUnavailableException(RedisUnavailableException e) {
+        ErrorDTO errorDTO = new ErrorDTO(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                e.getClass().getSimpleName(),
+                "Service is temporarily unavailable. Try again later");
+        return new ResponseEntity<>(errorDTO, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Separately handles throttled sign-in attempts, so that clients back off before trying again.
+     *
+     * @param e The LoginThrottledException to be handled.
+     * @return A ResponseEntity containing the ErrorDTO with the error details, HTTP status code 429 (Too Many Requests)
+     * and a Retry-After header.
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<ErrorDTO> handleLoginThrottledException(LoginThrottledException e) {
+        ErrorDTO errorDTO = new ErrorDTO(HttpStatus.TOO_MANY_REQUESTS.value(), e.getClass().getSimpleName(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(errorDTO);
+    }
+
     /**
      * Creates a formatted error message from the given BindingResult containing validation errors.
      * The resulting message will have the format: "Validation errors:\n[fieldName]: [errorMessage]\n[fieldName]: [errorMessage]..."
@@ -0,0 +1,233 @@
+package com.pizza.pizzashop.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * This class is a content-addressed store for images on the local filesystem.
+ * Every image is kept once, in a file named after the hex SHA-256 hash of its content, under a directory named after
+ * the first two characters of the hash. Since the content of a file never changes, files can be served with strong
+ * validators and cached forever, and storing the same image again costs nothing.
+ * Derived variants of an image, e.g. resized copies, are stored under the hash of their source image, so images
+ * shared by several pizzas share their variants as well.
+ * Files are written to a temporary file first and moved into place atomically, so readers never see partial files.
+ */
+@Component
+public class ImageStore {
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VARIANT_PATTERN = Pattern.compile("[a-z0-9]+");
+    private static final String VARIANTS_DIRECTORY = "variants";
+    private static final String DATA_URI_SEPARATOR = ";base64,";
+
+    private final Path root;
+
+    @Autowired
+    public ImageStore(@Value("${image_store.path:./images}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Stores an image given in base64, either plain or as a data URI.
+     *
+     * @param encoded The base64-encoded image.
+     * @return The hash the image is stored under.
+     * @throws IllegalArgumentException If the image is empty or not valid base64.
+     */
+    public String storeBase64(String encoded) {
+        int separator = encoded.indexOf(DATA_URI_SEPARATOR);
+        String data = separator >= 0 ? encoded.substring(separator + DATA_URI_SEPARATOR.length()) : encoded;
+        byte[] image = Base64.getMimeDecoder().decode(data.strip());
+        if (image.length == 0) {
+            throw new IllegalArgumentException("Image must not be empty");
+        }
+        return store(image);
+    }
+
+    /**
+     * Stores an image unless an image with the same content is stored already.
+     *
+     * @param image The content of the image.
+     * @return The hash the image is stored under.
+     */
+    public String store(byte[] image) {
+        String hash = hash(image);
+        write(pathOf(hash), image);
+        return hash;
+    }
+
+    /**
+     * Stores a variant of an image unless it is stored already.
+     *
+     * @param hash    The hash of the source image.
+     * @param variant The name of the variant, made of lowercase letters and digits.
+     * @param image   The content of the variant.
+     */
+    public void storeVariant(String hash, String variant, byte[] image) {
+        write(variantPathOf(hash, variant), image);
+    }
+
+    /**
+     * Finds the file of a stored image.
+     *
+     * @param hash The hash of the image.
+     * @return The path of the file, or null if the hash is malformed or no such image is stored.
+     */
+    public Path resolve(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return null;
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Finds the file of a stored variant of an image.
+     *
+     * @param hash    The hash of the source image.
+     * @param variant The name of the variant.
+     * @return The path of the file, or null if the variant has not been stored yet.
+     */
+    public Path resolveVariant(String hash, String variant) {
+        Path path = variantPathOf(hash, variant);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Detects the media type of a stored image from its first bytes.
+     *
+     * @param path The path of the file.
+     * @return The media type, or "application/octet-stream" if the format is not recognised.
+     * @throws IOException If the file cannot be read.
+     */
+    public String contentType(Path path) throws IOException {
+        byte[] header = new byte[12];
+        int length;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            length = inputStream.readNBytes(header, 0, header.length);
+        }
+        if (length >= 8 && startsWith(header, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (length >= 3 && startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (length >= 6 && startsWith(header, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (length >= 12 && startsWith(header, 'R', 'I', 'F', 'F')
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * Helper method to get the path an image with the given hash is stored at.
+     *
+     * @param hash The hash of the image.
+     * @return The path of the file.
+     */
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Helper method to get the path a variant of an image is stored at.
+     *
+     * @param hash    The hash of the source image.
+     * @param variant The name of the variant.
+     * @return The path of the file.
+     */
+    private Path variantPathOf(String hash, String variant) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()
+                || variant == null || !VARIANT_PATTERN.matcher(variant).matches()) {
+            throw new IllegalArgumentException("Malformed image variant " + hash + "/" + variant);
+        }
+        return root.resolve(VARIANTS_DIRECTORY).resolve(variant).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Helper method to write a file unless it exists already.
+     *
+     * @param path  The path of the file.
+     * @param image The content of the file.
+     */
+    private static void write(Path path, byte[] image) {
+        if (Files.exists(path)) {
+            return;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, image);
+                moveIntoPlace(temporary, path);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image " + path.getFileName(), e);
+        }
+    }
+
+    /**
+     * Helper method to move a fully written file into place. Losing a race against another writer is fine,
+     * as both files have the same content.
+     *
+     * @param source The temporary file.
+     * @param target The final path.
+     * @throws IOException If the file cannot be moved.
+     */
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(source, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // Stored concurrently by another writer
+            }
+        } catch (FileAlreadyExistsException ignored) {
+            // Stored concurrently by another writer
+        }
+    }
+
+    /**
+     * Helper method to compute the hex SHA-256 hash of an image.
+     *
+     * @param image The content of the image.
+     * @return The lowercase hex hash.
+     */
+    private static String hash(byte[] image) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
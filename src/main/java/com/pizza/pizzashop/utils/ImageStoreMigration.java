@@ -0,0 +1,114 @@
+package com.pizza.pizzashop.utils;
+
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * This class copies the base64 images that used to be stored in the "pizza" table into the ImageStore.
+ * It runs once the application is ready and processes the pizzas in batches ordered by ID, so that only
+ * one image is held in memory at a time. Every migrated row gets its image hash, but keeps its inline image until
+ * a later changeset drops the column, since the ImageStore lives on the filesystem of the node.
+ * The image_store.path must be a volume shared by all nodes, or images stored by one node cannot be served by others.
+ * As long as the inline images are kept, every node restores those missing from its store on startup,
+ * and it warns about pizzas whose image it cannot find, which indicates a store that is not shared.
+ * Running it on several nodes at once is safe, since storing the same image twice yields the same file.
+ * The catalog is refreshed afterwards, as the migrated pizzas have new image URLs.
+ */
+@Component
+public class ImageStoreMigration {
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStore imageStore;
+    private final CatalogService catalogService;
+
+    @Autowired
+    public ImageStoreMigration(JdbcTemplate jdbcTemplate, ImageStore imageStore, CatalogService catalogService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageStore = imageStore;
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * Migrates all pizzas that have no image hash yet, and restores the inline images missing from the store.
+     *
+     * @return The number of migrated pizzas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int migrate() {
+        int migrated = 0;
+        int restored = 0;
+        long lastId = 0;
+        while (true) {
+            List<StoredImage> batch = jdbcTemplate.query(
+                    "SELECT id, image_hash FROM pizza WHERE image IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                    (resultSet, rowNumber) -> new StoredImage(resultSet.getLong("id"), resultSet.getString("image_hash")),
+                    lastId, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (StoredImage storedImage : batch) {
+                lastId = storedImage.id;
+                if (storedImage.hash != null && imageStore.resolve(storedImage.hash) != null) {
+                    continue;
+                }
+                try {
+                    String image = jdbcTemplate.queryForObject("SELECT image FROM pizza WHERE id = ?", String.class, storedImage.id);
+                    String hash = imageStore.storeBase64(image);
+                    if (storedImage.hash == null) {
+                        jdbcTemplate.update("UPDATE pizza SET image_hash = ? WHERE id = ?", hash, storedImage.id);
+                        migrated++;
+                    } else {
+                        restored++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    GlobalLogger.log("ERROR", "Skipping malformed image of pizza " + storedImage.id + ": " + e.getMessage());
+                }
+            }
+        }
+        if (restored > 0) {
+            GlobalLogger.log("WARN", "Restored " + restored + " pizza images missing from the image store; "
+                    + "image_store.path must be shared by all nodes");
+        }
+        checkShared();
+        if (migrated > 0) {
+            GlobalLogger.log("INFO", "Moved " + migrated + " pizza images to the image store");
+            catalogService.refresh();
+        }
+        return migrated;
+    }
+
+    /**
+     * Helper method to warn about pizzas whose image is neither in the store of this node nor kept inline,
+     * which happens when images are stored by other nodes into a store that is not shared.
+     */
+    private void checkShared() {
+        List<String> hashes = jdbcTemplate.queryForList(
+                "SELECT DISTINCT image_hash FROM pizza WHERE image IS NULL AND image_hash IS NOT NULL", String.class);
+        long missing = hashes.stream().filter(hash -> imageStore.resolve(hash) == null).count();
+        if (missing > 0) {
+            GlobalLogger.log("WARN", missing + " pizza images are missing from the image store; "
+                    + "image_store.path must be shared by all nodes");
+        }
+    }
+
+    /**
+     * This class holds a pizza ID and the hash its inline image is stored under, if it has been migrated.
+     */
+    private static final class StoredImage {
+        private final long id;
+        private final String hash;
+
+        private StoredImage(long id, String hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+    }
+}
@@ -2,112 +2,242 @@ package com.pizza.pizzashop.utils;
 
 import com.pizza.pizzashop.exceptions.TokenValidationException;
 import com.pizza.pizzashop.security.CustomUserDetails;
-import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.security.SigningKey;
+import com.pizza.pizzashop.security.SigningKeyService.SigningKeyService;
+import com.pizza.pizzashop.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * This class provides utility methods for handling JSON Web Tokens (JWT) used for user authentication.
  * It is responsible for generating, validating, and extracting information from JWTs.
+ * In stateless mode, the roles and display fields of the user are signed into the token, so that requests
+ * can be authenticated without loading the user. Those claims are only trusted for a limited time after
+ * the token was issued, which bounds how long a role change can take to apply.
+ * Tokens are signed with the shared HS256 secret by default. If a SigningKeyService is available, which is the case
+ * when "jwt.signing.algorithm" is RS256, they are signed with its current RSA key instead, carry the key ID
+ * in their "kid" header and are verified with the public key that ID resolves to.
  */
 @Component
 public class JWTHelper {
+    private static final String EPOCH_CLAIM = "epoch";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String LOGIN_CLAIM = "login";
+    private static final String EMAIL_CLAIM = "email";
+    private static final String PHONE_NUMBER_CLAIM = "phone_number";
+    private static final String NAME_CLAIM = "name";
+    private static final String SURNAME_CLAIM = "surname";
+
     @Value("${jwt.secret_key}")
     private String secretKeyString;
 
     @Value("${jwt.access_token.lifetime}")
     private Integer tokenLifetime;
 
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean statelessEnabled;
+
+    @Value("${jwt.stateless.max_claims_age:300000}")
+    private long maxClaimsAge;
+
+    @Autowired(required = false)
+    private SigningKeyService signingKeyService;
+
+    private volatile SecretKey signingKey;
+
+    private volatile JwtParser parser;
+
     public void setSecretKeyString(String secretKeyString) {
         this.secretKeyString = secretKeyString;
+        this.signingKey = null;
+        this.parser = null;
     }
 
     public void setTokenLifetime(Integer tokenLifetime) {
         this.tokenLifetime = tokenLifetime;
     }
 
+    public void setStatelessEnabled(boolean statelessEnabled) {
+        this.statelessEnabled = statelessEnabled;
+    }
+
+    public void setMaxClaimsAge(long maxClaimsAge) {
+        this.maxClaimsAge = maxClaimsAge;
+    }
+
+    public void setSigningKeyService(SigningKeyService signingKeyService) {
+        this.signingKeyService = signingKeyService;
+        this.parser = null;
+    }
+
     /**
      * Generates a JWT based on the provided authentication object.
+     * In stateless mode, the roles and display fields of the user are embedded as well.
      *
      * @param authentication The authentication object containing user details.
+     * @param epoch          The current revocation epoch of the user, embedded as the "epoch" claim.
      * @return The generated JWT as a string.
      */
-    public String generateToken(Authentication authentication) {
-        GlobalLogger.log("ERROR", secretKeyString);
+    public String generateToken(Authentication authentication, long epoch) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
 
         Map<String, Object> claims = new HashMap<>();
+        claims.put(EPOCH_CLAIM, epoch);
+        if (statelessEnabled) {
+            claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            claims.put(LOGIN_CLAIM, userDetails.getUsername());
+            claims.put(EMAIL_CLAIM, userDetails.getEmail());
+            claims.put(PHONE_NUMBER_CLAIM, userDetails.getPhonenumber());
+            claims.put(NAME_CLAIM, userDetails.getName());
+            claims.put(SURNAME_CLAIM, userDetails.getSurname());
+        }
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
                 .setIssuer("Pizza Noir")
                 .setSubject(userDetails.getId().toString())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + tokenLifetime))
-                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + tokenLifetime));
+        if (signingKeyService != null) {
+            SigningKey key = signingKeyService.currentKey();
+            return builder
+                    .setHeaderParam(JwsHeader.KEY_ID, key.getKeyId())
+                    .signWith(key.getPrivateKey(), SignatureAlgorithm.RS256)
+                    .compact();
+        }
+        return builder
+                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /**
-     * Validates a JWT to ensure it is well-formed and not expired.
+     * Verifies a JWT exactly once: checks its signature and expiration and extracts the claims used by the application.
+     * The signing key and parser are built once and reused for every call.
+     * In stateless mode, the user details are rebuilt from the claims if the token carries them
+     * and was issued no longer than the configured maximum claims age ago.
      *
-     * @param token The JWT to validate.
-     * @return True if the JWT is valid and not expired; otherwise, false.
-     * @throws TokenValidationException TokenValidationException If the token is not valid or has expired.
+     * @param token The JWT to verify.
+     * @return The VerifiedToken holding the claims of the verified JWT.
+     * @throws TokenValidationException If the token is malformed, tampered with or has expired.
      */
-    public boolean validateToken(String token) throws TokenValidationException {
+    public VerifiedToken verifyToken(String token) throws TokenValidationException {
         try {
-            Jwts
-                    .parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)))
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            Claims claims = getParser().parseClaimsJws(token).getBody();
+            if (claims.getExpiration() == null) {
+                throw new TokenValidationException("Token has no expiration date");
+            }
+            Long userId = Long.valueOf(claims.getSubject());
+            Instant issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+            Long epoch = claims.get(EPOCH_CLAIM, Long.class);
+            return new VerifiedToken(
+                    TokenDigest.of(token),
+                    userId,
+                    issuedAt,
+                    claims.getExpiration().toInstant(),
+                    epoch != null ? epoch : 0,
+                    extractUserDetails(claims, userId, issuedAt));
+        } catch (TokenValidationException e) {
+            throw e;
         } catch (Exception e) {
             throw new TokenValidationException(e.getMessage());
         }
     }
 
     /**
-     * Extracts the user ID from a JWT.
+     * Helper method to rebuild the user details signed into a token in stateless mode.
      *
-     * @param token The JWT from which to extract the user ID.
-     * @return The user ID as an integer.
+     * @param claims   The verified claims of the token.
+     * @param userId   The ID of the user the token was issued for.
+     * @param issuedAt The time the token was issued at, or null if unknown.
+     * @return The CustomUserDetails without password, or null if stateless mode is disabled,
+     * the token carries no user details or its claims are too old to be trusted.
      */
-    public Long extractUserId(String token) {
-        return Long.valueOf(
-                Jwts
-                        .parserBuilder()
-                        .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)))
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody()
-                        .getSubject());
+    private CustomUserDetails extractUserDetails(Claims claims, Long userId, Instant issuedAt) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (!statelessEnabled || roles == null || issuedAt == null
+                || issuedAt.isBefore(Instant.now().minusMillis(maxClaimsAge))) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> CustomUserDetails.authority(String.valueOf(role)))
+                .toList();
+        return new CustomUserDetails(
+                userId,
+                claims.get(LOGIN_CLAIM, String.class),
+                claims.get(EMAIL_CLAIM, String.class),
+                claims.get(PHONE_NUMBER_CLAIM, String.class),
+                null,
+                claims.get(NAME_CLAIM, String.class),
+                claims.get(SURNAME_CLAIM, String.class),
+                authorities);
     }
 
     /**
-     * Helper method to check if a JWT has expired.
+     * Helper method to get the HMAC signing key, decoding it from the configured secret on first use.
      *
-     * @param token The JWT to check.
-     * @return True if the JWT has expired; otherwise, false.
+     * @return The signing key.
      */
-    private boolean isTokenExpired(String token) {
-        Date expirationDate = Jwts
-                .parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)))
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
-        return expirationDate.before(new Date());
+    private SecretKey getSigningKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Helper method to get the JWT parser, building it on first use.
+     * JwtParser is immutable and thread-safe, so a single instance serves all requests.
+     * With asymmetric signing, the public key is resolved from the "kid" header of every token.
+     * The parser rejects tokens whose algorithm does not match the type of the resolved key.
+     *
+     * @return The JWT parser bound to the signing key or to the signing key service.
+     */
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            SigningKeyService keyService = signingKeyService;
+            if (keyService != null) {
+                jwtParser = Jwts.parserBuilder()
+                        .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                            @Override
+                            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                                Key key = keyService.publicKey(header.getKeyId());
+                                if (key == null) {
+                                    throw new IllegalArgumentException("Unknown signing key: " + header.getKeyId());
+                                }
+                                return key;
+                            }
+                        })
+                        .build();
+            } else {
+                jwtParser = Jwts.parserBuilder()
+                        .setSigningKey(getSigningKey())
+                        .build();
+            }
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 }
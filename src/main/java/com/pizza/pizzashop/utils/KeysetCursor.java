@@ -0,0 +1,81 @@
+package com.pizza.pizzashop.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * This class represents the position after the last item of a page in a keyset-paginated listing.
+ * It holds the sort order of the listing, the ID of the last item, and the value of the sorted attribute
+ * of the last item, so the next page can continue right after it with an index range scan, however deep it is.
+ * Clients receive it as an opaque URL-safe token and must pass it back unchanged.
+ */
+public final class KeysetCursor {
+    private static final char SEPARATOR = '\n';
+
+    private final String sort;
+    private final long id;
+    private final String value;
+
+    /**
+     * Creates a cursor pointing after the given item.
+     *
+     * @param sort  The sort order of the listing, e.g. "-price".
+     * @param id    The ID of the last item of the page.
+     * @param value The value of the sorted attribute of the last item, or null if the listing is sorted by ID.
+     */
+    public KeysetCursor(String sort, long id, String value) {
+        this.sort = sort;
+        this.id = id;
+        this.value = value;
+    }
+
+    /**
+     * Decodes a cursor token.
+     *
+     * @param token The token as returned by encode().
+     * @return The decoded cursor.
+     * @throws RequestDataValidationFailedException If the token is malformed.
+     */
+    public static KeysetCursor decode(String token) throws RequestDataValidationFailedException {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = decoded.indexOf(SEPARATOR);
+            int second = first < 0 ? -1 : decoded.indexOf(SEPARATOR, first + 1);
+            if (second < 0) {
+                throw new RequestDataValidationFailedException("Malformed cursor");
+            }
+            String value = decoded.substring(second + 1);
+            return new KeysetCursor(
+                    decoded.substring(0, first),
+                    Long.parseLong(decoded.substring(first + 1, second)),
+                    value.isEmpty() ? null : value
+            );
+        } catch (IllegalArgumentException e) {
+            throw new RequestDataValidationFailedException("Malformed cursor");
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque token.
+     *
+     * @return The URL-safe base64 token.
+     */
+    public String encode() {
+        String raw = sort + SEPARATOR + id + SEPARATOR + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pizza.pizzashop.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class reports the state of the circuit breaker in front of Redis as the "redisCircuitBreaker" health component.
+ * While the circuit is open, the component is DEGRADED: authentication keeps working from node-local state,
+ * so the status is informational and does not take the node out of service.
+ */
+@Component
+public class RedisCircuitBreakerHealthIndicator implements HealthIndicator {
+    public static final Status DEGRADED = new Status("DEGRADED", "Redis is bypassed, authentication runs in degraded mode");
+
+    private final RedisHelper redisHelper;
+
+    @Autowired
+    public RedisCircuitBreakerHealthIndicator(RedisHelper redisHelper) {
+        this.redisHelper = redisHelper;
+    }
+
+    @Override
+    public Health health() {
+        CircuitBreaker.State state = redisHelper.getCircuitBreakerState();
+        Health.Builder builder = state == CircuitBreaker.State.OPEN ? Health.status(DEGRADED) : Health.up();
+        return builder.withDetail("state", state).build();
+    }
+}
@@ -1,29 +1,170 @@
 package com.pizza.pizzashop.utils;
 
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.util.Pool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * This class provides methods for interacting with a Redis server for caching purposes.
+ * Besides set operations, it offers publish/subscribe messaging used to keep node-local state in sync.
+ * Commands are sent over a pool of connections, so that any number of request threads can use it concurrently;
+ * a thread borrows a connection for a single command only. Every connection is opened with connect and read
+ * timeouts, and a thread waits at most the configured time for a free connection, so a slow or unreachable Redis
+ * fails requests instead of hanging them. Unless configured, the read timeout and the wait for a connection are
+ * derived from the latency budget of the circuit breaker, so a hanging command is cut off shortly after it has
+ * exceeded the budget rather than after seconds. The pool is exported as the "redis.pool.connections" metrics.
+ * Every command passes through a circuit breaker: after several consecutive commands failed or exceeded the latency
+ * budget, commands fail immediately with a RedisUnavailableException until a probe command succeeds again,
+ * so callers can switch to a degraded mode instead of waiting for timeouts. Its state is exported as the
+ * "redis.circuit_breaker.state" metric.
+ * Bulk operations are available as batch methods that cost a single round trip regardless of the number of values,
+ * either through variadic commands or through pipelining.
  */
 @Component
 public class RedisHelper {
-    @Value("${spring.data.redis.host}")
-    private String host;
+    private static final long RESUBSCRIBE_DELAY = 1000;
+    private static final int SCAN_BATCH_SIZE = 1000;
+    private static final int DEFAULT_TIMEOUT = 2000;
+    private static final int DEFAULT_READ_TIMEOUT = 0;
+    private static final int DEFAULT_MAX_ACTIVE = 64;
+    private static final int DEFAULT_MAX_IDLE = 16;
+    private static final int DEFAULT_MIN_IDLE = 4;
+    private static final long DEFAULT_MAX_WAIT = 0;
+    // A read timeout or wait of 0 is derived from the latency budget by these factors
+    private static final int READ_TIMEOUT_BUDGETS = 3;
+    private static final int MAX_WAIT_BUDGETS = 1;
+    private static final int ASYNC_QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_OPEN_DURATION = 5000;
+    private static final long DEFAULT_LATENCY_BUDGET = 100;
+    private static final String INCREMENT_WITH_TTL = "local value = redis.call('INCRBY', KEYS[1], ARGV[1]) "
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) return value";
+
+    private final JedisPooled jedis;
+    private final HostAndPort address;
+    private final JedisClientConfig clientConfig;
+    private final ThreadPoolExecutor asyncExecutor;
+    private final ExecutorService monitoredAsyncExecutor;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter rejectedCommands;
+    private final List<JedisPubSub> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
 
-    @Value("${spring.data.redis.port}")
-    private Integer port;
+    @Autowired
+    public RedisHelper(
+            @Value("${spring.data.redis.host:localhost}") String host,
+            @Value("${spring.data.redis.port:6379}") Integer port,
+            @Value("${spring.data.redis.connect_timeout:2000}") Integer connectTimeout,
+            @Value("${spring.data.redis.read_timeout:0}") Integer readTimeout,
+            @Value("${spring.data.redis.pool.max_active:64}") Integer maxActive,
+            @Value("${spring.data.redis.pool.max_idle:16}") Integer maxIdle,
+            @Value("${spring.data.redis.pool.min_idle:4}") Integer minIdle,
+            @Value("${spring.data.redis.pool.max_wait:0}") Long maxWait,
+            @Value("${redis_circuit_breaker.failure_threshold:5}") Integer failureThreshold,
+            @Value("${redis_circuit_breaker.open_duration:5000}") Long openDuration,
+            @Value("${redis_circuit_breaker.latency_budget:100}") Long latencyBudget,
+            MeterRegistry meterRegistry
+    ) {
+        this.address = new HostAndPort(host, port);
+        this.clientConfig = DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(connectTimeout)
+                .socketTimeoutMillis(readTimeout > 0 ? readTimeout : (int) (latencyBudget * READ_TIMEOUT_BUDGETS))
+                .build();
 
-    private final Jedis jedis;
+        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(maxActive);
+        poolConfig.setMaxIdle(maxIdle);
+        poolConfig.setMinIdle(minIdle);
+        poolConfig.setMaxWait(Duration.ofMillis(maxWait > 0 ? maxWait : latencyBudget * MAX_WAIT_BUDGETS));
+        poolConfig.setBlockWhenExhausted(true);
+        poolConfig.setTestWhileIdle(true);
+        poolConfig.setTimeBetweenEvictionRuns(Duration.ofSeconds(30));
+        poolConfig.setJmxEnabled(false);
+        this.jedis = new JedisPooled(poolConfig, address, clientConfig);
+        registerPoolMetrics(jedis.getPool(), meterRegistry);
 
-    public RedisHelper() {
-        // TODO: 'host' and 'port' aren't fetching from .env fast enough thus app crashes. Find a way to fix it
-        this.jedis = new Jedis();
+        // Async commands wait for a pooled connection, so more threads than connections would not help
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.asyncExecutor = new ThreadPoolExecutor(
+                maxActive,
+                maxActive,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(ASYNC_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "redis-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.asyncExecutor.allowCoreThreadTimeOut(true);
+        this.monitoredAsyncExecutor = ExecutorServiceMetrics.monitor(meterRegistry, asyncExecutor, "redis_async");
+
+        this.circuitBreaker = new CircuitBreaker(
+                failureThreshold,
+                TimeUnit.MILLISECONDS.toNanos(openDuration),
+                TimeUnit.MILLISECONDS.toNanos(latencyBudget));
+        Gauge.builder("redis.circuit_breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 if closed, 1 if open, 2 if half-open")
+                .register(meterRegistry);
+        this.rejectedCommands = Counter.builder("redis.circuit_breaker.rejected")
+                .description("Commands rejected while the circuit was open")
+                .register(meterRegistry);
     }
 
     public RedisHelper(String host, Integer port) {
-        this.jedis = new Jedis(host, port);
+        this(host, port, DEFAULT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_ACTIVE, DEFAULT_MAX_IDLE, DEFAULT_MIN_IDLE,
+                DEFAULT_MAX_WAIT, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_LATENCY_BUDGET,
+                Metrics.globalRegistry);
+    }
+
+    /**
+     * Returns the state of the circuit breaker in front of Redis.
+     *
+     * @return The state of the circuit breaker.
+     */
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
     }
 
     /**
@@ -33,7 +174,20 @@ public class RedisHelper {
      * @param value The value to add to the set.
      */
     public void add(String set, String value) {
-        jedis.sadd(set, value);
+        execute(() -> jedis.sadd(set, value));
+    }
+
+    /**
+     * Adds many values to a Redis set in a single round trip.
+     *
+     * @param set    The name of the set to which the values will be added.
+     * @param values The values to add to the set.
+     */
+    public void addAll(String set, Collection<String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        execute(() -> jedis.sadd(set, values.toArray(String[]::new)));
     }
 
     /**
@@ -44,6 +198,376 @@ public class RedisHelper {
      * @return True if the value exists in the set; otherwise, false.
      */
     public boolean check(String set, String value) {
-        return jedis.sismember(set, value);
+        return execute(() -> jedis.sismember(set, value));
+    }
+
+    /**
+     * Checks if many values exist in a Redis set in a single round trip.
+     *
+     * @param set    The name of the set to check.
+     * @param values The values to check for existence in the set.
+     * @return For every value, in the same order, true if it exists in the set; otherwise, false.
+     */
+    public List<Boolean> checkAll(String set, List<String> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        return execute(() -> jedis.smismember(set, values.toArray(String[]::new)));
+    }
+
+    /**
+     * Checks if a value exists in a Redis set without blocking the calling thread.
+     *
+     * @param set   The name of the set to check.
+     * @param value The value to check for existence in the set.
+     * @return A future completed with true if the value exists in the set, or with false otherwise.
+     * It fails if Redis cannot be reached or too many asynchronous commands are pending.
+     */
+    public CompletableFuture<Boolean> checkAsync(String set, String value) {
+        return async(() -> jedis.sismember(set, value));
+    }
+
+    /**
+     * Removes and returns up to the given number of random values from a Redis set.
+     *
+     * @param set   The name of the set.
+     * @param count The maximum number of values to remove.
+     * @return The removed values; empty if the set is empty or does not exist.
+     */
+    public Set<String> pop(String set, int count) {
+        Set<String> values = execute(() -> jedis.spop(set, count));
+        return values != null ? values : Set.of();
+    }
+
+    /**
+     * Sets a key to a value that expires after the given time.
+     *
+     * @param key       The key to set.
+     * @param value     The value to store.
+     * @param ttlMillis The time to live of the key in milliseconds.
+     */
+    public void set(String key, String value, long ttlMillis) {
+        execute(() -> jedis.set(key, value, SetParams.setParams().px(ttlMillis)));
+    }
+
+    /**
+     * Sets many keys to the same value, each expiring after its own time, in a single pipelined round trip.
+     *
+     * @param value          The value to store.
+     * @param ttlMillisByKey The time to live in milliseconds of every key to set.
+     */
+    public void setAll(String value, Map<String, Long> ttlMillisByKey) {
+        if (ttlMillisByKey.isEmpty()) {
+            return;
+        }
+        execute(() -> {
+            try (Pipeline pipeline = jedis.pipelined()) {
+                ttlMillisByKey.forEach((key, ttlMillis) -> pipeline.set(key, value, SetParams.setParams().px(ttlMillis)));
+                pipeline.sync();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key The key to read.
+     * @return The value of the key, or null if the key does not exist.
+     */
+    public String get(String key) {
+        return execute(() -> jedis.get(key));
+    }
+
+    /**
+     * Returns the values of many keys in a single round trip.
+     *
+     * @param keys The keys to read.
+     * @return For every key, in the same order, its value, or null if the key does not exist.
+     */
+    public List<String> getAll(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        return execute(() -> jedis.mget(keys.toArray(String[]::new)));
+    }
+
+    /**
+     * Atomically returns the value of a key and deletes the key, so that only one caller can ever obtain it.
+     *
+     * @param key The key to read and delete.
+     * @return The value of the key, or null if the key does not exist.
+     */
+    public String getAndDelete(String key) {
+        return execute(() -> jedis.getDel(key));
+    }
+
+    /**
+     * Deletes a key.
+     *
+     * @param key The key to delete.
+     */
+    public void delete(String key) {
+        execute(() -> jedis.del(key));
+    }
+
+    /**
+     * Atomically increments the integer value of a key, starting from 0 if the key does not exist.
+     *
+     * @param key The key to increment.
+     * @return The value of the key after the increment.
+     */
+    public long increment(String key) {
+        return execute(() -> jedis.incr(key));
+    }
+
+    /**
+     * Atomically increments the integer value of a key by the given amount and (re)sets its time to live.
+     * Both are done by one script in a single round trip, so the key cannot be left without a time to live.
+     *
+     * @param key       The key to increment.
+     * @param delta     The amount to add.
+     * @param ttlMillis The time to live of the key in milliseconds.
+     * @return The value of the key after the increment.
+     */
+    public long increment(String key, long delta, long ttlMillis) {
+        return execute(() -> (Long) jedis.eval(INCREMENT_WITH_TTL, List.of(key),
+                List.of(String.valueOf(delta), String.valueOf(ttlMillis))));
+    }
+
+    /**
+     * Checks if a key exists.
+     *
+     * @param key The key to check.
+     * @return True if the key exists and has not expired; otherwise, false.
+     */
+    public boolean exists(String key) {
+        return execute(() -> jedis.exists(key));
+    }
+
+    /**
+     * Checks if many keys exist in a single pipelined round trip.
+     *
+     * @param keys The keys to check.
+     * @return For every key, in the same order, true if it exists and has not expired; otherwise, false.
+     */
+    public List<Boolean> existsAll(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<Response<Boolean>> responses = new ArrayList<>(keys.size());
+        execute(() -> {
+            try (Pipeline pipeline = jedis.pipelined()) {
+                for (String key : keys) {
+                    responses.add(pipeline.exists(key));
+                }
+                pipeline.sync();
+            }
+            return null;
+        });
+        List<Boolean> exists = new ArrayList<>(responses.size());
+        for (Response<Boolean> response : responses) {
+            exists.add(response.get());
+        }
+        return exists;
+    }
+
+    /**
+     * Checks if a key exists without blocking the calling thread.
+     *
+     * @param key The key to check.
+     * @return A future completed with true if the key exists and has not expired, or with false otherwise.
+     * It fails if Redis cannot be reached or too many asynchronous commands are pending.
+     */
+    public CompletableFuture<Boolean> existsAsync(String key) {
+        return async(() -> jedis.exists(key));
+    }
+
+    /**
+     * Returns all keys matching a glob-style pattern, iterating with SCAN so that Redis is never blocked.
+     *
+     * @param pattern The pattern keys must match, e.g. "revoked:*".
+     * @return The matching keys.
+     */
+    public List<String> scan(String pattern) {
+        List<String> keys = new ArrayList<>();
+        ScanParams params = new ScanParams().match(pattern).count(SCAN_BATCH_SIZE);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            String currentCursor = cursor;
+            ScanResult<String> result = execute(() -> jedis.scan(currentCursor, params));
+            keys.addAll(result.getResult());
+            cursor = result.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        return keys;
+    }
+
+    /**
+     * Publishes a message to a Redis channel.
+     *
+     * @param channel The name of the channel.
+     * @param message The message to publish.
+     */
+    public void publish(String channel, String message) {
+        execute(() -> jedis.publish(channel, message));
+    }
+
+    /**
+     * Subscribes a listener to a Redis channel.
+     * The subscription runs on its own daemon thread and connection, and is re-established after connection loss.
+     * Messages published while the subscription is down are lost, so listeners are told about every (re)subscription
+     * and disconnection and can resynchronise their state.
+     *
+     * @param channel  The name of the channel.
+     * @param listener The listener receiving the subscription events and messages.
+     */
+    public void subscribe(String channel, ChannelListener listener) {
+        Thread subscriber = new Thread(() -> {
+            while (!closed) {
+                JedisPubSub pubSub = new JedisPubSub() {
+                    @Override
+                    public void onSubscribe(String subscribedChannel, int subscribedChannels) {
+                        listener.onSubscribed();
+                    }
+
+                    @Override
+                    public void onMessage(String messageChannel, String message) {
+                        listener.onMessage(message);
+                    }
+                };
+                subscriptions.add(pubSub);
+                try (Jedis connection = new Jedis(address, clientConfig)) {
+                    connection.subscribe(pubSub, channel);
+                } catch (Exception e) {
+                    GlobalLogger.log("WARN", "Redis subscription to '" + channel + "' lost: " + e.getMessage());
+                } finally {
+                    subscriptions.remove(pubSub);
+                    listener.onDisconnected();
+                }
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }, "redis-subscriber-" + channel);
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /**
+     * Closes all subscriptions, the asynchronous executor and the connection pool when the application shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        for (JedisPubSub pubSub : subscriptions) {
+            if (pubSub.isSubscribed()) {
+                pubSub.unsubscribe();
+            }
+        }
+        asyncExecutor.shutdown();
+        jedis.close();
+    }
+
+    /**
+     * Helper method to run a command through the circuit breaker.
+     * Connection failures, read timeouts and an exhausted pool count as failures, as do commands exceeding
+     * the latency budget. Errors returned by Redis itself, such as a wrong type, do not.
+     *
+     * @param command The command to run.
+     * @param <T>     The type of the result.
+     * @return The result of the command.
+     * @throws RedisUnavailableException If the circuit is open or the command failed to reach Redis.
+     */
+    private <T> T execute(Supplier<T> command) {
+        long start = System.nanoTime();
+        if (!circuitBreaker.tryAcquirePermission(start)) {
+            rejectedCommands.increment();
+            throw new RedisUnavailableException("Redis circuit breaker is open");
+        }
+        T result;
+        try {
+            result = command.get();
+        } catch (JedisDataException e) {
+            long now = System.nanoTime();
+            circuitBreaker.onSuccess(now - start, now);
+            throw e;
+        } catch (JedisException e) {
+            circuitBreaker.onFailure(System.nanoTime());
+            throw new RedisUnavailableException("Redis is unavailable: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            long now = System.nanoTime();
+            circuitBreaker.onSuccess(now - start, now);
+            throw e;
+        }
+        long now = System.nanoTime();
+        circuitBreaker.onSuccess(now - start, now);
+        return result;
+    }
+
+    /**
+     * Helper method to run a command on the asynchronous executor.
+     *
+     * @param command The command to run.
+     * @param <T>     The type of the result.
+     * @return A future completed with the result of the command.
+     */
+    private <T> CompletableFuture<T> async(Supplier<T> command) {
+        try {
+            return CompletableFuture.supplyAsync(() -> execute(command), monitoredAsyncExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Helper method to export the state of the connection pool as gauges.
+     *
+     * @param pool          The connection pool.
+     * @param meterRegistry The registry to register the gauges with.
+     */
+    private static void registerPoolMetrics(Pool<Connection> pool, MeterRegistry meterRegistry) {
+        Gauge.builder("redis.pool.connections", pool, Pool::getNumActive)
+                .tag("state", "active")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.connections", pool, Pool::getNumIdle)
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.connections", pool, Pool::getMaxTotal)
+                .tag("state", "max")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.waiting", pool, Pool::getNumWaiters)
+                .description("Threads waiting for a free connection")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.borrow.wait", pool, Pool::getMeanBorrowWaitTimeMillis)
+                .description("Mean time threads waited for a connection")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * This interface receives the events of a Redis channel subscription.
+     */
+    public interface ChannelListener {
+        /**
+         * Called with every message published to the channel.
+         *
+         * @param message The published message.
+         */
+        void onMessage(String message);
+
+        /**
+         * Called every time the subscription is (re)established. Messages published from this point on are delivered.
+         */
+        default void onSubscribed() {
+        }
+
+        /**
+         * Called every time the subscription is lost. Messages published from this point on are lost.
+         */
+        default void onDisconnected() {
+        }
     }
 }
@@ -0,0 +1,70 @@
+package com.pizza.pizzashop.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a lock-free token bucket that admits up to a given number of attempts per period,
+ * refilling continuously at the same rate.
+ * It is implemented as a generic cell rate algorithm: the whole state is the theoretical arrival time of the next
+ * attempt, kept in a single AtomicLong and advanced with compare-and-set, so checks never block.
+ * All times are System.nanoTime() values passed in by the caller.
+ */
+public final class TokenBucket {
+    private final long emissionInterval;
+    private final long period;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity    The number of attempts admitted per period, which is also the size of a burst.
+     * @param periodNanos The period in nanoseconds.
+     * @param nowNanos    The current time.
+     */
+    public TokenBucket(long capacity, long periodNanos, long nowNanos) {
+        if (capacity <= 0 || periodNanos <= 0) {
+            throw new IllegalArgumentException("Capacity and period must be positive");
+        }
+        this.emissionInterval = Math.max(1, periodNanos / capacity);
+        this.period = emissionInterval * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token from the bucket if there is one.
+     *
+     * @param nowNanos The current time.
+     * @return True if the attempt is admitted; otherwise, false.
+     */
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionInterval;
+            if (next - nowNanos > period) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns how long it takes until the bucket admits the next attempt.
+     *
+     * @param nowNanos The current time.
+     * @return The waiting time in nanoseconds; 0 if an attempt would be admitted now.
+     */
+    public long nanosUntilAvailable(long nowNanos) {
+        return Math.max(0, theoreticalArrival.get() + emissionInterval - period - nowNanos);
+    }
+
+    /**
+     * Empties the bucket until the given time, after which it refills at its usual rate.
+     *
+     * @param untilNanos The time at which the next attempt may be admitted.
+     */
+    public void exhaustUntil(long untilNanos) {
+        theoreticalArrival.accumulateAndGet(untilNanos + period - emissionInterval, Math::max);
+    }
+}
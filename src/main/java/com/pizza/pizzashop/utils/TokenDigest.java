@@ -0,0 +1,33 @@
+package com.pizza.pizzashop.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * This class computes short, fixed-size digests of tokens so that they can be used as cache and storage keys
+ * without keeping the tokens themselves in memory or in Redis.
+ */
+public final class TokenDigest {
+    private static final int DIGEST_BYTES = 16;
+
+    private TokenDigest() {
+    }
+
+    /**
+     * Computes the digest of a token: the first 128 bits of its SHA-256 hash, encoded as unpadded base64url.
+     *
+     * @param token The token to digest.
+     * @return The 22 characters long digest of the token.
+     */
+    public static String of(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, DIGEST_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+--liquibase formatted sql
+--changeset w1ldy0uth:2
+
+-- Images move to the content-addressed image store; the inline column is emptied by ImageStoreMigration
+ALTER TABLE pizza
+    ADD COLUMN image_hash CHAR(64);
+ALTER TABLE pizza
+    ALTER COLUMN image DROP NOT NULL;
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+--changeset w1ldy0uth:3
+
+-- Keyset pagination of the catalog listings: every sort order is (attribute, id), scanned in either direction
+CREATE INDEX pizza_price_id_idx ON pizza (price, id);
+CREATE INDEX pizza_weight_id_idx ON pizza (weight, id);
+CREATE INDEX pizza_name_id_idx ON pizza (name, id);
+CREATE INDEX pizza_ingredient_addprice_id_idx ON pizza_ingredient (addPrice, id);
+CREATE INDEX pizza_ingredient_name_id_idx ON pizza_ingredient (name, id);
+
+-- Case-insensitive name prefix filters, i.e. lower(name) LIKE 'prefix%'
+CREATE INDEX pizza_name_prefix_idx ON pizza (lower(name) text_pattern_ops);
+CREATE INDEX pizza_ingredient_name_prefix_idx ON pizza_ingredient (lower(name) text_pattern_ops);
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+--changeset w1ldy0uth:4
+
+-- A single row holding the version of the catalog, incremented with every change of pizzas and ingredients
+CREATE TABLE catalog_version
+(
+    id          SMALLINT PRIMARY KEY CHECK (id = 1),
+    version     BIGINT                   NOT NULL,
+    modified_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+INSERT INTO catalog_version (id, version, modified_at)
+VALUES (1, 1, now());
@@ -0,0 +1,108 @@
+package com.pizza.pizzashop.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.SuccessDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the per-request CPU cost of serving the pizza list uncompressed (the path before compressed variants),
+ * compressing it on every request (what enabling server.compression would do), and writing the gzip variant
+ * compressed once per catalog change. The menu is a realistic 40 pizzas with their ingredients.
+ * The bytes on the wire of each path are printed before the benchmarks run.
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.pizza.pizzashop.benchmark.CatalogCompressionBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogCompressionBenchmark {
+    private byte[] json;
+    private byte[] precompressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = menuJson();
+        precompressed = gzip(json, Deflater.BEST_COMPRESSION);
+    }
+
+    @Benchmark
+    public byte[] uncompressed() {
+        return json;
+    }
+
+    @Benchmark
+    public byte[] gzipPerRequest() throws IOException {
+        return gzip(json, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Benchmark
+    public byte[] precompressed() {
+        return precompressed;
+    }
+
+    private static byte[] menuJson() throws JsonProcessingException {
+        String[] names = {"Томаты", "Моцарелла", "Пепперони", "Шампиньоны", "Ветчина", "Лук", "Оливки", "Бекон"};
+        List<PizzaDTO> pizzas = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            List<PizzaIngredientDTO> ingredients = new ArrayList<>();
+            for (int i = 0; i < 4 + id % 4; i++) {
+                int ingredient = (int) ((id + i) % names.length);
+                ingredients.add(new PizzaIngredientDTO((long) ingredient + 1, names[ingredient], 20 + 10 * ingredient));
+            }
+            PizzaDTO pizza = new PizzaDTO(id, "Пицца №" + id, 400 + (int) id * 10, 500 + (int) id * 25,
+                    "Тонкое тесто, фирменный томатный соус и щедрая порция сыра. Выпекается в дровяной печи.",
+                    null, ingredients);
+            pizza.setImageUrl("/api/image/" + Long.toHexString(id * 0x9E3779B97F4A7C15L) + ".webp");
+            pizzas.add(pizza);
+        }
+        return new ObjectMapper().writeValueAsBytes(new SuccessDTO<>(200, "Pizza Get All", pizzas));
+    }
+
+    private static byte[] gzip(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            out.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        byte[] menu = menuJson();
+        System.out.printf("Bytes on the wire: uncompressed %d, gzip per request %d, precompressed %d%n",
+                menu.length, gzip(menu, Deflater.DEFAULT_COMPRESSION).length, gzip(menu, Deflater.BEST_COMPRESSION).length);
+        new Runner(new OptionsBuilder()
+                .include(CatalogCompressionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
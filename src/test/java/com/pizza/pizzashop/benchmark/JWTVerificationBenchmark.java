@@ -0,0 +1,88 @@
+package com.pizza.pizzashop.benchmark;
+
+import com.pizza.pizzashop.exceptions.TokenValidationException;
+import com.pizza.pizzashop.security.VerifiedToken;
+import com.pizza.pizzashop.utils.JWTHelper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request CPU cost of the legacy JWT handling (key and parser rebuilt for validateToken,
+ * isTokenExpired and extractUserId, plus one more parse in AuthController) with the parse-once verifyToken path.
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.pizza.pizzashop.benchmark.JWTVerificationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTVerificationBenchmark {
+    private static final String SECRET_KEY =
+            "dmVyeV9yZWFsbHlfc2VjcmV0X3Bhc3NfdWx0cmFfMV9hZGFGQVNER0ZHREZHZHNmZ2RmZw==";
+
+    private JWTHelper jwtHelper;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtHelper = new JWTHelper();
+        jwtHelper.setSecretKeyString(SECRET_KEY);
+        jwtHelper.setTokenLifetime(6480000);
+        token = Jwts.builder()
+                .setIssuer("Pizza Noir")
+                .setSubject("123")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 6480000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .compact();
+    }
+
+    @Benchmark
+    public Long legacyFourParses() {
+        parseLegacy();
+        parseLegacy().getExpiration();
+        Long.valueOf(parseLegacy().getSubject());
+        return Long.valueOf(parseLegacy().getSubject());
+    }
+
+    @Benchmark
+    public VerifiedToken verifyOnce() throws TokenValidationException {
+        return jwtHelper.verifyToken(token);
+    }
+
+    private Claims parseLegacy() {
+        return Jwts
+                .parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JWTVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
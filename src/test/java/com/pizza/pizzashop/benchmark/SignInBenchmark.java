@@ -0,0 +1,104 @@
+package com.pizza.pizzashop.benchmark;
+
+import com.pizza.pizzashop.dtos.UserDTO;
+import com.pizza.pizzashop.entities.User;
+import com.pizza.pizzashop.mappers.UserMapper;
+import com.pizza.pizzashop.mappers.UserMapperImpl;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the CPU cost of the legacy sign-in (AuthenticationManager verifies the password, then AuthServiceImpl
+ * looks the user up and runs bcrypt once more) with the single-verification path that describes the user
+ * from the already authenticated principal. Users are served from memory, so only the CPU work is measured.
+ * <p>
+ * Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.pizza.pizzashop.benchmark.SignInBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignInBenchmark {
+    private static final String LOGIN = "user123";
+    private static final String PASSWORD = "password123";
+
+    private PasswordEncoder passwordEncoder;
+    private AuthenticationManager authenticationManager;
+    private UserMapper userMapper;
+    private Map<String, User> users;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = new BCryptPasswordEncoder();
+        User user = new User(
+                1L,
+                LOGIN,
+                passwordEncoder.encode(PASSWORD),
+                "John",
+                "Doe",
+                "+79999999999",
+                "user@example.com",
+                "01.01.2000",
+                Instant.now(),
+                Instant.now());
+        user.setRoles(List.of());
+        users = Map.of(LOGIN, user);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(username -> CustomUserDetails.create(users.get(username)));
+        provider.setPasswordEncoder(passwordEncoder);
+        authenticationManager = new ProviderManager(provider);
+        userMapper = new UserMapperImpl();
+    }
+
+    @Benchmark
+    public UserDTO legacyDoubleVerification() {
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+        User user = users.get(LOGIN);
+        if (!passwordEncoder.matches(PASSWORD, user.getPassword())) {
+            throw new BadCredentialsException("Wrong credentials. Try again");
+        }
+        return userMapper.toDto(user);
+    }
+
+    @Benchmark
+    public UserDTO singleVerification() {
+        Authentication authentication = authenticationManager
+                .authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+        return userMapper.toDto((CustomUserDetails) authentication.getPrincipal());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SignInBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
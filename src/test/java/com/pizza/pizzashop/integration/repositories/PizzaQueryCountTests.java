@@ -0,0 +1,195 @@
+package com.pizza.pizzashop.integration.repositories;
+
+import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
+import com.pizza.pizzashop.entities.Pizza;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.mappers.PizzaMapperImpl;
+import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
+import com.pizza.pizzashop.repositories.PizzaRepository;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.services.PizzaService.PizzaService;
+import com.pizza.pizzashop.services.PizzaService.PizzaServiceImpl;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
+import com.pizza.pizzashop.utils.ImageStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements the list, detail and update paths of pizzas issue against a real database,
+ * so that loading the ingredients of every pizza with a statement of its own cannot slip back in.
+ * It also walks the keyset-paginated listing to check that pages neither skip nor repeat pizzas,
+ * and checks that sparse fieldsets read the ingredients only when they were requested.
+ * Tests run without a surrounding transaction, like the services do in production.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PizzaServiceImpl.class, PizzaMapperImpl.class})
+@Testcontainers
+class PizzaQueryCountTests {
+    private static final int PIZZAS = 10;
+    private static final List<String> FIELDS = List.of("id", "name", "price", "description", "ingredients");
+
+    @Container
+    private static final GenericContainer<?> postgresContainer = new GenericContainer<>("postgres:15-alpine")
+            .withEnv("POSTGRES_DB", "pizzashop")
+            .withEnv("POSTGRES_USER", "pizzashop")
+            .withEnv("POSTGRES_PASSWORD", "pizzashop")
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2));
+
+    @MockBean
+    private ImageStore imageStore;
+    @MockBean
+    private ImageVariantService imageVariantService;
+    @MockBean
+    private CatalogService catalogService;
+
+    @Autowired
+    private PizzaRepository pizzaRepository;
+    @Autowired
+    private PizzaIngredientRepository ingredientRepository;
+    @Autowired
+    private PizzaService pizzaService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<Long> pizzaIds;
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:postgresql://" + postgresContainer.getHost() + ":"
+                + postgresContainer.getMappedPort(5432) + "/pizzashop");
+        registry.add("spring.datasource.username", () -> "pizzashop");
+        registry.add("spring.datasource.password", () -> "pizzashop");
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<PizzaIngredient> ingredients = ingredientRepository.saveAll(List.of(
+                new PizzaIngredient(null, "Томаты", 20),
+                new PizzaIngredient(null, "Сыр", 30),
+                new PizzaIngredient(null, "Базилик", 10)
+        ));
+        pizzaIds = new ArrayList<>();
+        for (int i = 0; i < PIZZAS; i++) {
+            // Every price is shared by two pizzas, so pages have to break ties by ID
+            Pizza pizza = new Pizza(null, "Пицца " + i, 300 + i, 500 + i / 2 * 100, "cool", null, new ArrayList<>(ingredients));
+            pizzaIds.add(pizzaRepository.save(pizza).getId());
+        }
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pizzaRepository.deleteAllInBatch();
+        ingredientRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testFindAllWithIngredients_SingleStatement() {
+        List<Pizza> pizzas = pizzaRepository.findAllWithIngredients();
+
+        assertEquals(PIZZAS, pizzas.size());
+        pizzas.forEach(pizza -> assertEquals(3, pizza.getIngredients().size()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetPizzaById_SingleStatement() {
+        PizzaDTO pizza = pizzaService.getPizzaById(pizzaIds.get(0));
+
+        assertNotNull(pizza);
+        assertEquals(3, pizza.getIngredients().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUpdatePizza_LoadsPizzaOnce() {
+        PizzaDTO changes = new PizzaDTO(null, "Пицца обновлённая", null, 600, null, null, null);
+
+        PizzaDTO updated = pizzaService.updatePizza(pizzaIds.get(0), changes);
+
+        assertEquals("Пицца обновлённая", updated.getName());
+        assertEquals(600, updated.getPrice());
+        assertEquals(3, updated.getIngredients().size());
+        // One select of the pizza with its ingredients and one update of the pizza
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetPizzaPage_WalksAllPizzasWithTwoStatementsPerPage() throws RequestDataValidationFailedException {
+        Set<String> sortKeys = Set.of(CatalogPageRequest.SORT_ID, CatalogPageRequest.SORT_PRICE);
+        List<PizzaDTO> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CatalogPageRequest request = CatalogPageRequest.parse(
+                    "-price", cursor, 3, null, null, null, null, "пицца", sortKeys);
+            CursorPageDTO<PizzaDTO> page = pizzaService.getPizzaPage(request);
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(PIZZAS, walked.size());
+        assertEquals(walked.stream().sorted(Comparator.comparing(PizzaDTO::getPrice)
+                .thenComparing(PizzaDTO::getId).reversed()).toList(), walked);
+        walked.forEach(pizza -> assertEquals(3, pizza.getIngredients().size()));
+        assertEquals(2L * pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetPizzaFieldsPage_SingleStatement() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                "-price", null, 4, null, null, null, null, null, Set.of(CatalogPageRequest.SORT_PRICE));
+
+        CursorPageDTO<Map<String, Object>> page = pizzaService.getPizzaFieldsPage(request, FieldSelection.parse("name", FIELDS));
+
+        assertEquals(4, page.getItems().size());
+        page.getItems().forEach(pizza -> assertEquals(Set.of("id", "name"), pizza.keySet()));
+        assertNotNull(page.getNextCursor());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetPizzaFieldsById_IngredientsInSecondStatement() throws RequestDataValidationFailedException {
+        Map<String, Object> pizza = pizzaService.getPizzaFieldsById(pizzaIds.get(0), FieldSelection.parse("price,ingredients", FIELDS));
+
+        assertNotNull(pizza);
+        assertEquals(500, pizza.get("price"));
+        assertEquals(3, ((List<?>) pizza.get("ingredients")).size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,155 @@
+package com.pizza.pizzashop.integration.security;
+
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsService;
+import com.pizza.pizzashop.security.JWTAuthenticationFilter;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochServiceImpl;
+import com.pizza.pizzashop.security.TokenRevocationService.TokenRevocationServiceImpl;
+import com.pizza.pizzashop.utils.CircuitBreaker;
+import com.pizza.pizzashop.utils.JWTHelper;
+import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs many threads through the JWTAuthenticationFilter at once, with the revocation and epoch services
+ * not subscribed, so that every request queries Redis through the shared RedisHelper.
+ */
+@Testcontainers
+class JWTAuthenticationFilterConcurrencyTests {
+    private static final int THREADS = 64;
+    private static final int REQUESTS_PER_THREAD = 200;
+    private static final int TOKENS = 1000;
+    private static final String SECRET_KEY = "dmVyeV9yZWFsbHlfc2VjcmV0X3Bhc3NfdWx0cmFfMV9hZGFGQVNER0ZHREZHZHNmZ2RmZw==";
+
+    @Container
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:latest")
+            .withExposedPorts(6379);
+
+    private RedisHelper redisHelper;
+    private Jedis jedis;
+    private JWTAuthenticationFilter filter;
+    private List<String> tokens;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // A generous latency budget, so that the circuit stays closed on a busy machine
+        redisHelper = new RedisHelper(
+                redisContainer.getHost(), redisContainer.getMappedPort(6379),
+                2000, 2000, THREADS, THREADS, 4, 1000L, 5, 5000L, 2000L, new SimpleMeterRegistry());
+        jedis = new Jedis(redisContainer.getHost(), redisContainer.getMappedPort(6379));
+
+        JWTHelper jwtHelper = new JWTHelper();
+        jwtHelper.setSecretKeyString(SECRET_KEY);
+        jwtHelper.setTokenLifetime(600000);
+        // A cache that keeps nothing, so every request is authenticated from scratch
+        AuthenticationCache authenticationCache = new AuthenticationCache(0L, 60000L, new SimpleMeterRegistry());
+        CustomUserDetailsService customUserDetailsService = mock(CustomUserDetailsService.class);
+        when(customUserDetailsService.loadById(anyLong()))
+                .thenAnswer(invocation -> createUserDetails(invocation.getArgument(0)));
+        filter = new JWTAuthenticationFilter(
+                jwtHelper,
+                customUserDetailsService,
+                new TokenRevocationServiceImpl(
+                        redisHelper, jwtHelper, authenticationCache, 1000L, 0.001, 1000L, 600000L, false),
+                new TokenEpochServiceImpl(
+                        redisHelper, authenticationCache, 1000L, 60000L, false, new SimpleMeterRegistry()),
+                authenticationCache);
+
+        tokens = new ArrayList<>(TOKENS);
+        for (long i = 0; i < TOKENS; i++) {
+            CustomUserDetails userDetails = createUserDetails(i);
+            String token = jwtHelper.generateToken(
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()), 0);
+            tokens.add(token);
+            if (isRevoked(i)) {
+                jedis.set("revoked:" + TokenDigest.of(token), "1");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisHelper.close();
+        jedis.flushAll();
+        jedis.close();
+    }
+
+    @Test
+    void testDoFilter_ConcurrentRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                int mismatches = 0;
+                for (int r = 0; r < REQUESTS_PER_THREAD; r++) {
+                    int index = (thread * REQUESTS_PER_THREAD + r) % TOKENS;
+                    MockHttpServletRequest request = new MockHttpServletRequest();
+                    request.setCookies(new Cookie("access_token", tokens.get(index)));
+                    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                    boolean authenticated = SecurityContextHolder.getContext().getAuthentication() != null;
+                    SecurityContextHolder.clearContext();
+                    if (authenticated == isRevoked(index)) {
+                        mismatches++;
+                    }
+                }
+                return mismatches;
+            }));
+        }
+
+        start.countDown();
+        int mismatches = 0;
+        for (Future<Integer> result : results) {
+            mismatches += result.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(0, mismatches);
+        assertEquals(CircuitBreaker.State.CLOSED, redisHelper.getCircuitBreakerState());
+    }
+
+    private static boolean isRevoked(long index) {
+        return index % 10 == 0;
+    }
+
+    private static CustomUserDetails createUserDetails(long id) {
+        return new CustomUserDetails(
+                id,
+                "user" + id,
+                "user" + id + "@mail.example",
+                "+7999999" + id,
+                null,
+                "John",
+                "Doe",
+                new ArrayList<>());
+    }
+}
@@ -0,0 +1,93 @@
+package com.pizza.pizzashop.integration.security;
+
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
+import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import redis.clients.jedis.Jedis;
+
+import javax.crypto.SecretKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures Redis memory per revoked token for the legacy "blacklist" set of full tokens
+ * and for the expiring "revoked:{digest}" keys.
+ */
+@Testcontainers
+class RevocationStoreMemoryTests {
+    private static final int TOKENS = 10000;
+    private static final long TOKEN_LIFETIME = 604800000;
+
+    @Container
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:latest")
+            .withExposedPorts(6379);
+
+    private RedisHelper redisHelper;
+    private Jedis jedis;
+    private List<String> tokens;
+
+    @BeforeEach
+    void setUp() {
+        redisHelper = new RedisHelper(redisContainer.getHost(), redisContainer.getMappedPort(6379));
+        jedis = new Jedis(redisContainer.getHost(), redisContainer.getMappedPort(6379));
+        SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(Jwts.builder()
+                    .setIssuer("Pizza Noir")
+                    .setSubject(String.valueOf(i))
+                    .setIssuedAt(new Date())
+                    .setExpiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME))
+                    .signWith(key)
+                    .compact());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jedis.flushAll();
+        jedis.close();
+    }
+
+    @Test
+    void testMemoryPerRevokedToken() {
+        long baseline = usedMemory();
+        for (String token : tokens) {
+            redisHelper.add("blacklist", token);
+        }
+        long legacyPerToken = (usedMemory() - baseline) / TOKENS;
+        jedis.flushAll();
+
+        baseline = usedMemory();
+        for (String token : tokens) {
+            redisHelper.set("revoked:" + TokenDigest.of(token), "1", TOKEN_LIFETIME);
+        }
+        long digestPerToken = (usedMemory() - baseline) / TOKENS;
+
+        GlobalLogger.log("INFO", String.format(
+                "Memory per revoked token: legacy set %d bytes, expiring digest keys %d bytes",
+                legacyPerToken, digestPerToken));
+        assertTrue(digestPerToken < legacyPerToken);
+    }
+
+    private long usedMemory() {
+        for (String line : jedis.info("memory").split("\r\n")) {
+            if (line.startsWith("used_memory:")) {
+                return Long.parseLong(line.substring("used_memory:".length()));
+            }
+        }
+        throw new IllegalStateException("Redis did not report used_memory");
+    }
+}
@@ -0,0 +1,143 @@
+package com.pizza.pizzashop.integration.services;
+
+import com.pizza.pizzashop.dtos.ImportReportDTO;
+import com.pizza.pizzashop.dtos.ImportRowErrorDTO;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.repositories.CatalogImportRepository;
+import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
+import com.pizza.pizzashop.repositories.PizzaRepository;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportService;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportServiceImpl;
+import com.pizza.pizzashop.services.CatalogImportService.ImportFormat;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.utils.ImageStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Imports a menu of 10,000 pizzas into a real database, to check that the batched import finishes within seconds,
+ * links every pizza to its ingredients, and reports the rows it skipped.
+ * Tests run without a surrounding transaction, like the services do in production.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CatalogImportServiceImpl.class, CatalogImportRepository.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Testcontainers
+class CatalogImportTests {
+    private static final int PIZZAS = 10_000;
+
+    @Container
+    private static final GenericContainer<?> postgresContainer = new GenericContainer<>("postgres:15-alpine")
+            .withEnv("POSTGRES_DB", "pizzashop")
+            .withEnv("POSTGRES_USER", "pizzashop")
+            .withEnv("POSTGRES_PASSWORD", "pizzashop")
+            .withExposedPorts(5432)
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*\\s", 2));
+
+    @MockBean
+    private ImageStore imageStore;
+    @MockBean
+    private ImageVariantService imageVariantService;
+    @MockBean
+    private CatalogService catalogService;
+
+    @Autowired
+    private PizzaRepository pizzaRepository;
+    @Autowired
+    private PizzaIngredientRepository ingredientRepository;
+    @Autowired
+    private CatalogImportService catalogImportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:postgresql://" + postgresContainer.getHost() + ":"
+                + postgresContainer.getMappedPort(5432) + "/pizzashop");
+        registry.add("spring.datasource.username", () -> "pizzashop");
+        registry.add("spring.datasource.password", () -> "pizzashop");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ingredientRepository.saveAll(List.of(
+                new PizzaIngredient(null, "Томаты", 20),
+                new PizzaIngredient(null, "Сыр", 30),
+                new PizzaIngredient(null, "Базилик", 10)
+        ));
+        when(imageStore.storeBase64(anyString())).thenReturn("0".repeat(64));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pizzaRepository.deleteAllInBatch();
+        ingredientRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testImportPizzas_TenThousandRows() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < PIZZAS; i++) {
+            body.append("{\"name\":\"Пицца ").append(i)
+                    .append("\",\"weight\":450,\"price\":").append(500 + i % 7 * 50)
+                    .append(",\"image\":\"aW1n\",\"ingredients\":[\"томаты\",\"Сыр\",\"Базилик\"]}\n");
+        }
+        body.append("{\"name\":\"Пицца 0\",\"weight\":450,\"price\":500,\"image\":\"aW1n\",\"ingredients\":[\"Сыр\"]}\n");
+        body.append("{\"name\":\"Гавайская\",\"weight\":450,\"price\":500,\"image\":\"aW1n\",\"ingredients\":[\"Ананас\"]}\n");
+        byte[] input = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        ImportReportDTO report = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> catalogImportService.importPizzas(new ByteArrayInputStream(input), ImportFormat.NDJSON));
+
+        assertEquals(PIZZAS, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(PIZZAS + 1, PIZZAS + 2), report.getErrors().stream().map(ImportRowErrorDTO::getLine).toList());
+        assertEquals(PIZZAS, pizzaRepository.count());
+        assertEquals(3L * PIZZAS, jdbcTemplate.queryForObject("SELECT count(*) FROM ingredient_on_pizza", Long.class));
+        verify(catalogService, times(1)).refresh();
+    }
+
+    @Test
+    void testImportIngredients_SkipsExistingNames() throws IOException, RequestDataValidationFailedException {
+        String body = "name,addPrice\nСыр,30\nАнанас,40\nОливки,0\n";
+
+        ImportReportDTO report = catalogImportService.importIngredients(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(2, 4), report.getErrors().stream().map(ImportRowErrorDTO::getLine).toList());
+        assertEquals(4, ingredientRepository.count());
+    }
+}
@@ -1,5 +1,6 @@
 package com.pizza.pizzashop.integration.utils;
 
+import com.pizza.pizzashop.utils.GlobalLogger.GlobalLogger;
 import com.pizza.pizzashop.utils.RedisHelper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +12,18 @@ import redis.clients.jedis.Jedis;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(SpringExtension.class)
 @Testcontainers
 class RedisHelperTests {
+    private static final int BATCH_SIZE = 1000;
+
     @Container
     private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:latest")
             .withExposedPorts(6379);
@@ -68,4 +76,68 @@ class RedisHelperTests {
 
         assertFalse(exists);
     }
+
+    @Test
+    void testAddAllAndCheckAll() {
+        String set = "testSet";
+
+        redisHelper.addAll(set, List.of("first", "second"));
+
+        assertEquals(List.of(true, false, true), redisHelper.checkAll(set, List.of("first", "missing", "second")));
+        assertEquals(List.of(), redisHelper.checkAll(set, List.of()));
+    }
+
+    @Test
+    void testSetAllAndExistsAll() {
+        redisHelper.setAll("1", Map.of("first", 60000L, "second", 60000L));
+
+        assertEquals(List.of(true, false, true), redisHelper.existsAll(List.of("first", "missing", "second")));
+        assertTrue(jedis.pttl("first") > 0);
+    }
+
+    @Test
+    void testBatchRoundTrips() {
+        List<String> values = new ArrayList<>(BATCH_SIZE);
+        Map<String, Long> keys = new HashMap<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            values.add("value" + i);
+            keys.put("key" + i, 60000L);
+        }
+        redisHelper.addAll("testSet", values);
+        jedis.configResetStat();
+
+        long start = System.nanoTime();
+        for (String value : values) {
+            redisHelper.check("testSet", value);
+        }
+        long singleChecks = System.nanoTime() - start;
+        start = System.nanoTime();
+        redisHelper.checkAll("testSet", values);
+        long batchCheck = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Map.Entry<String, Long> key : keys.entrySet()) {
+            redisHelper.set(key.getKey(), "1", key.getValue());
+        }
+        long singleSets = System.nanoTime() - start;
+        start = System.nanoTime();
+        redisHelper.setAll("1", keys);
+        long pipelinedSets = System.nanoTime() - start;
+
+        String commandStats = jedis.info("commandstats");
+        assertTrue(commandStats.contains("cmdstat_sismember:calls=" + BATCH_SIZE + ","));
+        assertTrue(commandStats.contains("cmdstat_smismember:calls=1,"));
+        GlobalLogger.log("INFO", String.format(
+                "%d values: SISMEMBER one by one %d ms, SMISMEMBER %d ms (%d round trips saved); "
+                        + "SET one by one %d ms, pipelined %d ms (%d round trips saved)",
+                BATCH_SIZE,
+                singleChecks / 1_000_000,
+                batchCheck / 1_000_000,
+                BATCH_SIZE - 1,
+                singleSets / 1_000_000,
+                pipelinedSets / 1_000_000,
+                BATCH_SIZE - 1));
+        assertTrue(batchCheck < singleChecks);
+        assertTrue(pipelinedSets < singleSets);
+    }
 }
@@ -5,17 +5,33 @@ import com.pizza.pizzashop.dtos.LoginDTO;
 import com.pizza.pizzashop.dtos.UserDTO;
 import com.pizza.pizzashop.dtos.basic.SuccessDTO;
 import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.exceptions.UserNotFoundException;
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsService;
+import com.pizza.pizzashop.security.LoginThrottleService.LoginThrottleService;
+import com.pizza.pizzashop.security.RefreshToken;
+import com.pizza.pizzashop.security.RefreshTokenService.RefreshTokenService;
+import com.pizza.pizzashop.security.RefreshTokenService.RefreshTokenServiceImpl;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochService;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochServiceImpl;
+import com.pizza.pizzashop.security.TokenRevocationService.TokenRevocationService;
+import com.pizza.pizzashop.security.VerifiedToken;
 import com.pizza.pizzashop.services.AuthService.AuthService;
 import com.pizza.pizzashop.utils.JWTHelper;
 import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +45,7 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.time.Instant;
 import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,10 +58,17 @@ class AuthControllerTests {
     @Mock
     private JWTHelper jwtHelper;
     @Mock
-    private RedisHelper redisHelper;
-    @Mock
     private AuthService authService;
-    @InjectMocks
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    @Mock
+    private TokenEpochService tokenEpochService;
+    @Mock
+    private LoginThrottleService loginThrottleService;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
     private AuthController authController;
     @Mock
     private BindingResult bindingResult;
@@ -53,29 +77,89 @@ class AuthControllerTests {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        authController = new AuthController(
+                authenticationManager,
+                jwtHelper,
+                authService,
+                tokenRevocationService,
+                tokenEpochService,
+                loginThrottleService,
+                refreshTokenService,
+                customUserDetailsService,
+                604800000L);
         try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
             validator = factory.getValidator();
         }
     }
 
     @Test
-    void testSignIn() throws RequestDataValidationFailedException, AuthenticationFailedException {
+    void testSignIn() throws RequestDataValidationFailedException, AuthenticationFailedException, LoginThrottledException {
         LoginDTO loginDTO = createLoginDTO();
         UserDTO userDTO = createUserDTO();
         Authentication authentication = mock(Authentication.class);
+        CustomUserDetails userDetails = mock(CustomUserDetails.class);
+        when(userDetails.getId()).thenReturn(1L);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        when(authService.signIn(loginDTO)).thenReturn(userDTO);
+        when(authService.signIn(userDetails)).thenReturn(userDTO);
         String accessToken = "generated_access_token";
-        when(jwtHelper.generateToken(authentication)).thenReturn(accessToken);
+        when(jwtHelper.generateToken(authentication, 3L)).thenReturn(accessToken);
+        when(refreshTokenService.issue(1L)).thenReturn(new RefreshToken("generated_refresh_token", 1L, 3L));
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
         HttpServletResponse response = mock(HttpServletResponse.class);
         when(bindingResult.hasErrors()).thenReturn(false);
 
-        ResponseEntity<SuccessDTO<UserDTO>> responseEntity = authController.singIn(loginDTO, bindingResult, response);
+        ResponseEntity<SuccessDTO<UserDTO>> responseEntity = authController.singIn(loginDTO, bindingResult, request, response);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(userDTO, responseEntity.getBody().getData());
-        verify(response, times(1)).addCookie(any(Cookie.class));
-        verify(authService, times(1)).signIn(loginDTO);
+        ArgumentCaptor<Cookie> cookies = ArgumentCaptor.forClass(Cookie.class);
+        verify(response, times(2)).addCookie(cookies.capture());
+        assertEquals(accessToken, cookies.getAllValues().get(0).getValue());
+        assertEquals("generated_refresh_token", cookies.getAllValues().get(1).getValue());
+        assertEquals("/api/auth", cookies.getAllValues().get(1).getPath());
+        assertEquals(604800, cookies.getAllValues().get(1).getMaxAge());
+        verify(authService, times(1)).signIn(userDetails);
+        verify(jwtHelper, times(1)).generateToken(authentication, 3L);
+        verify(loginThrottleService, times(1)).acquire("127.0.0.1", loginDTO.getLogin());
+        verify(tokenEpochService, never()).currentEpoch(anyLong());
+    }
+
+    @Test
+    void testSignIn_RedisUnavailableFailClosed() throws AuthenticationFailedException {
+        RedisHelper redisHelper = mock(RedisHelper.class);
+        when(redisHelper.get(anyString())).thenThrow(new RedisUnavailableException("Unavailable"));
+        AuthController controller = createController(redisHelper);
+        LoginDTO loginDTO = createLoginDTO();
+        Authentication authentication = mock(Authentication.class);
+        CustomUserDetails userDetails = mock(CustomUserDetails.class);
+        when(userDetails.getId()).thenReturn(1L);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(bindingResult.hasErrors()).thenReturn(false);
+
+        assertThrows(RedisUnavailableException.class, () -> controller.singIn(loginDTO, bindingResult, request, response));
+        verify(response, never()).addCookie(any());
+        verify(jwtHelper, never()).generateToken(any(), anyLong());
+        verify(redisHelper, never()).set(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testSignIn_Throttled() throws LoginThrottledException {
+        LoginDTO loginDTO = createLoginDTO();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(bindingResult.hasErrors()).thenReturn(false);
+        doThrow(new LoginThrottledException("Too many sign-in attempts. Try again later", 60))
+                .when(loginThrottleService).acquire("127.0.0.1", loginDTO.getLogin());
+
+        assertThrows(LoginThrottledException.class,
+                () -> authController.singIn(loginDTO, bindingResult, request, mock(HttpServletResponse.class)));
+        verifyNoInteractions(authenticationManager, authService, jwtHelper);
     }
 
     @Test
@@ -109,57 +193,152 @@ class AuthControllerTests {
 
     @Test
     void testSignOut() throws AuthenticationFailedException {
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        Cookie cookie = new Cookie("access_token", "some_access_token");
-        when(request.getCookies()).thenReturn(new Cookie[]{cookie});
-        doNothing().when(redisHelper).add(eq("blacklist"), anyString());
+        VerifiedToken verifiedToken = createVerifiedToken();
+        doNothing().when(tokenRevocationService).revoke(verifiedToken);
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
 
-        ResponseEntity<SuccessDTO<String>> responseEntity = authController.signOut(request);
+        ResponseEntity<SuccessDTO<String>> responseEntity = authController.signOut(verifiedToken, "refresh", response);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals("Successfully signed out", responseEntity.getBody().getData());
-        verify(request, times(1)).getCookies();
-        verify(redisHelper, times(1)).add(eq("blacklist"), anyString());
+        verify(tokenRevocationService, times(1)).revoke(verifiedToken);
+        verify(refreshTokenService, times(1)).revoke("refresh");
+        verify(response, times(1)).addCookie(argThat(cookie ->
+                cookie.getName().equals("refresh_token") && cookie.getMaxAge() == 0));
     }
 
     @Test
     void testSignOut_InvalidAccessToken() {
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        when(request.getCookies()).thenReturn(null);
+        assertThrows(AuthenticationFailedException.class,
+                () -> authController.signOut(null, "refresh", mock(HttpServletResponse.class)));
+        verifyNoInteractions(jwtHelper, authService, tokenRevocationService, refreshTokenService);
+    }
 
-        assertThrows(AuthenticationFailedException.class, () -> authController.signOut(request));
-        verify(request, times(1)).getCookies();
-        verifyNoInteractions(jwtHelper, authService);
+    @Test
+    void testRefresh() throws AuthenticationFailedException, UserNotFoundException {
+        CustomUserDetails userDetails = createUserDetails();
+        when(refreshTokenService.rotate("refresh")).thenReturn(new RefreshToken("rotated", 1L, 2L));
+        when(customUserDetailsService.loadById(1L)).thenReturn(userDetails);
+        when(jwtHelper.generateToken(argThat(authentication -> authentication.getPrincipal() == userDetails), eq(2L)))
+                .thenReturn("generated_access_token");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        ResponseEntity<SuccessDTO<String>> responseEntity = authController.refresh("refresh", response);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        ArgumentCaptor<Cookie> cookies = ArgumentCaptor.forClass(Cookie.class);
+        verify(response, times(2)).addCookie(cookies.capture());
+        assertEquals("generated_access_token", cookies.getAllValues().get(0).getValue());
+        assertEquals("rotated", cookies.getAllValues().get(1).getValue());
+        verify(tokenEpochService, never()).currentEpoch(anyLong());
+    }
+
+    @Test
+    void testRefresh_RedisUnavailableFailClosed() {
+        // The token is read just before the circuit opens, so only the epoch of the user cannot be read
+        RedisHelper redisHelper = mock(RedisHelper.class);
+        when(redisHelper.getAndDelete("refresh:" + TokenDigest.of("refresh"))).thenReturn("1:session:2");
+        when(redisHelper.exists("refresh_session:session")).thenReturn(true);
+        when(redisHelper.get(anyString())).thenThrow(new RedisUnavailableException("Unavailable"));
+        AuthController controller = createController(redisHelper);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        assertThrows(AuthenticationFailedException.class, () -> controller.refresh("refresh", response));
+        verify(response, never()).addCookie(any());
+        verify(redisHelper, never()).set(startsWith("refresh:"), anyString(), anyLong());
+        verifyNoInteractions(jwtHelper);
+    }
+
+    @Test
+    void testRefresh_InvalidRefreshToken() throws AuthenticationFailedException {
+        when(refreshTokenService.rotate("refresh"))
+                .thenThrow(new AuthenticationFailedException("Refresh token is invalid or has expired"));
+        HttpServletResponse response = mock(HttpServletResponse.class);
+
+        assertThrows(AuthenticationFailedException.class, () -> authController.refresh("refresh", response));
+        verifyNoInteractions(jwtHelper, customUserDetailsService, response);
+    }
+
+    @Test
+    void testRefresh_UserNotFound() throws AuthenticationFailedException, UserNotFoundException {
+        when(refreshTokenService.rotate("refresh")).thenReturn(new RefreshToken("rotated", 1L, 2L));
+        when(customUserDetailsService.loadById(1L)).thenThrow(new UserNotFoundException("User not found"));
+
+        assertThrows(AuthenticationFailedException.class,
+                () -> authController.refresh("refresh", mock(HttpServletResponse.class)));
+        verify(refreshTokenService, times(1)).revoke("rotated");
+        verifyNoInteractions(jwtHelper);
+    }
+
+    @Test
+    void testSignOutEverywhere() throws AuthenticationFailedException {
+        VerifiedToken verifiedToken = createVerifiedToken();
+        when(tokenEpochService.bump(1L)).thenReturn(1L);
+
+        ResponseEntity<SuccessDTO<String>> responseEntity = authController.signOutEverywhere(verifiedToken);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("Successfully signed out on every device", responseEntity.getBody().getData());
+        verify(tokenEpochService, times(1)).bump(1L);
+        verifyNoInteractions(tokenRevocationService);
+    }
+
+    @Test
+    void testSignOutEverywhere_InvalidAccessToken() {
+        assertThrows(AuthenticationFailedException.class, () -> authController.signOutEverywhere(null));
+        verifyNoInteractions(tokenEpochService);
     }
 
     @Test
     void testGetCurrentUser() throws AuthenticationFailedException {
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        Cookie cookie = new Cookie("access_token", "some_access_token");
-        when(request.getCookies()).thenReturn(new Cookie[]{cookie});
-        when(jwtHelper.extractUserId("some_access_token")).thenReturn(1L);
+        VerifiedToken verifiedToken = createVerifiedToken();
         UserDTO userDTO = createUserDTO();
         when(authService.userInfo(1L)).thenReturn(userDTO);
 
-        ResponseEntity<SuccessDTO<UserDTO>> responseEntity = authController.getCurrentUser(request);
+        ResponseEntity<SuccessDTO<UserDTO>> responseEntity = authController.getCurrentUser(verifiedToken);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertNotNull(responseEntity.getBody());
         assertEquals("Current User", responseEntity.getBody().getSubject());
         assertEquals(userDTO, responseEntity.getBody().getData());
-        verify(request, times(1)).getCookies();
-        verify(jwtHelper, times(1)).extractUserId("some_access_token");
         verify(authService, times(1)).userInfo(1L);
+        verifyNoInteractions(jwtHelper);
     }
 
     @Test
     void testGetCurrentUser_InvalidAccessToken() {
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        when(request.getCookies()).thenReturn(null);
-
-        assertThrows(AuthenticationFailedException.class, () -> authController.getCurrentUser(request));
-        verify(request, times(1)).getCookies();
+        assertThrows(AuthenticationFailedException.class, () -> authController.getCurrentUser(null));
         verifyNoInteractions(jwtHelper, authService);
     }
 
+    private AuthController createController(RedisHelper redisHelper) {
+        TokenEpochServiceImpl failClosedEpochService = new TokenEpochServiceImpl(
+                redisHelper, mock(AuthenticationCache.class), 100L, 60000L, false, new SimpleMeterRegistry());
+        return new AuthController(
+                authenticationManager,
+                jwtHelper,
+                authService,
+                tokenRevocationService,
+                failClosedEpochService,
+                loginThrottleService,
+                new RefreshTokenServiceImpl(redisHelper, failClosedEpochService, 604800000L),
+                customUserDetailsService,
+                604800000L);
+    }
+
+    private VerifiedToken createVerifiedToken() {
+        return new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+    }
+
+    private CustomUserDetails createUserDetails() {
+        return new CustomUserDetails(
+                1L,
+                "johndoe",
+                "johndoe@mail.example",
+                "+79999999999",
+                null,
+                "John",
+                "Doe",
+                new ArrayList<>());
+    }
+
     private UserDTO createUserDTO() {
         return new UserDTO(
                 1L,
@@ -0,0 +1,40 @@
+package com.pizza.pizzashop.unit.controllers;
+
+import com.pizza.pizzashop.controllers.JwksController;
+import com.pizza.pizzashop.security.SigningKeyService.SigningKeyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+class JwksControllerTests {
+    @Mock
+    private SigningKeyService signingKeyService;
+    private JwksController jwksController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        jwksController = new JwksController(signingKeyService, 60000L);
+    }
+
+    @Test
+    void testGetJwks() {
+        Map<String, Object> jwks = Map.of("keys", List.of(Map.of("kid", "kid")));
+        when(signingKeyService.jwks()).thenReturn(jwks);
+
+        ResponseEntity<Map<String, Object>> responseEntity = jwksController.getJwks();
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(jwks, responseEntity.getBody());
+        assertEquals("max-age=60, public", responseEntity.getHeaders().getCacheControl());
+    }
+}
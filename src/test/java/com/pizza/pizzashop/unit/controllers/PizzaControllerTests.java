@@ -2,10 +2,19 @@ package com.pizza.pizzashop.unit.controllers;
 
 import com.pizza.pizzashop.controllers.PizzaController;
 import com.pizza.pizzashop.dtos.PizzaDTO;
+import com.pizza.pizzashop.dtos.ImportReportDTO;
+import com.pizza.pizzashop.dtos.ImportRowErrorDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.dtos.basic.SuccessDTO;
 import com.pizza.pizzashop.exceptions.NotFoundException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportService;
+import com.pizza.pizzashop.services.CatalogImportService.ImportFormat;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
 import com.pizza.pizzashop.services.PizzaService.PizzaService;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
@@ -15,11 +24,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.validation.BindingResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,6 +45,10 @@ class PizzaControllerTests {
     @Mock
     private PizzaService pizzaService;
     @Mock
+    private CatalogService catalogService;
+    @Mock
+    private CatalogImportService catalogImportService;
+    @Mock
     private BindingResult bindingResult;
     @InjectMocks
     private PizzaController pizzaController;
@@ -40,21 +60,132 @@ class PizzaControllerTests {
         try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
             validator = factory.getValidator();
         }
+        when(catalogService.getSnapshot()).thenReturn(
+                new CatalogSnapshot(1, 0, 7, 1_700_000_000_000L, List.of(), List.of(),
+                        new byte[0], new byte[0], new byte[0], new byte[0]));
     }
 
     @Test
     void testGetAllPizzas() {
-        List<PizzaDTO> pizzas = new ArrayList<>();
-        pizzas.add(createPizzaDTO());
-        when(pizzaService.getAllPizzas()).thenReturn(pizzas);
+        byte[] pizzasJson = "{\"subject\":\"Pizza Get All\"}".getBytes(StandardCharsets.UTF_8);
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, 0, 1, 0, List.of(createPizzaDTO()), List.of(),
+                pizzasJson, new byte[0], new byte[0], new byte[0]);
+        when(catalogService.getSnapshot()).thenReturn(snapshot);
+
+        ResponseEntity<byte[]> responseEntity = pizzaController.getAllPizzas(new MockHttpServletRequest());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, responseEntity.getHeaders().getContentType());
+        assertSame(pizzasJson, responseEntity.getBody());
+        assertEquals("\"1\"", responseEntity.getHeaders().getETag());
+        assertEquals("no-cache, private", responseEntity.getHeaders().getCacheControl());
+        verifyNoInteractions(pizzaService);
+    }
+
+    @Test
+    void testGetAllPizzas_Gzip() {
+        byte[] pizzasJsonGzip = {31, -117, 8, 0};
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, 0, 1, 0, List.of(createPizzaDTO()), List.of(),
+                new byte[0], new byte[0], pizzasJsonGzip, new byte[0]);
+        when(catalogService.getSnapshot()).thenReturn(snapshot);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+
+        ResponseEntity<byte[]> responseEntity = pizzaController.getAllPizzas(request);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("gzip", responseEntity.getHeaders().getFirst("Content-Encoding"));
+        assertEquals(List.of("Accept-Encoding"), responseEntity.getHeaders().getVary());
+        assertEquals("\"1-gzip\"", responseEntity.getHeaders().getETag());
+        assertSame(pizzasJsonGzip, responseEntity.getBody());
+    }
+
+    @Test
+    void testGetAllPizzas_GzipRefused() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip;q=0, *");
+
+        ResponseEntity<byte[]> responseEntity = pizzaController.getAllPizzas(request);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertNull(responseEntity.getHeaders().getFirst("Content-Encoding"));
+        assertEquals("\"7\"", responseEntity.getHeaders().getETag());
+    }
 
-        ResponseEntity<SuccessDTO<List<PizzaDTO>>> responseEntity = pizzaController.getAllPizzas();
+    @Test
+    void testGetAllPizzas_NotModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"6\", \"7\"");
+
+        ResponseEntity<byte[]> responseEntity = pizzaController.getAllPizzas(request);
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertNull(responseEntity.getBody());
+        assertEquals("\"7\"", responseEntity.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetAllPizzas_OutdatedETag() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"6\"");
+
+        ResponseEntity<byte[]> responseEntity = pizzaController.getAllPizzas(request);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        assertEquals(1, responseEntity.getBody().getData().size());
-        assertEquals("Маргарита", responseEntity.getBody().getData().get(0).getName());
-        assertEquals(200, responseEntity.getBody().getData().get(0).getWeight());
-        assertEquals(800, responseEntity.getBody().getData().get(0).getPrice());
-        verify(pizzaService, times(1)).getAllPizzas();
+    }
+
+    @Test
+    void testGetPizzaPage() throws RequestDataValidationFailedException {
+        CursorPageDTO<PizzaDTO> page = new CursorPageDTO<>(List.of(createPizzaDTO()), "cursor");
+        when(pizzaService.getPizzaPage(any(CatalogPageRequest.class))).thenReturn(page);
+
+        ResponseEntity<SuccessDTO<CursorPageDTO<PizzaDTO>>> responseEntity =
+                pizzaController.getPizzaPage("-weight", null, 10, 500, null, null, null, "марг", new MockHttpServletRequest());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody().getData());
+        verify(pizzaService, times(1)).getPizzaPage(argThat(request ->
+                request.getSortKey().equals("weight") && request.isDescending()
+                        && request.getLimit() == 10 && request.getMinPrice() == 500));
+    }
+
+    @Test
+    void testGetPizzaPage_InvalidSort() {
+        assertThrows(RequestDataValidationFailedException.class,
+                () -> pizzaController.getPizzaPage("description", null, null, null, null, null, null, null, new MockHttpServletRequest()));
+        verifyNoInteractions(pizzaService);
+    }
+
+    @Test
+    void testGetPizzaFieldsPage() throws RequestDataValidationFailedException {
+        CursorPageDTO<Map<String, Object>> page = new CursorPageDTO<>(List.of(Map.of("id", 1L, "name", "Маргарита")), null);
+        when(pizzaService.getPizzaFieldsPage(any(CatalogPageRequest.class), any(FieldSelection.class))).thenReturn(page);
+
+        ResponseEntity<SuccessDTO<CursorPageDTO<Map<String, Object>>>> responseEntity = pizzaController.getPizzaFieldsPage(
+                "name", null, 50, null, null, null, null, null, "name,price", new MockHttpServletRequest());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody().getData());
+        verify(pizzaService, times(1)).getPizzaFieldsPage(argThat(request -> request.getLimit() == 50),
+                argThat(fields -> List.copyOf(fields.getFields()).equals(List.of("id", "name", "price"))));
+    }
+
+    @Test
+    void testGetPizzaFieldsPage_UnknownField() {
+        assertThrows(RequestDataValidationFailedException.class, () -> pizzaController.getPizzaFieldsPage(
+                null, null, null, null, null, null, null, null, "name,image", new MockHttpServletRequest()));
+        verifyNoInteractions(pizzaService);
+    }
+
+    @Test
+    void testGetPizzaFieldsById() throws NotFoundException, RequestDataValidationFailedException {
+        when(pizzaService.getPizzaFieldsById(eq(1L), any(FieldSelection.class))).thenReturn(Map.of("id", 1L, "price", 800));
+
+        ResponseEntity<SuccessDTO<Map<String, Object>>> responseEntity =
+                pizzaController.getPizzaFieldsById(1L, "price", new MockHttpServletRequest());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(800, responseEntity.getBody().getData().get("price"));
+    }
+
+    @Test
+    void testGetPizzaFieldsById_NonExistingPizza() {
+        when(pizzaService.getPizzaFieldsById(eq(1L), any(FieldSelection.class))).thenReturn(null);
+
+        assertThrows(NotFoundException.class,
+                () -> pizzaController.getPizzaFieldsById(1L, "price", new MockHttpServletRequest()));
     }
 
     @Test
@@ -62,7 +193,7 @@ class PizzaControllerTests {
         PizzaDTO pizzaDTO = createPizzaDTO();
         when(pizzaService.getPizzaById(1L)).thenReturn(pizzaDTO);
 
-        ResponseEntity<SuccessDTO<PizzaDTO>> responseEntity = pizzaController.getPizzaById(1L);
+        ResponseEntity<SuccessDTO<PizzaDTO>> responseEntity = pizzaController.getPizzaById(1L, new MockHttpServletRequest());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals("Маргарита", responseEntity.getBody().getData().getName());
         assertEquals(200, responseEntity.getBody().getData().getWeight());
@@ -70,11 +201,21 @@ class PizzaControllerTests {
         verify(pizzaService, times(1)).getPizzaById(1L);
     }
 
+    @Test
+    void testGetPizzaById_NotModified() throws NotFoundException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-Modified-Since", 1_700_000_000_000L);
+
+        ResponseEntity<SuccessDTO<PizzaDTO>> responseEntity = pizzaController.getPizzaById(1L, request);
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        verifyNoInteractions(pizzaService);
+    }
+
     @Test
     void testGetPizzaById_NonExistingPizza() {
         when(pizzaService.getPizzaById(anyLong())).thenReturn(null);
 
-        assertThrows(NotFoundException.class, () -> pizzaController.getPizzaById(1L));
+        assertThrows(NotFoundException.class, () -> pizzaController.getPizzaById(1L, new MockHttpServletRequest()));
         verify(pizzaService, times(1)).getPizzaById(1L);
     }
 
@@ -92,6 +233,27 @@ class PizzaControllerTests {
         verify(pizzaService, times(1)).createPizza(pizzaDTO);
     }
 
+    @Test
+    void testImportPizzas() throws RequestDataValidationFailedException, IOException {
+        InputStream body = new ByteArrayInputStream("name,weight\n".getBytes(StandardCharsets.UTF_8));
+        ImportReportDTO report = new ImportReportDTO(1, 1, List.of(new ImportRowErrorDTO(2, "Unknown ingredients: [Pineapple]")));
+        when(catalogImportService.importPizzas(body, ImportFormat.CSV)).thenReturn(report);
+
+        ResponseEntity<SuccessDTO<ImportReportDTO>> responseEntity = pizzaController.importPizzas("text/csv;charset=UTF-8", body);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("Pizza Import", responseEntity.getBody().getSubject());
+        assertSame(report, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testImportPizzas_UnsupportedContentType() {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+
+        assertThrows(RequestDataValidationFailedException.class,
+                () -> pizzaController.importPizzas("application/json", body));
+        verifyNoInteractions(catalogImportService);
+    }
+
     @Test
     void testUpdatePizza() throws RequestDataValidationFailedException, NotFoundException {
         PizzaDTO pizzaDTO = createPizzaDTO();
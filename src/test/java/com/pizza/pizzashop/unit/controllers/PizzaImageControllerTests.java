@@ -0,0 +1,169 @@
+package com.pizza.pizzashop.unit.controllers;
+
+import com.pizza.pizzashop.controllers.PizzaImageController;
+import com.pizza.pizzashop.exceptions.NotFoundException;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.utils.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class PizzaImageControllerTests {
+    private static final byte[] IMAGE = "ÿØÿjpeg image content".getBytes(StandardCharsets.ISO_8859_1);
+
+    @TempDir
+    private Path root;
+    @Mock
+    private ImageVariantService imageVariantService;
+    private ImageStore imageStore;
+    private PizzaImageController pizzaImageController;
+    private String hash;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        imageStore = new ImageStore(root.toString());
+        pizzaImageController = new PizzaImageController(imageStore, imageVariantService);
+        hash = imageStore.store(IMAGE);
+    }
+
+    @Test
+    void testGetImage() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(IMAGE, response.getContentAsByteArray());
+        assertEquals("image/jpeg", response.getContentType());
+        assertEquals(IMAGE.length, response.getContentLengthLong());
+        assertEquals("\"" + hash + "\"", response.getHeader("ETag"));
+        assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+    }
+
+    @Test
+    void testGetImage_Range() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=3-6");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("jpeg", response.getContentAsString());
+        assertEquals("bytes 3-6/" + IMAGE.length, response.getHeader("Content-Range"));
+    }
+
+    @Test
+    void testGetImage_SuffixRange() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=-7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("content", response.getContentAsString());
+    }
+
+    @Test
+    void testGetImage_UnsatisfiableRange() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=1000-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + IMAGE.length, response.getHeader("Content-Range"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testGetImage_StaleIfRange() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=3-6");
+        request.addHeader("If-Range", "\"other\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(IMAGE, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testGetImage_NotModified() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", "\"other\", \"" + hash + "\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testGetImage_Sendfile() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=3-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, null, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(imageStore.resolve(hash).toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(3L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) IMAGE.length, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testGetImage_Variant() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        byte[] thumbnail = "ÿØÿthumbnail".getBytes(StandardCharsets.ISO_8859_1);
+        imageStore.storeVariant(hash, "w160", thumbnail);
+        when(imageVariantService.resolve(hash, "160")).thenReturn(imageStore.resolveVariant(hash, "w160"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, "160", new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(thumbnail, response.getContentAsByteArray());
+        assertEquals("\"" + hash + "-160\"", response.getHeader("ETag"));
+        assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void testGetImage_VariantNotGeneratedYet() throws NotFoundException, RequestDataValidationFailedException, IOException {
+        when(imageVariantService.resolve(hash, "160")).thenReturn(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        pizzaImageController.getImage(hash, "160", new MockHttpServletRequest("GET", "/"), response);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(IMAGE, response.getContentAsByteArray());
+        assertEquals("\"" + hash + "\"", response.getHeader("ETag"));
+        assertEquals("public, max-age=60", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void testGetImage_NotFound() {
+        assertThrows(NotFoundException.class, () -> pizzaImageController.getImage(
+                "0".repeat(64), null, new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse()));
+    }
+}
@@ -2,10 +2,19 @@ package com.pizza.pizzashop.unit.controllers;
 
 import com.pizza.pizzashop.controllers.PizzaIngredientController;
 import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.ImportReportDTO;
+import com.pizza.pizzashop.dtos.ImportRowErrorDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.dtos.basic.SuccessDTO;
 import com.pizza.pizzashop.exceptions.NotFoundException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportService;
+import com.pizza.pizzashop.services.CatalogImportService.ImportFormat;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
 import com.pizza.pizzashop.services.PizzaIngredientService.PizzaIngredientService;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
@@ -15,19 +24,31 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.validation.BindingResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 class PizzaIngredientControllerTests {
     @Mock
     private PizzaIngredientService ingredientService;
     @Mock
+    private CatalogService catalogService;
+    @Mock
+    private CatalogImportService catalogImportService;
+    @Mock
     private BindingResult bindingResult;
     @InjectMocks
     private PizzaIngredientController ingredientController;
@@ -39,6 +60,9 @@ class PizzaIngredientControllerTests {
         try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
             validator = factory.getValidator();
         }
+        when(catalogService.getSnapshot()).thenReturn(
+                new CatalogSnapshot(1, 0, 7, 1_700_000_000_000L, List.of(), List.of(),
+                        new byte[0], new byte[0], new byte[0], new byte[0]));
     }
 
     @Test
@@ -47,14 +71,66 @@ class PizzaIngredientControllerTests {
                 new PizzaIngredientDTO(1L, "Томаты", 20),
                 new PizzaIngredientDTO(2L, "Сыр", 30)
         );
-        when(ingredientService.getAllIngredients()).thenReturn(ingredients);
+        byte[] ingredientsJson = "{\"subject\":\"Pizza Ingredient Get All\"}".getBytes(StandardCharsets.UTF_8);
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, 0, 1, 0, List.of(), ingredients,
+                new byte[0], ingredientsJson, new byte[0], new byte[0]);
+        when(catalogService.getSnapshot()).thenReturn(snapshot);
 
-        ResponseEntity<SuccessDTO<List<PizzaIngredientDTO>>> responseEntity = ingredientController.getAllIngredients();
+        ResponseEntity<byte[]> responseEntity = ingredientController.getAllIngredients(new MockHttpServletRequest());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        assertNotNull(responseEntity.getBody());
-        assertEquals("Pizza Ingredient Get All", responseEntity.getBody().getSubject());
-        assertEquals(ingredients, responseEntity.getBody().getData());
-        verify(ingredientService, times(1)).getAllIngredients();
+        assertEquals(MediaType.APPLICATION_JSON, responseEntity.getHeaders().getContentType());
+        assertSame(ingredientsJson, responseEntity.getBody());
+        assertEquals("\"1\"", responseEntity.getHeaders().getETag());
+        verifyNoInteractions(ingredientService);
+    }
+
+    @Test
+    void testGetAllIngredients_NotModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("If-None-Match", "W/\"7-gzip\"");
+
+        ResponseEntity<byte[]> responseEntity = ingredientController.getAllIngredients(request);
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertNull(responseEntity.getBody());
+        assertEquals("\"7-gzip\"", responseEntity.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetIngredientPage() throws RequestDataValidationFailedException {
+        CursorPageDTO<PizzaIngredientDTO> page = new CursorPageDTO<>(List.of(new PizzaIngredientDTO(1L, "Томаты", 20)), null);
+        when(ingredientService.getIngredientPage(any(CatalogPageRequest.class))).thenReturn(page);
+
+        ResponseEntity<SuccessDTO<CursorPageDTO<PizzaIngredientDTO>>> responseEntity =
+                ingredientController.getIngredientPage("name", null, 5, null, 50, "то", new MockHttpServletRequest());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody().getData());
+        verify(ingredientService, times(1)).getIngredientPage(any(CatalogPageRequest.class));
+    }
+
+    @Test
+    void testGetIngredientPage_WeightNotSortable() {
+        assertThrows(RequestDataValidationFailedException.class,
+                () -> ingredientController.getIngredientPage("weight", null, null, null, null, null, new MockHttpServletRequest()));
+        verifyNoInteractions(ingredientService);
+    }
+
+    @Test
+    void testGetIngredientFieldsPage() throws RequestDataValidationFailedException {
+        CursorPageDTO<Map<String, Object>> page = new CursorPageDTO<>(List.of(Map.of("id", 1L, "name", "Томаты")), null);
+        when(ingredientService.getIngredientFieldsPage(any(CatalogPageRequest.class), any(FieldSelection.class))).thenReturn(page);
+
+        ResponseEntity<SuccessDTO<CursorPageDTO<Map<String, Object>>>> responseEntity = ingredientController.getIngredientFieldsPage(
+                null, null, null, null, null, null, "name", new MockHttpServletRequest());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testGetIngredientFieldsById_UnknownField() {
+        assertThrows(RequestDataValidationFailedException.class,
+                () -> ingredientController.getIngredientFieldsById(1L, "weight", new MockHttpServletRequest()));
+        verifyNoInteractions(ingredientService);
     }
 
     @Test
@@ -62,7 +138,7 @@ class PizzaIngredientControllerTests {
         PizzaIngredientDTO ingredient = new PizzaIngredientDTO(1L, "Томаты", 20);
         when(ingredientService.getIngredientById(1L)).thenReturn(ingredient);
 
-        ResponseEntity<SuccessDTO<PizzaIngredientDTO>> responseEntity = ingredientController.getIngredientById(1L);
+        ResponseEntity<SuccessDTO<PizzaIngredientDTO>> responseEntity = ingredientController.getIngredientById(1L, new MockHttpServletRequest());
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertNotNull(responseEntity.getBody());
         assertEquals("Pizza Ingredient Get By Id", responseEntity.getBody().getSubject());
@@ -70,11 +146,21 @@ class PizzaIngredientControllerTests {
         verify(ingredientService, times(1)).getIngredientById(1L);
     }
 
+    @Test
+    void testGetIngredientById_NotModified() throws NotFoundException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"7\"");
+
+        ResponseEntity<SuccessDTO<PizzaIngredientDTO>> responseEntity = ingredientController.getIngredientById(1L, request);
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        verifyNoInteractions(ingredientService);
+    }
+
     @Test
     void testGetIngredientById_NonExistingIngredient() {
         when(ingredientService.getIngredientById(100L)).thenReturn(null);
 
-        assertThrows(NotFoundException.class, () -> ingredientController.getIngredientById(100L));
+        assertThrows(NotFoundException.class, () -> ingredientController.getIngredientById(100L, new MockHttpServletRequest()));
         verify(ingredientService, times(1)).getIngredientById(100L);
     }
 
@@ -93,6 +179,27 @@ class PizzaIngredientControllerTests {
         verify(ingredientService, times(1)).createIngredient(newIngredient);
     }
 
+    @Test
+    void testImportIngredients() throws RequestDataValidationFailedException, IOException {
+        InputStream body = new ByteArrayInputStream("name,addPrice\n".getBytes(StandardCharsets.UTF_8));
+        ImportReportDTO report = new ImportReportDTO(1, 1, List.of(new ImportRowErrorDTO(2, "Pizza ingredient with name Cheese already exists")));
+        when(catalogImportService.importIngredients(body, ImportFormat.CSV)).thenReturn(report);
+
+        ResponseEntity<SuccessDTO<ImportReportDTO>> responseEntity = ingredientController.importIngredients("text/csv;charset=UTF-8", body);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("Pizza Ingredient Import", responseEntity.getBody().getSubject());
+        assertSame(report, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void testImportIngredients_UnsupportedContentType() {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+
+        assertThrows(RequestDataValidationFailedException.class,
+                () -> ingredientController.importIngredients("application/json", body));
+        verifyNoInteractions(catalogImportService);
+    }
+
     @Test
     void testUpdateIngredient() throws RequestDataValidationFailedException, NotFoundException {
         PizzaIngredientDTO updatedIngredient = new PizzaIngredientDTO(2L, "Cыр", 20);
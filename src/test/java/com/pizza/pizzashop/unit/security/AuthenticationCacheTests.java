@@ -0,0 +1,98 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationCacheTests {
+    private SimpleMeterRegistry meterRegistry;
+    private AuthenticationCache authenticationCache;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authenticationCache = new AuthenticationCache(100L, 60000L, meterRegistry);
+    }
+
+    @Test
+    void testPutAndGet() {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        CustomUserDetails userDetails = createUserDetails();
+
+        authenticationCache.put("digest", verifiedToken, userDetails, authenticationCache.generation());
+        AuthenticationCache.Entry entry = authenticationCache.get("digest");
+
+        assertNotNull(entry);
+        assertSame(userDetails, entry.getUserDetails());
+        assertEquals(verifiedToken, entry.getVerifiedToken());
+    }
+
+    @Test
+    void testGet_ExpiredToken() {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().minusSeconds(1), 0);
+
+        authenticationCache.put("digest", verifiedToken, createUserDetails(), authenticationCache.generation());
+
+        assertNull(authenticationCache.get("digest"));
+    }
+
+    @Test
+    void testEvict() {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        authenticationCache.put("digest", verifiedToken, createUserDetails(), authenticationCache.generation());
+
+        authenticationCache.evict("digest");
+
+        assertNull(authenticationCache.get("digest"));
+    }
+
+    @Test
+    void testEvictUser() {
+        authenticationCache.put("first", new VerifiedToken("first", 1L, Instant.now(), Instant.now().plusSeconds(60), 0), createUserDetails(), authenticationCache.generation());
+        authenticationCache.put("second", new VerifiedToken("second", 1L, Instant.now(), Instant.now().plusSeconds(60), 0), createUserDetails(), authenticationCache.generation());
+        authenticationCache.put("other", new VerifiedToken("other", 2L, Instant.now(), Instant.now().plusSeconds(60), 0), createUserDetails(), authenticationCache.generation());
+
+        authenticationCache.evictUser(1L);
+
+        assertNull(authenticationCache.get("first"));
+        assertNull(authenticationCache.get("second"));
+        assertNotNull(authenticationCache.get("other"));
+    }
+
+    @Test
+    void testPut_EvictedWhileChecked() {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        long generation = authenticationCache.generation();
+
+        authenticationCache.evictUser(1L);
+        AuthenticationCache.Entry entry = authenticationCache.put("digest", verifiedToken, createUserDetails(), generation);
+
+        assertNotNull(entry);
+        assertNull(authenticationCache.get("digest"));
+    }
+
+    @Test
+    void testMetrics() {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        authenticationCache.put("digest", verifiedToken, createUserDetails(), authenticationCache.generation());
+
+        authenticationCache.get("digest");
+        authenticationCache.get("unknown");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertNotNull(meterRegistry.get("cache.evictions").functionCounter());
+    }
+
+    private CustomUserDetails createUserDetails() {
+        return new CustomUserDetails(1L, "johndoe", "johndoe@mail.example", "+79999999999", "pass", "John", "Doe", new ArrayList<>());
+    }
+}
@@ -0,0 +1,75 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.security.BCryptStrengthCalibrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BCryptStrengthCalibratorTests {
+
+    @Test
+    void testCalibrate() {
+        // 10 ms at strength 10, so 40 ms at 12 and 80 ms at 13
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(
+                strength -> TimeUnit.MILLISECONDS.toNanos(10L << (strength - 10)));
+
+        assertEquals(12, calibrator.calibrate(79, 10, 16));
+        assertEquals(13, calibrator.calibrate(80, 10, 16));
+    }
+
+    @Test
+    void testCalibrate_Bounds() {
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(
+                strength -> TimeUnit.MILLISECONDS.toNanos(10L << (strength - 10)));
+
+        assertEquals(10, calibrator.calibrate(1, 10, 16));
+        assertEquals(16, calibrator.calibrate(100000, 10, 16));
+        assertThrows(IllegalArgumentException.class, () -> calibrator.calibrate(250, 12, 10));
+    }
+
+    @Test
+    void testCalibrate_MeasuresHashes() {
+        int strength = new BCryptStrengthCalibrator().calibrate(1, 4, 8);
+
+        assertEquals(4, strength);
+    }
+
+    @Test
+    void testAuthenticate_UpgradesLegacyHash() {
+        BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(
+                "bcrypt", Map.of("bcrypt", bCryptPasswordEncoder));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bCryptPasswordEncoder);
+        // A hash created before hashes were prefixed, at a lower strength
+        UserDetails user = User.withUsername("user123")
+                .password(new BCryptPasswordEncoder(4).encode("password123"))
+                .roles("USER")
+                .build();
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("user123")).thenReturn(user);
+        UserDetailsPasswordService userDetailsPasswordService = mock(UserDetailsPasswordService.class);
+        when(userDetailsPasswordService.updatePassword(any(), anyString())).thenReturn(user);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user123", "password123"));
+
+        verify(userDetailsPasswordService, times(1)).updatePassword(eq(user), startsWith("{bcrypt}$2a$05$"));
+        assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode("password123")));
+    }
+}
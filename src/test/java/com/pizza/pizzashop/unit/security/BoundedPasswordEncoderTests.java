@@ -0,0 +1,87 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.exceptions.PasswordHashingOverloadedException;
+import com.pizza.pizzashop.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTests {
+    @Mock
+    private PasswordEncoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, 5, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordEncoder.close();
+    }
+
+    @Test
+    void testEncode() {
+        when(delegate.encode("password123")).thenReturn("hash");
+
+        assertEquals("hash", passwordEncoder.encode("password123"));
+        assertEquals(1, meterRegistry.get("password_encoder.duration").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    void testMatches() {
+        when(delegate.matches("password123", "hash")).thenReturn(true);
+
+        assertTrue(passwordEncoder.matches("password123", "hash"));
+        assertFalse(passwordEncoder.matches("wrong", "hash"));
+        assertEquals(2, meterRegistry.get("password_encoder.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testMatches_DelegateFailure() {
+        when(delegate.matches("password123", "hash")).thenThrow(new IllegalArgumentException("Encoded password is invalid"));
+
+        assertThrows(IllegalArgumentException.class, () -> passwordEncoder.matches("password123", "hash"));
+    }
+
+    @Test
+    void testMatches_QueueFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.matches("password123", "hash")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("password123", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.matches("password123", "hash"));
+        while (meterRegistry.get("executor.queued").tag("name", "password_encoder").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingOverloadedException exception = assertThrows(PasswordHashingOverloadedException.class,
+                () -> passwordEncoder.matches("password123", "hash"));
+        assertEquals(5, exception.getRetryAfterSeconds());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,204 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.entities.Role;
+import com.pizza.pizzashop.entities.User;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.exceptions.UserNotFoundException;
+import com.pizza.pizzashop.repositories.UserRepository;
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsServiceImpl;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTests {
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RedisHelper redisHelper;
+    @Mock
+    private AuthenticationCache authenticationCache;
+    private CustomUserDetailsServiceImpl customUserDetailsService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        customUserDetailsService = new CustomUserDetailsServiceImpl(
+                userRepository, redisHelper, authenticationCache, 100L, 60000L, new SimpleMeterRegistry());
+        customUserDetailsService.onSubscribed();
+    }
+
+    @Test
+    void testLoadById_Cached() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")));
+
+        CustomUserDetails first = customUserDetailsService.loadById(1L);
+        CustomUserDetails second = customUserDetailsService.loadById(1L);
+
+        assertSame(first, second);
+        assertEquals("user123", first.getUsername());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testLoadById_EvictedWhileLoading() throws UserNotFoundException {
+        User user = createUser("user123");
+        User changed = createUser("renamed");
+        // The user is changed and evicted after the row was read, but before it is cached
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            customUserDetailsService.onMessage("1");
+            return Optional.of(user);
+        }).thenReturn(Optional.of(changed));
+
+        assertEquals("user123", customUserDetailsService.loadById(1L).getUsername());
+
+        assertEquals("renamed", customUserDetailsService.loadById(1L).getUsername());
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testLoadById_UserNotFound() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> customUserDetailsService.loadById(1L));
+    }
+
+    @Test
+    void testLoadById_NotSynchronised() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")));
+        customUserDetailsService.onDisconnected();
+
+        customUserDetailsService.loadById(1L);
+        customUserDetailsService.loadById(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testLoadUserByUsername_CachedByEveryUsername() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")));
+        CustomUserDetails loaded = customUserDetailsService.loadById(1L);
+
+        assertSame(loaded, customUserDetailsService.loadUserByUsername("user123"));
+        assertSame(loaded, customUserDetailsService.loadUserByUsername("user@example.com"));
+        assertSame(loaded, customUserDetailsService.loadUserByUsername("+79999999999"));
+        verify(userRepository, never()).findByLoginOrEmailOrPhoneNumber(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testLoadUserByUsername_UserNotFound() {
+        when(userRepository.findByLoginOrEmailOrPhoneNumber("unknown", "unknown", "unknown")).thenReturn(null);
+
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("unknown"));
+    }
+
+    @Test
+    void testEvict() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")), Optional.of(createUser("renamed")));
+        when(userRepository.findByLoginOrEmailOrPhoneNumber("user123", "user123", "user123")).thenReturn(null);
+        customUserDetailsService.loadById(1L);
+
+        customUserDetailsService.evict(1L);
+
+        assertEquals("renamed", customUserDetailsService.loadById(1L).getUsername());
+        assertThrows(UsernameNotFoundException.class, () -> customUserDetailsService.loadUserByUsername("user123"));
+        verify(redisHelper, times(1)).publish("principals", "1");
+        verify(authenticationCache, times(1)).evictUser(1L);
+    }
+
+    @Test
+    void testEvict_PublishFailure() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")), Optional.of(createUser("renamed")));
+        customUserDetailsService.loadById(1L);
+        doThrow(new RedisUnavailableException("Redis is unavailable"))
+                .when(redisHelper).publish(anyString(), anyString());
+
+        assertDoesNotThrow(() -> customUserDetailsService.evict(1L));
+        assertDoesNotThrow(() -> customUserDetailsService.evictAll());
+
+        assertEquals("renamed", customUserDetailsService.loadById(1L).getUsername());
+        verify(authenticationCache, times(1)).evictUser(1L);
+        verify(authenticationCache, times(1)).evictAll();
+    }
+
+    @Test
+    void testOnMessage_EvictAll() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")));
+        customUserDetailsService.loadById(1L);
+
+        customUserDetailsService.onMessage("*");
+        customUserDetailsService.loadById(1L);
+
+        verify(userRepository, times(2)).findById(1L);
+        verify(authenticationCache, times(1)).evictAll();
+    }
+
+    @Test
+    void testLoadById_SharesAuthorities() throws UserNotFoundException {
+        User other = createUser("other");
+        other.setId(2L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(other));
+
+        CustomUserDetails first = customUserDetailsService.loadById(1L);
+        CustomUserDetails second = customUserDetailsService.loadById(2L);
+
+        assertSame(first.getAuthorities().iterator().next(), second.getAuthorities().iterator().next());
+        assertThrows(UnsupportedOperationException.class, () -> first.getAuthorities().clear());
+    }
+
+    @Test
+    void testUpdatePassword() throws UserNotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("user123")));
+        CustomUserDetails loaded = customUserDetailsService.loadById(1L);
+
+        UserDetails updated = customUserDetailsService.updatePassword(loaded, "{bcrypt}rehashed");
+
+        assertEquals("{bcrypt}rehashed", updated.getPassword());
+        assertEquals(loaded.getAuthorities(), updated.getAuthorities());
+        verify(userRepository, times(1)).updatePassword(1L, "{bcrypt}rehashed");
+        verify(redisHelper, times(1)).publish("principals", "1");
+    }
+
+    @Test
+    void testUpdatePassword_PublishFailure() {
+        CustomUserDetails userDetails = CustomUserDetails.create(createUser("user123"));
+        doThrow(new RedisUnavailableException("Redis is unavailable"))
+                .when(redisHelper).publish(anyString(), anyString());
+
+        UserDetails updated = customUserDetailsService.updatePassword(userDetails, "{bcrypt}rehashed");
+
+        assertEquals("{bcrypt}rehashed", updated.getPassword());
+        verify(userRepository, times(1)).updatePassword(1L, "{bcrypt}rehashed");
+    }
+
+    private User createUser(String login) {
+        User user = new User(
+                1L,
+                login,
+                "password123",
+                "John",
+                "Doe",
+                "+79999999999",
+                "user@example.com",
+                "01.01.2000",
+                Instant.now(),
+                Instant.now());
+        user.setRoles(List.of(new Role(1L, "ROLE_USER")));
+        return user;
+    }
+}
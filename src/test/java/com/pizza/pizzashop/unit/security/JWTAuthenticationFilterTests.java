@@ -0,0 +1,168 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.CustomUserDetailsService.CustomUserDetailsService;
+import com.pizza.pizzashop.security.JWTAuthenticationFilter;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochService;
+import com.pizza.pizzashop.security.TokenRevocationService.TokenRevocationService;
+import com.pizza.pizzashop.security.VerifiedToken;
+import com.pizza.pizzashop.utils.JWTHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JWTAuthenticationFilterTests {
+    @Mock
+    private JWTHelper jwtHelper;
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    @Mock
+    private TokenEpochService tokenEpochService;
+    private AuthenticationCache authenticationCache;
+    private JWTAuthenticationFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        authenticationCache = new AuthenticationCache(100L, 60000L, new SimpleMeterRegistry());
+        filter = new JWTAuthenticationFilter(
+                jwtHelper, customUserDetailsService, tokenRevocationService, tokenEpochService, authenticationCache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testDoFilter_CachesAuthentication() throws Exception {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        when(jwtHelper.verifyToken("token")).thenReturn(verifiedToken);
+        when(tokenRevocationService.isRevoked(verifiedToken)).thenReturn(false);
+        when(customUserDetailsService.loadById(1L)).thenReturn(createUserDetails());
+
+        MockHttpServletRequest firstRequest = createRequest("token");
+        filter.doFilter(firstRequest, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication firstAuthentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest secondRequest = createRequest("token");
+        secondRequest.setRemoteAddr("10.0.0.2");
+        filter.doFilter(secondRequest, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication secondAuthentication = SecurityContextHolder.getContext().getAuthentication();
+
+        assertNotNull(secondAuthentication);
+        // Every request gets an authentication of its own, with its own details
+        assertNotSame(firstAuthentication, secondAuthentication);
+        assertSame(firstAuthentication.getPrincipal(), secondAuthentication.getPrincipal());
+        assertEquals("10.0.0.2", ((WebAuthenticationDetails) secondAuthentication.getDetails()).getRemoteAddress());
+        assertEquals(verifiedToken, firstRequest.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE));
+        assertEquals(verifiedToken, secondRequest.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE));
+        verify(jwtHelper, times(1)).verifyToken("token");
+        verify(tokenRevocationService, times(1)).isRevoked(verifiedToken);
+        verify(customUserDetailsService, times(1)).loadById(1L);
+    }
+
+    @Test
+    void testDoFilter_BlacklistedToken() throws Exception {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        when(jwtHelper.verifyToken("token")).thenReturn(verifiedToken);
+        when(tokenRevocationService.isRevoked(verifiedToken)).thenReturn(true);
+
+        MockHttpServletRequest request = createRequest("token");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE));
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void testDoFilter_StatelessToken() throws Exception {
+        CustomUserDetails userDetails = createUserDetails();
+        VerifiedToken verifiedToken = new VerifiedToken(
+                "digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0, userDetails);
+        when(jwtHelper.verifyToken("token")).thenReturn(verifiedToken);
+
+        filter.doFilter(createRequest("token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertSame(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void testDoFilter_OutdatedEpoch() throws Exception {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 1);
+        when(jwtHelper.verifyToken("token")).thenReturn(verifiedToken);
+        when(tokenEpochService.currentEpoch(1L)).thenReturn(2L);
+
+        MockHttpServletRequest request = createRequest("token");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE));
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void testDoFilter_RevokedWhileChecked() throws Exception {
+        VerifiedToken verifiedToken = new VerifiedToken("digest", 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+        when(jwtHelper.verifyToken("token")).thenReturn(verifiedToken);
+        // The token is signed out between the revocation check and the put
+        when(tokenRevocationService.isRevoked(verifiedToken)).thenAnswer(invocation -> {
+            authenticationCache.evict(TokenDigest.of("token"));
+            return false;
+        });
+        when(customUserDetailsService.loadById(1L)).thenReturn(createUserDetails());
+
+        filter.doFilter(createRequest("token"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(authenticationCache.get(TokenDigest.of("token")));
+    }
+
+    @Test
+    void testDoFilter_NoToken() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(jwtHelper, tokenRevocationService, tokenEpochService, customUserDetailsService);
+    }
+
+    private MockHttpServletRequest createRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("access_token", token));
+        return request;
+    }
+
+    private CustomUserDetails createUserDetails() {
+        return new CustomUserDetails(
+                1L,
+                "johndoe",
+                "johndoe@mail.example",
+                "+79999999999",
+                "pass",
+                "John",
+                "Doe",
+                new ArrayList<>());
+    }
+}
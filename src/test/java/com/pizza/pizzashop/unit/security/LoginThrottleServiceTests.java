@@ -0,0 +1,84 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
+import com.pizza.pizzashop.security.LoginThrottleService.LoginThrottleServiceImpl;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoginThrottleServiceTests {
+    @Mock
+    private RedisHelper redisHelper;
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottleServiceImpl loginThrottleService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottleService = new LoginThrottleServiceImpl(redisHelper, 3L, 60000L, 2L, 60000L, meterRegistry);
+    }
+
+    @Test
+    void testAcquire_IdentifierLimit() throws LoginThrottledException {
+        loginThrottleService.acquire("127.0.0.1", "johndoe");
+        loginThrottleService.acquire("127.0.0.2", "JohnDoe ");
+
+        LoginThrottledException exception = assertThrows(LoginThrottledException.class,
+                () -> loginThrottleService.acquire("127.0.0.3", "johndoe"));
+        assertTrue(exception.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("login_throttle.rejected").tag("scope", "identifier").counter().count());
+        verifyNoInteractions(redisHelper);
+    }
+
+    @Test
+    void testAcquire_IpLimit() throws LoginThrottledException {
+        loginThrottleService.acquire("127.0.0.1", "first");
+        loginThrottleService.acquire("127.0.0.1", "second");
+        loginThrottleService.acquire("127.0.0.1", "third");
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottleService.acquire("127.0.0.1", "fourth"));
+        assertEquals(1.0, meterRegistry.get("login_throttle.rejected").tag("scope", "ip").counter().count());
+    }
+
+    @Test
+    void testSynchronise_ReportsAttempts() throws LoginThrottledException {
+        loginThrottleService.acquire("127.0.0.1", "johndoe");
+        loginThrottleService.acquire("127.0.0.1", "janedoe");
+
+        loginThrottleService.synchronise();
+        loginThrottleService.synchronise();
+
+        verify(redisHelper, times(1)).increment(startsWith("login_throttle:ip:"), eq(2L), eq(60000L));
+        verify(redisHelper, times(2)).increment(startsWith("login_throttle:identifier:"), eq(1L), eq(60000L));
+    }
+
+    @Test
+    void testSynchronise_AttemptsAfterPruning() throws LoginThrottledException {
+        loginThrottleService.acquire("127.0.0.1", "johndoe");
+        loginThrottleService.synchronise();
+        // The idle counters are pruned here, the next attempt is counted in a new one
+        loginThrottleService.synchronise();
+        loginThrottleService.acquire("127.0.0.1", "johndoe");
+        loginThrottleService.synchronise();
+
+        verify(redisHelper, times(2)).increment(startsWith("login_throttle:identifier:"), eq(1L), eq(60000L));
+    }
+
+    @Test
+    void testSynchronise_ClusterLimitExceeded() throws LoginThrottledException {
+        when(redisHelper.increment(startsWith("login_throttle:identifier:"), anyLong(), anyLong())).thenReturn(5L);
+        loginThrottleService.acquire("127.0.0.1", "johndoe");
+
+        loginThrottleService.synchronise();
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottleService.acquire("127.0.0.2", "johndoe"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.security.RefreshToken;
+import com.pizza.pizzashop.security.RefreshTokenService.RefreshTokenServiceImpl;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochService;
+import com.pizza.pizzashop.utils.RedisHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTests {
+    private static final long LIFETIME = 604800000;
+
+    @Mock
+    private RedisHelper redisHelper;
+    @Mock
+    private TokenEpochService tokenEpochService;
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        refreshTokenService = new RefreshTokenServiceImpl(redisHelper, tokenEpochService, LIFETIME);
+    }
+
+    @Test
+    void testIssue() {
+        when(tokenEpochService.issuingEpoch(1L)).thenReturn(2L);
+
+        RefreshToken refreshToken = refreshTokenService.issue(1L);
+
+        assertEquals(1L, refreshToken.getUserId());
+        assertEquals(2L, refreshToken.getEpoch());
+        verify(redisHelper, times(1)).set(startsWith("refresh_session:"), eq("1"), eq(LIFETIME));
+        verify(redisHelper, times(1)).set(
+                eq("refresh:" + TokenDigest.of(refreshToken.getToken())), matches("1:[\\w-]+:2"), eq(LIFETIME));
+    }
+
+    @Test
+    void testIssue_RedisUnavailable() {
+        when(tokenEpochService.issuingEpoch(1L)).thenThrow(new RedisUnavailableException("Unavailable"));
+
+        assertThrows(RedisUnavailableException.class, () -> refreshTokenService.issue(1L));
+        verify(redisHelper, never()).set(anyString(), anyString(), anyLong());
+        verify(tokenEpochService, never()).currentEpoch(anyLong());
+    }
+
+    @Test
+    void testRotate() throws AuthenticationFailedException {
+        when(redisHelper.getAndDelete("refresh:" + TokenDigest.of("token"))).thenReturn("1:session:2");
+        when(redisHelper.exists("refresh_session:session")).thenReturn(true);
+        when(tokenEpochService.currentEpoch(1L)).thenReturn(2L);
+
+        RefreshToken refreshToken = refreshTokenService.rotate("token");
+
+        assertNotEquals("token", refreshToken.getToken());
+        assertEquals(1L, refreshToken.getUserId());
+        verify(redisHelper, times(1)).set("refresh_used:" + TokenDigest.of("token"), "session", LIFETIME);
+        verify(redisHelper, times(1)).set("refresh_session:session", "1", LIFETIME);
+        verify(redisHelper, times(1)).set(
+                "refresh:" + TokenDigest.of(refreshToken.getToken()), "1:session:2", LIFETIME);
+    }
+
+    @Test
+    void testRotate_Reused() {
+        when(redisHelper.get("refresh_used:" + TokenDigest.of("token"))).thenReturn("session");
+
+        assertThrows(AuthenticationFailedException.class, () -> refreshTokenService.rotate("token"));
+        verify(redisHelper, times(1)).delete("refresh_session:session");
+    }
+
+    @Test
+    void testRotate_Unknown() {
+        assertThrows(AuthenticationFailedException.class, () -> refreshTokenService.rotate("token"));
+        assertThrows(AuthenticationFailedException.class, () -> refreshTokenService.rotate(null));
+        verify(redisHelper, never()).delete(anyString());
+    }
+
+    @Test
+    void testRotate_RevokedSession() {
+        when(redisHelper.getAndDelete("refresh:" + TokenDigest.of("token"))).thenReturn("1:session:2");
+        when(redisHelper.exists("refresh_session:session")).thenReturn(false);
+
+        assertThrows(AuthenticationFailedException.class, () -> refreshTokenService.rotate("token"));
+        verify(redisHelper, never()).set(startsWith("refresh:"), anyString(), anyLong());
+    }
+
+    @Test
+    void testRotate_OutdatedEpoch() {
+        when(redisHelper.getAndDelete("refresh:" + TokenDigest.of("token"))).thenReturn("1:session:2");
+        when(redisHelper.exists("refresh_session:session")).thenReturn(true);
+        when(tokenEpochService.currentEpoch(1L)).thenReturn(3L);
+
+        assertThrows(AuthenticationFailedException.class, () -> refreshTokenService.rotate("token"));
+        verify(redisHelper, never()).set(startsWith("refresh:"), anyString(), anyLong());
+    }
+
+    @Test
+    void testRevoke() {
+        when(redisHelper.getAndDelete("refresh:" + TokenDigest.of("token"))).thenReturn("1:session:2");
+
+        refreshTokenService.revoke("token");
+        refreshTokenService.revoke(null);
+
+        verify(redisHelper, times(1)).delete("refresh_session:session");
+    }
+}
@@ -0,0 +1,138 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.security.SigningKey;
+import com.pizza.pizzashop.security.SigningKeyService.SigningKeyServiceImpl;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SigningKeyServiceTests {
+    private static final long ROTATION_INTERVAL = 86400000;
+    private static final int TOKEN_LIFETIME = 900000;
+    private static final long ROTATION_GRACE = 300000;
+
+    @Mock
+    private RedisHelper redisHelper;
+    private SigningKeyServiceImpl signingKeyService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        signingKeyService = new SigningKeyServiceImpl(redisHelper, ROTATION_INTERVAL, 0L, 60000L, TOKEN_LIFETIME);
+        signingKeyService.start();
+    }
+
+    @Test
+    void testStart_PublishesKey() {
+        SigningKey key = signingKeyService.currentKey();
+
+        assertNotNull(key);
+        verify(redisHelper, times(1)).set(
+                "jwks:" + key.getKeyId(),
+                Base64.getEncoder().encodeToString(key.getPublicKey().getEncoded()),
+                ROTATION_INTERVAL + ROTATION_GRACE + TOKEN_LIFETIME);
+        assertEquals(key.getPublicKey(), signingKeyService.publicKey(key.getKeyId()));
+        verify(redisHelper, never()).get(anyString());
+    }
+
+    @Test
+    void testStart_PublishFailure() {
+        doThrow(new JedisConnectionException("Connection refused"))
+                .when(redisHelper).set(anyString(), anyString(), anyLong());
+        SigningKeyServiceImpl unpublishedService = new SigningKeyServiceImpl(redisHelper, ROTATION_INTERVAL, 0L, 60000L, TOKEN_LIFETIME);
+        unpublishedService.start();
+
+        assertThrows(RedisUnavailableException.class, unpublishedService::currentKey);
+
+        doNothing().when(redisHelper).set(anyString(), anyString(), anyLong());
+        unpublishedService.retryPublish();
+
+        assertNotNull(unpublishedService.currentKey());
+    }
+
+    @Test
+    void testRotate_KeepsPreviousKey() {
+        SigningKey previousKey = signingKeyService.currentKey();
+
+        signingKeyService.rotate();
+
+        assertNotEquals(previousKey.getKeyId(), signingKeyService.currentKey().getKeyId());
+        assertEquals(previousKey.getPublicKey(), signingKeyService.publicKey(previousKey.getKeyId()));
+    }
+
+    @Test
+    void testRotate_PublishFailureKeepsCurrentKey() {
+        SigningKey previousKey = signingKeyService.currentKey();
+        doThrow(new JedisConnectionException("Connection refused"))
+                .when(redisHelper).set(anyString(), anyString(), anyLong());
+
+        signingKeyService.rotate();
+
+        assertSame(previousKey, signingKeyService.currentKey());
+        // Both the new key and the time to live of the kept one were tried
+        verify(redisHelper, times(3)).set(anyString(), anyString(), anyLong());
+
+        doNothing().when(redisHelper).set(anyString(), anyString(), anyLong());
+        signingKeyService.retryPublish();
+
+        assertNotEquals(previousKey.getKeyId(), signingKeyService.currentKey().getKeyId());
+        signingKeyService.retryPublish();
+        verify(redisHelper, times(4)).set(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testPublicKey_LoadsRemoteKeyOnce() {
+        PublicKey remoteKey = Keys.keyPairFor(SignatureAlgorithm.RS256).getPublic();
+        when(redisHelper.get("jwks:remote")).thenReturn(Base64.getEncoder().encodeToString(remoteKey.getEncoded()));
+
+        assertEquals(remoteKey, signingKeyService.publicKey("remote"));
+        assertEquals(remoteKey, signingKeyService.publicKey("remote"));
+        verify(redisHelper, times(1)).get("jwks:remote");
+    }
+
+    @Test
+    void testPublicKey_RemembersUnknownKey() {
+        assertNull(signingKeyService.publicKey("unknown"));
+        assertNull(signingKeyService.publicKey("unknown"));
+        assertNull(signingKeyService.publicKey(null));
+        verify(redisHelper, times(1)).get("jwks:unknown");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJwks() {
+        KeyPair remoteKeyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        SigningKey key = signingKeyService.currentKey();
+        when(redisHelper.scan("jwks:*")).thenReturn(List.of("jwks:" + key.getKeyId(), "jwks:remote"));
+        when(redisHelper.getAll(anyList())).thenReturn(List.of(
+                Base64.getEncoder().encodeToString(key.getPublicKey().getEncoded()),
+                Base64.getEncoder().encodeToString(remoteKeyPair.getPublic().getEncoded())));
+
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) signingKeyService.jwks().get("keys");
+
+        assertEquals(2, keys.size());
+        assertEquals(key.getKeyId(), keys.get(0).get("kid"));
+        assertEquals("remote", keys.get(1).get("kid"));
+        assertEquals("RSA", keys.get(0).get("kty"));
+        assertEquals("RS256", keys.get(0).get("alg"));
+        assertEquals("AQAB", keys.get(0).get("e"));
+        signingKeyService.jwks();
+        verify(redisHelper, times(1)).scan("jwks:*");
+    }
+}
@@ -0,0 +1,113 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.TokenEpochService.TokenEpochServiceImpl;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenEpochServiceTests {
+    @Mock
+    private RedisHelper redisHelper;
+    @Mock
+    private AuthenticationCache authenticationCache;
+    private TokenEpochServiceImpl tokenEpochService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tokenEpochService = new TokenEpochServiceImpl(
+                redisHelper, authenticationCache, 100L, 60000L, false, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testCurrentEpoch_NeverBumped() {
+        tokenEpochService.onSubscribed();
+
+        assertEquals(0, tokenEpochService.currentEpoch(1L));
+    }
+
+    @Test
+    void testCurrentEpoch_Cached() {
+        tokenEpochService.onSubscribed();
+        when(redisHelper.get("epoch:1")).thenReturn("4");
+
+        assertEquals(4, tokenEpochService.currentEpoch(1L));
+        assertEquals(4, tokenEpochService.currentEpoch(1L));
+        verify(redisHelper, times(1)).get("epoch:1");
+    }
+
+    @Test
+    void testCurrentEpoch_NotSynchronised() {
+        when(redisHelper.get("epoch:1")).thenReturn("4");
+
+        tokenEpochService.currentEpoch(1L);
+        tokenEpochService.currentEpoch(1L);
+
+        verify(redisHelper, times(2)).get("epoch:1");
+    }
+
+    @Test
+    void testCurrentEpoch_RedisUnavailable() {
+        when(redisHelper.get("epoch:1")).thenReturn("4").thenThrow(new RedisUnavailableException("Unavailable"));
+        when(redisHelper.get("epoch:2")).thenThrow(new RedisUnavailableException("Unavailable"));
+
+        assertEquals(4, tokenEpochService.currentEpoch(1L));
+        assertEquals(4, tokenEpochService.currentEpoch(1L));
+        assertEquals(Long.MAX_VALUE, tokenEpochService.currentEpoch(2L));
+    }
+
+    @Test
+    void testIssuingEpoch_RedisUnavailable() {
+        when(redisHelper.get("epoch:1")).thenThrow(new RedisUnavailableException("Unavailable"));
+
+        assertThrows(RedisUnavailableException.class, () -> tokenEpochService.issuingEpoch(1L));
+        assertEquals(Long.MAX_VALUE, tokenEpochService.currentEpoch(1L));
+    }
+
+    @Test
+    void testCurrentEpoch_RedisUnavailableFailOpen() {
+        tokenEpochService = new TokenEpochServiceImpl(
+                redisHelper, authenticationCache, 100L, 60000L, true, new SimpleMeterRegistry());
+        when(redisHelper.get("epoch:1")).thenThrow(new RedisUnavailableException("Unavailable"));
+
+        assertEquals(0, tokenEpochService.currentEpoch(1L));
+    }
+
+    @Test
+    void testBump() {
+        tokenEpochService.onSubscribed();
+        when(redisHelper.increment("epoch:1")).thenReturn(5L);
+
+        assertEquals(5, tokenEpochService.bump(1L));
+
+        verify(redisHelper, times(1)).publish("epochs", "1:5");
+        verify(authenticationCache, times(1)).evictUser(1L);
+        assertEquals(5, tokenEpochService.currentEpoch(1L));
+        verify(redisHelper, never()).get(anyString());
+    }
+
+    @Test
+    void testOnMessage_NeverLowersEpoch() {
+        tokenEpochService.onSubscribed();
+
+        tokenEpochService.onMessage("1:5");
+        tokenEpochService.onMessage("1:3");
+
+        assertEquals(5, tokenEpochService.currentEpoch(1L));
+    }
+
+    @Test
+    void testOnMessage_Malformed() {
+        tokenEpochService.onMessage("malformed");
+
+        verifyNoInteractions(authenticationCache);
+    }
+}
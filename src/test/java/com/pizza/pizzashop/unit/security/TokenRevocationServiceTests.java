@@ -0,0 +1,156 @@
+package com.pizza.pizzashop.unit.security;
+
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
+import com.pizza.pizzashop.exceptions.TokenValidationException;
+import com.pizza.pizzashop.security.AuthenticationCache;
+import com.pizza.pizzashop.security.TokenRevocationService.TokenRevocationServiceImpl;
+import com.pizza.pizzashop.security.VerifiedToken;
+import com.pizza.pizzashop.utils.JWTHelper;
+import com.pizza.pizzashop.utils.RedisHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationServiceTests {
+    @Mock
+    private RedisHelper redisHelper;
+    @Mock
+    private JWTHelper jwtHelper;
+    @Mock
+    private AuthenticationCache authenticationCache;
+    private TokenRevocationServiceImpl tokenRevocationService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tokenRevocationService = new TokenRevocationServiceImpl(
+                redisHelper, jwtHelper, authenticationCache, 1000L, 0.001, 1000L, 60000L, false);
+        when(redisHelper.pop(eq("blacklist"), anyInt())).thenReturn(Set.of());
+        when(redisHelper.scan("revoked:*")).thenReturn(List.of());
+    }
+
+    @Test
+    void testIsRevoked_NotSynchronised() {
+        VerifiedToken token = createToken("digest");
+        when(redisHelper.exists("revoked:digest")).thenReturn(true);
+
+        assertTrue(tokenRevocationService.isRevoked(token));
+        verify(redisHelper, times(1)).exists("revoked:digest");
+    }
+
+    @Test
+    void testIsRevoked_SynchronisedAndAbsent() {
+        when(redisHelper.scan("revoked:*")).thenReturn(List.of("revoked:other"));
+        tokenRevocationService.onSubscribed();
+
+        assertFalse(tokenRevocationService.isRevoked(createToken("digest")));
+        verify(redisHelper, never()).exists(anyString());
+    }
+
+    @Test
+    void testIsRevoked_SeededFromRedis() {
+        when(redisHelper.scan("revoked:*")).thenReturn(List.of("revoked:digest"));
+        when(redisHelper.exists("revoked:digest")).thenReturn(true);
+        tokenRevocationService.onSubscribed();
+
+        assertTrue(tokenRevocationService.isRevoked(createToken("digest")));
+        verify(redisHelper, times(1)).exists("revoked:digest");
+    }
+
+    @Test
+    void testIsRevoked_AfterDisconnect() {
+        tokenRevocationService.onSubscribed();
+        tokenRevocationService.onDisconnected();
+
+        tokenRevocationService.isRevoked(createToken("digest"));
+
+        verify(redisHelper, times(1)).exists("revoked:digest");
+    }
+
+    @Test
+    void testIsRevoked_RedisUnavailable() {
+        when(redisHelper.scan("revoked:*")).thenReturn(List.of("revoked:possiblyRevoked"));
+        when(redisHelper.exists(anyString())).thenThrow(new RedisUnavailableException("Unavailable"));
+        tokenRevocationService.onSubscribed();
+        tokenRevocationService.onMessage("recentlyRevoked");
+        tokenRevocationService.onDisconnected();
+
+        assertTrue(tokenRevocationService.isRevoked(createToken("recentlyRevoked")));
+        assertFalse(tokenRevocationService.isRevoked(createToken("digest")));
+        assertTrue(tokenRevocationService.isRevoked(createToken("possiblyRevoked")));
+    }
+
+    @Test
+    void testIsRevoked_RedisUnavailableFailOpen() {
+        tokenRevocationService = new TokenRevocationServiceImpl(
+                redisHelper, jwtHelper, authenticationCache, 1000L, 0.001, 1000L, 60000L, true);
+        when(redisHelper.exists(anyString())).thenThrow(new RedisUnavailableException("Unavailable"));
+        tokenRevocationService.onMessage("recentlyRevoked");
+
+        assertTrue(tokenRevocationService.isRevoked(createToken("recentlyRevoked")));
+        assertFalse(tokenRevocationService.isRevoked(createToken("digest")));
+    }
+
+    @Test
+    void testRevoke() {
+        tokenRevocationService.onSubscribed();
+        VerifiedToken token = createToken("digest");
+        when(redisHelper.exists("revoked:digest")).thenReturn(true);
+
+        tokenRevocationService.revoke(token);
+
+        verify(redisHelper, times(1)).set(eq("revoked:digest"), eq("1"), longThat(ttl -> ttl > 0 && ttl <= 60000));
+        verify(redisHelper, times(1)).publish("revocations", "digest");
+        verify(authenticationCache, times(1)).evict("digest");
+        assertTrue(tokenRevocationService.isRevoked(token));
+    }
+
+    @Test
+    void testRevoke_ExpiredToken() {
+        VerifiedToken token = new VerifiedToken("digest", 1L, Instant.now().minusSeconds(120), Instant.now().minusSeconds(60), 0);
+
+        tokenRevocationService.revoke(token);
+
+        verify(redisHelper, never()).set(anyString(), anyString(), anyLong());
+        verify(redisHelper, never()).publish(anyString(), anyString());
+    }
+
+    @Test
+    void testOnMessage_RevokedOnOtherNode() {
+        tokenRevocationService.onSubscribed();
+        when(redisHelper.exists("revoked:digest")).thenReturn(true);
+
+        tokenRevocationService.onMessage("digest");
+
+        verify(authenticationCache, times(1)).evict("digest");
+        assertTrue(tokenRevocationService.isRevoked(createToken("digest")));
+    }
+
+    @Test
+    void testStart_MigratesLegacyBlacklist() throws TokenValidationException {
+        when(redisHelper.pop(eq("blacklist"), anyInt())).thenReturn(Set.of("valid", "expired"), Set.of());
+        when(jwtHelper.verifyToken("valid")).thenReturn(createToken("validDigest"));
+        when(jwtHelper.verifyToken("expired")).thenThrow(new TokenValidationException("JWT expired"));
+
+        tokenRevocationService.start();
+
+        verify(redisHelper, times(1)).setAll(eq("1"), argThat(revocations ->
+                revocations.size() == 1 && revocations.get("revoked:validDigest") > 0));
+        verify(redisHelper, never()).set(anyString(), anyString(), anyLong());
+        verify(redisHelper, times(2)).pop(eq("blacklist"), anyInt());
+        verify(redisHelper, times(1)).subscribe("revocations", tokenRevocationService);
+    }
+
+    private VerifiedToken createToken(String digest) {
+        return new VerifiedToken(digest, 1L, Instant.now(), Instant.now().plusSeconds(60), 0);
+    }
+}
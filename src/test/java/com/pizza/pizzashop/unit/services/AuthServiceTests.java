@@ -1,11 +1,11 @@
 package com.pizza.pizzashop.unit.services;
 
-import com.pizza.pizzashop.dtos.LoginDTO;
 import com.pizza.pizzashop.dtos.UserDTO;
 import com.pizza.pizzashop.entities.User;
 import com.pizza.pizzashop.exceptions.AuthenticationFailedException;
 import com.pizza.pizzashop.mappers.UserMapper;
 import com.pizza.pizzashop.repositories.UserRepository;
+import com.pizza.pizzashop.security.CustomUserDetails;
 import com.pizza.pizzashop.services.AuthService.AuthServiceImpl;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -40,35 +40,25 @@ class AuthServiceTests {
     @Test
     void testSignIn() throws AuthenticationFailedException {
         User user = createUser(false);
-        LoginDTO credentials = new LoginDTO("user123", null, null, "password123");
-        when(userRepository.findByLoginOrEmailOrPhoneNumber("user123", null, null)).thenReturn(user);
-        when(passwordEncoder.matches("password123", user.getPassword())).thenReturn(true);
-
+        user.setRoles(new ArrayList<>());
+        CustomUserDetails principal = CustomUserDetails.create(user);
         UserDTO userDTO = createUserDTO(false);
-        when(userMapper.toDto(user)).thenReturn(userDTO);
+        when(userMapper.toDto(principal)).thenReturn(userDTO);
 
-        UserDTO result = authService.signIn(credentials);
+        UserDTO result = authService.signIn(principal);
 
         assertNotNull(result);
         assertEquals(userDTO, result);
 
-        verify(userRepository, times(1)).findByLoginOrEmailOrPhoneNumber("user123", null, null);
-        verify(passwordEncoder, times(1)).matches("password123", user.getPassword());
-        verify(userMapper, times(1)).toDto(user);
+        verify(userMapper, times(1)).toDto(principal);
+        verifyNoInteractions(userRepository, passwordEncoder);
     }
 
     @Test
-    void testSignIn_FailedAuthentication() {
-        User user = createUser(false);
-        LoginDTO credentials = new LoginDTO("user123", null, null, "password123");
-
-        when(userRepository.findByLoginOrEmailOrPhoneNumber("user123", null, null)).thenReturn(user);
-        when(passwordEncoder.matches("password123", user.getPassword())).thenReturn(false);
-
-        assertThrows(AuthenticationFailedException.class, () -> authService.signIn(credentials));
+    void testSignIn_NoPrincipal() {
+        assertThrows(AuthenticationFailedException.class, () -> authService.signIn(null));
 
-        verify(userRepository, times(1)).findByLoginOrEmailOrPhoneNumber("user123", null, null);
-        verify(passwordEncoder, times(1)).matches("password123", user.getPassword());
+        verifyNoInteractions(userRepository, passwordEncoder, userMapper);
     }
 
     @Test
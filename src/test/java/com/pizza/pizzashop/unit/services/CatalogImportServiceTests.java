@@ -0,0 +1,246 @@
+package com.pizza.pizzashop.unit.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.pizza.pizzashop.dtos.ImportReportDTO;
+import com.pizza.pizzashop.dtos.ImportRowErrorDTO;
+import com.pizza.pizzashop.entities.Pizza;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.repositories.CatalogImportRepository;
+import com.pizza.pizzashop.services.CatalogImportService.CatalogImportServiceImpl;
+import com.pizza.pizzashop.services.CatalogImportService.ImportFormat;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
+import com.pizza.pizzashop.utils.ImageStore;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogImportServiceTests {
+    private static final Map<String, Long> INGREDIENT_IDS = Map.of("tomato", 1L, "cheese", 2L);
+
+    @Mock
+    private CatalogImportRepository catalogImportRepository;
+    @Mock
+    private ImageStore imageStore;
+    @Mock
+    private ImageVariantService imageVariantService;
+    @Mock
+    private CatalogService catalogService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private CatalogImportServiceImpl catalogImportService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            // Configured like the application's ObjectMapper, which binds DTOs by their constructor parameters
+            ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(ParameterNamesModule.class).build();
+            catalogImportService = new CatalogImportServiceImpl(catalogImportRepository, imageStore, imageVariantService,
+                    catalogService, objectMapper, factory.getValidator(), transactionManager, 2, 1000L);
+        }
+        when(catalogImportRepository.findExistingPizzaNames(anyCollection())).thenReturn(Set.of("Existing"));
+        when(catalogImportRepository.findIngredientIdsByLowerName(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Long> found = new HashMap<>();
+            for (Object name : invocation.getArgument(0, Collection.class)) {
+                if (INGREDIENT_IDS.containsKey(name)) {
+                    found.put((String) name, INGREDIENT_IDS.get(name));
+                }
+            }
+            return found;
+        });
+        when(catalogImportRepository.nextPizzaIds(anyInt())).thenAnswer(invocation ->
+                LongStream.range(100, 100 + invocation.getArgument(0, Integer.class)).boxed().toList());
+        when(catalogImportRepository.insertPizzas(anyList())).thenAnswer(invocation -> ones(invocation.getArgument(0, List.class).size()));
+        when(catalogImportRepository.insertIngredients(anyList())).thenAnswer(invocation -> ones(invocation.getArgument(0, List.class).size()));
+        when(imageStore.storeBase64(anyString())).thenReturn("hash");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testImportPizzas_Ndjson() throws IOException, RequestDataValidationFailedException {
+        InputStream input = body("""
+                {"name":"Margherita","weight":450,"price":500,"image":"aW1n","ingredients":["Tomato"," CHEESE ","tomato"]}
+                {"name":"Existing","weight":450,"price":500,"image":"aW1n","ingredients":["Tomato"]}
+
+                {"name":"Hawaiian","weight":450,"price":500,"image":"aW1n","ingredients":"Tomato;Pineapple"}
+                {"name":"Broken",
+                """);
+
+        ImportReportDTO report = catalogImportService.importPizzas(input, ImportFormat.NDJSON);
+
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(2, 4, 5), report.getErrors().stream().map(ImportRowErrorDTO::getLine).toList());
+        assertEquals("Pizza with name Existing already exists", report.getErrors().get(0).getMessage());
+        assertEquals("Unknown ingredients: [Pineapple]", report.getErrors().get(1).getMessage());
+        assertTrue(report.getErrors().get(2).getMessage().startsWith("Malformed JSON"));
+
+        ArgumentCaptor<List<Pizza>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(catalogImportRepository).insertPizzas(inserted.capture());
+        Pizza pizza = inserted.getValue().get(0);
+        assertEquals(100L, pizza.getId());
+        assertEquals("hash", pizza.getImageHash());
+        assertEquals(List.of(1L, 2L), pizza.getIngredients().stream().map(PizzaIngredient::getId).toList());
+        verify(catalogImportRepository).insertPizzaIngredients(List.of(pizza));
+        // Names are looked up once per import, so the second batch looks up only the new one
+        verify(catalogImportRepository).findIngredientIdsByLowerName(Set.of("tomato", "cheese"));
+        verify(catalogImportRepository).findIngredientIdsByLowerName(Set.of("pineapple"));
+        verify(imageVariantService).generate("hash");
+        verify(catalogService, times(1)).refresh();
+    }
+
+    @Test
+    void testImportPizzas_Csv() throws IOException, RequestDataValidationFailedException {
+        when(catalogImportRepository.insertPizzas(anyList())).thenReturn(new int[]{0});
+        InputStream input = body("""
+                name,weight,price,description,image,ingredients
+                "Four cheese",450,500,"Thin, crispy",aW1n,Cheese
+                Light,0,500,,aW1n,Tomato
+                """);
+
+        ImportReportDTO report = catalogImportService.importPizzas(input, ImportFormat.CSV);
+
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals("Pizza with name Four cheese already exists", report.getErrors().get(0).getMessage());
+        assertEquals(3, report.getErrors().get(1).getLine());
+        assertEquals("Validation errors: weight: Weight value must be greater than 0", report.getErrors().get(1).getMessage());
+        verify(imageVariantService, never()).generate(anyString());
+        verify(catalogService, never()).refresh();
+    }
+
+    @Test
+    void testImportPizzas_FailedBatch() throws IOException, RequestDataValidationFailedException {
+        when(catalogImportRepository.insertPizzas(anyList())).thenThrow(new DataAccessResourceFailureException("Connection lost"));
+        InputStream input = body("""
+                {"name":"Margherita","weight":450,"price":500,"image":"aW1n","ingredients":["Tomato"]}
+                {"name":"Cheese","weight":450,"price":500,"image":"aW1n","ingredients":["Cheese"]}
+                """);
+
+        ImportReportDTO report = catalogImportService.importPizzas(input, ImportFormat.NDJSON);
+
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getFailed());
+        verify(catalogService, never()).refresh();
+    }
+
+    @Test
+    void testImportPizzas_BrokenRowAfterFirstBatch() throws IOException, RequestDataValidationFailedException {
+        InputStream input = body("""
+                name,weight,price,description,image,ingredients
+                Margherita,450,500,,aW1n,Tomato
+                Cheese,450,500,,aW1n,Cheese
+                "Broken,450,500,,aW1n,Cheese
+                """);
+
+        ImportReportDTO report = catalogImportService.importPizzas(input, ImportFormat.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(4, report.getErrors().get(0).getLine());
+        assertEquals("Malformed CSV: Unterminated quoted field", report.getErrors().get(0).getMessage());
+        verify(catalogService, times(1)).refresh();
+    }
+
+    @Test
+    void testImportPizzas_ReadFailureAfterFirstBatch() {
+        InputStream input = new SequenceInputStream(body("""
+                {"name":"Margherita","weight":450,"price":500,"image":"aW1n","ingredients":["Tomato"]}
+                {"name":"Cheese","weight":450,"price":500,"image":"aW1n","ingredients":["Cheese"]}
+                """), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> catalogImportService.importPizzas(input, ImportFormat.NDJSON));
+        // The first batch is committed, so the catalog must not keep serving the previous version
+        verify(catalogImportRepository, times(1)).insertPizzas(anyList());
+        verify(catalogService, times(1)).refresh();
+    }
+
+    @Test
+    void testImportPizzas_BatchEndsAtCharacterLimit() throws IOException, RequestDataValidationFailedException {
+        String image = "aW1n".repeat(250);
+        InputStream input = body("""
+                {"name":"Margherita","weight":450,"price":500,"image":"%s","ingredients":["Tomato"]}
+                {"name":"Cheese","weight":450,"price":500,"image":"%s","ingredients":["Cheese"]}
+                """.formatted(image, image));
+
+        ImportReportDTO report = catalogImportService.importPizzas(input, ImportFormat.NDJSON);
+
+        assertEquals(2, report.getImported());
+        // Each row exceeds the limit of 1000 characters, so it makes a batch of its own
+        verify(catalogImportRepository, times(2)).insertPizzas(anyList());
+    }
+
+    @Test
+    void testImportIngredients_Csv() throws IOException, RequestDataValidationFailedException {
+        when(catalogImportRepository.insertIngredients(anyList())).thenReturn(new int[]{1, 0});
+        InputStream input = body("\uFEFFname,addPrice\r\nTomato,30\r\n\r\nCheese,40\r\nOnion,\r\n");
+
+        ImportReportDTO report = catalogImportService.importIngredients(input, ImportFormat.CSV);
+
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals("Pizza ingredient with name Cheese already exists", report.getErrors().get(0).getMessage());
+        assertEquals(4, report.getErrors().get(0).getLine());
+        assertEquals(5, report.getErrors().get(1).getLine());
+        verify(catalogImportRepository, times(1)).insertIngredients(anyList());
+        verify(catalogService).refresh();
+    }
+
+    @Test
+    void testImportIngredients_MissingHeader() {
+        assertThrows(RequestDataValidationFailedException.class,
+                () -> catalogImportService.importIngredients(body(""), ImportFormat.CSV));
+        verifyNoInteractions(catalogImportRepository);
+    }
+
+    @Test
+    void testImportFormat_FromContentType() throws RequestDataValidationFailedException {
+        assertEquals(ImportFormat.CSV, ImportFormat.fromContentType("text/csv; charset=UTF-8"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromContentType("application/x-ndjson"));
+        assertThrows(RequestDataValidationFailedException.class, () -> ImportFormat.fromContentType("application/json"));
+        assertThrows(RequestDataValidationFailedException.class, () -> ImportFormat.fromContentType("not a type"));
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int[] ones(int count) {
+        int[] counts = new int[count];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+}
@@ -0,0 +1,232 @@
+package com.pizza.pizzashop.unit.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.entities.CatalogVersion;
+import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.mappers.PizzaIngredientMapper;
+import com.pizza.pizzashop.mappers.PizzaMapper;
+import com.pizza.pizzashop.repositories.CatalogVersionRepository;
+import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
+import com.pizza.pizzashop.repositories.PizzaRepository;
+import com.pizza.pizzashop.services.CatalogService.CatalogServiceImpl;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
+import com.pizza.pizzashop.utils.RedisHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogServiceTests {
+    @Mock
+    private PizzaRepository pizzaRepository;
+    @Mock
+    private PizzaIngredientRepository ingredientRepository;
+    @Mock
+    private PizzaMapper pizzaMapper;
+    @Mock
+    private PizzaIngredientMapper ingredientMapper;
+    @Mock
+    private CatalogVersionRepository catalogVersionRepository;
+    @Mock
+    private RedisHelper redisHelper;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        PizzaIngredient ingredient = new PizzaIngredient(1L, "Томаты", 20);
+        when(pizzaRepository.findAllWithIngredients()).thenReturn(List.of());
+        when(ingredientRepository.findAll()).thenReturn(List.of(ingredient));
+        when(ingredientMapper.toDto(ingredient)).thenReturn(new PizzaIngredientDTO(1L, "Томаты", 20));
+        when(catalogVersionRepository.findById(CatalogVersion.ID))
+                .thenReturn(Optional.of(new CatalogVersion(CatalogVersion.ID, 7L, Instant.ofEpochSecond(1_700_000_000L))));
+        when(catalogVersionRepository.increment()).thenReturn(1);
+    }
+
+    @Test
+    void testGetSnapshot_SerializesResponsesOnce() throws Exception {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        assertSame(snapshot, catalogService.getSnapshot());
+        assertEquals(1, snapshot.getIngredients().size());
+
+        JsonNode ingredients = objectMapper.readTree(snapshot.getIngredientsJson());
+        assertEquals(200, ingredients.get("statusCode").asInt());
+        assertEquals("Pizza Ingredient Get All", ingredients.get("subject").asText());
+        assertEquals("Томаты", ingredients.get("data").get(0).get("name").asText());
+        JsonNode pizzas = objectMapper.readTree(snapshot.getPizzasJson());
+        assertEquals("Pizza Get All", pizzas.get("subject").asText());
+        assertEquals(0, pizzas.get("data").size());
+        verify(ingredientRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testGetSnapshot_CompressesResponsesOnce() throws IOException {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        assertArrayEquals(snapshot.getPizzasJson(), gunzip(snapshot.getPizzasJsonGzip()));
+        assertArrayEquals(snapshot.getIngredientsJson(), gunzip(snapshot.getIngredientsJsonGzip()));
+        assertEquals("\"7-gzip\"", snapshot.getGzipETag());
+    }
+
+    @Test
+    void testRefresh_SwapsSnapshotAndNotifiesOtherNodes() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+        CatalogSnapshot previous = catalogService.getSnapshot();
+
+        catalogService.refresh();
+
+        CatalogSnapshot current = catalogService.getSnapshot();
+        assertNotSame(previous, current);
+        assertTrue(current.getGeneration() > previous.getGeneration());
+        verify(redisHelper, times(1)).publish(eq("catalog"), anyString());
+    }
+
+    @Test
+    void testGetSnapshot_TaggedWithCatalogVersion() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        assertEquals(7L, snapshot.getVersion());
+        assertEquals("\"7\"", snapshot.getETag());
+        assertEquals(1_700_000_000_000L, snapshot.getLastModified());
+    }
+
+    @Test
+    void testRefresh_IncrementsVersionBeforeReload() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+        catalogService.getSnapshot();
+        when(catalogVersionRepository.findById(CatalogVersion.ID))
+                .thenReturn(Optional.of(new CatalogVersion(CatalogVersion.ID, 8L, Instant.ofEpochSecond(1_700_000_060L))));
+
+        catalogService.refresh();
+
+        verify(catalogVersionRepository, times(1)).increment();
+        assertEquals("\"8\"", catalogService.getSnapshot().getETag());
+    }
+
+    @Test
+    void testRefresh_IncrementsVersionInsideTransaction() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogService.refresh();
+            verify(catalogVersionRepository, times(1)).increment();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testOnMessage_ReloadsOnlyForOtherNodes() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+        catalogService.refresh();
+        CatalogSnapshot refreshed = catalogService.getSnapshot();
+        String ownNodeId = captureNodeId();
+
+        catalogService.onMessage(ownNodeId);
+        assertSame(refreshed, catalogService.getSnapshot());
+
+        catalogService.onMessage("other-node");
+        assertNotSame(refreshed, catalogService.getSnapshot());
+    }
+
+    @Test
+    void testGetSnapshot_ReloadsWhileUnsynchronised() {
+        CatalogServiceImpl catalogService = createCatalogService(-1L);
+        catalogService.onSubscribed();
+        CatalogSnapshot synchronisedSnapshot = catalogService.getSnapshot();
+        assertSame(synchronisedSnapshot, catalogService.getSnapshot());
+
+        catalogService.onDisconnected();
+
+        assertNotSame(synchronisedSnapshot, catalogService.getSnapshot());
+    }
+
+    @Test
+    void testRefresh_DatabaseFailureDoesNotThrow() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+        CatalogSnapshot previous = catalogService.getSnapshot();
+        when(pizzaRepository.findAllWithIngredients()).thenThrow(new RuntimeException("Connection refused"));
+
+        assertDoesNotThrow(catalogService::refresh);
+
+        assertSame(previous, catalogService.getSnapshot());
+        verify(redisHelper, times(1)).publish(eq("catalog"), anyString());
+    }
+
+    @Test
+    void testRefresh_DeferredUntilCommit() {
+        CatalogServiceImpl catalogService = createCatalogService(5000L);
+        catalogService.onSubscribed();
+        CatalogSnapshot previous = catalogService.getSnapshot();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogService.refresh();
+            assertSame(previous, catalogService.getSnapshot());
+            verify(redisHelper, never()).publish(anyString(), anyString());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNotSame(previous, catalogService.getSnapshot());
+        verify(redisHelper, times(1)).publish(eq("catalog"), anyString());
+    }
+
+    private CatalogServiceImpl createCatalogService(Long unsynchronisedMaxAge) {
+        return new CatalogServiceImpl(
+                pizzaRepository,
+                ingredientRepository,
+                pizzaMapper,
+                ingredientMapper,
+                catalogVersionRepository,
+                objectMapper,
+                redisHelper,
+                unsynchronisedMaxAge,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    private byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private String captureNodeId() {
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(redisHelper, atLeastOnce()).publish(eq("catalog"), captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,114 @@
+package com.pizza.pizzashop.unit.services;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantServiceImpl;
+import com.pizza.pizzashop.utils.ImageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTests {
+    @TempDir
+    private Path root;
+    private ImageStore imageStore;
+    private SimpleMeterRegistry meterRegistry;
+    private ImageVariantServiceImpl imageVariantService;
+
+    @BeforeEach
+    public void setUp() {
+        imageStore = new ImageStore(root.toString());
+        meterRegistry = new SimpleMeterRegistry();
+        imageVariantService = new ImageVariantServiceImpl(imageStore, List.of(160, 480), 16, 1, 10, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        imageVariantService.close();
+    }
+
+    @Test
+    void testGenerateNow() throws IOException {
+        String hash = imageStore.store(createImage(320, 240, "jpeg"));
+
+        imageVariantService.generateNow(hash);
+
+        BufferedImage thumbnail = ImageIO.read(imageStore.resolveVariant(hash, "w160").toFile());
+        assertEquals(160, thumbnail.getWidth());
+        assertEquals(120, thumbnail.getHeight());
+        BufferedImage placeholder = ImageIO.read(imageStore.resolveVariant(hash, "placeholder").toFile());
+        assertEquals(16, placeholder.getWidth());
+        assertEquals(12, placeholder.getHeight());
+        assertEquals("image/jpeg", imageStore.contentType(imageStore.resolveVariant(hash, "w160")));
+        // Images are not scaled up
+        assertArrayEquals(
+                Files.readAllBytes(imageStore.resolve(hash)),
+                Files.readAllBytes(imageStore.resolveVariant(hash, "w480")));
+    }
+
+    @Test
+    void testGenerateNow_KeepsTransparency() throws IOException {
+        String hash = imageStore.store(createImage(320, 240, "png"));
+
+        imageVariantService.generateNow(hash);
+
+        assertEquals("image/png", imageStore.contentType(imageStore.resolveVariant(hash, "w160")));
+    }
+
+    @Test
+    void testGenerateNow_UnsupportedFormat() {
+        String hash = imageStore.store(new byte[]{1, 2, 3});
+
+        imageVariantService.generateNow(hash);
+
+        assertNull(imageStore.resolveVariant(hash, "w160"));
+    }
+
+    @Test
+    void testResolve_GeneratesInBackground() throws Exception {
+        String hash = imageStore.store(createImage(320, 240, "jpeg"));
+
+        assertNull(imageVariantService.resolve(hash, "160"));
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (imageStore.resolveVariant(hash, "placeholder") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(imageVariantService.resolve(hash, "160"));
+        assertNotNull(imageVariantService.resolve(hash, "placeholder"));
+        assertEquals(1, meterRegistry.get("image_variants.duration").timer().count());
+    }
+
+    @Test
+    void testResolve_UnsupportedSize() {
+        String hash = imageStore.store(new byte[]{1, 2, 3});
+
+        assertThrows(RequestDataValidationFailedException.class, () -> imageVariantService.resolve(hash, "1000"));
+        assertThrows(RequestDataValidationFailedException.class, () -> imageVariantService.resolve(hash, "../w160"));
+    }
+
+    private static byte[] createImage(int width, int height, String format) throws IOException {
+        boolean alpha = format.equals("png");
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return outputStream.toByteArray();
+    }
+}
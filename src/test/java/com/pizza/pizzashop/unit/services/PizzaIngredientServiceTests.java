@@ -1,17 +1,26 @@
 package com.pizza.pizzashop.unit.services;
 
 import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
 import com.pizza.pizzashop.entities.PizzaIngredient;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
 import com.pizza.pizzashop.mappers.PizzaIngredientMapper;
 import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
 import com.pizza.pizzashop.services.PizzaIngredientService.PizzaIngredientServiceImpl;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
+import jakarta.persistence.Tuple;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -25,6 +34,8 @@ class PizzaIngredientServiceTests {
     private PizzaIngredientRepository ingredientRepository;
     @Mock
     private PizzaIngredientMapper ingredientMapper;
+    @Mock
+    private CatalogService catalogService;
     @InjectMocks
     private PizzaIngredientServiceImpl pizzaIngredientService;
 
@@ -35,15 +46,10 @@ class PizzaIngredientServiceTests {
 
     @Test
     void testGetAllIngredients() {
-        PizzaIngredient ingredient1 = new PizzaIngredient(1L, "Томаты", 20);
-        PizzaIngredient ingredient2 = new PizzaIngredient(2L, "Сыр", 30);
-        List<PizzaIngredient> ingredients = Arrays.asList(ingredient1, ingredient2);
-        when(ingredientRepository.findAll()).thenReturn(ingredients);
-
         PizzaIngredientDTO ingredientDTO1 = new PizzaIngredientDTO(1L, "Томаты", 20);
         PizzaIngredientDTO ingredientDTO2 = new PizzaIngredientDTO(2L, "Сыр", 30);
-        when(ingredientMapper.toDto(ingredient1)).thenReturn(ingredientDTO1);
-        when(ingredientMapper.toDto(ingredient2)).thenReturn(ingredientDTO2);
+        when(catalogService.getSnapshot()).thenReturn(new CatalogSnapshot(
+                1, 0, 1, 0, List.of(), Arrays.asList(ingredientDTO1, ingredientDTO2), new byte[0], new byte[0], new byte[0], new byte[0]));
 
         List<PizzaIngredientDTO> result = pizzaIngredientService.getAllIngredients();
 
@@ -52,9 +58,56 @@ class PizzaIngredientServiceTests {
         assertEquals(ingredientDTO1, result.get(0));
         assertEquals(ingredientDTO2, result.get(1));
 
-        verify(ingredientRepository, times(1)).findAll();
-        verify(ingredientMapper, times(1)).toDto(ingredient1);
-        verify(ingredientMapper, times(1)).toDto(ingredient2);
+        verifyNoInteractions(ingredientRepository, ingredientMapper);
+    }
+
+    @Test
+    void testGetIngredientPage() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                "name", null, 1, null, null, null, null, "с", Set.of("id", "name"));
+        PizzaIngredient ingredient1 = new PizzaIngredient(2L, "Сыр", 30);
+        PizzaIngredient ingredient2 = new PizzaIngredient(5L, "Сырный соус", 40);
+        when(ingredientRepository.findPage(request)).thenReturn(List.of(ingredient1, ingredient2));
+        PizzaIngredientDTO ingredientDTO1 = new PizzaIngredientDTO(2L, "Сыр", 30);
+        when(ingredientMapper.toDto(ingredient1)).thenReturn(ingredientDTO1);
+
+        CursorPageDTO<PizzaIngredientDTO> page = pizzaIngredientService.getIngredientPage(request);
+
+        assertEquals(List.of(ingredientDTO1), page.getItems());
+        CatalogPageRequest next = CatalogPageRequest.parse(
+                "name", page.getNextCursor(), 1, null, null, null, null, "с", Set.of("id", "name"));
+        assertEquals(2L, next.getAfterId());
+        assertEquals("Сыр", next.getAfterValue());
+        verify(ingredientMapper, never()).toDto(ingredient2);
+    }
+
+    @Test
+    void testGetIngredientFieldsPage() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                "-price", null, 1, null, null, null, null, null, Set.of("id", "price"));
+        FieldSelection fields = FieldSelection.parse("name", List.of("id", "name", "addPrice"));
+        Tuple first = tuple(Map.of("id", 5L, "name", "Сырный соус", "addPrice", 40));
+        Tuple second = tuple(Map.of("id", 2L, "name", "Сыр", "addPrice", 30));
+        when(ingredientRepository.findPageFields(request, Set.of("id", "name", "addPrice"))).thenReturn(List.of(first, second));
+
+        CursorPageDTO<Map<String, Object>> page = pizzaIngredientService.getIngredientFieldsPage(request, fields);
+
+        assertEquals(List.of(Map.of("id", 5L, "name", "Сырный соус")), page.getItems());
+        CatalogPageRequest next = CatalogPageRequest.parse(
+                "-price", page.getNextCursor(), 1, null, null, null, null, null, Set.of("id", "price"));
+        assertEquals(5L, next.getAfterId());
+        assertEquals(40, next.getAfterValue());
+        verifyNoInteractions(ingredientMapper);
+    }
+
+    @Test
+    void testGetIngredientFieldsById() throws RequestDataValidationFailedException {
+        FieldSelection fields = FieldSelection.parse("addPrice", List.of("id", "name", "addPrice"));
+        Tuple row = tuple(Map.of("id", 1L, "addPrice", 20));
+        when(ingredientRepository.findFieldsById(1L, fields.getFields())).thenReturn(Optional.of(row));
+
+        assertEquals(Map.of("id", 1L, "addPrice", 20), pizzaIngredientService.getIngredientFieldsById(1L, fields));
+        assertNull(pizzaIngredientService.getIngredientFieldsById(2L, fields));
     }
 
     @Test
@@ -145,5 +198,12 @@ class PizzaIngredientServiceTests {
         pizzaIngredientService.deleteIngredient(1L);
         
         verify(ingredientRepository, times(1)).deleteById(1L);
+        verify(catalogService, times(1)).refresh();
+    }
+
+    private Tuple tuple(Map<String, Object> values) {
+        Tuple tuple = mock(Tuple.class);
+        values.forEach((alias, value) -> when(tuple.get(alias)).thenReturn(value));
+        return tuple;
     }
 }
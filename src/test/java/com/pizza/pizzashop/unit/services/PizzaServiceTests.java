@@ -2,13 +2,22 @@ package com.pizza.pizzashop.unit.services;
 
 import com.pizza.pizzashop.dtos.PizzaDTO;
 import com.pizza.pizzashop.dtos.PizzaIngredientDTO;
+import com.pizza.pizzashop.dtos.basic.CursorPageDTO;
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
 import com.pizza.pizzashop.entities.Pizza;
 import com.pizza.pizzashop.entities.PizzaIngredient;
 import com.pizza.pizzashop.mappers.PizzaMapper;
 import com.pizza.pizzashop.repositories.PizzaIngredientRepository;
 import com.pizza.pizzashop.repositories.PizzaRepository;
+import com.pizza.pizzashop.repositories.PizzaRepositoryCustom;
+import com.pizza.pizzashop.services.CatalogService.CatalogService;
+import com.pizza.pizzashop.services.CatalogService.CatalogSnapshot;
+import com.pizza.pizzashop.services.ImageVariantService.ImageVariantService;
 import com.pizza.pizzashop.services.PizzaService.PizzaServiceImpl;
-
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.FieldSelection;
+import com.pizza.pizzashop.utils.ImageStore;
+import jakarta.persistence.Tuple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -18,9 +27,12 @@ import org.mockito.MockitoAnnotations;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 
@@ -31,6 +43,12 @@ class PizzaServiceTests {
     private PizzaIngredientRepository ingredientRepository;
     @Mock
     private PizzaMapper pizzaMapper;
+    @Mock
+    private ImageStore imageStore;
+    @Mock
+    private ImageVariantService imageVariantService;
+    @Mock
+    private CatalogService catalogService;
     @InjectMocks
     private PizzaServiceImpl pizzaService;
 
@@ -41,29 +59,129 @@ class PizzaServiceTests {
 
     @Test
     void testGetAllPizzas() {
-        List<Pizza> pizzas = Arrays.asList(
-                new Pizza(1L, "Маргарита", 300, 10, "cool", "margherita.jpg", new ArrayList<>()),
-                new Pizza(2L, "Пепперони", 400, 12, "cool2", "pepperoni.jpg", new ArrayList<>())
-        );
-        when(pizzaRepository.findAll()).thenReturn(pizzas);
-
         List<PizzaDTO> pizzaDTOs = Arrays.asList(
                 new PizzaDTO(1L, "Маргарита", 300, 10, "cool", "margherita.jpg", null),
                 new PizzaDTO(2L, "Пепперони", 400, 12, "cool2", "pepperoni.jpg", null)
         );
-        when(pizzaMapper.toDTO(any(Pizza.class))).thenReturn(pizzaDTOs.get(0), pizzaDTOs.get(1));
+        when(catalogService.getSnapshot())
+                .thenReturn(new CatalogSnapshot(1, 0, 1, 0, pizzaDTOs, List.of(), new byte[0], new byte[0], new byte[0], new byte[0]));
 
         List<PizzaDTO> result = pizzaService.getAllPizzas();
 
         assertEquals(2, result.size());
         assertEquals(pizzaDTOs, result);
-        verify(pizzaRepository, times(1)).findAll();
+        verifyNoInteractions(pizzaRepository);
+    }
+
+    @Test
+    void testGetPizzaPage() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                "-price", null, 2, null, null, null, null, null, Set.of("id", "price"));
+        Pizza pizza1 = new Pizza(3L, "Маргарита", 300, 900, "cool", null, new ArrayList<>());
+        Pizza pizza2 = new Pizza(1L, "Пепперони", 400, 800, "cool2", null, new ArrayList<>());
+        List<Tuple> rows = List.of(pageRow(3L, 900), pageRow(1L, 800), pageRow(2L, 700));
+        when(pizzaRepository.findPageIds(request)).thenReturn(rows);
+        // Loaded in any order, returned in the order of the page
+        when(pizzaRepository.findWithIngredientsByIdIn(List.of(3L, 1L))).thenReturn(List.of(pizza2, pizza1));
+        PizzaDTO pizzaDTO1 = new PizzaDTO(3L, "Маргарита", 300, 900, "cool", null, null);
+        PizzaDTO pizzaDTO2 = new PizzaDTO(1L, "Пепперони", 400, 800, "cool2", null, null);
+        when(pizzaMapper.toDTO(pizza1)).thenReturn(pizzaDTO1);
+        when(pizzaMapper.toDTO(pizza2)).thenReturn(pizzaDTO2);
+
+        CursorPageDTO<PizzaDTO> page = pizzaService.getPizzaPage(request);
+
+        assertEquals(List.of(pizzaDTO1, pizzaDTO2), page.getItems());
+        CatalogPageRequest next = CatalogPageRequest.parse(
+                "-price", page.getNextCursor(), 2, null, null, null, null, null, Set.of("id", "price"));
+        assertEquals(1L, next.getAfterId());
+        assertEquals(800, next.getAfterValue());
+    }
+
+    @Test
+    void testGetPizzaPage_LastPage() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                null, null, 2, null, null, null, null, null, Set.of("id"));
+        Pizza pizza = new Pizza(1L, "Маргарита", 300, 900, "cool", null, new ArrayList<>());
+        List<Tuple> rows = List.of(tuple(Map.of(PizzaRepositoryCustom.PIZZA_ID, 1L)));
+        when(pizzaRepository.findPageIds(request)).thenReturn(rows);
+        when(pizzaRepository.findWithIngredientsByIdIn(List.of(1L))).thenReturn(List.of(pizza));
+        when(pizzaMapper.toDTO(pizza)).thenReturn(new PizzaDTO(1L, "Маргарита", 300, 900, "cool", null, null));
+
+        CursorPageDTO<PizzaDTO> page = pizzaService.getPizzaPage(request);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetPizzaPage_DeletedInBetween() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                "-price", null, 2, null, null, null, null, null, Set.of("id", "price"));
+        List<Tuple> rows = List.of(pageRow(3L, 900), pageRow(1L, 800), pageRow(2L, 700));
+        when(pizzaRepository.findPageIds(request)).thenReturn(rows);
+        when(pizzaRepository.findWithIngredientsByIdIn(List.of(3L, 1L))).thenReturn(List.of());
+
+        CursorPageDTO<PizzaDTO> page = pizzaService.getPizzaPage(request);
+
+        assertTrue(page.getItems().isEmpty());
+        CatalogPageRequest next = CatalogPageRequest.parse(
+                "-price", page.getNextCursor(), 2, null, null, null, null, null, Set.of("id", "price"));
+        assertEquals(1L, next.getAfterId());
+        assertEquals(800, next.getAfterValue());
+    }
+
+    @Test
+    void testGetPizzaFieldsPage_SelectsRequestedColumnsAndSortedOne() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                "price", null, 1, null, null, null, null, null, Set.of("id", "price"));
+        FieldSelection fields = FieldSelection.parse("name", List.of("id", "name", "price", "description", "ingredients"));
+        Tuple first = tuple(Map.of("id", 3L, "name", "Маргарита", "price", 700));
+        Tuple second = tuple(Map.of("id", 1L, "name", "Пепперони", "price", 800));
+        when(pizzaRepository.findPageFields(request, Set.of("id", "name", "price"))).thenReturn(List.of(first, second));
+
+        CursorPageDTO<Map<String, Object>> page = pizzaService.getPizzaFieldsPage(request, fields);
+
+        assertEquals(List.of(Map.of("id", 3L, "name", "Маргарита")), page.getItems());
+        assertEquals(List.of("id", "name"), List.copyOf(page.getItems().get(0).keySet()));
+        CatalogPageRequest next = CatalogPageRequest.parse(
+                "price", page.getNextCursor(), 1, null, null, null, null, null, Set.of("id", "price"));
+        assertEquals(3L, next.getAfterId());
+        assertEquals(700, next.getAfterValue());
+        verify(pizzaRepository, never()).findIngredientsByPizzaIdIn(anyCollection());
+    }
+
+    @Test
+    void testGetPizzaFieldsById_WithIngredients() throws RequestDataValidationFailedException {
+        FieldSelection fields = FieldSelection.parse("imageUrl,ingredients", List.of("id", "imageUrl", "ingredients"));
+        Tuple row = tuple(Map.of("id", 1L, "imageUrl", "abc"));
+        when(pizzaRepository.findFieldsById(1L, fields.getFields())).thenReturn(Optional.of(row));
+        PizzaIngredient ingredient = new PizzaIngredient(5L, "Томаты", 20);
+        PizzaIngredientDTO ingredientDTO = new PizzaIngredientDTO(5L, "Томаты", 20);
+        Tuple ingredientRow = tuple(Map.of(PizzaRepositoryCustom.PIZZA_ID, 1L, PizzaRepositoryCustom.INGREDIENT, ingredient));
+        when(pizzaRepository.findIngredientsByPizzaIdIn(List.of(1L))).thenReturn(List.of(ingredientRow));
+        when(pizzaMapper.toDTO(ingredient)).thenReturn(ingredientDTO);
+        when(pizzaMapper.imageUrl("abc")).thenReturn("/api/pizza/image/abc");
+
+        Map<String, Object> pizza = pizzaService.getPizzaFieldsById(1L, fields);
+
+        assertEquals(1L, pizza.get("id"));
+        assertEquals("/api/pizza/image/abc", pizza.get("imageUrl"));
+        assertEquals(List.of(ingredientDTO), pizza.get("ingredients"));
+    }
+
+    @Test
+    void testGetPizzaFieldsById_NonExistingPizza() throws RequestDataValidationFailedException {
+        FieldSelection fields = FieldSelection.parse("ingredients", List.of("id", "ingredients"));
+        when(pizzaRepository.findFieldsById(1L, fields.getFields())).thenReturn(Optional.empty());
+
+        assertNull(pizzaService.getPizzaFieldsById(1L, fields));
+        verify(pizzaRepository, never()).findIngredientsByPizzaIdIn(anyCollection());
     }
 
     @Test
     void testGetPizzaById() {
         Pizza pizza = new Pizza(1L, "Маргарита", 300, 10, "cool", "margherita.jpg", new ArrayList<>());
-        when(pizzaRepository.findById(1L)).thenReturn(Optional.of(pizza));
+        when(pizzaRepository.findWithIngredientsById(1L)).thenReturn(Optional.of(pizza));
 
         PizzaDTO pizzaDTO = new PizzaDTO(1L, "Маргарита", 300, 10, "cool", "margherita.jpg", new ArrayList<>());
         when(pizzaMapper.toDTO(pizza)).thenReturn(pizzaDTO);
@@ -72,17 +190,17 @@ class PizzaServiceTests {
 
         assertNotNull(result);
         assertEquals(pizzaDTO, result);
-        verify(pizzaRepository, times(1)).findById(1L);
+        verify(pizzaRepository, times(1)).findWithIngredientsById(1L);
     }
 
     @Test
     void testGetPizzaById_PizzaNotFound() {
-        when(pizzaRepository.findById(1L)).thenReturn(Optional.empty());
+        when(pizzaRepository.findWithIngredientsById(1L)).thenReturn(Optional.empty());
 
         PizzaDTO result = pizzaService.getPizzaById(1L);
 
         assertNull(result);
-        verify(pizzaRepository, times(1)).findById(1L);
+        verify(pizzaRepository, times(1)).findWithIngredientsById(1L);
     }
 
     @Test
@@ -98,6 +216,7 @@ class PizzaServiceTests {
 
         Pizza savedPizza = new Pizza(1L, "Маргарита", 300, 10, "cool", "img", Arrays.asList(ingredient1, ingredient2));
         when(pizzaMapper.toEntity(pizzaDTO)).thenReturn(savedPizza);
+        when(imageStore.storeBase64("img")).thenReturn("hash");
         when(pizzaRepository.save(any(Pizza.class))).thenReturn(savedPizza);
         when(pizzaMapper.toDTO(savedPizza)).thenReturn(pizzaDTO);
 
@@ -107,6 +226,8 @@ class PizzaServiceTests {
         assertEquals(pizzaDTO.getName(), result.getName());
         assertEquals(pizzaDTO.getIngredients().size(), result.getIngredients().size());
 
+        assertEquals("hash", savedPizza.getImageHash());
+        verify(imageVariantService, times(1)).generate("hash");
         verify(pizzaRepository, times(1)).save(savedPizza);
         verify(pizzaMapper, times(1)).toDTO(savedPizza);
     }
@@ -116,8 +237,9 @@ class PizzaServiceTests {
         PizzaDTO updatedPizzaDTO = new PizzaDTO(1L, "Маргарита нью", 350, 12, "cool", "margherita.jpg", new ArrayList<>());
         Pizza existingPizza = new Pizza(1L, "Маргарита", 300, 10, "cool", "margherita.jpg", new ArrayList<>());
 
-        when(pizzaRepository.findById(1L)).thenReturn(Optional.of(existingPizza));
+        when(pizzaRepository.findWithIngredientsById(1L)).thenReturn(Optional.of(existingPizza));
         when(pizzaMapper.partialUpdate(updatedPizzaDTO, existingPizza)).thenReturn(existingPizza);
+        when(imageStore.storeBase64("margherita.jpg")).thenReturn("hash");
 
         PizzaIngredient ingredient1 = new PizzaIngredient(1L, "Томаты", 20);
         PizzaIngredient ingredient2 = new PizzaIngredient(2L, "Сыр", 20);
@@ -132,22 +254,24 @@ class PizzaServiceTests {
         assertNotNull(result);
         assertEquals(updatedPizzaDTO, result);
 
-        verify(pizzaRepository, times(1)).findById(1L);
+        verify(pizzaRepository, times(1)).findWithIngredientsById(1L);
         verify(pizzaMapper, times(1)).partialUpdate(updatedPizzaDTO, existingPizza);
+        assertEquals("hash", existingPizza.getImageHash());
         verify(pizzaRepository, times(1)).save(existingPizza);
+        verify(imageVariantService, times(1)).generate(updatedPizza.getImageHash());
         verify(pizzaMapper, times(1)).toDTO(updatedPizza);
     }
 
     @Test
     void testUpdate_InvalidPizzaId() {
         PizzaDTO updatedPizzaDTO = new PizzaDTO(1L, "Маргарита нью", 350, 12, "cool", "margherita.jpg", new ArrayList<>());
-        when(pizzaRepository.findById(1L)).thenReturn(Optional.empty());
+        when(pizzaRepository.findWithIngredientsById(1L)).thenReturn(Optional.empty());
 
         PizzaDTO result = pizzaService.updatePizza(1L, updatedPizzaDTO);
 
         assertNull(result);
 
-        verify(pizzaRepository, times(1)).findById(1L);
+        verify(pizzaRepository, times(1)).findWithIngredientsById(1L);
     }
 
     @Test
@@ -157,5 +281,16 @@ class PizzaServiceTests {
         pizzaService.deletePizza(pizzaId);
 
         verify(pizzaRepository, times(1)).deleteById(pizzaId);
+        verify(catalogService, times(1)).refresh();
+    }
+
+    private Tuple pageRow(Long id, Integer sortValue) {
+        return tuple(Map.of(PizzaRepositoryCustom.PIZZA_ID, id, PizzaRepositoryCustom.SORT_VALUE, sortValue));
+    }
+
+    private Tuple tuple(Map<String, Object> values) {
+        Tuple tuple = mock(Tuple.class);
+        values.forEach((alias, value) -> when(tuple.get(alias)).thenReturn(value));
+        return tuple;
     }
-}
\ No newline at end of file
+}
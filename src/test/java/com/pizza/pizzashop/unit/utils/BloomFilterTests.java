@@ -0,0 +1,43 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.utils.BloomFilter;
+import com.pizza.pizzashop.utils.TokenDigest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTests {
+    @Test
+    void testMightContain_AddedValues() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(TokenDigest.of("token" + i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bloomFilter.mightContain(TokenDigest.of("token" + i)));
+        }
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRate() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(TokenDigest.of("token" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (bloomFilter.mightContain(TokenDigest.of("other" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "Too many false positives: " + falsePositives);
+    }
+
+    @Test
+    void testCreate_InvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1));
+    }
+}
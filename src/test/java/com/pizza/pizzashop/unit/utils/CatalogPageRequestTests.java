@@ -0,0 +1,77 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.utils.CatalogPageRequest;
+import com.pizza.pizzashop.utils.KeysetCursor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogPageRequestTests {
+    private static final Set<String> SORT_KEYS = Set.of(
+            CatalogPageRequest.SORT_ID,
+            CatalogPageRequest.SORT_NAME,
+            CatalogPageRequest.SORT_PRICE
+    );
+
+    @Test
+    void testParse_Defaults() throws RequestDataValidationFailedException {
+        CatalogPageRequest request = CatalogPageRequest.parse(
+                null, null, null, null, null, null, null, "  Марг ", SORT_KEYS);
+
+        assertEquals(CatalogPageRequest.SORT_ID, request.getSortKey());
+        assertFalse(request.isDescending());
+        assertEquals(CatalogPageRequest.DEFAULT_LIMIT, request.getLimit());
+        assertNull(request.getAfterId());
+        assertEquals("марг", request.getNamePrefix());
+    }
+
+    @Test
+    void testCursorAfter_RoundTrip() throws RequestDataValidationFailedException {
+        CatalogPageRequest first = CatalogPageRequest.parse(
+                "-price", null, 10, null, null, null, null, null, SORT_KEYS);
+        String cursor = first.cursorAfter(42L, 800);
+
+        CatalogPageRequest next = CatalogPageRequest.parse(
+                "-price", cursor, 10, null, null, null, null, null, SORT_KEYS);
+
+        assertTrue(next.isDescending());
+        assertEquals(42L, next.getAfterId());
+        assertEquals(800, next.getAfterValue());
+    }
+
+    @Test
+    void testCursorAfter_NameWithSeparators() throws RequestDataValidationFailedException {
+        CatalogPageRequest first = CatalogPageRequest.parse(
+                "name", null, null, null, null, null, null, null, SORT_KEYS);
+        String cursor = first.cursorAfter(7L, "Четыре\nсыра");
+
+        assertFalse(cursor.contains("="));
+        KeysetCursor decoded = KeysetCursor.decode(cursor);
+        assertEquals("name", decoded.getSort());
+        assertEquals("Четыре\nсыра", decoded.getValue());
+    }
+
+    @Test
+    void testParse_CursorOfAnotherSortOrder() throws RequestDataValidationFailedException {
+        String cursor = CatalogPageRequest.parse("price", null, null, null, null, null, null, null, SORT_KEYS)
+                .cursorAfter(1L, 500);
+
+        assertThrows(RequestDataValidationFailedException.class, () -> CatalogPageRequest.parse(
+                "-price", cursor, null, null, null, null, null, null, SORT_KEYS));
+    }
+
+    @Test
+    void testParse_InvalidParameters() {
+        assertThrows(RequestDataValidationFailedException.class, () -> CatalogPageRequest.parse(
+                "weight", null, null, null, null, null, null, null, SORT_KEYS));
+        assertThrows(RequestDataValidationFailedException.class, () -> CatalogPageRequest.parse(
+                null, null, CatalogPageRequest.MAX_LIMIT + 1, null, null, null, null, null, SORT_KEYS));
+        assertThrows(RequestDataValidationFailedException.class, () -> CatalogPageRequest.parse(
+                null, null, null, 900, 100, null, null, null, SORT_KEYS));
+        assertThrows(RequestDataValidationFailedException.class, () -> CatalogPageRequest.parse(
+                null, "not a cursor!", null, null, null, null, null, null, SORT_KEYS));
+    }
+}
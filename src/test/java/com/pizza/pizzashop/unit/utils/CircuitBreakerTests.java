@@ -0,0 +1,73 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.utils.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTests {
+    private static final long OPEN = 1000;
+    private static final long BUDGET = 10;
+
+    @Test
+    void testOnFailure_OpensAfterThreshold() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, OPEN, BUDGET);
+
+        circuitBreaker.onFailure(0);
+        circuitBreaker.onFailure(0);
+        assertTrue(circuitBreaker.tryAcquirePermission(0));
+        circuitBreaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission(OPEN - 1));
+    }
+
+    @Test
+    void testOnSuccess_ResetsFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, OPEN, BUDGET);
+
+        circuitBreaker.onFailure(0);
+        circuitBreaker.onSuccess(1, 0);
+        circuitBreaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testOnSuccess_SlowCallCountsAsFailure() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, OPEN, BUDGET);
+
+        circuitBreaker.onSuccess(BUDGET + 1, 0);
+        circuitBreaker.onSuccess(BUDGET + 1, 0);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testTryAcquirePermission_SingleProbe() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, OPEN, BUDGET);
+        circuitBreaker.onFailure(0);
+
+        assertTrue(circuitBreaker.tryAcquirePermission(OPEN));
+        assertFalse(circuitBreaker.tryAcquirePermission(OPEN));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess(1, OPEN);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission(OPEN));
+    }
+
+    @Test
+    void testOnFailure_FailedProbeReopens() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, OPEN, BUDGET);
+        circuitBreaker.onFailure(0);
+        circuitBreaker.tryAcquirePermission(OPEN);
+
+        circuitBreaker.onFailure(OPEN);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission(2 * OPEN - 1));
+        assertTrue(circuitBreaker.tryAcquirePermission(2 * OPEN));
+    }
+}
@@ -0,0 +1,45 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.utils.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTests {
+    @Test
+    void testReadRecord_PlainAndQuotedFields() throws IOException, RequestDataValidationFailedException {
+        CsvReader reader = new CsvReader(new StringReader("name,price\r\n\"Four, \"\"cheese\"\"\",650\nMargherita,\n"));
+
+        assertEquals(List.of("name", "price"), reader.readRecord());
+        assertEquals(1, reader.getLine());
+        assertEquals(List.of("Four, \"cheese\"", "650"), reader.readRecord());
+        assertEquals(2, reader.getLine());
+        assertEquals(List.of("Margherita", ""), reader.readRecord());
+        assertEquals(3, reader.getLine());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void testReadRecord_LineBreakInQuotedField() throws IOException, RequestDataValidationFailedException {
+        CsvReader reader = new CsvReader(new StringReader("\"Thin crust\nwood-fired\",1\nlast,2"));
+
+        assertEquals(List.of("Thin crust\nwood-fired", "1"), reader.readRecord());
+        assertEquals(1, reader.getLine());
+        assertEquals(List.of("last", "2"), reader.readRecord());
+        assertEquals(3, reader.getLine());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void testReadRecord_UnterminatedQuote() throws IOException, RequestDataValidationFailedException {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"never closed,1\n"));
+
+        assertEquals(List.of("ok"), reader.readRecord());
+        assertThrows(RequestDataValidationFailedException.class, reader::readRecord);
+    }
+}
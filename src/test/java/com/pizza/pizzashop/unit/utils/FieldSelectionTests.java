@@ -0,0 +1,35 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
+import com.pizza.pizzashop.utils.FieldSelection;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldSelectionTests {
+    private static final List<String> FIELDS = List.of("id", "name", "price", "description", "ingredients");
+
+    @Test
+    void testParse_AddsIdAndKeepsResponseOrder() throws RequestDataValidationFailedException {
+        FieldSelection selection = FieldSelection.parse(" price, name ,price", FIELDS);
+
+        assertEquals(List.of("id", "name", "price"), List.copyOf(selection.getFields()));
+        assertTrue(selection.contains("name"));
+        assertFalse(selection.contains("description"));
+    }
+
+    @Test
+    void testParse_UnknownField() {
+        RequestDataValidationFailedException e = assertThrows(RequestDataValidationFailedException.class,
+                () -> FieldSelection.parse("name,image", FIELDS));
+        assertTrue(e.getMessage().contains("'image'"));
+    }
+
+    @Test
+    void testParse_Empty() {
+        assertThrows(RequestDataValidationFailedException.class, () -> FieldSelection.parse(" ", FIELDS));
+        assertThrows(RequestDataValidationFailedException.class, () -> FieldSelection.parse("name,,price", FIELDS));
+    }
+}
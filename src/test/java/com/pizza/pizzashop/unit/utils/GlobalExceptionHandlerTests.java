@@ -4,12 +4,16 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.pizza.pizzashop.dtos.basic.ErrorDTO;
+import com.pizza.pizzashop.exceptions.LoginThrottledException;
+import com.pizza.pizzashop.exceptions.PasswordHashingOverloadedException;
+import com.pizza.pizzashop.exceptions.RedisUnavailableException;
 import com.pizza.pizzashop.exceptions.RequestDataValidationFailedException;
 import com.pizza.pizzashop.utils.GlobalExceptionHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -51,6 +55,37 @@ class GlobalExceptionHandlerTests {
         assertEquals(exception.getMessage(), ((ErrorDTO) responseEntity.getBody()).getMessage());
     }
 
+    @Test
+    void testHandlePasswordHashingOverloadedException() {
+        PasswordHashingOverloadedException exception = new PasswordHashingOverloadedException("Overloaded", 3);
+        ResponseEntity<ErrorDTO> responseEntity = globalExceptionHandler.handlePasswordHashingOverloadedException(exception);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertEquals("3", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), responseEntity.getBody().getStatusCode());
+        assertEquals(exception.getMessage(), responseEntity.getBody().getMessage());
+    }
+
+    @Test
+    void testHandleRedisUnavailableException() {
+        RedisUnavailableException exception = new RedisUnavailableException("Redis circuit breaker is open");
+        ResponseEntity<ErrorDTO> responseEntity = globalExceptionHandler.handleRedisUnavailableException(exception);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), responseEntity.getBody().getStatusCode());
+        assertNotEquals(exception.getMessage(), responseEntity.getBody().getMessage());
+    }
+
+    @Test
+    void testHandleLoginThrottledException() {
+        LoginThrottledException exception = new LoginThrottledException("Throttled", 42);
+        ResponseEntity<ErrorDTO> responseEntity = globalExceptionHandler.handleLoginThrottledException(exception);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, responseEntity.getStatusCode());
+        assertEquals("42", responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), responseEntity.getBody().getStatusCode());
+    }
+
     @Test
     void testHandleValidationResults() {
         FieldError fieldError1 = new FieldError("objectName", "fieldName1", "Error message 1");
@@ -0,0 +1,65 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.utils.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageStoreTests {
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+    @TempDir
+    private Path root;
+    private ImageStore imageStore;
+
+    @BeforeEach
+    public void setUp() {
+        imageStore = new ImageStore(root.toString());
+    }
+
+    @Test
+    void testStore() throws IOException {
+        String hash = imageStore.store(PNG);
+
+        assertEquals(64, hash.length());
+        Path path = imageStore.resolve(hash);
+        assertEquals(root.resolve(hash.substring(0, 2)).resolve(hash), path);
+        assertArrayEquals(PNG, Files.readAllBytes(path));
+        assertEquals("image/png", imageStore.contentType(path));
+    }
+
+    @Test
+    void testStore_SameContentOnce() throws IOException {
+        String first = imageStore.store(PNG);
+        String second = imageStore.store(PNG.clone());
+
+        assertEquals(first, second);
+        try (var files = Files.list(root.resolve(first.substring(0, 2)))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testStoreBase64() {
+        String encoded = Base64.getEncoder().encodeToString(PNG);
+
+        assertEquals(imageStore.store(PNG), imageStore.storeBase64(encoded));
+        assertEquals(imageStore.store(PNG), imageStore.storeBase64("data:image/png;base64," + encoded));
+        assertThrows(IllegalArgumentException.class, () -> imageStore.storeBase64("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> imageStore.storeBase64(""));
+    }
+
+    @Test
+    void testResolve_Unknown() {
+        assertNull(imageStore.resolve("0".repeat(64)));
+        assertNull(imageStore.resolve("../../etc/passwd"));
+        assertNull(imageStore.resolve(null));
+    }
+}
@@ -2,10 +2,15 @@ package com.pizza.pizzashop.unit.utils;
 
 import com.pizza.pizzashop.exceptions.TokenValidationException;
 import com.pizza.pizzashop.security.CustomUserDetails;
+import com.pizza.pizzashop.security.SigningKey;
+import com.pizza.pizzashop.security.SigningKeyService.SigningKeyService;
+import com.pizza.pizzashop.security.VerifiedToken;
 import com.pizza.pizzashop.utils.JWTHelper;
+import com.pizza.pizzashop.utils.TokenDigest;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +19,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import java.security.KeyPair;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 class JWTHelperTests {
@@ -37,6 +48,7 @@ class JWTHelperTests {
         MockitoAnnotations.openMocks(this);
         jwtHelper.setSecretKeyString(secretKeyString);
         jwtHelper.setTokenLifetime(tokenLifetime);
+        jwtHelper.setMaxClaimsAge(300000);
     }
 
     @Test
@@ -45,9 +57,10 @@ class JWTHelperTests {
         when(userDetails.getId()).thenReturn(userId);
         when(authentication.getPrincipal()).thenReturn(userDetails);
 
-        String token =  jwtHelper.generateToken(authentication);
+        String token =  jwtHelper.generateToken(authentication, 2L);
         assertNotNull(token);
-        assertTrue(jwtHelper.validateToken(token));
+        assertEquals(userId, jwtHelper.verifyToken(token).getUserId());
+        assertEquals(2L, jwtHelper.verifyToken(token).getEpoch());
 
         Jws<Claims> claims = Jwts.parserBuilder()
                 .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)))
@@ -59,38 +72,144 @@ class JWTHelperTests {
     }
 
     @Test
-    void testValidateToken_() throws TokenValidationException {
-        String token = generateValidToken();
+    void testVerifyToken() throws TokenValidationException {
+        Long userId = 123L;
+        String token = generateValidToken(userId);
+
+        VerifiedToken verifiedToken = jwtHelper.verifyToken(token);
+
+        assertEquals(userId, verifiedToken.getUserId());
+        assertEquals(TokenDigest.of(token), verifiedToken.getDigest());
+        assertNotNull(verifiedToken.getIssuedAt());
+        assertTrue(verifiedToken.getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void testGenerateToken_Stateless() throws TokenValidationException {
+        jwtHelper.setStatelessEnabled(true);
+        when(authentication.getPrincipal()).thenReturn(createUserDetails());
+
+        String token = jwtHelper.generateToken(authentication, 0L);
+        CustomUserDetails userDetails = jwtHelper.verifyToken(token).getUserDetails();
+
+        assertNotNull(userDetails);
+        assertEquals(123L, userDetails.getId());
+        assertEquals("johndoe", userDetails.getUsername());
+        assertEquals("johndoe@mail.example", userDetails.getEmail());
+        assertEquals("+79999999999", userDetails.getPhonenumber());
+        assertEquals("John", userDetails.getName());
+        assertEquals("Doe", userDetails.getSurname());
+        assertNull(userDetails.getPassword());
+        assertEquals(List.of("ROLE_ADMIN"),
+                userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void testVerifyToken_StatelessDisabled() throws TokenValidationException {
+        jwtHelper.setStatelessEnabled(true);
+        when(authentication.getPrincipal()).thenReturn(createUserDetails());
+        String token = jwtHelper.generateToken(authentication, 0L);
 
-        assertTrue(jwtHelper.validateToken(token));
+        jwtHelper.setStatelessEnabled(false);
+
+        assertNull(jwtHelper.verifyToken(token).getUserDetails());
+    }
+
+    @Test
+    void testVerifyToken_StatelessStaleClaims() throws TokenValidationException {
+        jwtHelper.setStatelessEnabled(true);
+        jwtHelper.setMaxClaimsAge(60000);
+        String token = Jwts.builder()
+                .setClaims(new HashMap<>(Map.of("roles", List.of("ROLE_ADMIN"), "login", "johndoe")))
+                .setSubject("123")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120000))
+                .setExpiration(new Date(System.currentTimeMillis() + tokenLifetime))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)))
+                .compact();
+
+        VerifiedToken verifiedToken = jwtHelper.verifyToken(token);
+
+        assertEquals(123L, verifiedToken.getUserId());
+        assertNull(verifiedToken.getUserDetails());
     }
 
     @Test
-    void testValidateToken_InvalidToken() {
+    void testVerifyToken_InvalidToken() {
         String invalidToken = "totally.invalid.token";
 
-        assertThrows(TokenValidationException.class ,() -> jwtHelper.validateToken(invalidToken));
+        assertThrows(TokenValidationException.class, () -> jwtHelper.verifyToken(invalidToken));
     }
 
     @Test
-    void testExtractUserId() {
-        Long userId = 123L;
-        String token = generateValidToken(userId);
+    void testVerifyToken_ExpiredToken() {
+        String expiredToken = Jwts.builder()
+                .setSubject("123")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 2 * tokenLifetime))
+                .setExpiration(new Date(System.currentTimeMillis() - tokenLifetime))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKeyString)))
+                .compact();
+
+        assertThrows(TokenValidationException.class, () -> jwtHelper.verifyToken(expiredToken));
+    }
 
-        Long extractedUserId = jwtHelper.extractUserId(token);
+    @Test
+    void testVerifyToken_ForeignSignature() {
+        String foreignToken = Jwts.builder()
+                .setSubject("123")
+                .setExpiration(new Date(System.currentTimeMillis() + tokenLifetime))
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS256))
+                .compact();
 
-        assertEquals(userId, extractedUserId);
+        assertThrows(TokenValidationException.class, () -> jwtHelper.verifyToken(foreignToken));
     }
 
     @Test
-    void testExtractUserId_InvalidToken() {
-        String invalidToken = "invalid_token";
+    void testGenerateToken_RS256() throws TokenValidationException {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        SigningKeyService signingKeyService = mock(SigningKeyService.class);
+        when(signingKeyService.currentKey()).thenReturn(new SigningKey("kid", keyPair.getPrivate(), keyPair.getPublic()));
+        when(signingKeyService.publicKey("kid")).thenReturn(keyPair.getPublic());
+        jwtHelper.setSigningKeyService(signingKeyService);
+        when(userDetails.getId()).thenReturn(123L);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        String token = jwtHelper.generateToken(authentication, 0);
+
+        Jws<Claims> claims = Jwts.parserBuilder()
+                .setSigningKey(keyPair.getPublic())
+                .build()
+                .parseClaimsJws(token);
+        assertEquals("kid", claims.getHeader().getKeyId());
+        assertEquals(SignatureAlgorithm.RS256.getValue(), claims.getHeader().getAlgorithm());
+        assertEquals(123L, jwtHelper.verifyToken(token).getUserId());
+    }
+
+    @Test
+    void testVerifyToken_RS256UnknownKey() {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+        jwtHelper.setSigningKeyService(mock(SigningKeyService.class));
+        String foreignToken = Jwts.builder()
+                .setHeaderParam("kid", "unknown")
+                .setSubject("123")
+                .setExpiration(new Date(System.currentTimeMillis() + tokenLifetime))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
 
-        assertThrows(Exception.class, () -> jwtHelper.extractUserId(invalidToken));
+        assertThrows(TokenValidationException.class, () -> jwtHelper.verifyToken(foreignToken));
+        // Tokens signed with the shared secret are no longer accepted either
+        assertThrows(TokenValidationException.class, () -> jwtHelper.verifyToken(generateValidToken(123L)));
     }
 
-    private String generateValidToken() {
-        return generateValidToken(123L);
+    private CustomUserDetails createUserDetails() {
+        return new CustomUserDetails(
+                123L,
+                "johndoe",
+                "johndoe@mail.example",
+                "+79999999999",
+                "pass",
+                "John",
+                "Doe",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
     }
 
     private String generateValidToken(Long userId) {
@@ -0,0 +1,46 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.utils.CircuitBreaker;
+import com.pizza.pizzashop.utils.RedisCircuitBreakerHealthIndicator;
+import com.pizza.pizzashop.utils.RedisHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class RedisCircuitBreakerHealthIndicatorTests {
+    @Mock
+    private RedisHelper redisHelper;
+    @InjectMocks
+    private RedisCircuitBreakerHealthIndicator healthIndicator;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testHealth_Closed() {
+        when(redisHelper.getCircuitBreakerState()).thenReturn(CircuitBreaker.State.CLOSED);
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(CircuitBreaker.State.CLOSED, health.getDetails().get("state"));
+    }
+
+    @Test
+    void testHealth_Open() {
+        when(redisHelper.getCircuitBreakerState()).thenReturn(CircuitBreaker.State.OPEN);
+
+        Health health = healthIndicator.health();
+
+        assertEquals(RedisCircuitBreakerHealthIndicator.DEGRADED, health.getStatus());
+    }
+}
@@ -0,0 +1,76 @@
+package com.pizza.pizzashop.unit.utils;
+
+import com.pizza.pizzashop.utils.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTests {
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(60);
+
+    @Test
+    void testTryAcquire_Burst() {
+        TokenBucket bucket = new TokenBucket(5, PERIOD, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(0));
+        }
+        assertFalse(bucket.tryAcquire(0));
+    }
+
+    @Test
+    void testTryAcquire_Refill() {
+        TokenBucket bucket = new TokenBucket(5, PERIOD, 0);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(0);
+        }
+
+        long refillTime = PERIOD / 5;
+        assertEquals(refillTime, bucket.nanosUntilAvailable(0));
+        assertFalse(bucket.tryAcquire(refillTime - 1));
+        assertTrue(bucket.tryAcquire(refillTime));
+        assertFalse(bucket.tryAcquire(refillTime));
+    }
+
+    @Test
+    void testExhaustUntil() {
+        TokenBucket bucket = new TokenBucket(5, PERIOD, 0);
+
+        bucket.exhaustUntil(1000);
+
+        assertFalse(bucket.tryAcquire(999));
+        assertEquals(1, bucket.nanosUntilAvailable(999));
+        assertTrue(bucket.tryAcquire(1000));
+        assertFalse(bucket.tryAcquire(1000));
+    }
+
+    @Test
+    void testTryAcquire_Concurrent() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, PERIOD, 0);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 5000; i++) {
+            executor.execute(() -> {
+                if (bucket.tryAcquire(0)) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, admitted.get());
+    }
+
+    @Test
+    void testConstructor_InvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, PERIOD, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(5, 0, 0));
+    }
+}